@@ -0,0 +1,184 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Base64 encodes a stream of bytes and url encodes the result ('+', '/' and '=' become
+ * "%2B", "%2F" and "%3D") in one pass, a chunk at a time.
+ * The output is the same as URL encoding the output of Base64.encode() but
+ * only a fixed size buffer is used, whatever the size of the input.
+ */
+class Base64FormEncoder
+{
+	/** raw bytes read from the source in one go, must be a multiple of 3 */
+	private static final int CHUNK_SIZE = 3 * 1024;
+
+	private static final byte[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes();
+	private static final byte[] PLUS = { '%', '2', 'B' };
+	private static final byte[] SLASH = { '%', '2', 'F' };
+	private static final byte[] PAD = { '%', '3', 'D' };
+
+	private InputStream source;
+	private byte[] raw = new byte[CHUNK_SIZE];
+	// worst case every symbol is 3 bytes long
+	private byte[] encoded = new byte[CHUNK_SIZE / 3 * 4 * 3];
+	private int encodedPos;
+	private int encodedLen;
+	private boolean eof;
+
+	Base64FormEncoder(InputStream source)
+	{
+		this.source = source;
+	}
+
+	/**
+	 * Reads up to len encoded bytes, returns -1 once the source is exhausted
+	 */
+	int read(byte[] b, int off, int len) throws IOException
+	{
+		if(encodedPos >= encodedLen)
+		{
+			if(eof || !fill())
+				return -1;
+		}
+
+		int n = Math.min(len, encodedLen - encodedPos);
+		System.arraycopy(encoded, encodedPos, b, off, n);
+		encodedPos += n;
+
+		return n;
+	}
+
+	private boolean fill() throws IOException
+	{
+		int count = 0;
+
+		// a partial read would put padding in the middle of the stream, so fill the chunk
+		while(count < raw.length)
+		{
+			int n = source.read(raw, count, raw.length - count);
+
+			if(n < 0)
+			{
+				eof = true;
+				break;
+			}
+
+			count += n;
+		}
+
+		encodedPos = 0;
+		encodedLen = encode(raw, count, encoded);
+
+		return encodedLen > 0;
+	}
+
+	private static int encode(byte[] in, int len, byte[] out)
+	{
+		int pos = 0;
+		int i = 0;
+
+		for(; i + 2 < len; i += 3)
+		{
+			int bits = ((in[i] & 0xff) << 16) | ((in[i + 1] & 0xff) << 8) | (in[i + 2] & 0xff);
+
+			pos = put(out, pos, bits >>> 18);
+			pos = put(out, pos, (bits >>> 12) & 0x3f);
+			pos = put(out, pos, (bits >>> 6) & 0x3f);
+			pos = put(out, pos, bits & 0x3f);
+		}
+
+		int rem = len - i;
+
+		if(rem == 1)
+		{
+			int bits = (in[i] & 0xff) << 16;
+
+			pos = put(out, pos, bits >>> 18);
+			pos = put(out, pos, (bits >>> 12) & 0x3f);
+			pos = putPad(out, pos);
+			pos = putPad(out, pos);
+		}
+		else if(rem == 2)
+		{
+			int bits = ((in[i] & 0xff) << 16) | ((in[i + 1] & 0xff) << 8);
+
+			pos = put(out, pos, bits >>> 18);
+			pos = put(out, pos, (bits >>> 12) & 0x3f);
+			pos = put(out, pos, (bits >>> 6) & 0x3f);
+			pos = putPad(out, pos);
+		}
+
+		return pos;
+	}
+
+	private static int put(byte[] out, int pos, int sextet)
+	{
+		if(sextet == 62)
+			return putAll(out, pos, PLUS);
+		if(sextet == 63)
+			return putAll(out, pos, SLASH);
+
+		out[pos] = ALPHABET[sextet];
+
+		return pos + 1;
+	}
+
+	private static int putPad(byte[] out, int pos)
+	{
+		return putAll(out, pos, PAD);
+	}
+
+	private static int putAll(byte[] out, int pos, byte[] symbol)
+	{
+		out[pos] = symbol[0];
+		out[pos + 1] = symbol[1];
+		out[pos + 2] = symbol[2];
+
+		return pos + 3;
+	}
+
+	/**
+	 * Returns the exact number of bytes the encoded value will take, without encoding it
+	 */
+	static long getEncodedLength(byte[] data)
+	{
+		long length = 0;
+		int len = data.length;
+		int i = 0;
+
+		for(; i + 2 < len; i += 3)
+		{
+			int bits = ((data[i] & 0xff) << 16) | ((data[i + 1] & 0xff) << 8) | (data[i + 2] & 0xff);
+
+			length += symbolLength(bits >>> 18) + symbolLength((bits >>> 12) & 0x3f) + symbolLength((bits >>> 6) & 0x3f) + symbolLength(bits & 0x3f);
+		}
+
+		int rem = len - i;
+
+		if(rem == 1)
+		{
+			int bits = (data[i] & 0xff) << 16;
+
+			length += symbolLength(bits >>> 18) + symbolLength((bits >>> 12) & 0x3f) + 2 * PAD.length;
+		}
+		else if(rem == 2)
+		{
+			int bits = ((data[i] & 0xff) << 16) | ((data[i + 1] & 0xff) << 8);
+
+			length += symbolLength(bits >>> 18) + symbolLength((bits >>> 12) & 0x3f) + symbolLength((bits >>> 6) & 0x3f) + PAD.length;
+		}
+
+		return length;
+	}
+
+	private static int symbolLength(int sextet)
+	{
+		return sextet >= 62 ? 3 : 1;
+	}
+}
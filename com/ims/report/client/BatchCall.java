@@ -0,0 +1,383 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * Runs the jobs of a ReportBatch, see BatchPolicy
+ * A batch request holds the fields of every job prefixed with its position (0.template, 0.datasource, 1.template, ...)
+ * and a "batch" field with the number of jobs; the server answers application/x-report-batch, a frame per job
+ * in any order: the position of the job, its HTTP status and the length of the report (32-bit big endian each)
+ * followed by the report, or by the error message when the status is not 200
+ * The jobs a failed batch request left unanswered are sent one by one, so one bad job or connection
+ * never fails the others
+ */
+class BatchCall
+{
+	private final HttpReportClient client;
+	private final String serverUrl;
+	private final BatchPolicy policy;
+	private final ServerCapabilities capabilities;
+	private final List<ReportRequest> requests;
+	private final List<ReportCall> calls;
+	private final List<CompletableFuture<byte[]>> futures;
+	private final ReportPriority priority = ReportPriority.getCurrent();
+	private final CallOptions options;
+	// the jobs of each request to send, a single job is sent as a plain call
+	private final LinkedList<int[]> units = new LinkedList<int[]>();
+
+	/**
+	 * @param serverUrl	null for a cluster, the jobs are then sent one by one
+	 * @param options	the options of every job, null for none
+	 */
+	BatchCall(HttpReportClient client, String serverUrl, BatchPolicy policy, ServerCapabilities capabilities, List<ReportRequest> requests, CallOptions options)
+	{
+		this.client = client;
+		this.serverUrl = serverUrl;
+		this.policy = policy;
+		this.capabilities = capabilities;
+		this.requests = requests;
+		this.options = options;
+
+		calls = new ArrayList<ReportCall>(requests.size());
+		futures = new ArrayList<CompletableFuture<byte[]>>(requests.size());
+
+		for(int i = 0; i < requests.size(); i++)
+		{
+			ReportCall call = new ReportCall();
+
+			calls.add(call);
+			futures.add(new ReportFuture<byte[]>(call));
+		}
+	}
+
+	/**
+	 * Starts sending the jobs and returns their futures, in the order of the jobs
+	 */
+	List<CompletableFuture<byte[]>> start()
+	{
+		if(requests.isEmpty())
+			return futures;
+
+		if(serverUrl != null && requests.size() > 1 && policy.getMaxJobs() > 1 && !capabilities.isKnown(serverUrl))
+		{
+			// the first job alone tells whether the server takes batches
+			execute(new Runnable()
+			{
+				public void run()
+				{
+					runSingle(0);
+					plan(1);
+					startWorkers();
+				}
+			});
+		}
+		else
+		{
+			plan(0);
+			startWorkers();
+		}
+
+		return futures;
+	}
+
+	private synchronized void plan(int from)
+	{
+		boolean batches = serverUrl != null && policy.getMaxJobs() > 1 && capabilities.supports(serverUrl, ServerCapabilities.BATCH);
+		List<Integer> unit = new ArrayList<Integer>();
+		long bytes = 0;
+
+		for(int i = from; i < requests.size(); i++)
+		{
+			long length = requests.get(i).getBinaryLength();
+
+			if(!batches || length >= policy.getMaxBytes())
+			{
+				units.add(new int[] { i });
+				continue;
+			}
+
+			if(unit.size() >= policy.getMaxJobs() || bytes + length > policy.getMaxBytes())
+			{
+				units.add(toArray(unit));
+				unit.clear();
+				bytes = 0;
+			}
+
+			unit.add(Integer.valueOf(i));
+			bytes += length;
+		}
+
+		if(unit.size() > 0)
+			units.add(toArray(unit));
+	}
+
+	private synchronized int[] next()
+	{
+		return units.isEmpty() ? null : units.removeFirst();
+	}
+
+	private void startWorkers()
+	{
+		int workers;
+
+		synchronized(this)
+		{
+			workers = Math.min(policy.getParallelism(), units.size());
+		}
+
+		for(int i = 0; i < workers; i++)
+		{
+			execute(new Runnable()
+			{
+				public void run()
+				{
+					int[] unit;
+
+					while((unit = next()) != null)
+					{
+						if(unit.length == 1)
+							runSingle(unit[0]);
+						else
+							runBatch(unit);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Runs the task on the executor of the client, the requests carry the priority of the thread that submitted the batch
+	 * and the CallOptions it was given; the priority left on the executor thread by other code is put aside meanwhile
+	 */
+	private void execute(final Runnable task)
+	{
+		Executor executor = client.getExecutor();
+
+		try
+		{
+			executor.execute(new Runnable()
+			{
+				public void run()
+				{
+					ReportPriority previous = ReportPriority.setCurrent(null);
+
+					try
+					{
+						task.run();
+					}
+					catch (Throwable e)
+					{
+						failAll(e);
+					}
+					finally
+					{
+						ReportPriority.setCurrent(previous);
+					}
+				}
+			});
+		}
+		catch (RuntimeException e)
+		{
+			HttpReportClient.log.error("The HttpReportClient.submitBatch() jobs could not be scheduled: " + e);
+			failAll(new HttpReportClientException("The HttpReportClient.submitBatch() jobs could not be scheduled: " + e.toString(), e));
+		}
+	}
+
+	private void runSingle(int index)
+	{
+		CompletableFuture<byte[]> future = futures.get(index);
+
+		// cancelled
+		if(future.isDone())
+			return;
+
+		try
+		{
+			future.complete(client.executeForBytes(requests.get(index), calls.get(index)));
+		}
+		catch (Throwable e)
+		{
+			future.completeExceptionally(e);
+		}
+	}
+
+	private void runBatch(int[] unit)
+	{
+		List<Integer> pending = new ArrayList<Integer>(unit.length);
+
+		for(int i = 0; i < unit.length; i++)
+		{
+			if(!futures.get(unit[i]).isDone())
+				pending.add(Integer.valueOf(unit[i]));
+		}
+
+		int[] jobs = toArray(pending);
+
+		if(jobs.length <= 1)
+		{
+			for(int i = 0; i < jobs.length; i++)
+			{
+				runSingle(jobs[i]);
+			}
+
+			return;
+		}
+
+		ReportRequest request = new ReportRequest(ReportOperation.SUBMIT_BATCH, serverUrl, null, null, null, priority, options);
+
+		request.addField(ReportRequest.BATCH, String.valueOf(jobs.length));
+
+		for(int i = 0; i < jobs.length; i++)
+		{
+			request.addJob(i, requests.get(jobs[i]));
+		}
+
+		FrameHandler handler = new FrameHandler(jobs);
+
+		try
+		{
+			client.execute(request, handler, null);
+		}
+		catch (HttpReportClientException e)
+		{
+			HttpReportClient.log.warn("The batch of " + jobs.length + " jobs sent to " + serverUrl + " failed, the " + handler.getUnanswered()
+				+ " jobs not answered are sent one by one: " + e.getMessage());
+		}
+
+		for(int i = 0; i < jobs.length; i++)
+		{
+			if(!handler.isAnswered(i))
+				runSingle(jobs[i]);
+		}
+	}
+
+	private void failAll(Throwable e)
+	{
+		for(int i = 0; i < futures.size(); i++)
+		{
+			futures.get(i).completeExceptionally(e);
+		}
+	}
+
+	private static int[] toArray(List<Integer> list)
+	{
+		int[] array = new int[list.size()];
+
+		for(int i = 0; i < array.length; i++)
+		{
+			array[i] = list.get(i).intValue();
+		}
+
+		return array;
+	}
+
+	/**
+	 * Completes the future of every job as its frame arrives
+	 */
+	private class FrameHandler implements ResponseHandler<Integer>
+	{
+		private final int[] jobs;
+		private final boolean[] answered;
+		private int count;
+
+		FrameHandler(int[] jobs)
+		{
+			this.jobs = jobs;
+			answered = new boolean[jobs.length];
+		}
+
+		public Integer handleResponse(InputStream body, long contentLength) throws IOException
+		{
+			if(body == null)
+				return Integer.valueOf(0);
+
+			DataInputStream in = new DataInputStream(new BufferedInputStream(body, 8 * 1024));
+
+			while(true)
+			{
+				int position;
+
+				try
+				{
+					position = in.readInt();
+				}
+				catch (EOFException e)
+				{
+					break;
+				}
+
+				int status = in.readInt();
+				int length = in.readInt();
+
+				if(position < 0 || position >= jobs.length || length < 0)
+					throw new IOException("Invalid batch response frame: job " + position + " of " + jobs.length + ", " + length + " bytes");
+
+				// checked before the allocation, the job is sent again alone
+				if(length > policy.getMaxFrameBytes())
+					throw new IOException("The batch response frame of job " + position + " is " + length + " bytes, more than the " + policy.getMaxFrameBytes() + " bytes of BatchPolicy.maxFrameBytes");
+
+				byte[] data = new byte[length];
+				in.readFully(data);
+
+				answer(position, status, data);
+			}
+
+			return Integer.valueOf(getAnswered());
+		}
+
+		private void answer(int position, int status, byte[] data)
+		{
+			CompletableFuture<byte[]> future = futures.get(jobs[position]);
+
+			synchronized(this)
+			{
+				if(answered[position])
+					return;
+
+				answered[position] = true;
+				count++;
+			}
+
+			if(status == 200)
+			{
+				future.complete(data);
+				return;
+			}
+
+			String message = new String(data, 0, Math.min(data.length, 1024));
+
+			HttpReportClient.log.error("The job " + jobs[position] + " of the HttpReportClient.submitBatch() call returned the error: " + status);
+			future.completeExceptionally(new HttpReportClientException("The report server returned the error: " + status + ", the error message was: '" + message + "'", status));
+		}
+
+		synchronized boolean isAnswered(int position)
+		{
+			return answered[position];
+		}
+
+		synchronized int getAnswered()
+		{
+			return count;
+		}
+
+		synchronized int getUnanswered()
+		{
+			return jobs.length - count;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * How the jobs of HttpReportClient.submitBatch() are sent
+ * A report server advertising the "batch" capability gets up to maxJobs jobs (and about maxBytes of
+ * templates and datasources) in one request and streams the reports back as they are rendered;
+ * the other servers get one call per job. Either way at most parallelism requests of a batch are in progress
+ */
+public class BatchPolicy
+{
+	public static final BatchPolicy DEFAULT = builder().build();
+
+	private final int maxJobs;
+	private final long maxBytes;
+	private final int maxFrameBytes;
+	private final int parallelism;
+
+	private BatchPolicy(Builder builder)
+	{
+		maxJobs = builder.maxJobs;
+		maxBytes = builder.maxBytes;
+		maxFrameBytes = builder.maxFrameBytes;
+		parallelism = builder.parallelism;
+	}
+
+	public static Builder builder()
+	{
+		return new Builder();
+	}
+
+	public int getMaxJobs()
+	{
+		return maxJobs;
+	}
+
+	public long getMaxBytes()
+	{
+		return maxBytes;
+	}
+
+	public int getMaxFrameBytes()
+	{
+		return maxFrameBytes;
+	}
+
+	public int getParallelism()
+	{
+		return parallelism;
+	}
+
+	public String toString()
+	{
+		return "BatchPolicy[jobs: " + maxJobs + "; bytes: " + maxBytes + "; frame: " + maxFrameBytes + "; parallelism: " + parallelism + "]";
+	}
+
+	public static class Builder
+	{
+		private int maxJobs = 50;
+		private long maxBytes = 8 * 1024 * 1024;
+		private int maxFrameBytes = 64 * 1024 * 1024;
+		private int parallelism = 4;
+
+		private Builder()
+		{
+		}
+
+		/**
+		 * Jobs sent in one request (default 50), 1 sends every job alone
+		 */
+		public Builder maxJobs(int value)
+		{
+			maxJobs = value;
+			return this;
+		}
+
+		/**
+		 * Bytes of templates, datasources and documents after which a request takes no more jobs (default 8 MB)
+		 * A bigger job is sent alone
+		 */
+		public Builder maxBytes(long value)
+		{
+			maxBytes = value;
+			return this;
+		}
+
+		/**
+		 * Largest report read from a batch response (default 64 MB), the length of a frame comes from the server
+		 * A bigger one fails the request before it is read, its job and the ones not answered yet are sent alone
+		 */
+		public Builder maxFrameBytes(int value)
+		{
+			maxFrameBytes = value;
+			return this;
+		}
+
+		/**
+		 * Requests of one batch in progress at the same time (default 4)
+		 */
+		public Builder parallelism(int value)
+		{
+			parallelism = value;
+			return this;
+		}
+
+		public BatchPolicy build()
+		{
+			if(maxJobs <= 0 || maxBytes <= 0 || maxFrameBytes <= 0 || parallelism <= 0)
+				throw new IllegalArgumentException("maxJobs, maxBytes, maxFrameBytes and parallelism must be greater than 0");
+
+			return new BatchPolicy(this);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A limit on the calls in progress with a bounded number of waiting calls, see BulkheadPolicy
+ */
+class Bulkhead
+{
+	private final Semaphore permits;
+	private final AtomicInteger queued = new AtomicInteger();
+
+	Bulkhead(int limit)
+	{
+		permits = new Semaphore(limit, true);
+	}
+
+	/**
+	 * Returns false if the call must be rejected: no slot is free and the queue is full or the wait timed out
+	 */
+	boolean tryAcquire(int maxQueued, long maxWait) throws InterruptedException
+	{
+		if(permits.tryAcquire())
+			return true;
+
+		if(maxQueued == 0 || maxWait == 0)
+			return false;
+
+		if(queued.incrementAndGet() > maxQueued)
+		{
+			queued.decrementAndGet();
+			return false;
+		}
+
+		try
+		{
+			return permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS);
+		}
+		finally
+		{
+			queued.decrementAndGet();
+		}
+	}
+
+	void release()
+	{
+		permits.release();
+	}
+}
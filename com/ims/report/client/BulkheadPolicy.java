@@ -0,0 +1,124 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * How many calls may be in progress at the same time on a report server
+ * The calls over the limit wait, at most maxQueued of them and for at most maxWait; the others are
+ * rejected straight away with a RequestRejectedException, so an overloaded server turns into quick
+ * errors instead of threads piling up on it
+ */
+public class BulkheadPolicy
+{
+	/**
+	 * No limit (the default), the connection pool limits still apply
+	 */
+	public static final BulkheadPolicy NONE = builder().build();
+
+	private final int maxConcurrentPerServer;
+	private final int maxConcurrentPerOperation;
+	private final int maxQueued;
+	private final long maxWait;
+
+	private BulkheadPolicy(Builder builder)
+	{
+		maxConcurrentPerServer = builder.maxConcurrentPerServer;
+		maxConcurrentPerOperation = builder.maxConcurrentPerOperation;
+		maxQueued = builder.maxQueued;
+		maxWait = builder.maxWait;
+	}
+
+	public static Builder builder()
+	{
+		return new Builder();
+	}
+
+	public int getMaxConcurrentPerServer()
+	{
+		return maxConcurrentPerServer;
+	}
+
+	public int getMaxConcurrentPerOperation()
+	{
+		return maxConcurrentPerOperation;
+	}
+
+	public int getMaxQueued()
+	{
+		return maxQueued;
+	}
+
+	public long getMaxWait()
+	{
+		return maxWait;
+	}
+
+	public boolean isEnabled()
+	{
+		return maxConcurrentPerServer > 0 || maxConcurrentPerOperation > 0;
+	}
+
+	public String toString()
+	{
+		return "BulkheadPolicy[per server: " + maxConcurrentPerServer + "; per operation: " + maxConcurrentPerOperation + "; queued: " + maxQueued + "; wait: " + maxWait + " ms]";
+	}
+
+	public static class Builder
+	{
+		private int maxConcurrentPerServer = 0;
+		private int maxConcurrentPerOperation = 0;
+		private int maxQueued = 0;
+		private long maxWait = 1000;
+
+		private Builder()
+		{
+		}
+
+		/**
+		 * Calls in progress on one report server, 0 for no limit (default)
+		 */
+		public Builder maxConcurrentPerServer(int value)
+		{
+			maxConcurrentPerServer = value;
+			return this;
+		}
+
+		/**
+		 * Calls of one operation (buildReport, printReport, ...) in progress on one report server, 0 for no limit (default)
+		 * Keeps the slow operations from taking every slot of the server
+		 */
+		public Builder maxConcurrentPerOperation(int value)
+		{
+			maxConcurrentPerOperation = value;
+			return this;
+		}
+
+		/**
+		 * Calls that may wait for a slot of a server or operation, the next ones are rejected (default 0, no wait)
+		 */
+		public Builder maxQueued(int value)
+		{
+			maxQueued = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds a queued call waits for a slot before being rejected (default 1 second)
+		 */
+		public Builder maxWait(long value)
+		{
+			maxWait = value;
+			return this;
+		}
+
+		public BulkheadPolicy build()
+		{
+			if(maxConcurrentPerServer < 0 || maxConcurrentPerOperation < 0 || maxQueued < 0 || maxWait < 0)
+				throw new IllegalArgumentException("The bulkhead limits must not be negative");
+
+			return new BulkheadPolicy(this);
+		}
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.ims.report.client.exceptions.DeadlineExceededException;
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * A deadline and a cancel switch for HttpReportClient calls
+ * The deadline bounds the whole call: the waits in the client (scheduler, bulkhead, connection pool, retries),
+ * the connection, the upload and the download; a call still running when it passes is aborted, its connection
+ * closed, and fails with a DeadlineExceededException. cancel() aborts the calls in progress the same way, from any thread
+ * The time left is sent to the server in the X-Report-Time-Budget header (milliseconds) so it can drop
+ * a call nobody waits for any more
+ *
+ * Every call method of HttpReportClient has an overload taking the options as its last parameter:
+ * <pre>
+ * CallOptions options = CallOptions.withTimeout(5000);
+ * pdf = client.buildReport(serverUrl, template, datasource, ExportType.PDF, null, 1, options);
+ *
+ * // from another thread, the user left
+ * options.cancel();
+ * </pre>
+ *
+ * The methods without it take the options set on the calling thread, for code that cannot pass them down:
+ * <pre>
+ * CallOptions previous = CallOptions.setCurrent(options);
+ * try
+ * {
+ * 	pdf = client.buildReport(serverUrl, template, datasource, ExportType.PDF, null, 1);
+ * }
+ * finally
+ * {
+ * 	CallOptions.setCurrent(previous);
+ * }
+ * </pre>
+ * Options not put back (finally) stay on the thread, a pooled one then fails all its later calls once they expire
+ *
+ * The async calls keep the options they were given, the time they wait for a thread counts
+ * One CallOptions can be shared by several calls, they have the same deadline and are cancelled together
+ * A call with options is not merged with identical calls in progress, see HttpReportClientConfig.coalesceRequests()
+ */
+public class CallOptions
+{
+	public static final String BUDGET_HEADER = "X-Report-Time-Budget";
+
+	private static final ThreadLocal<CallOptions> current = new ThreadLocal<CallOptions>();
+
+	private final boolean limited;
+	// System.nanoTime() of the deadline
+	private final long deadline;
+	private final long timeout;
+	private final List<ReportCall> calls = new ArrayList<ReportCall>();
+	private ScheduledFuture<?> timer;
+	private boolean cancelled;
+
+	private CallOptions(boolean limited, long timeout)
+	{
+		this.limited = limited;
+		this.timeout = timeout;
+		this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+	}
+
+	/**
+	 * The calls must complete within the given milliseconds from now
+	 */
+	public static CallOptions withTimeout(long millis)
+	{
+		if(millis <= 0)
+			throw new IllegalArgumentException("The timeout must be greater than 0");
+
+		return new CallOptions(true, millis);
+	}
+
+	/**
+	 * The calls must complete before the given time (System.currentTimeMillis() based)
+	 * A deadline already passed makes the calls fail without being sent
+	 */
+	public static CallOptions withDeadline(long timeMillis)
+	{
+		return new CallOptions(true, timeMillis - System.currentTimeMillis());
+	}
+
+	/**
+	 * No deadline, the calls can only be cancelled
+	 */
+	public static CallOptions cancellable()
+	{
+		return new CallOptions(false, 0);
+	}
+
+	/**
+	 * The options of the calls made by the current thread, null if none
+	 */
+	public static CallOptions getCurrent()
+	{
+		return current.get();
+	}
+
+	/**
+	 * Sets the options of the calls made by the current thread and returns the previous ones, null removes them
+	 */
+	public static CallOptions setCurrent(CallOptions options)
+	{
+		CallOptions previous = current.get();
+
+		if(options == null)
+			current.remove();
+		else
+			current.set(options);
+
+		return previous;
+	}
+
+	/**
+	 * Milliseconds left before the deadline, Long.MAX_VALUE if there is none
+	 */
+	public long getRemaining()
+	{
+		if(!limited)
+			return Long.MAX_VALUE;
+
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+	}
+
+	public boolean hasDeadline()
+	{
+		return limited;
+	}
+
+	public boolean isExpired()
+	{
+		return limited && deadline - System.nanoTime() <= 0;
+	}
+
+	/**
+	 * Aborts the calls in progress and makes the next ones fail straight away
+	 * A call with side effects (printing) may still be carried out by the report server
+	 */
+	public void cancel()
+	{
+		List<ReportCall> aborted;
+
+		synchronized(this)
+		{
+			if(cancelled)
+				return;
+
+			cancelled = true;
+			aborted = new ArrayList<ReportCall>(calls);
+
+			if(timer != null)
+				timer.cancel(false);
+		}
+
+		abort(aborted);
+	}
+
+	public synchronized boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	/**
+	 * Registers a call starting with these options, it is aborted by cancel() or at the deadline
+	 */
+	void bind(ReportRequest request, ReportCall call) throws HttpReportClientException
+	{
+		synchronized(this)
+		{
+			if(cancelled)
+				throw new HttpReportClientException("The HttpReportClient." + request.getFunction() + "() call was cancelled");
+
+			if(isExpired())
+				throw new DeadlineExceededException("The HttpReportClient." + request.getFunction() + "() call was not sent, its deadline passed");
+
+			call.setOptions(this);
+			calls.add(call);
+
+			if(limited && timer == null)
+			{
+				timer = ReportExecutors.getScheduler().schedule(new Runnable()
+				{
+					public void run()
+					{
+						expire();
+					}
+				}, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			}
+		}
+	}
+
+	synchronized void unbind(ReportCall call)
+	{
+		calls.remove(call);
+	}
+
+	/**
+	 * The exception to throw for a failed call: a call aborted by the deadline fails with a DeadlineExceededException
+	 */
+	HttpReportClientException translate(ReportRequest request, HttpReportClientException e)
+	{
+		if(e instanceof DeadlineExceededException || isCancelled() || !isExpired())
+			return e;
+
+		return new DeadlineExceededException("The HttpReportClient." + request.getFunction() + "() call exceeded its deadline of " + timeout + " ms", e);
+	}
+
+	private void expire()
+	{
+		List<ReportCall> aborted;
+
+		synchronized(this)
+		{
+			aborted = new ArrayList<ReportCall>(calls);
+		}
+
+		if(aborted.size() > 0)
+			HttpReportClient.log.warn("The deadline of " + timeout + " ms passed, aborting " + aborted.size() + " call(s)");
+
+		abort(aborted);
+	}
+
+	private static void abort(List<ReportCall> calls)
+	{
+		for(int i = 0; i < calls.size(); i++)
+		{
+			calls.get(i).abort();
+		}
+	}
+
+	public String toString()
+	{
+		return "CallOptions[" + (limited ? "timeout: " + timeout + " ms; remaining: " + getRemaining() + " ms" : "no deadline") + (isCancelled() ? "; cancelled" : "") + "]";
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * The circuit breaker of one report server, see CircuitBreakerPolicy
+ * The outcomes are kept in a ring of the last windowSize calls
+ */
+class CircuitBreaker
+{
+	private static final byte SUCCEEDED = 0;
+	private static final byte FAILED = 1;
+	private static final byte SLOW = 2;
+
+	private final String serverUrl;
+	private final CircuitBreakerPolicy policy;
+
+	private CircuitState state = CircuitState.CLOSED;
+	private final byte[] outcomes;
+	private int next;
+	private int count;
+	private int failures;
+	private int slowCalls;
+	private long openedAt;
+	private int trialsStarted;
+
+	CircuitBreaker(String serverUrl, CircuitBreakerPolicy policy)
+	{
+		this.serverUrl = serverUrl;
+		this.policy = policy;
+
+		outcomes = new byte[policy.getWindowSize()];
+	}
+
+	synchronized CircuitState getState()
+	{
+		return state;
+	}
+
+	/**
+	 * Returns false if the call must be rejected, a call let through must be completed by recordOutcome() or released()
+	 */
+	synchronized boolean tryAcquire()
+	{
+		if(state == CircuitState.OPEN)
+		{
+			if(System.currentTimeMillis() - openedAt < policy.getOpenDuration())
+				return false;
+
+			HttpReportClient.log.info("The circuit of the report server " + serverUrl + " is half open, sending " + policy.getHalfOpenCalls() + " trial calls");
+			state = CircuitState.HALF_OPEN;
+			clear();
+			trialsStarted = 0;
+		}
+
+		if(state == CircuitState.HALF_OPEN)
+		{
+			if(trialsStarted >= policy.getHalfOpenCalls())
+				return false;
+
+			trialsStarted++;
+		}
+
+		return true;
+	}
+
+	/**
+	 * The call let through ended without telling anything about the server (cancelled)
+	 */
+	synchronized void released()
+	{
+		if(state == CircuitState.HALF_OPEN && trialsStarted > count)
+			trialsStarted--;
+	}
+
+	synchronized void recordOutcome(boolean failed, long millis)
+	{
+		// a call started before the circuit opened
+		if(state == CircuitState.OPEN)
+			return;
+
+		byte outcome = failed ? FAILED : SUCCEEDED;
+
+		if(millis > policy.getSlowCallDuration())
+			outcome |= SLOW;
+
+		if(count == outcomes.length)
+			remove(outcomes[next]);
+		else
+			count++;
+
+		outcomes[next] = outcome;
+		next = (next + 1) % outcomes.length;
+
+		if((outcome & FAILED) != 0)
+			failures++;
+		if((outcome & SLOW) != 0)
+			slowCalls++;
+
+		if(state == CircuitState.HALF_OPEN)
+		{
+			if(count < policy.getHalfOpenCalls())
+				return;
+
+			if(isTripped())
+			{
+				open();
+			}
+			else
+			{
+				HttpReportClient.log.info("The circuit of the report server " + serverUrl + " is closed");
+				state = CircuitState.CLOSED;
+				clear();
+			}
+		}
+		else if(count >= policy.getMinimumCalls() && isTripped())
+		{
+			open();
+		}
+	}
+
+	private boolean isTripped()
+	{
+		double failureThreshold = policy.getFailureRateThreshold();
+		double slowThreshold = policy.getSlowCallRateThreshold();
+
+		return (failureThreshold > 0 && failures * 100.0 / count >= failureThreshold)
+			|| (slowThreshold > 0 && slowCalls * 100.0 / count >= slowThreshold);
+	}
+
+	private void open()
+	{
+		HttpReportClient.log.warn("The circuit of the report server " + serverUrl + " is open for " + policy.getOpenDuration() + " ms: "
+			+ failures + " failed and " + slowCalls + " slow calls out of " + count);
+
+		state = CircuitState.OPEN;
+		openedAt = System.currentTimeMillis();
+	}
+
+	private void remove(byte outcome)
+	{
+		if((outcome & FAILED) != 0)
+			failures--;
+		if((outcome & SLOW) != 0)
+			slowCalls--;
+	}
+
+	private void clear()
+	{
+		next = 0;
+		count = 0;
+		failures = 0;
+		slowCalls = 0;
+	}
+}
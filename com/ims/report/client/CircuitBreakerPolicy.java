@@ -0,0 +1,194 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * When the circuit breaker of a report server opens
+ * The outcome of the last windowSize calls to a server is kept; once at least minimumCalls are there
+ * the circuit opens when the failed calls (502, 503, 504, connection errors) or the slow calls reach
+ * their rate. While open every call to the server is rejected with a RequestRejectedException; after
+ * openDuration a few trial calls are let through and close the circuit again if they go well
+ * A report the server cannot render (500) is not a failure of the server
+ *
+ * <pre>
+ * HttpReportClient client = new HttpReportClient(HttpReportClientConfig.builder()
+ * 		.circuitBreaker(CircuitBreakerPolicy.builder().failureRateThreshold(50).slowCallDuration(1000 * 30).build())
+ * 		.build());
+ * </pre>
+ */
+public class CircuitBreakerPolicy
+{
+	/**
+	 * The circuit never opens (the default)
+	 */
+	public static final CircuitBreakerPolicy NONE = builder().failureRateThreshold(0).slowCallRateThreshold(0).build();
+
+	/**
+	 * Opens at 50% failed or 80% slower than a minute over the last 50 calls, for 30 seconds
+	 */
+	public static final CircuitBreakerPolicy DEFAULT = builder().build();
+
+	private final double failureRateThreshold;
+	private final double slowCallRateThreshold;
+	private final long slowCallDuration;
+	private final int windowSize;
+	private final int minimumCalls;
+	private final long openDuration;
+	private final int halfOpenCalls;
+
+	private CircuitBreakerPolicy(Builder builder)
+	{
+		failureRateThreshold = builder.failureRateThreshold;
+		slowCallRateThreshold = builder.slowCallRateThreshold;
+		slowCallDuration = builder.slowCallDuration;
+		windowSize = builder.windowSize;
+		minimumCalls = builder.minimumCalls;
+		openDuration = builder.openDuration;
+		halfOpenCalls = builder.halfOpenCalls;
+	}
+
+	public static Builder builder()
+	{
+		return new Builder();
+	}
+
+	public double getFailureRateThreshold()
+	{
+		return failureRateThreshold;
+	}
+
+	public double getSlowCallRateThreshold()
+	{
+		return slowCallRateThreshold;
+	}
+
+	public long getSlowCallDuration()
+	{
+		return slowCallDuration;
+	}
+
+	public int getWindowSize()
+	{
+		return windowSize;
+	}
+
+	public int getMinimumCalls()
+	{
+		return minimumCalls;
+	}
+
+	public long getOpenDuration()
+	{
+		return openDuration;
+	}
+
+	public int getHalfOpenCalls()
+	{
+		return halfOpenCalls;
+	}
+
+	public boolean isEnabled()
+	{
+		return failureRateThreshold > 0 || slowCallRateThreshold > 0;
+	}
+
+	public String toString()
+	{
+		return "CircuitBreakerPolicy[failures: " + failureRateThreshold + "%; slow: " + slowCallRateThreshold + "% over " + slowCallDuration
+			+ " ms; window: " + windowSize + " calls, " + minimumCalls + " minimum; open: " + openDuration + " ms; half open: " + halfOpenCalls + " calls]";
+	}
+
+	public static class Builder
+	{
+		private double failureRateThreshold = 50;
+		private double slowCallRateThreshold = 80;
+		private long slowCallDuration = 1000 * 60;
+		private int windowSize = 50;
+		private int minimumCalls = 20;
+		private long openDuration = 1000 * 30;
+		private int halfOpenCalls = 5;
+
+		private Builder()
+		{
+		}
+
+		/**
+		 * Percentage of failed calls opening the circuit, 0 ignores the failures (default 50)
+		 */
+		public Builder failureRateThreshold(double value)
+		{
+			failureRateThreshold = value;
+			return this;
+		}
+
+		/**
+		 * Percentage of slow calls opening the circuit, 0 ignores the slow calls (default 80)
+		 */
+		public Builder slowCallRateThreshold(double value)
+		{
+			slowCallRateThreshold = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds above which a call is slow (default 1 minute)
+		 */
+		public Builder slowCallDuration(long value)
+		{
+			slowCallDuration = value;
+			return this;
+		}
+
+		/**
+		 * The number of recent calls the rates are computed on (default 50)
+		 */
+		public Builder windowSize(int value)
+		{
+			windowSize = value;
+			return this;
+		}
+
+		/**
+		 * Calls needed in the window before the circuit can open (default 20)
+		 */
+		public Builder minimumCalls(int value)
+		{
+			minimumCalls = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds the circuit stays open before the trial calls (default 30 seconds)
+		 */
+		public Builder openDuration(long value)
+		{
+			openDuration = value;
+			return this;
+		}
+
+		/**
+		 * Trial calls let through once the open time is over (default 5)
+		 */
+		public Builder halfOpenCalls(int value)
+		{
+			halfOpenCalls = value;
+			return this;
+		}
+
+		public CircuitBreakerPolicy build()
+		{
+			if(failureRateThreshold < 0 || failureRateThreshold > 100 || slowCallRateThreshold < 0 || slowCallRateThreshold > 100)
+				throw new IllegalArgumentException("The rate thresholds must be between 0 and 100");
+			if(windowSize < 1 || minimumCalls < 1 || halfOpenCalls < 1)
+				throw new IllegalArgumentException("windowSize, minimumCalls and halfOpenCalls must be at least 1");
+			if(minimumCalls > windowSize)
+				throw new IllegalArgumentException("minimumCalls must not be greater than windowSize");
+			if(slowCallDuration <= 0 || openDuration < 0)
+				throw new IllegalArgumentException("slowCallDuration must be greater than 0 and openDuration must not be negative");
+
+			return new CircuitBreakerPolicy(this);
+		}
+	}
+}
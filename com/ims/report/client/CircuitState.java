@@ -0,0 +1,36 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * The state of the circuit breaker of a report server
+ */
+public class CircuitState
+{
+	private String name;
+
+	/**
+	 * The calls are sent, their outcome is recorded
+	 */
+	public static final CircuitState CLOSED = new CircuitState("CLOSED");
+	/**
+	 * Too many calls failed or were slow, the calls are rejected straight away
+	 */
+	public static final CircuitState OPEN = new CircuitState("OPEN");
+	/**
+	 * The open time is over, a few trial calls decide whether the circuit closes or opens again
+	 */
+	public static final CircuitState HALF_OPEN = new CircuitState("HALF_OPEN");
+
+	private CircuitState(String name)
+	{
+		this.name = name;
+	}
+
+	public String toString()
+	{
+		return name;
+	}
+}
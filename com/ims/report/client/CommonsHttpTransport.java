@@ -0,0 +1,448 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.HttpException;
+import org.apache.commons.httpclient.HttpMethodBase;
+import org.apache.commons.httpclient.HttpState;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.URI;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.params.HttpMethodParams;
+
+/**
+ * The ReportTransport built on Commons HttpClient 3.x (HttpBackend.COMMONS)
+ * Every call holds a pooled HTTP/1.1 connection and the calling thread for its whole duration
+ */
+class CommonsHttpTransport implements ReportTransport
+{
+	private static final int MAX_BUFFER_LIMIT_NO_WARNING = 1024*1024;
+
+	private HttpClient client;
+	private ReportConnectionManager connectionManager;
+	private IdleConnectionReaper idleConnectionReaper;
+	private int soTimeout;
+
+	CommonsHttpTransport(HttpReportClientConfig config)
+	{
+		connectionManager = new ReportConnectionManager(new MultiThreadedHttpConnectionManager());
+
+		HttpConnectionManagerParams params = connectionManager.getParams();
+		params.setDefaultMaxConnectionsPerHost(config.getMaxConnectionsPerHost());
+		params.setMaxTotalConnections(config.getMaxTotalConnections());
+		params.setConnectionTimeout(config.getConnectionTimeout());
+		params.setSoTimeout(config.getSoTimeout());
+		soTimeout = config.getSoTimeout();
+		params.setTcpNoDelay(config.isTcpNoDelay());
+		params.setStaleCheckingEnabled(config.isStaleCheckingEnabled());
+		if(config.getSendBufferSize() > 0)
+			params.setSendBufferSize(config.getSendBufferSize());
+		if(config.getReceiveBufferSize() > 0)
+			params.setReceiveBufferSize(config.getReceiveBufferSize());
+
+		client = new HttpClient(connectionManager);
+        client.getParams().setConnectionManagerTimeout(config.getConnectionPoolTimeout());
+        client.getParams().setBooleanParameter(HttpMethodParams.USE_EXPECT_CONTINUE, true);
+        client.getParams().setIntParameter(HttpMethodParams.BUFFER_WARN_TRIGGER_LIMIT, MAX_BUFFER_LIMIT_NO_WARNING);
+
+        if(config.getIdleCheckInterval() > 0)
+        {
+        	idleConnectionReaper = IdleConnectionReaper.start(connectionManager, config.getIdleCheckInterval(), config.getIdleConnectionTimeout());
+        }
+	}
+
+	public TransportExchange post(TransportRequest request) throws IOException
+	{
+		final PostMethod post = new PostMethod(request.getServerUrl());
+
+		post.setRequestEntity(new BodyEntity(request.getBody()));
+
+		for(Iterator<Map.Entry<String, String>> it = request.getHeaders().entrySet().iterator(); it.hasNext();)
+		{
+			Map.Entry<String, String> header = it.next();
+
+			post.setRequestHeader(header.getKey(), header.getValue());
+		}
+
+		// the deadline of the call shortens the read timeout; without the 100-continue handshake, as
+		// writeRequest() puts the timeout of the connection back after waiting for the 100 response
+		if(request.getTimeout() > 0 && (soTimeout == 0 || request.getTimeout() < soTimeout))
+		{
+			post.getParams().setSoTimeout((int)Math.min(request.getTimeout(), Integer.MAX_VALUE));
+			post.getParams().setBooleanParameter(HttpMethodParams.USE_EXPECT_CONTINUE, false);
+		}
+
+		boolean attached = request.setAbortHandler(new Runnable()
+		{
+			public void run()
+			{
+				post.abort();
+			}
+		});
+
+		if(!attached)
+			throw new InterruptedIOException("The call was cancelled");
+
+		// the wait for a pooled connection counts against the deadline too
+		if(request.getTimeout() > 0)
+			connectionManager.setCallTimeout(request.getTimeout());
+
+		try
+		{
+			client.executeMethod(post);
+		}
+		catch (IOException e)
+		{
+			post.releaseConnection();
+			throw e;
+		}
+		catch (RuntimeException e)
+		{
+			post.releaseConnection();
+			throw e;
+		}
+		finally
+		{
+			connectionManager.clearCallTimeout();
+		}
+
+		return new CommonsExchange(post);
+	}
+
+	/**
+	 * Leases the connections together, so the pool hands out distinct ones, then opens and probes each
+	 * The connections used by calls count as warm, only the free slots of the pool are leased
+	 */
+	public int warmUp(String serverUrl, int connections, WarmUpPolicy policy) throws IOException
+	{
+		URI uri = new URI(serverUrl, true);
+		HostConfiguration hostConfiguration = new HostConfiguration();
+		hostConfiguration.setHost(uri);
+
+		int max = connectionManager.getParams().getMaxConnectionsPerHost(hostConfiguration);
+		ConnectionPoolStats stats = connectionManager.getStats(hostConfiguration.getHostURL());
+		int count = Math.min(connections, max - (stats != null ? stats.getLeased() : 0));
+		List<HttpConnection> leased = new ArrayList<HttpConnection>(count);
+		int answered = stats != null ? Math.min(stats.getLeased(), connections) : 0;
+		IOException failure = null;
+
+		try
+		{
+			for(int i = 0; i < count; i++)
+			{
+				try
+				{
+					leased.add(connectionManager.getConnectionWithTimeout(hostConfiguration, policy.getTimeout()));
+				}
+				catch (ConnectionPoolTimeoutException e)
+				{
+					// taken by calls meanwhile
+					answered++;
+				}
+			}
+
+			for(int i = 0; i < leased.size(); i++)
+			{
+				HttpConnection connection = leased.get(i);
+
+				try
+				{
+					connection.closeIfStale();
+
+					if(!connection.isOpen())
+						open(connection, policy.getTimeout());
+
+					if(probe(connection, uri, policy))
+						answered++;
+				}
+				catch (IOException e)
+				{
+					connection.close();
+					failure = e;
+				}
+			}
+		}
+		finally
+		{
+			release(leased);
+		}
+
+		if(failure != null && answered == 0)
+			throw failure;
+
+		return answered;
+	}
+
+	/**
+	 * Leases the connections idle in the pool together and probes the ones still open, a connection the pool
+	 * creates meanwhile (calls took the idle ones) is given back unopened
+	 * The connections used by calls count as open
+	 */
+	public int keepAlive(String serverUrl, WarmUpPolicy policy) throws IOException
+	{
+		URI uri = new URI(serverUrl, true);
+		HostConfiguration hostConfiguration = new HostConfiguration();
+		hostConfiguration.setHost(uri);
+
+		ConnectionPoolStats stats = connectionManager.getStats(hostConfiguration.getHostURL());
+
+		if(stats == null)
+			return 0;
+
+		List<HttpConnection> leased = new ArrayList<HttpConnection>(stats.getAvailable());
+		int answered = stats.getLeased();
+		IOException failure = null;
+
+		try
+		{
+			for(int i = 0; i < stats.getAvailable(); i++)
+			{
+				try
+				{
+					// the idle connections are handed out at once, no waiting for the ones of the calls
+					leased.add(connectionManager.getConnectionWithTimeout(hostConfiguration, 1));
+				}
+				catch (ConnectionPoolTimeoutException e)
+				{
+					break;
+				}
+			}
+
+			for(int i = 0; i < leased.size(); i++)
+			{
+				HttpConnection connection = leased.get(i);
+
+				try
+				{
+					connection.closeIfStale();
+
+					if(connection.isOpen() && probe(connection, uri, policy))
+						answered++;
+				}
+				catch (IOException e)
+				{
+					connection.close();
+					failure = e;
+				}
+			}
+		}
+		finally
+		{
+			release(leased);
+		}
+
+		if(failure != null && answered == 0)
+			throw failure;
+
+		return answered;
+	}
+
+	private void release(List<HttpConnection> leased)
+	{
+		for(int i = 0; i < leased.size(); i++)
+		{
+			leased.get(i).releaseConnection();
+		}
+	}
+
+	private static void open(HttpConnection connection, int timeout) throws IOException
+	{
+		int connectionTimeout = connection.getParams().getConnectionTimeout();
+
+		connection.getParams().setConnectionTimeout(timeout);
+
+		try
+		{
+			connection.open();
+		}
+		finally
+		{
+			connection.getParams().setConnectionTimeout(connectionTimeout);
+		}
+	}
+
+	/**
+	 * Returns true if the probe was answered with a 2xx status and the server kept the connection open
+	 */
+	private static boolean probe(HttpConnection connection, URI uri, WarmUpPolicy policy) throws IOException
+	{
+		String path = policy.getProbePath();
+
+		if(path == null)
+			path = uri.getEscapedPathQuery() != null ? uri.getEscapedPathQuery() : "/";
+
+		ProbeMethod probe = new ProbeMethod(policy.getProbeMethod(), path);
+
+		// the calls set their own read timeout
+		connection.setSocketTimeout(policy.getTimeout());
+		probe.execute(new HttpState(), connection);
+
+		// reading the body to its end closes the connection if the server asked for it
+		probe.getResponseBody();
+
+		return probe.getStatusCode() / 100 == 2 && !probe.closed;
+	}
+
+	public List<ConnectionPoolStats> getPoolStats()
+	{
+		return connectionManager.getStats();
+	}
+
+	public ConnectionPoolStats getPoolStats(String serverUrl)
+	{
+		try
+		{
+			HostConfiguration hostConfiguration = new HostConfiguration();
+			hostConfiguration.setHost(new URI(serverUrl, true));
+
+			return connectionManager.getStats(hostConfiguration.getHostURL());
+		}
+		catch (IOException e)
+		{
+			throw new IllegalArgumentException("Invalid server url: " + serverUrl);
+		}
+	}
+
+	public void shutdown()
+	{
+		if(idleConnectionReaper != null)
+			idleConnectionReaper.stop();
+
+		connectionManager.shutdown();
+	}
+
+	/**
+	 * The TransportBody as the RequestEntity PostMethod writes
+	 */
+	private static class BodyEntity implements RequestEntity
+	{
+		private final TransportBody body;
+
+		BodyEntity(TransportBody body)
+		{
+			this.body = body;
+		}
+
+		public boolean isRepeatable()
+		{
+			return body.isRepeatable();
+		}
+
+		public String getContentType()
+		{
+			return body.getContentType();
+		}
+
+		public long getContentLength()
+		{
+			return body.getContentLength();
+		}
+
+		public void writeRequest(OutputStream out) throws IOException
+		{
+			body.writeTo(out);
+		}
+	}
+
+	private class CommonsExchange implements TransportExchange
+	{
+		private final PostMethod post;
+
+		CommonsExchange(PostMethod post)
+		{
+			this.post = post;
+		}
+
+		public int getStatusCode()
+		{
+			return post.getStatusCode();
+		}
+
+		public String getProtocol()
+		{
+			return post.getEffectiveVersion().toString();
+		}
+
+		public String getResponseHeader(String name)
+		{
+			Header header = post.getResponseHeader(name);
+
+			return header == null ? null : header.getValue();
+		}
+
+		public long getResponseContentLength()
+		{
+			return post.getResponseContentLength();
+		}
+
+		public InputStream getResponseBody() throws IOException
+		{
+			return post.getResponseBodyAsStream();
+		}
+
+		public String getResponseBodyAsString() throws IOException
+		{
+			return post.getResponseBodyAsString();
+		}
+
+		public void close()
+		{
+			post.releaseConnection();
+		}
+	}
+
+	/**
+	 * The warm-up and keep-alive probe, it records whether it closed its connection: once the response is read
+	 * the method gives the connection back to the pool, the caller can no longer look at it
+	 */
+	private static class ProbeMethod extends HttpMethodBase
+	{
+		private final String name;
+		boolean closed;
+
+		ProbeMethod(String name, String path)
+		{
+			super(path);
+			this.name = name;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		protected void readResponseBody(HttpState state, HttpConnection conn) throws IOException, HttpException
+		{
+			// the answer to a HEAD has no body, whatever its headers announce
+			if("HEAD".equals(name))
+				responseBodyConsumed();
+			else
+				super.readResponseBody(state, conn);
+		}
+
+		protected boolean shouldCloseConnection(HttpConnection conn)
+		{
+			closed = super.shouldCloseConnection(conn);
+
+			return closed;
+		}
+	}
+}
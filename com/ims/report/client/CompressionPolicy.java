@@ -0,0 +1,165 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * When the request and response bodies are compressed
+ * The request body (template, datasource) is gzipped while it is written when the compressible fields
+ * reach the threshold and the server advertised "gzip" in X-Report-Server-Capabilities (or always if forced)
+ * The response is asked for with "Accept-Encoding: gzip, deflate" only for the export types listed,
+ * the formats already compressed (PDF, JPEG, DOCX) are not worth it
+ *
+ * <pre>
+ * HttpReportClient client = new HttpReportClient(HttpReportClientConfig.builder()
+ * 		.compression(CompressionPolicy.builder().requestThreshold(4 * 1024).build())
+ * 		.build());
+ * </pre>
+ */
+public class CompressionPolicy
+{
+	/**
+	 * Nothing is compressed
+	 */
+	public static final CompressionPolicy NONE = builder().requestThreshold(-1).compressedResponses(new ExportType[0]).build();
+
+	/**
+	 * Requests of 8 KB or more to the servers supporting it, text like responses
+	 */
+	public static final CompressionPolicy DEFAULT = builder().build();
+
+	private final int requestThreshold;
+	private final boolean forceRequestCompression;
+	private final int level;
+	private final List<ExportType> compressedResponses;
+
+	private CompressionPolicy(Builder builder)
+	{
+		requestThreshold = builder.requestThreshold;
+		forceRequestCompression = builder.forceRequestCompression;
+		level = builder.level;
+		compressedResponses = builder.compressedResponses;
+	}
+
+	public static Builder builder()
+	{
+		return new Builder();
+	}
+
+	public int getRequestThreshold()
+	{
+		return requestThreshold;
+	}
+
+	public boolean isForceRequestCompression()
+	{
+		return forceRequestCompression;
+	}
+
+	public int getLevel()
+	{
+		return level;
+	}
+
+	public List<ExportType> getCompressedResponses()
+	{
+		return compressedResponses;
+	}
+
+	/**
+	 * @param compressibleBytes		the size of the fields worth compressing
+	 * @param serverSupported		the server advertised "gzip"
+	 */
+	boolean isRequestCompressed(long compressibleBytes, boolean serverSupported)
+	{
+		if(requestThreshold < 0 || compressibleBytes < requestThreshold)
+			return false;
+
+		return serverSupported || forceRequestCompression;
+	}
+
+	/**
+	 * Print calls (no export type) answer "true", there is nothing to compress
+	 */
+	boolean isResponseCompressed(ExportType exportType)
+	{
+		return exportType != null && compressedResponses.contains(exportType);
+	}
+
+	public String toString()
+	{
+		return "CompressionPolicy[requestThreshold: " + requestThreshold + "; forced: " + forceRequestCompression + "; level: " + level + "; responses: " + compressedResponses + "]";
+	}
+
+	public static class Builder
+	{
+		private int requestThreshold = 8 * 1024;
+		private boolean forceRequestCompression = false;
+		private int level = Deflater.DEFAULT_COMPRESSION;
+		private List<ExportType> compressedResponses = Collections.unmodifiableList(Arrays.asList(new ExportType[] {
+			ExportType.HTML, ExportType.RTF, ExportType.CSV, ExportType.DS, ExportType.TXT, ExportType.XLS, ExportType.DOC, ExportType.MHT }));
+
+		private Builder()
+		{
+		}
+
+		/**
+		 * Request bodies whose compressible fields are smaller than this are sent as they are,
+		 * -1 never compresses the requests (default 8 KB)
+		 */
+		public Builder requestThreshold(int value)
+		{
+			requestThreshold = value;
+			return this;
+		}
+
+		/**
+		 * Compress the requests even if the server did not advertise "gzip" (default false)
+		 * Only for servers known to accept "Content-Encoding: gzip"
+		 */
+		public Builder forceRequestCompression(boolean value)
+		{
+			forceRequestCompression = value;
+			return this;
+		}
+
+		/**
+		 * The deflate level, 1 (fastest) to 9 (smallest) (default Deflater.DEFAULT_COMPRESSION)
+		 */
+		public Builder level(int value)
+		{
+			level = value;
+			return this;
+		}
+
+		/**
+		 * The export types the server may send back compressed (default HTML, RTF, CSV, DS, TXT, XLS, DOC, MHT)
+		 */
+		public Builder compressedResponses(ExportType[] value)
+		{
+			List<ExportType> list = new ArrayList<ExportType>(value.length);
+			for(int i = 0; i < value.length; i++)
+			{
+				list.add(value[i]);
+			}
+
+			compressedResponses = Collections.unmodifiableList(list);
+			return this;
+		}
+
+		public CompressionPolicy build()
+		{
+			if(level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION))
+				throw new IllegalArgumentException("level must be between 1 and 9");
+
+			return new CompressionPolicy(this);
+		}
+	}
+}
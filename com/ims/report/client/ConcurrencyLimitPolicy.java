@@ -0,0 +1,218 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * An adaptive limit on the calls in progress on every report server
+ * The limit follows the latency and the errors of the server: it grows while the server keeps up and
+ * shrinks when its latency rises or calls fail, the calls over the limit are rejected straight away
+ * with a RequestRejectedException (reason CONCURRENCY_LIMIT)
+ * The latency of a call is judged against the earlier calls of the same operation and export type, which are
+ * assumed to be of a similar size; templates of very different sizes under one export type make the limit cautious
+ *
+ * <pre>
+ * HttpReportClient client = new HttpReportClient(HttpReportClientConfig.builder()
+ * 		.concurrencyLimit(ConcurrencyLimitPolicy.builder().algorithm(LimitAlgorithm.GRADIENT).maxLimit(50).build())
+ * 		.build());
+ * </pre>
+ */
+public class ConcurrencyLimitPolicy
+{
+	/**
+	 * No adaptive limit (the default)
+	 */
+	public static final ConcurrencyLimitPolicy NONE = builder().algorithm(null).build();
+
+	/**
+	 * GRADIENT starting at 20 calls, between 1 and 200
+	 */
+	public static final ConcurrencyLimitPolicy DEFAULT = builder().build();
+
+	private final LimitAlgorithm algorithm;
+	private final int initialLimit;
+	private final int minLimit;
+	private final int maxLimit;
+	private final double backoffRatio;
+	private final long timeout;
+	private final double tolerance;
+	private final double smoothing;
+
+	private ConcurrencyLimitPolicy(Builder builder)
+	{
+		algorithm = builder.algorithm;
+		initialLimit = builder.initialLimit;
+		minLimit = builder.minLimit;
+		maxLimit = builder.maxLimit;
+		backoffRatio = builder.backoffRatio;
+		timeout = builder.timeout;
+		tolerance = builder.tolerance;
+		smoothing = builder.smoothing;
+	}
+
+	public static Builder builder()
+	{
+		return new Builder();
+	}
+
+	public boolean isEnabled()
+	{
+		return algorithm != null;
+	}
+
+	public LimitAlgorithm getAlgorithm()
+	{
+		return algorithm;
+	}
+
+	public int getInitialLimit()
+	{
+		return initialLimit;
+	}
+
+	public int getMinLimit()
+	{
+		return minLimit;
+	}
+
+	public int getMaxLimit()
+	{
+		return maxLimit;
+	}
+
+	public double getBackoffRatio()
+	{
+		return backoffRatio;
+	}
+
+	public long getTimeout()
+	{
+		return timeout;
+	}
+
+	public double getTolerance()
+	{
+		return tolerance;
+	}
+
+	public double getSmoothing()
+	{
+		return smoothing;
+	}
+
+	public String toString()
+	{
+		if(algorithm == null)
+			return "ConcurrencyLimitPolicy[none]";
+
+		return "ConcurrencyLimitPolicy[" + algorithm + "; limit: " + initialLimit + " in " + minLimit + "-" + maxLimit + "; backoff: " + backoffRatio
+			+ "; timeout: " + timeout + " ms; tolerance: " + tolerance + "; smoothing: " + smoothing + "]";
+	}
+
+	public static class Builder
+	{
+		private LimitAlgorithm algorithm = LimitAlgorithm.GRADIENT;
+		private int initialLimit = 20;
+		private int minLimit = 1;
+		private int maxLimit = 200;
+		private double backoffRatio = 0.9;
+		private long timeout = 0;
+		private double tolerance = 1.5;
+		private double smoothing = 0.2;
+
+		private Builder()
+		{
+		}
+
+		/**
+		 * AIMD, VEGAS or GRADIENT (default)
+		 */
+		public Builder algorithm(LimitAlgorithm value)
+		{
+			algorithm = value;
+			return this;
+		}
+
+		/**
+		 * The limit of a server before any call was made (default 20)
+		 */
+		public Builder initialLimit(int value)
+		{
+			initialLimit = value;
+			return this;
+		}
+
+		/**
+		 * The limit never goes below this (default 1)
+		 */
+		public Builder minLimit(int value)
+		{
+			minLimit = value;
+			return this;
+		}
+
+		/**
+		 * The limit never goes above this (default 200), the connection pool limits still apply
+		 */
+		public Builder maxLimit(int value)
+		{
+			maxLimit = value;
+			return this;
+		}
+
+		/**
+		 * AIMD: what the limit is multiplied by after a failed call (default 0.9)
+		 */
+		public Builder backoffRatio(double value)
+		{
+			backoffRatio = value;
+			return this;
+		}
+
+		/**
+		 * AIMD: milliseconds above which a successful call counts as failed, 0 to only count the errors (default)
+		 */
+		public Builder timeout(long value)
+		{
+			timeout = value;
+			return this;
+		}
+
+		/**
+		 * GRADIENT: how much slower than the lowest latency the calls may get before the limit shrinks (default 1.5)
+		 */
+		public Builder tolerance(double value)
+		{
+			tolerance = value;
+			return this;
+		}
+
+		/**
+		 * VEGAS and GRADIENT: how much of every new estimate goes into the limit, between 0 and 1 (default 0.2)
+		 */
+		public Builder smoothing(double value)
+		{
+			smoothing = value;
+			return this;
+		}
+
+		public ConcurrencyLimitPolicy build()
+		{
+			if(minLimit < 1 || maxLimit < minLimit)
+				throw new IllegalArgumentException("minLimit must be at least 1 and maxLimit not less than minLimit");
+			if(initialLimit < minLimit || initialLimit > maxLimit)
+				throw new IllegalArgumentException("initialLimit must be between minLimit and maxLimit");
+			if(backoffRatio <= 0 || backoffRatio >= 1)
+				throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+			if(timeout < 0)
+				throw new IllegalArgumentException("timeout must not be negative");
+			if(tolerance < 1)
+				throw new IllegalArgumentException("tolerance must be at least 1");
+			if(smoothing <= 0 || smoothing > 1)
+				throw new IllegalArgumentException("smoothing must be greater than 0 and at most 1");
+
+			return new ConcurrencyLimitPolicy(this);
+		}
+	}
+}
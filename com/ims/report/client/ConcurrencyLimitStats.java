@@ -0,0 +1,96 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * A snapshot of the adaptive concurrency limit of one report server, see ConcurrencyLimitPolicy
+ */
+public class ConcurrencyLimitStats
+{
+	private String serverUrl;
+	private int limit;
+	private int inFlight;
+	private double minLatency;
+	private double averageLatency;
+	private long accepted;
+	private long rejected;
+	private String lastRejection;
+
+	ConcurrencyLimitStats(String serverUrl, int limit, int inFlight, double minLatency, double averageLatency, long accepted, long rejected, String lastRejection)
+	{
+		this.serverUrl = serverUrl;
+		this.limit = limit;
+		this.inFlight = inFlight;
+		this.minLatency = minLatency;
+		this.averageLatency = averageLatency;
+		this.accepted = accepted;
+		this.rejected = rejected;
+		this.lastRejection = lastRejection;
+	}
+
+	public String getServerUrl()
+	{
+		return serverUrl;
+	}
+
+	/**
+	 * The calls currently allowed in progress
+	 */
+	public int getLimit()
+	{
+		return limit;
+	}
+
+	public int getInFlight()
+	{
+		return inFlight;
+	}
+
+	/**
+	 * The lowest latency seen recently, in milliseconds, over all the calls
+	 * The limit compares every call with the lowest latency of its own operation and export type
+	 */
+	public double getMinLatency()
+	{
+		return minLatency;
+	}
+
+	/**
+	 * The long term average latency, in milliseconds, over all the calls
+	 */
+	public double getAverageLatency()
+	{
+		return averageLatency;
+	}
+
+	public long getAccepted()
+	{
+		return accepted;
+	}
+
+	public long getRejected()
+	{
+		return rejected;
+	}
+
+	/**
+	 * Why the last call was rejected, null if none was
+	 */
+	public String getLastRejection()
+	{
+		return lastRejection;
+	}
+
+	public String toString()
+	{
+		return serverUrl + " [limit: " + limit + "; in flight: " + inFlight + "; latency: " + format(minLatency) + " ms min, " + format(averageLatency)
+			+ " ms average; accepted: " + accepted + "; rejected: " + rejected + (lastRejection != null ? "; last rejection: " + lastRejection : "") + "]";
+	}
+
+	private static String format(double millis)
+	{
+		return String.valueOf(Math.round(millis * 100) / 100.0);
+	}
+}
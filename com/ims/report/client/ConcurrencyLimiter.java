@@ -0,0 +1,246 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.ims.report.client.exceptions.RejectionReason;
+import com.ims.report.client.exceptions.RequestRejectedException;
+
+/**
+ * The adaptive concurrency limits of the report servers of a client, see ConcurrencyLimitPolicy
+ * The algorithms follow the TCP congestion control ones, the latency of a call plays the round trip time
+ * The latency of a report depends on its template and format, so a call is compared with the latency
+ * baseline (lowest and average) of its operation and export type on the server, not with the other calls:
+ * a 1 page FP3 next to a 200 page XLS is not taken for queuing. The calls of one operation and export
+ * type are assumed to be of a similar size, a class mixing tiny and huge reports still makes the limit
+ * more cautious than needed
+ */
+class ConcurrencyLimiter
+{
+	// the lowest latency is forgotten after this many calls so the baseline follows a server that got slower for good
+	private static final int MIN_LATENCY_RESET = 1000;
+	// the number of calls the average latency spans
+	private static final int AVERAGE_WINDOW = 500;
+
+	private final ConcurrencyLimitPolicy policy;
+	private final ConcurrentHashMap<String, ServerLimit> servers = new ConcurrentHashMap<String, ServerLimit>();
+
+	ConcurrencyLimiter(ConcurrencyLimitPolicy policy)
+	{
+		this.policy = policy;
+	}
+
+	/**
+	 * Counts the call as in progress or throws a RequestRejectedException if the limit of the server is reached
+	 * The returned limit must be given the outcome of the call with release()
+	 */
+	ServerLimit acquire(ReportRequest request, String serverUrl) throws RequestRejectedException
+	{
+		ServerLimit limit = servers.get(serverUrl);
+
+		if(limit == null)
+		{
+			ServerLimit created = new ServerLimit(serverUrl);
+
+			limit = servers.putIfAbsent(serverUrl, created);
+			if(limit == null)
+				limit = created;
+		}
+
+		String reason = limit.tryAcquire();
+
+		if(reason != null)
+			throw new RequestRejectedException("The HttpReportClient." + request.getFunction() + "() call was not sent: " + reason, RejectionReason.CONCURRENCY_LIMIT);
+
+		return limit;
+	}
+
+	List<ConcurrencyLimitStats> getStats()
+	{
+		List<ConcurrencyLimitStats> stats = new ArrayList<ConcurrencyLimitStats>();
+
+		for(Iterator<ServerLimit> it = servers.values().iterator(); it.hasNext();)
+		{
+			stats.add(it.next().getStats());
+		}
+
+		return stats;
+	}
+
+	class ServerLimit
+	{
+		private final String serverUrl;
+		private double limit;
+		private int inFlight;
+		// the latency of the calls of each operation and export type, and of all the calls for the stats
+		private final HashMap<String, Baseline> baselines = new HashMap<String, Baseline>();
+		private final Baseline all = new Baseline();
+		private long accepted;
+		private long rejected;
+		private String lastRejection;
+
+		ServerLimit(String serverUrl)
+		{
+			this.serverUrl = serverUrl;
+
+			limit = policy.getInitialLimit();
+		}
+
+		/**
+		 * Returns null if the call may go, otherwise why it may not
+		 */
+		synchronized String tryAcquire()
+		{
+			if(inFlight >= (int)limit)
+			{
+				rejected++;
+				lastRejection = "the concurrency limit of the report server " + serverUrl + " is reached, " + inFlight + " calls in progress"
+					+ (all.samples > 0 ? " (latency " + (long)(all.averageLatency / 1000000) + " ms average, " + (all.minLatency / 1000000) + " ms minimum)" : "");
+
+				return lastRejection;
+			}
+
+			inFlight++;
+			accepted++;
+
+			return null;
+		}
+
+		/**
+		 * @param request		the call, its operation and export type select the latency baseline
+		 * @param nanos			the latency of the call
+		 * @param failed		the server failed or dropped the call
+		 * @param ignored		the call was cancelled, its latency says nothing about the server
+		 */
+		synchronized void release(ReportRequest request, long nanos, boolean failed, boolean ignored)
+		{
+			// the calls in progress as this one ends, itself included
+			int concurrent = inFlight;
+
+			inFlight--;
+
+			if(ignored)
+				return;
+
+			Baseline baseline = getBaseline(request);
+
+			if(!failed)
+			{
+				baseline.sample(nanos);
+				all.sample(nanos);
+			}
+
+			double previous = limit;
+			LimitAlgorithm algorithm = policy.getAlgorithm();
+
+			if(algorithm == LimitAlgorithm.AIMD)
+				aimd(nanos, failed, concurrent);
+			else if(algorithm == LimitAlgorithm.VEGAS)
+				vegas(nanos, failed, concurrent, baseline.minLatency);
+			else
+				gradient(nanos, failed, concurrent, baseline.minLatency);
+
+			limit = Math.max(policy.getMinLimit(), Math.min(policy.getMaxLimit(), limit));
+
+			if((int)limit != (int)previous && HttpReportClient.log.isDebugEnabled())
+				HttpReportClient.log.debug("The concurrency limit of the report server " + serverUrl + " is now " + (int)limit);
+		}
+
+		private Baseline getBaseline(ReportRequest request)
+		{
+			String key = request.getOperation().getName() + "/" + request.getExportType();
+			Baseline baseline = baselines.get(key);
+
+			if(baseline == null)
+			{
+				baseline = new Baseline();
+				baselines.put(key, baseline);
+			}
+
+			return baseline;
+		}
+
+		private void aimd(long nanos, boolean failed, int concurrent)
+		{
+			if(failed || (policy.getTimeout() > 0 && nanos > policy.getTimeout() * 1000000))
+				limit = limit * policy.getBackoffRatio();
+			else if(concurrent * 2 >= limit)
+				limit = limit + 1;
+		}
+
+		private void vegas(long nanos, boolean failed, int concurrent, long minLatency)
+		{
+			double log = Math.max(1, Math.log10(limit));
+			double estimate;
+
+			if(failed)
+			{
+				estimate = limit - log;
+			}
+			else
+			{
+				// the calls waiting on the server: the part of the latency above the lowest one of the same kind of call
+				double queued = Math.ceil(limit * (1 - (double)minLatency / nanos));
+
+				if(queued <= log)
+					estimate = limit + 6 * log;
+				else if(queued < 3 * log)
+					estimate = limit + log;
+				else if(queued > 6 * log)
+					estimate = limit - log;
+				else
+					return;
+			}
+
+			smooth(estimate, concurrent);
+		}
+
+		private void gradient(long nanos, boolean failed, int concurrent, long minLatency)
+		{
+			double gradient = failed ? 0.5 : Math.max(0.5, Math.min(1.0, policy.getTolerance() * minLatency / nanos));
+
+			// the square root of the limit is the room left for the calls queued on the server
+			smooth(limit * gradient + Math.sqrt(limit), concurrent);
+		}
+
+		private void smooth(double estimate, int concurrent)
+		{
+			// less than half the limit used: the limit is not what holds the calls back, it is not raised
+			if(estimate > limit && concurrent * 2 < limit)
+				return;
+
+			limit = limit * (1 - policy.getSmoothing()) + estimate * policy.getSmoothing();
+		}
+
+		synchronized ConcurrencyLimitStats getStats()
+		{
+			return new ConcurrencyLimitStats(serverUrl, (int)limit, inFlight, all.minLatency / 1000000.0, all.averageLatency / 1000000.0, accepted, rejected, lastRejection);
+		}
+	}
+
+	/**
+	 * The lowest and the average latency of a kind of call
+	 */
+	private static class Baseline
+	{
+		long minLatency;
+		int samples;
+		double averageLatency;
+
+		void sample(long nanos)
+		{
+			if(samples % MIN_LATENCY_RESET == 0 || nanos < minLatency)
+				minLatency = nanos;
+
+			averageLatency = samples == 0 ? nanos : averageLatency + (nanos - averageLatency) / Math.min(samples + 1, AVERAGE_WINDOW);
+			samples++;
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * A snapshot of the pooled connections to one report server
+ */
+public class ConnectionPoolStats
+{
+	private String host;
+	private int leased;
+	private int available;
+	private int pending;
+	private int max;
+
+	ConnectionPoolStats(String host, int leased, int available, int pending, int max)
+	{
+		this.host = host;
+		this.leased = leased;
+		this.available = available;
+		this.pending = pending;
+		this.max = max;
+	}
+
+	/**
+	 * The report server, example: http://192.168.1.10:80
+	 */
+	public String getHost()
+	{
+		return host;
+	}
+
+	/**
+	 * Connections currently used by a call
+	 */
+	public int getLeased()
+	{
+		return leased;
+	}
+
+	/**
+	 * Open connections waiting in the pool for the next call
+	 */
+	public int getAvailable()
+	{
+		return available;
+	}
+
+	/**
+	 * Calls waiting for a connection
+	 */
+	public int getPending()
+	{
+		return pending;
+	}
+
+	/**
+	 * The maximum number of connections to the server
+	 */
+	public int getMax()
+	{
+		return max;
+	}
+
+	public String toString()
+	{
+		return host + " [leased: " + leased + "; available: " + available + "; pending: " + pending + "; max: " + max + "]";
+	}
+}
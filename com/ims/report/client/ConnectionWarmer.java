@@ -0,0 +1,211 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms up the report servers of the WarmUpPolicy and the ones given to HttpReportClient.warmUp(serverUrl),
+ * then keeps their connections open with a round of probes every keepAliveInterval
+ * A keep-alive round only probes the connections idle in the pool, it neither looks the addresses up nor opens connections
+ * The rounds run on a daemon thread of their own, the probes block on I/O
+ */
+class ConnectionWarmer
+{
+	private final ReportTransport transport;
+	private final WarmUpPolicy policy;
+	private final int maxConnectionsPerHost;
+	// the servers warmed so far and the outcome of their last round, in the order they were added
+	private final Map<String, WarmUpStats> servers = new LinkedHashMap<String, WarmUpStats>();
+	private ScheduledExecutorService keepAlive;
+	private boolean stopped;
+
+	ConnectionWarmer(ReportTransport transport, WarmUpPolicy policy, int maxConnectionsPerHost)
+	{
+		this.transport = transport;
+		this.policy = policy;
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+	}
+
+	/**
+	 * Warms the servers of the policy up in the background and starts the keep-alive probes
+	 */
+	synchronized void start()
+	{
+		if(policy.getServers().isEmpty() || !policy.isAtStartup())
+			return;
+
+		getExecutor().execute(new Runnable()
+		{
+			public void run()
+			{
+				warmUp(policy.getServers());
+			}
+		});
+	}
+
+	/**
+	 * Warms the servers up one after the other, returns the outcome for each
+	 */
+	List<WarmUpStats> warmUp(List<String> serverUrls)
+	{
+		List<WarmUpStats> result = new ArrayList<WarmUpStats>(serverUrls.size());
+
+		for(int i = 0; i < serverUrls.size(); i++)
+		{
+			result.add(warmUp(serverUrls.get(i)));
+		}
+
+		return result;
+	}
+
+	WarmUpStats warmUp(String serverUrl)
+	{
+		int requested = Math.min(policy.getMinConnections(), maxConnectionsPerHost);
+		long start = System.nanoTime();
+		long resolveTime = 0;
+		int connections = 0;
+		String error = null;
+
+		try
+		{
+			// the JVM keeps the addresses (networkaddress.cache.ttl), the connections opened next do not look them up again
+			InetAddress.getAllByName(new URL(serverUrl).getHost());
+			resolveTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+			connections = transport.warmUp(serverUrl, requested, policy);
+		}
+		catch (IOException e)
+		{
+			error = e.toString();
+		}
+		catch (RuntimeException e)
+		{
+			error = e.toString();
+		}
+
+		WarmUpStats stats = new WarmUpStats(serverUrl, requested, connections, resolveTime, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+			System.currentTimeMillis(), error);
+
+		if(error != null)
+			HttpReportClient.log.warn("The warm-up of " + serverUrl + " failed: " + error);
+		else if(connections < requested)
+			HttpReportClient.log.warn("The warm-up of " + serverUrl + " opened " + connections + " of " + requested + " connections");
+		else if(HttpReportClient.log.isDebugEnabled())
+			HttpReportClient.log.debug("Warmed up " + stats);
+
+		add(serverUrl, stats);
+
+		return stats;
+	}
+
+	private synchronized void add(String serverUrl, WarmUpStats stats)
+	{
+		if(servers.put(serverUrl, stats) == null && !stopped)
+			getExecutor();
+	}
+
+	synchronized List<WarmUpStats> getStats()
+	{
+		return new ArrayList<WarmUpStats>(servers.values());
+	}
+
+	/**
+	 * The thread of the warm-up and keep-alive rounds, started with the first server
+	 */
+	private synchronized ScheduledExecutorService getExecutor()
+	{
+		if(keepAlive == null)
+		{
+			keepAlive = Executors.newSingleThreadScheduledExecutor(new ReportExecutors.DaemonThreadFactory("HttpReportClient-warm-up-"));
+
+			if(policy.getKeepAliveInterval() > 0)
+			{
+				keepAlive.scheduleWithFixedDelay(new Runnable()
+				{
+					public void run()
+					{
+						keepAlive();
+					}
+				}, policy.getKeepAliveInterval(), policy.getKeepAliveInterval(), TimeUnit.MILLISECONDS);
+			}
+		}
+
+		return keepAlive;
+	}
+
+	private void keepAlive()
+	{
+		List<String> urls;
+
+		synchronized(this)
+		{
+			urls = new ArrayList<String>(servers.keySet());
+		}
+
+		for(int i = 0; i < urls.size(); i++)
+		{
+			keepAlive(urls.get(i));
+		}
+	}
+
+	private void keepAlive(String serverUrl)
+	{
+		int requested = Math.min(policy.getMinConnections(), maxConnectionsPerHost);
+		long start = System.nanoTime();
+		int connections = 0;
+		String error = null;
+
+		try
+		{
+			connections = transport.keepAlive(serverUrl, policy);
+		}
+		catch (IOException e)
+		{
+			error = e.toString();
+		}
+		catch (RuntimeException e)
+		{
+			error = e.toString();
+		}
+
+		// the transport keeps its connections itself, the stats of the warm-up stay
+		if(connections < 0)
+			return;
+
+		WarmUpStats stats = new WarmUpStats(serverUrl, requested, connections, 0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+			System.currentTimeMillis(), error);
+
+		if(error != null)
+			HttpReportClient.log.warn("The keep-alive probes of " + serverUrl + " failed: " + error);
+		else if(HttpReportClient.log.isDebugEnabled())
+			HttpReportClient.log.debug("Kept alive " + stats);
+
+		synchronized(this)
+		{
+			servers.put(serverUrl, stats);
+		}
+	}
+
+	synchronized void shutdown()
+	{
+		stopped = true;
+
+		if(keepAlive != null)
+		{
+			keepAlive.shutdownNow();
+			keepAlive = null;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read from the response body, for ReportMetrics
+ */
+class CountingInputStream extends FilterInputStream
+{
+	private long count;
+
+	CountingInputStream(InputStream in)
+	{
+		super(in);
+	}
+
+	public int read() throws IOException
+	{
+		int b = in.read();
+
+		if(b >= 0)
+			count++;
+
+		return b;
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		int n = in.read(b, off, len);
+
+		if(n > 0)
+			count += n;
+
+		return n;
+	}
+
+	public long skip(long n) throws IOException
+	{
+		long skipped = in.skip(n);
+
+		count += skipped;
+
+		return skipped;
+	}
+
+	public boolean markSupported()
+	{
+		return false;
+	}
+
+	long getCount()
+	{
+		return count;
+	}
+}
@@ -0,0 +1,22 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a datasource as the request is sent, see ReportDatasource.fromWriter()
+ * The writer runs on a thread of its own while the calling thread uploads what it has written so far,
+ * it is called again for every attempt of the call
+ */
+public interface DatasourceWriter
+{
+	/**
+	 * Writes the whole datasource, the stream must not be closed
+	 * An IOException thrown by the stream means the call was aborted, it should be passed on
+	 */
+	void write(OutputStream out) throws IOException;
+}
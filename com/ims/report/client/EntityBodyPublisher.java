@@ -0,0 +1,210 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+
+/**
+ * Publishes a TransportBody to java.net.http.HttpClient without rendering it in memory first
+ * The calling thread writes the body through write(), the bytes are handed to the HttpClient in
+ * buffers as it asks for them, so the calling thread waits while the connection is busy and the
+ * HttpClient selector thread never blocks
+ * The body is written once, a second subscription (the HttpClient resending the request) fails
+ */
+class EntityBodyPublisher implements HttpRequest.BodyPublisher
+{
+	private static final int BUFFER_SIZE = 16 * 1024;
+
+	private final TransportBody body;
+
+	private Flow.Subscriber<? super ByteBuffer> subscriber;
+	private long demand;
+	private boolean subscribed;
+	private boolean cancelled;
+	private boolean stopped;
+
+	EntityBodyPublisher(TransportBody body)
+	{
+		this.body = body;
+	}
+
+	public long contentLength()
+	{
+		return body.getContentLength();
+	}
+
+	public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber)
+	{
+		boolean replay;
+
+		synchronized(this)
+		{
+			replay = subscribed;
+
+			if(!replay)
+			{
+				subscribed = true;
+				this.subscriber = subscriber;
+				notifyAll();
+			}
+		}
+
+		subscriber.onSubscribe(new Flow.Subscription()
+		{
+			public void request(long n)
+			{
+				synchronized(EntityBodyPublisher.this)
+				{
+					demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+					EntityBodyPublisher.this.notifyAll();
+				}
+			}
+
+			public void cancel()
+			{
+				synchronized(EntityBodyPublisher.this)
+				{
+					cancelled = true;
+					EntityBodyPublisher.this.notifyAll();
+				}
+			}
+		});
+
+		if(replay)
+			subscriber.onError(new IOException("The request body cannot be sent twice"));
+	}
+
+	/**
+	 * Stops the writing thread, the response came or the call failed before the body was sent
+	 */
+	synchronized void stop()
+	{
+		stopped = true;
+		notifyAll();
+	}
+
+	/**
+	 * Writes the body to the HttpClient, called by the calling thread once the request is sent
+	 * Throws an IOException if the HttpClient stops asking for the body, the response then tells why
+	 */
+	void write() throws IOException
+	{
+		Flow.Subscriber<? super ByteBuffer> target;
+
+		// the body is only written once the connection is there, the upload time is measured from its first byte
+		synchronized(this)
+		{
+			awaitDemand();
+			target = subscriber;
+		}
+
+		PublisherOutputStream out = new PublisherOutputStream();
+
+		try
+		{
+			body.writeTo(out);
+			out.flush();
+		}
+		catch (IOException e)
+		{
+			target.onError(e);
+			throw e;
+		}
+		catch (RuntimeException e)
+		{
+			target.onError(e);
+			throw e;
+		}
+
+		target.onComplete();
+	}
+
+	private void awaitDemand() throws IOException
+	{
+		try
+		{
+			while(subscriber == null || demand == 0)
+			{
+				if(cancelled || stopped)
+					throw new IOException("The HttpClient stopped reading the request body");
+
+				wait();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while sending the request body");
+		}
+
+		if(cancelled || stopped)
+			throw new IOException("The HttpClient stopped reading the request body");
+	}
+
+	private void publish(ByteBuffer buffer) throws IOException
+	{
+		Flow.Subscriber<? super ByteBuffer> target;
+
+		synchronized(this)
+		{
+			awaitDemand();
+			demand--;
+			target = subscriber;
+		}
+
+		// outside the lock, the subscriber may ask for more from another thread
+		target.onNext(buffer);
+	}
+
+	/**
+	 * Copies the written bytes into buffers of BUFFER_SIZE, each one handed over when full
+	 * The HttpClient keeps the buffers it is given, a new one is allocated every time
+	 */
+	private class PublisherOutputStream extends OutputStream
+	{
+		private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		public void write(int b) throws IOException
+		{
+			if(!buffer.hasRemaining())
+				flushBuffer();
+
+			buffer.put((byte)b);
+		}
+
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			while(len > 0)
+			{
+				if(!buffer.hasRemaining())
+					flushBuffer();
+
+				int count = Math.min(len, buffer.remaining());
+
+				buffer.put(b, off, count);
+				off += count;
+				len -= count;
+			}
+		}
+
+		public void flush() throws IOException
+		{
+			if(buffer.position() > 0)
+				flushBuffer();
+		}
+
+		private void flushBuffer() throws IOException
+		{
+			buffer.flip();
+			publish(buffer);
+			buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		}
+	}
+}
@@ -80,5 +80,10 @@ public class ExportType
 		
 		return true;
 	}
+
+	public int hashCode()
+	{
+		return nType;
+	}
 }
 
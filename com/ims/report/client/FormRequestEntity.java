@@ -0,0 +1,296 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.httpclient.NameValuePair;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.httpclient.util.EncodingUtil;
+
+/**
+ * An application/x-www-form-urlencoded request entity that base64 encodes and
+ * url encodes the binary fields (template, datasource, ...) while they are written
+ * to the connection.
+ * The body is produced in small chunks so the memory used by a request does not
+ * depend on the size of the template or datasource.
+ * The bytes sent are identical to the ones produced by PostMethod.setRequestBody()
+ * with the base64 encoded fields.
+ * With a streamed field (ReportDatasource) the length is not known, the entity is sent chunked.
+ */
+public class FormRequestEntity implements RequestEntity
+{
+	private static final String CHARSET = "ISO-8859-1";
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	private List<Field> fields = new ArrayList<Field>();
+	private long contentLength = -1;
+
+	public FormRequestEntity()
+	{
+	}
+
+	/**
+	 * Adds a plain text field, the value is url encoded the same way PostMethod does
+	 */
+	public FormRequestEntity addField(String name, String value)
+	{
+		fields.add(new Field(name, value));
+		contentLength = -1;
+
+		return this;
+	}
+
+	/**
+	 * Adds a binary field, the value is sent base64 encoded
+	 */
+	public FormRequestEntity addBase64Field(String name, byte[] value)
+	{
+		fields.add(new Field(name, value));
+		contentLength = -1;
+
+		return this;
+	}
+
+	/**
+	 * Adds a binary field read from the datasource while the entity is written, the value is sent base64 encoded
+	 */
+	public FormRequestEntity addBase64Field(String name, ReportDatasource value)
+	{
+		fields.add(new Field(name, value));
+		contentLength = -1;
+
+		return this;
+	}
+
+	public boolean isRepeatable()
+	{
+		for(int i = 0; i < fields.size(); i++)
+		{
+			Field field = fields.get(i);
+
+			if(field.source != null && !field.source.isReplayable())
+				return false;
+		}
+
+		return true;
+	}
+
+	public String getContentType()
+	{
+		return PostMethod.FORM_URL_ENCODED_CONTENT_TYPE;
+	}
+
+	public long getContentLength()
+	{
+		if(contentLength < 0)
+		{
+			long length = 0;
+
+			for(int i = 0; i < fields.size(); i++)
+			{
+				Field field = fields.get(i);
+
+				// a streamed field, the entity is sent chunked
+				if(field.source != null)
+					return -1;
+
+				if(i > 0)
+					length++;	// '&'
+
+				length += field.getEncodedLength();
+			}
+
+			contentLength = length;
+		}
+
+		return contentLength;
+	}
+
+	public void writeRequest(OutputStream out) throws IOException
+	{
+		InputStream in = openStream();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int len;
+
+		try
+		{
+			while((len = in.read(buffer)) > 0)
+			{
+				out.write(buffer, 0, len);
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+
+		out.flush();
+	}
+
+	/**
+	 * Returns a stream producing the encoded body, the encoding is done as the stream is read
+	 * Closing it closes the datasource being read, if any
+	 */
+	public InputStream openStream()
+	{
+		return new BodyInputStream();
+	}
+
+	private static byte[] encodeText(String name, String value)
+	{
+		return EncodingUtil.getAsciiBytes(EncodingUtil.formUrlEncode(new NameValuePair[] { new NameValuePair(name, value) }, CHARSET));
+	}
+
+	private static class Field
+	{
+		private byte[] prefix;
+		private byte[] binary;
+		private ReportDatasource source;
+
+		Field(String name, String value)
+		{
+			prefix = encodeText(name, value);
+		}
+
+		Field(String name, byte[] value)
+		{
+			prefix = encodeText(name, "");
+			binary = value;
+		}
+
+		Field(String name, ReportDatasource value)
+		{
+			prefix = encodeText(name, "");
+			source = value;
+		}
+
+		long getEncodedLength()
+		{
+			if(binary == null)
+				return prefix.length;
+
+			return prefix.length + Base64FormEncoder.getEncodedLength(binary);
+		}
+	}
+
+	/**
+	 * Walks the fields and emits "name=value&name=value..." encoding the binary values chunk by chunk
+	 */
+	private class BodyInputStream extends InputStream
+	{
+		private int fieldIndex = -1;
+		private byte[] pending;
+		private int pendingPos;
+		private int pendingLen;
+		private Base64FormEncoder encoder;
+		private InputStream sourceStream;
+		private byte[] single = new byte[1];
+
+		public int read() throws IOException
+		{
+			int len = read(single, 0, 1);
+
+			return len <= 0 ? -1 : single[0] & 0xff;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			if(len == 0)
+				return 0;
+
+			int total = 0;
+
+			while(total < len)
+			{
+				if(pendingPos < pendingLen)
+				{
+					int n = Math.min(len - total, pendingLen - pendingPos);
+					System.arraycopy(pending, pendingPos, b, off + total, n);
+					pendingPos += n;
+					total += n;
+					continue;
+				}
+
+				if(encoder != null)
+				{
+					int n = encoder.read(b, off + total, len - total);
+
+					if(n > 0)
+					{
+						total += n;
+						continue;
+					}
+
+					encoder = null;
+					closeSource();
+				}
+
+				if(!nextField())
+					break;
+			}
+
+			return total == 0 ? -1 : total;
+		}
+
+		public void close() throws IOException
+		{
+			encoder = null;
+			closeSource();
+		}
+
+		private void closeSource() throws IOException
+		{
+			if(sourceStream != null)
+			{
+				InputStream in = sourceStream;
+
+				sourceStream = null;
+				in.close();
+			}
+		}
+
+		private boolean nextField() throws IOException
+		{
+			fieldIndex++;
+
+			if(fieldIndex >= fields.size())
+				return false;
+
+			Field field = fields.get(fieldIndex);
+
+			if(fieldIndex > 0)
+			{
+				pending = new byte[field.prefix.length + 1];
+				pending[0] = '&';
+				System.arraycopy(field.prefix, 0, pending, 1, field.prefix.length);
+			}
+			else
+			{
+				pending = field.prefix;
+			}
+
+			pendingPos = 0;
+			pendingLen = pending.length;
+
+			if(field.binary != null)
+				encoder = new Base64FormEncoder(new ByteArrayInputStream(field.binary));
+
+			if(field.source != null)
+			{
+				sourceStream = field.source.open();
+				encoder = new Base64FormEncoder(sourceStream);
+			}
+
+			return true;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+/**
+ * Gzips another request entity while it is written, the request is sent with "Content-Encoding: gzip"
+ * The compressed size is not known up front so the body goes out chunked
+ */
+class GzipRequestEntity implements RequestEntity
+{
+	static final String CONTENT_ENCODING = "gzip";
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	private final RequestEntity entity;
+	private final int level;
+
+	GzipRequestEntity(RequestEntity entity, int level)
+	{
+		this.entity = entity;
+		this.level = level;
+	}
+
+	public boolean isRepeatable()
+	{
+		return entity.isRepeatable();
+	}
+
+	public String getContentType()
+	{
+		return entity.getContentType();
+	}
+
+	public long getContentLength()
+	{
+		return -1;
+	}
+
+	public void writeRequest(OutputStream out) throws IOException
+	{
+		LevelGZIPOutputStream gzip = new LevelGZIPOutputStream(out, level);
+
+		// finish() and not close(), the connection stream belongs to HttpClient
+		try
+		{
+			entity.writeRequest(gzip);
+			gzip.finish();
+		}
+		finally
+		{
+			gzip.end();
+		}
+	}
+
+	private static class LevelGZIPOutputStream extends GZIPOutputStream
+	{
+		LevelGZIPOutputStream(OutputStream out, int level) throws IOException
+		{
+			super(out, BUFFER_SIZE);
+			def.setLevel(level);
+		}
+
+		/**
+		 * Releases the native memory of the deflater, the wrapped stream stays open
+		 */
+		void end()
+		{
+			def.end();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * The outcome of a call sent to two report servers: the first request runs in the calling thread,
+ * the hedged one is started by a timer when the first is slow
+ * The first report returned wins; when the first request fails the calling thread waits for the
+ * hedged one, if it was started
+ */
+class HedgedCall
+{
+	private byte[] result;
+	private boolean hedgeWon;
+	private boolean primaryDone;
+	private boolean hedgeStarted;
+	private boolean hedgeDone;
+	private HttpReportClientException primaryFailure;
+	private HttpReportClientException hedgeFailure;
+
+	/**
+	 * Called by the timer, returns false when the first request already answered and no hedge is needed
+	 */
+	synchronized boolean startHedge()
+	{
+		if(primaryDone || result != null)
+			return false;
+
+		hedgeStarted = true;
+
+		return true;
+	}
+
+	/**
+	 * Returns false if the hedged request already won, its report must be used
+	 */
+	synchronized boolean primarySucceeded(byte[] report)
+	{
+		primaryDone = true;
+		notifyAll();
+
+		if(result != null)
+			return false;
+
+		result = report;
+
+		return true;
+	}
+
+	synchronized void primaryFailed(HttpReportClientException e)
+	{
+		primaryDone = true;
+		primaryFailure = e;
+		notifyAll();
+	}
+
+	/**
+	 * Returns false if the first request already won
+	 */
+	synchronized boolean hedgeSucceeded(byte[] report)
+	{
+		hedgeDone = true;
+		notifyAll();
+
+		if(result != null)
+			return false;
+
+		result = report;
+		hedgeWon = true;
+
+		return true;
+	}
+
+	synchronized void hedgeFailed(HttpReportClientException e)
+	{
+		hedgeDone = true;
+		hedgeFailure = e;
+		notifyAll();
+	}
+
+	synchronized boolean isHedgeWon()
+	{
+		return hedgeWon;
+	}
+
+	/**
+	 * Called by the calling thread once its request is done: returns the winning report or throws the
+	 * failure of the first request, or of the hedged one when the first was aborted because of it
+	 */
+	synchronized byte[] await() throws InterruptedException, HttpReportClientException
+	{
+		while(result == null && !(primaryDone && (!hedgeStarted || hedgeDone)))
+		{
+			wait();
+		}
+
+		if(result != null)
+			return result;
+
+		throw primaryFailure != null ? primaryFailure : hedgeFailure;
+	}
+}
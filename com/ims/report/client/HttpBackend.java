@@ -0,0 +1,39 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * The HTTP implementation the ReportTransport of a client is built on, see HttpReportClientConfig.httpBackend()
+ */
+public class HttpBackend
+{
+	private String name;
+
+	/**
+	 * Commons HttpClient 3.x with a pool of blocking HTTP/1.1 connections per report server (the default)
+	 */
+	public static final HttpBackend COMMONS = new HttpBackend("COMMONS");
+	/**
+	 * java.net.http.HttpClient (JDK 11+) over HTTP/1.1: one selector thread for every server, the request body
+	 * is written by the calling thread as the connection asks for it
+	 */
+	public static final HttpBackend JDK_HTTP1 = new HttpBackend("JDK_HTTP1");
+	/**
+	 * java.net.http.HttpClient (JDK 11+) over HTTP/2 when the report server supports it: the calls to a server
+	 * are multiplexed on one connection; https servers negotiate it with ALPN, http servers are asked for
+	 * an h2c upgrade; a server speaking HTTP/1.1 only is used over HTTP/1.1
+	 */
+	public static final HttpBackend JDK_HTTP2 = new HttpBackend("JDK_HTTP2");
+
+	private HttpBackend(String name)
+	{
+		this.name = name;
+	}
+
+	public String toString()
+	{
+		return name;
+	}
+}
@@ -4,541 +4,2235 @@
  */
 package com.ims.report.client;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
 import org.apache.commons.httpclient.HttpException;
 import org.apache.commons.httpclient.HttpStatus;
-import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
-import org.apache.commons.httpclient.NameValuePair;
-import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
 import org.apache.commons.httpclient.params.HttpMethodParams;
+import com.ims.report.client.exceptions.DeadlineExceededException;
 import com.ims.report.client.exceptions.HttpReportClientException;
+import com.ims.report.client.exceptions.RequestRejectedException;
 import org.apache.log4j.Logger;
 
 /**
  * This class is used to produce a report
- * The client app. will send down the template (base64 encoded), 
- * the datasource (base64 encoded) and the format in which the report 
+ * The client app. will send down the template (base64 encoded),
+ * the datasource (base64 encoded) and the format in which the report
  * will be exported back to the client
- * 
+ * The base64 encoding is done while the request is written to the connection (see FormRequestEntity)
+ * The report can be returned as a byte[] or written to an OutputStream, a WritableByteChannel or a file
+ * The *AsResult() methods return a ReportResult, a big report is kept in a temporary file instead of the heap
+ * The datasource can be streamed instead of passed as a byte[], see ReportDatasource
+ * buildReportMulti() renders a report once and converts it to several formats
+ * submitBatch() sends many jobs, several per request to the servers supporting it
+ * Every call has an async counterpart returning a CompletableFuture, cancelling the future aborts the call
+ * A call can be given a deadline and cancelled from another thread, every call method takes CallOptions as its last parameter
+ * The connection pool is set up from a HttpReportClientConfig, call shutdown() when the client is no longer needed
+ * The calls can be spread over several report servers by passing a ReportServerCluster instead of the server url
+ * The reports of the calls printing nothing can be cached, see setResultCache()
+ * Identical calls printing nothing that run at the same time share one report server call, except the ones with CallOptions
+ * The binary fields can be sent as multipart/form-data instead of base64, see TransportMode
+ * The request and response bodies are compressed according to the CompressionPolicy of the config
+ * A template a report server already holds is sent as its SHA-256 digest, see TemplateRegistry
+ * Every call is timed and counted by operation and export type, see getMetrics()
+ * The HTTP calls go through a ReportTransport, Commons HttpClient or java.net.http, see HttpBackend
+ * The print jobs can be queued in a durable journal and sent in the background, see getPrintSpooler()
+ * The connections to the report servers can be opened before the first call and kept open, see warmUp()
+ *
  * @author vpurdila
  */
 public class HttpReportClient
 {
-	private static final int TIMEOUT = 1000 * 60 * 15;
-	private static final int MAX_BUFFER_LIMIT_NO_WARNING = 1024*1024;
-	
 	static final Logger log = Logger.getLogger(HttpReportClient.class);
-	
-	private HttpClient client;
-    PostMethod post;
-    Base64 base64;
-	
+
+    private ReportTransport transport;
+    private Executor executor;
+    private HttpReportClientConfig config;
+    private volatile ReportResultCache resultCache;
+    private ReportResultCache preparedReports;
+    private TemplateRegistry templates;
+    private RequestCoalescer coalescer;
+    private ServerCapabilities capabilities = new ServerCapabilities();
+    private ReportMetrics metrics = new ReportMetrics();
+    private volatile PayloadCapture payloadCapture;
+    private RetryBudget retryBudget;
+    private ServerGuard guard;
+    private PriorityScheduler scheduler;
+    private ConcurrencyLimiter limiter;
+    private PrintSpooler spooler;
+    private ConnectionWarmer warmer;
+
 	public HttpReportClient()
 	{
-		client = new HttpClient(new MultiThreadedHttpConnectionManager());
-        client.getHttpConnectionManager().getParams().setConnectionTimeout(TIMEOUT);		
-        client.getParams().setBooleanParameter(HttpMethodParams.USE_EXPECT_CONTINUE, true);
-        client.getParams().setIntParameter(HttpMethodParams.BUFFER_WARN_TRIGGER_LIMIT, MAX_BUFFER_LIMIT_NO_WARNING);
-        
-        base64 = new Base64();
+		this(HttpReportClientConfig.DEFAULT);
+	}
+
+	public HttpReportClient(HttpReportClientConfig config)
+	{
+		this(config, null);
+	}
+
+	/**
+	 * Creates a client sending its calls through the given transport instead of the one of the HttpBackend
+	 * of the config, the transport is shut down with the client
+	 */
+	public HttpReportClient(HttpReportClientConfig config, ReportTransport transport)
+	{
+		this.config = config;
+
+		if(config.isCoalesceRequests())
+			coalescer = new RequestCoalescer();
+
+		if(config.isTemplateDigest())
+			templates = new TemplateRegistry();
+
+		if(config.getPreparedReportCacheSize() > 0)
+		{
+			preparedReports = new ReportResultCache(config.getPreparedReportCacheSize());
+			preparedReports.setMaxEntryBytes(config.getPreparedReportCacheSize());
+			preparedReports.setTimeToLive(config.getPreparedReportTimeToLive());
+		}
+
+		RetryPolicy retryPolicy = config.getRetryPolicy();
+		retryBudget = new RetryBudget(retryPolicy.getBudgetRatio(), retryPolicy.getBudgetMinPerSecond());
+		guard = new ServerGuard(config.getCircuitBreaker(), config.getBulkhead());
+
+		if(config.getScheduling().isEnabled())
+			scheduler = new PriorityScheduler(config.getScheduling(), config.getMaxConnectionsPerHost());
+
+		if(config.getConcurrencyLimit().isEnabled())
+			limiter = new ConcurrencyLimiter(config.getConcurrencyLimit());
+
+		this.transport = transport != null ? transport : createTransport(config);
+
+		if(config.getPrintSpooler().isEnabled())
+		{
+			try
+			{
+				spooler = new PrintSpooler(this, config.getPrintSpooler());
+			}
+			catch (IOException e)
+			{
+				this.transport.shutdown();
+				throw new IllegalArgumentException("The print journal in " + config.getPrintSpooler().getJournalDirectory() + " could not be opened: " + e.toString(), e);
+			}
+		}
+
+		warmer = new ConnectionWarmer(this.transport, config.getWarmUp(), config.getMaxConnectionsPerHost());
+		warmer.start();
+	}
+
+	private static ReportTransport createTransport(HttpReportClientConfig config)
+	{
+		HttpBackend backend = config.getHttpBackend();
+
+		if(backend == HttpBackend.JDK_HTTP1 || backend == HttpBackend.JDK_HTTP2)
+			return new JdkHttpTransport(config, backend == HttpBackend.JDK_HTTP2);
+
+		return new CommonsHttpTransport(config);
+	}
+
+	public HttpReportClientConfig getConfig()
+	{
+		return config;
+	}
+
+	/**
+	 * Returns a snapshot of the connection pool for every report server used so far
+	 * The list is empty with the java.net.http backends, their HttpClient does not expose its connections
+	 */
+	public List<ConnectionPoolStats> getPoolStats()
+	{
+		return transport.getPoolStats();
+	}
+
+	/**
+	 * Returns a snapshot of the connection pool for the given report server or null if it was not used yet
+	 *
+	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
+	 */
+	public ConnectionPoolStats getPoolStats(String serverUrl)
+	{
+		return transport.getPoolStats(serverUrl);
+	}
+
+	/**
+	 * Returns the state of the circuit breaker of the given report server, null if the client has no
+	 * circuit breaker or did not call the server yet
+	 *
+	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
+	 */
+	public CircuitState getCircuitState(String serverUrl)
+	{
+		return guard.getState(serverUrl);
+	}
+
+	/**
+	 * Returns the running and queued calls and the wait time of every priority class on every report server used,
+	 * an empty list when the client has no SchedulingPolicy
+	 */
+	public List<SchedulerStats> getSchedulerStats()
+	{
+		if(scheduler == null)
+			return Collections.emptyList();
+
+		return scheduler.getStats();
+	}
+
+	/**
+	 * Returns the adaptive concurrency limit of every report server used, an empty list when the client
+	 * has no ConcurrencyLimitPolicy
+	 */
+	public List<ConcurrencyLimitStats> getConcurrencyLimits()
+	{
+		if(limiter == null)
+			return Collections.emptyList();
+
+		return limiter.getStats();
+	}
+
+	/**
+	 * Returns the templates held by every report server supporting the template digests and the bytes
+	 * their digests saved, an empty list when HttpReportClientConfig.isTemplateDigest() is false
+	 */
+	public List<TemplateDigestStats> getTemplateDigestStats()
+	{
+		if(templates == null)
+			return Collections.emptyList();
+
+		return templates.getStats();
+	}
+
+	/**
+	 * The print queue of the client, null unless HttpReportClientConfig.printSpooler() is set
+	 */
+	public PrintSpooler getPrintSpooler()
+	{
+		return spooler;
+	}
+
+	/**
+	 * Resolves the address of every report server of the WarmUpPolicy of the config, opens its minConnections
+	 * pooled connections and sends the probe of the policy over each, then returns how long it took for each server
+	 * The servers are then kept warm by the keep-alive probes; with WarmUpPolicy.isAtStartup() this is
+	 * done in the background when the client is created
+	 */
+	public List<WarmUpStats> warmUp()
+	{
+		return warmer.warmUp(config.getWarmUp().getServers());
+	}
+
+	/**
+	 * Same as warmUp() for one report server, which is kept warm from then on
+	 *
+	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
+	 */
+	public WarmUpStats warmUp(String serverUrl)
+	{
+		return warmer.warmUp(serverUrl);
+	}
+
+	/**
+	 * Returns the last warm-up or keep-alive round of every report server warmed up so far
+	 */
+	public List<WarmUpStats> getWarmUpStats()
+	{
+		return warmer.getStats();
+	}
+
+	/**
+	 * Returns the hit and miss counters of the prepared reports kept by buildReportMulti(), null if none are kept
+	 */
+	public ReportCacheStats getPreparedReportCacheStats()
+	{
+		return preparedReports != null ? preparedReports.getStats() : null;
+	}
+
+	/**
+	 * The latency, byte and error counters of the calls made so far, see ReportMetrics
+	 */
+	public ReportMetrics getMetrics()
+	{
+		return metrics;
+	}
+
+	/**
+	 * Stops the print spooler and the keep-alive probes, shuts the transport down, closing its connections,
+	 * and unregisters the metrics MBeans
+	 * The print jobs not sent yet stay in the journal
+	 */
+	public void shutdown()
+	{
+		if(spooler != null)
+			spooler.shutdown();
+
+		warmer.shutdown();
+
+		transport.shutdown();
+		metrics.unregisterMBeans();
+	}
+
+	/**
+	 * Sets the executor running the async calls
+	 * By default a virtual thread is used per call when the JDK supports it, a daemon thread pool otherwise
+	 */
+	public void setExecutor(Executor executor)
+	{
+		this.executor = executor;
+	}
+
+	public Executor getExecutor()
+	{
+		return executor != null ? executor : ReportExecutors.getDefault();
+	}
+
+	/**
+	 * Caches the reports of the calls without side effects (nothing printed), null disables the cache (default)
+	 */
+	public void setResultCache(ReportResultCache resultCache)
+	{
+		this.resultCache = resultCache;
+	}
+
+	/**
+	 * Writes the payloads of the calls to a directory in the background, see PayloadCapture
+	 * Null stops the capture (default)
+	 */
+	public void setPayloadCapture(PayloadCapture payloadCapture)
+	{
+		this.payloadCapture = payloadCapture;
+	}
+
+	public PayloadCapture getPayloadCapture()
+	{
+		return payloadCapture;
+	}
+
+	public ReportResultCache getResultCache()
+	{
+		return resultCache;
 	}
 
 
 	/**
-	 * Connects to the report server, passes down the report template, datasource, 
+	 * Connects to the report server, passes down the report template, datasource,
 	 * report type and gets the newly created report as a byte array
 	 *
 	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
 	 * @param reportTemplate	example:	a byte[] containng the template
 	 * @param dataSource		example:	a byte[] containng the datasource
-	 * @param exportType		example:	ExportType.FP3 or ExportType.PDF or ExportType.HTML or ExportType.RTF		
-	 * @param copies			example:	2 //prints 2 copies		
-	 *  
+	 * @param exportType		example:	ExportType.FP3 or ExportType.PDF or ExportType.HTML or ExportType.RTF
+	 * @param copies			example:	2 //prints 2 copies
+	 *
 	 * @return byte[]
-	 */	
+	 */
 	public byte[] buildReport(String serverUrl, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies) throws HttpReportClientException
 	{
-        byte[] result = null;
-        
-        long mili1 = 0;
-        long mili2 = 0;
-        
+		return buildReport(serverUrl, reportTemplate, dataSource, exportType, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as buildReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] buildReport(String serverUrl, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = buildReportRequest(serverUrl, null, reportTemplate, dataSource, null, exportType, printTo, nCopies, options);
+
+		byte[] result = executeForBytes(request, null);
+
         if(log.isDebugEnabled())
         {
-        	log.debug("Calling function HttpReportClient.buildReport()...");
-        	log.debug("param @serverUrl = " + serverUrl);
-        	log.debug("param @reportTemplate = " + new String(reportTemplate));
-        	if(dataSource.length < 20000)
-        		log.debug("param @dataSource = " + new String(dataSource));
-        	else
-        		log.debug("param @dataSource = ...too big to be displayed...see ds.xml file..." + String.valueOf(dataSource.length) + " bytes");
-        	log.debug("param @exportType = " + exportType.toString());
-        	log.debug("param @printTo = " + printTo);
-        	log.debug("param @copies = " + nCopies);
-        	
-        	mili1 = System.currentTimeMillis();
+        	log.debug("HttpReportClient.buildReport() returned " + String.valueOf(result.length) + " bytes");
+
+        	log.debug(preview(result));
         }
-        
-		PostMethod post = new PostMethod(serverUrl);
-        
-        NameValuePair[] data = 
-        {
-          new NameValuePair("template", new String(base64.encode(reportTemplate))),
-          new NameValuePair("datasource", new String(base64.encode(dataSource))),
-          new NameValuePair("format", exportType.toString()),
-		  new NameValuePair("printto", printTo),
-		  new NameValuePair("copies", String.valueOf(nCopies))
-        };
-        
-        post.setRequestBody(data);
-        
-        int iGetResultCode;
-		try
-		{
-			iGetResultCode = client.executeMethod(post);
-			
-	        if(log.isDebugEnabled())
-	        {
-	        	mili2 = System.currentTimeMillis();
-	        	
-	        	log.debug("The HttpReportClient.buildReport() call took " + String.valueOf(mili2 - mili1) + " miliseconds");
-	        }
 
-			if(iGetResultCode == HttpStatus.SC_OK)
-	        {
-	    		result = getResponseAsByteArray(post);
-	    		
-		        if(log.isDebugEnabled())
-		        {
-		        	log.debug("The HttpReportClient.buildReport() call was succesfull");
-		        }
-	        }
-	        else
-	        {
-	        	log.error("The HttpReportClient.buildReport() call returned the error: " + iGetResultCode);
-	        	log.error("The error message was : '" + post.getResponseBodyAsString() + "'");
-	        	throw new HttpReportClientException("The report server returned the error: " + iGetResultCode + ", the error message was: '" + post.getResponseBodyAsString() + "'");
-	        }
-		} 
-		catch (HttpException e)
+		return result;
+	}
+
+	/**
+	 * Same as buildReport() but the call goes to the least loaded healthy server of the cluster
+	 */
+	public byte[] buildReport(ReportServerCluster cluster, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return buildReport(cluster, reportTemplate, dataSource, exportType, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as buildReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] buildReport(ReportServerCluster cluster, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = buildReportRequest(null, cluster, reportTemplate, dataSource, null, exportType, printTo, nCopies, options);
+
+		return executeForBytes(request, null);
+	}
+
+	/**
+	 * Same as buildReport() but the report is written to the given stream instead of being returned
+	 * The stream is not closed
+	 *
+	 * @return the number of bytes written
+	 */
+	public long buildReport(String serverUrl, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies, OutputStream out) throws HttpReportClientException
+	{
+		return buildReport(serverUrl, reportTemplate, dataSource, exportType, printTo, nCopies, out, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as buildReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public long buildReport(String serverUrl, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies, OutputStream out, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = buildReportRequest(serverUrl, null, reportTemplate, dataSource, null, exportType, printTo, nCopies, options);
+
+		return logWritten(request, execute(request, ResponseHandlers.toStream(out), null));
+	}
+
+	/**
+	 * Same as buildReport() but the report is written to the given channel instead of being returned
+	 * The channel is not closed
+	 *
+	 * @return the number of bytes written
+	 */
+	public long buildReport(String serverUrl, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies, WritableByteChannel out) throws HttpReportClientException
+	{
+		return buildReport(serverUrl, reportTemplate, dataSource, exportType, printTo, nCopies, out, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as buildReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public long buildReport(String serverUrl, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies, WritableByteChannel out, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = buildReportRequest(serverUrl, null, reportTemplate, dataSource, null, exportType, printTo, nCopies, options);
+
+		return logWritten(request, execute(request, ResponseHandlers.toChannel(out), null));
+	}
+
+	/**
+	 * Same as buildReport() but the report is written to the given file (created or truncated)
+	 *
+	 * @return the number of bytes written
+	 */
+	public long buildReport(String serverUrl, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies, Path out) throws HttpReportClientException
+	{
+		return buildReport(serverUrl, reportTemplate, dataSource, exportType, printTo, nCopies, out, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as buildReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public long buildReport(String serverUrl, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies, Path out, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = buildReportRequest(serverUrl, null, reportTemplate, dataSource, null, exportType, printTo, nCopies, options);
+
+		return logWritten(request, execute(request, ResponseHandlers.toFile(out), null));
+	}
+
+	/**
+	 * Same as buildReport() but a report bigger than HttpReportClientConfig.getResultSpillThreshold() is
+	 * written to a temporary file instead of the heap, see ReportResult; the result must be closed
+	 */
+	public ReportResult buildReportAsResult(String serverUrl, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return buildReportAsResult(serverUrl, reportTemplate, dataSource, exportType, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as buildReportAsResult() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public ReportResult buildReportAsResult(String serverUrl, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = buildReportRequest(serverUrl, null, reportTemplate, dataSource, null, exportType, printTo, nCopies, options);
+
+		return logResult(request, execute(request, resultHandler(), null));
+	}
+
+	/**
+	 * Same as buildReportAsResult() but the datasource is read while the request is sent, see ReportDatasource
+	 */
+	public ReportResult buildReportAsResult(String serverUrl, byte[] reportTemplate, ReportDatasource dataSource, ExportType exportType, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return buildReportAsResult(serverUrl, reportTemplate, dataSource, exportType, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as buildReportAsResult() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public ReportResult buildReportAsResult(String serverUrl, byte[] reportTemplate, ReportDatasource dataSource, ExportType exportType, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = buildReportRequest(serverUrl, null, reportTemplate, null, dataSource, exportType, printTo, nCopies, options);
+
+		return logResult(request, execute(request, resultHandler(), null));
+	}
+
+	/**
+	 * Async version of buildReport()
+	 * Cancelling the returned future aborts the call and releases its connection
+	 */
+	public CompletableFuture<byte[]> buildReportAsync(String serverUrl, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies)
+	{
+		return buildReportAsync(serverUrl, reportTemplate, dataSource, exportType, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as buildReportAsync() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public CompletableFuture<byte[]> buildReportAsync(String serverUrl, byte[] reportTemplate, byte[] dataSource, ExportType exportType, String printTo, int nCopies, CallOptions options)
+	{
+		return submit(buildReportRequest(serverUrl, null, reportTemplate, dataSource, null, exportType, printTo, nCopies, options));
+	}
+
+	/**
+	 * Same as buildReport() but the datasource is read while the request is sent, see ReportDatasource
+	 * The datasource does not have to be held in memory, the report server receives it as it is produced
+	 */
+	public byte[] buildReport(String serverUrl, byte[] reportTemplate, ReportDatasource dataSource, ExportType exportType, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return buildReport(serverUrl, reportTemplate, dataSource, exportType, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as buildReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] buildReport(String serverUrl, byte[] reportTemplate, ReportDatasource dataSource, ExportType exportType, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = buildReportRequest(serverUrl, null, reportTemplate, null, dataSource, exportType, printTo, nCopies, options);
+
+		return executeForBytes(request, null);
+	}
+
+	/**
+	 * Same as buildReport() with a streamed datasource but the call goes to the least loaded healthy server of the cluster
+	 */
+	public byte[] buildReport(ReportServerCluster cluster, byte[] reportTemplate, ReportDatasource dataSource, ExportType exportType, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return buildReport(cluster, reportTemplate, dataSource, exportType, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as buildReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] buildReport(ReportServerCluster cluster, byte[] reportTemplate, ReportDatasource dataSource, ExportType exportType, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = buildReportRequest(null, cluster, reportTemplate, null, dataSource, exportType, printTo, nCopies, options);
+
+		return executeForBytes(request, null);
+	}
+
+	/**
+	 * Same as buildReport() with a streamed datasource but the report is written to the given stream instead of being returned
+	 * The stream is not closed
+	 *
+	 * @return the number of bytes written
+	 */
+	public long buildReport(String serverUrl, byte[] reportTemplate, ReportDatasource dataSource, ExportType exportType, String printTo, int nCopies, OutputStream out) throws HttpReportClientException
+	{
+		return buildReport(serverUrl, reportTemplate, dataSource, exportType, printTo, nCopies, out, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as buildReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public long buildReport(String serverUrl, byte[] reportTemplate, ReportDatasource dataSource, ExportType exportType, String printTo, int nCopies, OutputStream out, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = buildReportRequest(serverUrl, null, reportTemplate, null, dataSource, exportType, printTo, nCopies, options);
+
+		return logWritten(request, execute(request, ResponseHandlers.toStream(out), null));
+	}
+
+	/**
+	 * Renders the report once and returns it in every requested format
+	 * The template and datasource are sent once for the prepared report (ExportType.FP3), which is then
+	 * converted to the other formats in parallel; the prepared report is kept for a while (see
+	 * HttpReportClientConfig.preparedReportTimeToLive()) so a format asked for later is not rendered again
+	 *
+	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
+	 * @param exportTypes		example:	ExportType.PDF, ExportType.RTF and ExportType.XLS
+	 *
+	 * @return the reports by export type, in the order of the set
+	 */
+	public Map<ExportType, byte[]> buildReportMulti(String serverUrl, byte[] reportTemplate, byte[] dataSource, Set<ExportType> exportTypes) throws HttpReportClientException
+	{
+		return buildReportMulti(serverUrl, reportTemplate, dataSource, exportTypes, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as buildReportMulti() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public Map<ExportType, byte[]> buildReportMulti(String serverUrl, byte[] reportTemplate, byte[] dataSource, Set<ExportType> exportTypes, CallOptions options) throws HttpReportClientException
+	{
+		return buildReportMulti(serverUrl, null, reportTemplate, dataSource, exportTypes, options);
+	}
+
+	/**
+	 * Same as buildReportMulti() but every call goes to the least loaded healthy server of the cluster
+	 */
+	public Map<ExportType, byte[]> buildReportMulti(ReportServerCluster cluster, byte[] reportTemplate, byte[] dataSource, Set<ExportType> exportTypes) throws HttpReportClientException
+	{
+		return buildReportMulti(cluster, reportTemplate, dataSource, exportTypes, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as buildReportMulti() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public Map<ExportType, byte[]> buildReportMulti(ReportServerCluster cluster, byte[] reportTemplate, byte[] dataSource, Set<ExportType> exportTypes, CallOptions options) throws HttpReportClientException
+	{
+		return buildReportMulti(null, cluster, reportTemplate, dataSource, exportTypes, options);
+	}
+
+	private Map<ExportType, byte[]> buildReportMulti(String serverUrl, ReportServerCluster cluster, byte[] reportTemplate, byte[] dataSource, Set<ExportType> exportTypes, CallOptions options) throws HttpReportClientException
+	{
+		if(exportTypes == null || exportTypes.isEmpty())
+			throw new IllegalArgumentException("exportTypes must not be empty");
+
+		byte[] prepared = getPreparedReport(serverUrl, cluster, reportTemplate, dataSource, options);
+		Map<ExportType, CompletableFuture<byte[]>> conversions = new LinkedHashMap<ExportType, CompletableFuture<byte[]>>();
+
+		for(Iterator<ExportType> it = exportTypes.iterator(); it.hasNext();)
+		{
+			ExportType exportType = it.next();
+
+			if(!ExportType.FP3.equals(exportType))
+				conversions.put(exportType, submit(convertReportRequest(serverUrl, cluster, prepared, exportType, null, 1, options)));
+		}
+
+		Map<ExportType, byte[]> reports = new LinkedHashMap<ExportType, byte[]>();
+
+		try
+		{
+			for(Iterator<ExportType> it = exportTypes.iterator(); it.hasNext();)
+			{
+				ExportType exportType = it.next();
+
+				reports.put(exportType, ExportType.FP3.equals(exportType) ? prepared : conversions.get(exportType).get());
+			}
+		}
+		catch (InterruptedException e)
+		{
+			cancel(conversions.values());
+			Thread.currentThread().interrupt();
+			throw new HttpReportClientException("The HttpReportClient.buildReportMulti() call was interrupted", e);
+		}
+		catch (ExecutionException e)
+		{
+			// the other formats are of no use without this one
+			cancel(conversions.values());
+
+			if(e.getCause() instanceof HttpReportClientException)
+				throw (HttpReportClientException)e.getCause();
+
+			throw new HttpReportClientException(e.getCause());
+		}
+
+        if(log.isDebugEnabled())
+        {
+        	log.debug("HttpReportClient.buildReportMulti() rendered the report once and returned it as " + reports.keySet());
+        }
+
+		return reports;
+	}
+
+	/**
+	 * Returns the FP3 render of the template and datasource from the prepared reports kept or from the report server
+	 */
+	private byte[] getPreparedReport(String serverUrl, ReportServerCluster cluster, byte[] reportTemplate, byte[] dataSource, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = buildReportRequest(serverUrl, cluster, reportTemplate, dataSource, null, ExportType.FP3, null, 1, options);
+		ReportResultCache cache = preparedReports;
+
+		if(cache == null)
+			return executeForBytes(request, null);
+
+		String key = request.getDigest();
+		byte[] prepared = cache.get(key);
+
+		if(prepared != null)
+		{
+	        if(log.isDebugEnabled())
+	        {
+	        	log.debug("The HttpReportClient.buildReportMulti() call reuses the prepared report of a previous call");
+	        }
+
+			return prepared;
+		}
+
+		prepared = executeForBytes(request, null);
+		cache.put(key, prepared);
+
+		return prepared;
+	}
+
+	private static void cancel(Collection<CompletableFuture<byte[]>> futures)
+	{
+		for(Iterator<CompletableFuture<byte[]>> it = futures.iterator(); it.hasNext();)
+		{
+			it.next().cancel(true);
+		}
+	}
+
+	/**
+	 * Sends many buildReport(), convertReport() and convertOfficeDocument() jobs, see ReportBatch
+	 * A server advertising the "batch" capability gets several jobs per request and streams the reports
+	 * back as they are rendered, the other servers get one call per job; see BatchPolicy
+	 * Returns at once, the future of each job completes with its report or its own error, in the order of
+	 * the jobs or as they are answered; cancelling a future skips the job if it was not sent yet
+	 *
+	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
+	 *
+	 * @return the futures of the jobs, in the order they were added to the batch
+	 */
+	public List<CompletableFuture<byte[]>> submitBatch(String serverUrl, ReportBatch batch)
+	{
+		return submitBatch(serverUrl, batch, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as submitBatch() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public List<CompletableFuture<byte[]>> submitBatch(String serverUrl, ReportBatch batch, CallOptions options)
+	{
+		return submitBatch(serverUrl, null, batch, options);
+	}
+
+	/**
+	 * Same as submitBatch() but every job goes to the least loaded healthy server of the cluster, one call per job
+	 */
+	public List<CompletableFuture<byte[]>> submitBatch(ReportServerCluster cluster, ReportBatch batch)
+	{
+		return submitBatch(cluster, batch, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as submitBatch() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public List<CompletableFuture<byte[]>> submitBatch(ReportServerCluster cluster, ReportBatch batch, CallOptions options)
+	{
+		return submitBatch(null, cluster, batch, options);
+	}
+
+	private List<CompletableFuture<byte[]>> submitBatch(String serverUrl, ReportServerCluster cluster, ReportBatch batch, CallOptions options)
+	{
+		List<ReportBatch.Job> jobs = batch.getJobs();
+		List<ReportRequest> requests = new ArrayList<ReportRequest>(jobs.size());
+
+		for(int i = 0; i < jobs.size(); i++)
+		{
+			ReportBatch.Job job = jobs.get(i);
+
+			if(job.operation == ReportOperation.BUILD_REPORT)
+				requests.add(buildReportRequest(serverUrl, cluster, job.first, job.second, null, job.exportType, null, 1, options));
+			else if(job.operation == ReportOperation.CONVERT_REPORT)
+				requests.add(convertReportRequest(serverUrl, cluster, job.first, job.exportType, null, 1, options));
+			else
+				requests.add(convertOfficeDocumentRequest(serverUrl, cluster, job.first, job.exportType, options));
+		}
+
+		return new BatchCall(this, serverUrl, config.getBatch(), capabilities, requests, options).start();
+	}
+
+	/**
+	 * @param streamedDataSource	used instead of dataSource when not null
+	 */
+	private ReportRequest buildReportRequest(String serverUrl, ReportServerCluster cluster, byte[] reportTemplate, byte[] dataSource, ReportDatasource streamedDataSource, ExportType exportType, String printTo, int nCopies, CallOptions options)
+	{
+		ReportRequest request = new ReportRequest(ReportOperation.BUILD_REPORT, serverUrl, cluster, exportType, printTo, options);
+
+        if(log.isDebugEnabled())
+        {
+        	log.debug("Calling function HttpReportClient.buildReport()...");
+        	log.debug("param @serverUrl = " + request.getTarget());
+        	log.debug("param @reportTemplate = " + preview(reportTemplate));
+        	log.debug("param @dataSource = " + (streamedDataSource != null ? streamedDataSource.toString() : preview(dataSource)));
+        	log.debug("param @exportType = " + exportType.toString());
+        	log.debug("param @printTo = " + printTo);
+        	log.debug("param @copies = " + nCopies);
+        }
+
+        request.addBinaryField("template", reportTemplate, true);
+
+        if(streamedDataSource != null)
+        	request.addStreamedField("datasource", streamedDataSource, true);
+        else
+        	request.addBinaryField("datasource", dataSource, true);
+
+        return request
+        	.addField("format", exportType.toString())
+        	.addField("printto", printTo)
+        	.addField("copies", String.valueOf(nCopies));
+	}
+
+	/**
+	 * Connects to the report server, passes down the report template, datasource,
+	 * report type and prints the report
+	 * If the report was printed succesfully returns "true" as byte[]
+	 *
+	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
+	 * @param reportTemplate	example:	a byte[] containng the template
+	 * @param dataSource		example:	a byte[] containng the datasource
+	 * @param printTo			example:	this is the printer name
+	 *
+	 * @return byte[]
+	 */
+	public byte[] printReport(String serverUrl, byte[] reportTemplate, byte[] dataSource, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return printReport(serverUrl, reportTemplate, dataSource, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as printReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] printReport(String serverUrl, byte[] reportTemplate, byte[] dataSource, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = printReportRequest(serverUrl, null, reportTemplate, dataSource, null, printTo, nCopies, options);
+
+		byte[] result = executeForBytes(request, null);
+
+        if(log.isDebugEnabled())
+        {
+        	log.debug("HttpReportClient.printReport() returned " + preview(result));
+        }
+
+		return result;
+	}
+
+	/**
+	 * Same as printReport() but the call goes to the least loaded healthy server of the cluster
+	 * The call is sent to another server only if the connection could not be established
+	 */
+	public byte[] printReport(ReportServerCluster cluster, byte[] reportTemplate, byte[] dataSource, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return printReport(cluster, reportTemplate, dataSource, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as printReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] printReport(ReportServerCluster cluster, byte[] reportTemplate, byte[] dataSource, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = printReportRequest(null, cluster, reportTemplate, dataSource, null, printTo, nCopies, options);
+
+		return executeForBytes(request, null);
+	}
+
+	/**
+	 * Async version of printReport()
+	 * Cancelling the returned future aborts the call, the report may still have been printed
+	 */
+	public CompletableFuture<byte[]> printReportAsync(String serverUrl, byte[] reportTemplate, byte[] dataSource, String printTo, int nCopies)
+	{
+		return printReportAsync(serverUrl, reportTemplate, dataSource, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as printReportAsync() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public CompletableFuture<byte[]> printReportAsync(String serverUrl, byte[] reportTemplate, byte[] dataSource, String printTo, int nCopies, CallOptions options)
+	{
+		return submit(printReportRequest(serverUrl, null, reportTemplate, dataSource, null, printTo, nCopies, options));
+	}
+
+	/**
+	 * Same as printReport() but the datasource is read while the request is sent, see ReportDatasource
+	 */
+	public byte[] printReport(String serverUrl, byte[] reportTemplate, ReportDatasource dataSource, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return printReport(serverUrl, reportTemplate, dataSource, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as printReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] printReport(String serverUrl, byte[] reportTemplate, ReportDatasource dataSource, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = printReportRequest(serverUrl, null, reportTemplate, null, dataSource, printTo, nCopies, options);
+
+		return executeForBytes(request, null);
+	}
+
+	/**
+	 * Same as printReport() with a streamed datasource but the call goes to the least loaded healthy server of the cluster
+	 * The call is sent to another server only if the connection could not be established
+	 */
+	public byte[] printReport(ReportServerCluster cluster, byte[] reportTemplate, ReportDatasource dataSource, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return printReport(cluster, reportTemplate, dataSource, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as printReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] printReport(ReportServerCluster cluster, byte[] reportTemplate, ReportDatasource dataSource, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = printReportRequest(null, cluster, reportTemplate, null, dataSource, printTo, nCopies, options);
+
+		return executeForBytes(request, null);
+	}
+
+	/**
+	 * @param streamedDataSource	used instead of dataSource when not null
+	 */
+	private ReportRequest printReportRequest(String serverUrl, ReportServerCluster cluster, byte[] reportTemplate, byte[] dataSource, ReportDatasource streamedDataSource, String printTo, int nCopies, CallOptions options)
+	{
+		ReportRequest request = new ReportRequest(ReportOperation.PRINT_REPORT, serverUrl, cluster, null, printTo, options);
+
+        if(log.isDebugEnabled())
+        {
+        	log.debug("Calling function HttpReportClient.printReport()...");
+        	log.debug("param @serverUrl = " + request.getTarget());
+        	log.debug("param @reportTemplate = " + preview(reportTemplate));
+        	log.debug("param @dataSource = " + (streamedDataSource != null ? streamedDataSource.toString() : preview(dataSource)));
+        	log.debug("param @printTo = " + printTo);
+        	log.debug("param @copies = " + nCopies);
+        }
+
+        request.addBinaryField("template", reportTemplate, true);
+
+        if(streamedDataSource != null)
+        	request.addStreamedField("datasource", streamedDataSource, true);
+        else
+        	request.addBinaryField("datasource", dataSource, true);
+
+        return request
+        	.addField("printto", printTo)
+        	.addField("copies", String.valueOf(nCopies));
+	}
+
+	/**
+	 * Connects to the report server, passes down the prepared report and prints the report
+	 * If the report was printed succesfully returns "true" as byte[]
+	 *
+	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
+	 * @param preparedReport	example:	a byte[] containng the prepared report
+	 * @param printTo			example:	this is the printer name
+	 * @param copies			example:	2 //prints 2 copies
+	 *
+	 * @return byte[]
+	 */
+	public byte[] printReport(String serverUrl, byte[] preparedReport, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return printReport(serverUrl, preparedReport, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as printReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] printReport(String serverUrl, byte[] preparedReport, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = printPreparedReportRequest(serverUrl, null, preparedReport, printTo, nCopies, options);
+
+		byte[] result = executeForBytes(request, null);
+
+        if(log.isDebugEnabled())
+        {
+        	log.debug("HttpReportClient.printReport() returned " + preview(result));
+        }
+
+		return result;
+	}
+
+	/**
+	 * Same as printReport() but the call goes to the least loaded healthy server of the cluster
+	 * The call is sent to another server only if the connection could not be established
+	 */
+	public byte[] printReport(ReportServerCluster cluster, byte[] preparedReport, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return printReport(cluster, preparedReport, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as printReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] printReport(ReportServerCluster cluster, byte[] preparedReport, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = printPreparedReportRequest(null, cluster, preparedReport, printTo, nCopies, options);
+
+		return executeForBytes(request, null);
+	}
+
+	/**
+	 * Async version of printReport() for a prepared report
+	 * Cancelling the returned future aborts the call, the report may still have been printed
+	 */
+	public CompletableFuture<byte[]> printReportAsync(String serverUrl, byte[] preparedReport, String printTo, int nCopies)
+	{
+		return printReportAsync(serverUrl, preparedReport, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as printReportAsync() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public CompletableFuture<byte[]> printReportAsync(String serverUrl, byte[] preparedReport, String printTo, int nCopies, CallOptions options)
+	{
+		return submit(printPreparedReportRequest(serverUrl, null, preparedReport, printTo, nCopies, options));
+	}
+
+	private ReportRequest printPreparedReportRequest(String serverUrl, ReportServerCluster cluster, byte[] preparedReport, String printTo, int nCopies, CallOptions options)
+	{
+		ReportRequest request = new ReportRequest(ReportOperation.PRINT_REPORT, serverUrl, cluster, null, printTo, options);
+
+        if(log.isDebugEnabled())
+        {
+        	log.debug("Calling function HttpReportClient.printReport()...");
+        	log.debug("param @serverUrl = " + request.getTarget());
+        	log.debug("param @preparedReport = " + preview(preparedReport));
+        	log.debug("param @printTo = " + printTo);
+        	log.debug("param @copies = " + nCopies);
+        }
+
+        return request
+        	.addBinaryField("preparedReport", preparedReport)
+        	.addField("printto", printTo)
+        	.addField("copies", String.valueOf(nCopies));
+	}
+
+
+	/**
+	 * Connects to the report server, passes down the prepared report, convert type , converts the report and prints it if the printer is not empty
+	 *
+	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
+	 * @param preparedReport	example:	a byte[] containng the prepared report
+	 * @param exportType		example:	ExportType.FP3 or ExportType.PDF or ExportType.HTML or ExportType.RTF
+	 * @param printTo			example:	this is the printer name
+	 * @param copies			example:	2 //prints 2 copies
+	 *
+	 * @return byte[]
+	 */
+	public byte[] convertReport(String serverUrl, byte[] preparedReport, ExportType exportType, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return convertReport(serverUrl, preparedReport, exportType, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] convertReport(String serverUrl, byte[] preparedReport, ExportType exportType, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = convertReportRequest(serverUrl, null, preparedReport, exportType, printTo, nCopies, options);
+
+		byte[] result = executeForBytes(request, null);
+
+        if(log.isDebugEnabled())
+        {
+        	log.debug("HttpReportClient.printReport() returned " + preview(result));
+        }
+
+		return result;
+	}
+
+	/**
+	 * Same as convertReport() but the call goes to the least loaded healthy server of the cluster
+	 */
+	public byte[] convertReport(ReportServerCluster cluster, byte[] preparedReport, ExportType exportType, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return convertReport(cluster, preparedReport, exportType, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] convertReport(ReportServerCluster cluster, byte[] preparedReport, ExportType exportType, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = convertReportRequest(null, cluster, preparedReport, exportType, printTo, nCopies, options);
+
+		return executeForBytes(request, null);
+	}
+
+	/**
+	 * Same as convertReport() but the report is written to the given stream instead of being returned
+	 * The stream is not closed
+	 *
+	 * @return the number of bytes written
+	 */
+	public long convertReport(String serverUrl, byte[] preparedReport, ExportType exportType, String printTo, int nCopies, OutputStream out) throws HttpReportClientException
+	{
+		return convertReport(serverUrl, preparedReport, exportType, printTo, nCopies, out, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public long convertReport(String serverUrl, byte[] preparedReport, ExportType exportType, String printTo, int nCopies, OutputStream out, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = convertReportRequest(serverUrl, null, preparedReport, exportType, printTo, nCopies, options);
+
+		return logWritten(request, execute(request, ResponseHandlers.toStream(out), null));
+	}
+
+	/**
+	 * Same as convertReport() but the report is written to the given channel instead of being returned
+	 * The channel is not closed
+	 *
+	 * @return the number of bytes written
+	 */
+	public long convertReport(String serverUrl, byte[] preparedReport, ExportType exportType, String printTo, int nCopies, WritableByteChannel out) throws HttpReportClientException
+	{
+		return convertReport(serverUrl, preparedReport, exportType, printTo, nCopies, out, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public long convertReport(String serverUrl, byte[] preparedReport, ExportType exportType, String printTo, int nCopies, WritableByteChannel out, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = convertReportRequest(serverUrl, null, preparedReport, exportType, printTo, nCopies, options);
+
+		return logWritten(request, execute(request, ResponseHandlers.toChannel(out), null));
+	}
+
+	/**
+	 * Same as convertReport() but the report is written to the given file (created or truncated)
+	 *
+	 * @return the number of bytes written
+	 */
+	public long convertReport(String serverUrl, byte[] preparedReport, ExportType exportType, String printTo, int nCopies, Path out) throws HttpReportClientException
+	{
+		return convertReport(serverUrl, preparedReport, exportType, printTo, nCopies, out, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertReport() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public long convertReport(String serverUrl, byte[] preparedReport, ExportType exportType, String printTo, int nCopies, Path out, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = convertReportRequest(serverUrl, null, preparedReport, exportType, printTo, nCopies, options);
+
+		return logWritten(request, execute(request, ResponseHandlers.toFile(out), null));
+	}
+
+	/**
+	 * Same as convertReport() but a report bigger than HttpReportClientConfig.getResultSpillThreshold() is
+	 * written to a temporary file instead of the heap, see ReportResult; the result must be closed
+	 */
+	public ReportResult convertReportAsResult(String serverUrl, byte[] preparedReport, ExportType exportType, String printTo, int nCopies) throws HttpReportClientException
+	{
+		return convertReportAsResult(serverUrl, preparedReport, exportType, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertReportAsResult() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public ReportResult convertReportAsResult(String serverUrl, byte[] preparedReport, ExportType exportType, String printTo, int nCopies, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = convertReportRequest(serverUrl, null, preparedReport, exportType, printTo, nCopies, options);
+
+		return logResult(request, execute(request, resultHandler(), null));
+	}
+
+	/**
+	 * Async version of convertReport()
+	 * Cancelling the returned future aborts the call and releases its connection
+	 */
+	public CompletableFuture<byte[]> convertReportAsync(String serverUrl, byte[] preparedReport, ExportType exportType, String printTo, int nCopies)
+	{
+		return convertReportAsync(serverUrl, preparedReport, exportType, printTo, nCopies, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertReportAsync() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public CompletableFuture<byte[]> convertReportAsync(String serverUrl, byte[] preparedReport, ExportType exportType, String printTo, int nCopies, CallOptions options)
+	{
+		return submit(convertReportRequest(serverUrl, null, preparedReport, exportType, printTo, nCopies, options));
+	}
+
+	private ReportRequest convertReportRequest(String serverUrl, ReportServerCluster cluster, byte[] preparedReport, ExportType exportType, String printTo, int nCopies, CallOptions options)
+	{
+		ReportRequest request = new ReportRequest(ReportOperation.CONVERT_REPORT, serverUrl, cluster, exportType, printTo, options);
+
+        if(log.isDebugEnabled())
+        {
+        	log.debug("Calling function HttpReportClient.convertReport()...");
+        	log.debug("param @serverUrl = " + request.getTarget());
+        	log.debug("param @preparedReport = " + preview(preparedReport));
+        	log.debug("param @exportType = " + exportType.toString());
+        	log.debug("param @printTo = " + printTo);
+        	log.debug("param @copies = " + nCopies);
+        }
+
+        return request
+        	.addBinaryField("preparedReport", preparedReport)
+        	.addField("format", exportType.toString())
+        	.addField("printto", printTo)
+        	.addField("copies", String.valueOf(nCopies));
+	}
+
+	/**
+	 * Connects to the report server, passes down the office document, convert type , converts the report to desired format
+	 *
+	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
+	 * @param officeDocument	example:	a byte[] containng the office document
+	 * @param exportType		example:	ExportType.FP3 or ExportType.PDF or ExportType.DOC or ExportType.RTF or ExportType.DOCX
+	 *
+	 * @return byte[]
+	 */
+	public byte[] convertOfficeDocument(String serverUrl, byte[] officeDocument, ExportType exportType) throws HttpReportClientException
+	{
+		return convertOfficeDocument(serverUrl, officeDocument, exportType, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertOfficeDocument() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] convertOfficeDocument(String serverUrl, byte[] officeDocument, ExportType exportType, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = convertOfficeDocumentRequest(serverUrl, null, officeDocument, exportType, options);
+
+		byte[] result = executeForBytes(request, null);
+
+        if(log.isDebugEnabled())
+        {
+        	log.debug("HttpReportClient.convertOfficeDocument() returned " + preview(result));
+        }
+
+		return result;
+	}
+
+	/**
+	 * Same as convertOfficeDocument() but the call goes to the least loaded healthy server of the cluster
+	 */
+	public byte[] convertOfficeDocument(ReportServerCluster cluster, byte[] officeDocument, ExportType exportType) throws HttpReportClientException
+	{
+		return convertOfficeDocument(cluster, officeDocument, exportType, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertOfficeDocument() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public byte[] convertOfficeDocument(ReportServerCluster cluster, byte[] officeDocument, ExportType exportType, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = convertOfficeDocumentRequest(null, cluster, officeDocument, exportType, options);
+
+		return executeForBytes(request, null);
+	}
+
+	/**
+	 * Same as convertOfficeDocument() but the document is written to the given stream instead of being returned
+	 * The stream is not closed
+	 *
+	 * @return the number of bytes written
+	 */
+	public long convertOfficeDocument(String serverUrl, byte[] officeDocument, ExportType exportType, OutputStream out) throws HttpReportClientException
+	{
+		return convertOfficeDocument(serverUrl, officeDocument, exportType, out, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertOfficeDocument() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public long convertOfficeDocument(String serverUrl, byte[] officeDocument, ExportType exportType, OutputStream out, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = convertOfficeDocumentRequest(serverUrl, null, officeDocument, exportType, options);
+
+		return logWritten(request, execute(request, ResponseHandlers.toStream(out), null));
+	}
+
+	/**
+	 * Same as convertOfficeDocument() but the document is written to the given channel instead of being returned
+	 * The channel is not closed
+	 *
+	 * @return the number of bytes written
+	 */
+	public long convertOfficeDocument(String serverUrl, byte[] officeDocument, ExportType exportType, WritableByteChannel out) throws HttpReportClientException
+	{
+		return convertOfficeDocument(serverUrl, officeDocument, exportType, out, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertOfficeDocument() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public long convertOfficeDocument(String serverUrl, byte[] officeDocument, ExportType exportType, WritableByteChannel out, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = convertOfficeDocumentRequest(serverUrl, null, officeDocument, exportType, options);
+
+		return logWritten(request, execute(request, ResponseHandlers.toChannel(out), null));
+	}
+
+	/**
+	 * Same as convertOfficeDocument() but the document is written to the given file (created or truncated)
+	 *
+	 * @return the number of bytes written
+	 */
+	public long convertOfficeDocument(String serverUrl, byte[] officeDocument, ExportType exportType, Path out) throws HttpReportClientException
+	{
+		return convertOfficeDocument(serverUrl, officeDocument, exportType, out, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertOfficeDocument() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public long convertOfficeDocument(String serverUrl, byte[] officeDocument, ExportType exportType, Path out, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = convertOfficeDocumentRequest(serverUrl, null, officeDocument, exportType, options);
+
+		return logWritten(request, execute(request, ResponseHandlers.toFile(out), null));
+	}
+
+	/**
+	 * Same as convertOfficeDocument() but a document bigger than HttpReportClientConfig.getResultSpillThreshold() is
+	 * written to a temporary file instead of the heap, see ReportResult; the result must be closed
+	 */
+	public ReportResult convertOfficeDocumentAsResult(String serverUrl, byte[] officeDocument, ExportType exportType) throws HttpReportClientException
+	{
+		return convertOfficeDocumentAsResult(serverUrl, officeDocument, exportType, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertOfficeDocumentAsResult() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public ReportResult convertOfficeDocumentAsResult(String serverUrl, byte[] officeDocument, ExportType exportType, CallOptions options) throws HttpReportClientException
+	{
+		ReportRequest request = convertOfficeDocumentRequest(serverUrl, null, officeDocument, exportType, options);
+
+		return logResult(request, execute(request, resultHandler(), null));
+	}
+
+	/**
+	 * Async version of convertOfficeDocument()
+	 * Cancelling the returned future aborts the call and releases its connection
+	 */
+	public CompletableFuture<byte[]> convertOfficeDocumentAsync(String serverUrl, byte[] officeDocument, ExportType exportType)
+	{
+		return convertOfficeDocumentAsync(serverUrl, officeDocument, exportType, CallOptions.getCurrent());
+	}
+
+	/**
+	 * Same as convertOfficeDocumentAsync() but with the given CallOptions instead of the ones of the thread
+	 *
+	 * @param options		null for none
+	 */
+	public CompletableFuture<byte[]> convertOfficeDocumentAsync(String serverUrl, byte[] officeDocument, ExportType exportType, CallOptions options)
+	{
+		return submit(convertOfficeDocumentRequest(serverUrl, null, officeDocument, exportType, options));
+	}
+
+	private ReportRequest convertOfficeDocumentRequest(String serverUrl, ReportServerCluster cluster, byte[] officeDocument, ExportType exportType, CallOptions options)
+	{
+		ReportRequest request = new ReportRequest(ReportOperation.CONVERT_OFFICE_DOCUMENT, serverUrl, cluster, exportType, null, options);
+
+        if(log.isDebugEnabled())
+        {
+        	log.debug("Calling function HttpReportClient.convertOfficeDocument()...");
+        	log.debug("param @serverUrl = " + request.getTarget());
+        	log.debug("param @officeDocument = " + preview(officeDocument));
+        	log.debug("param @exportType = " + exportType.toString());
+        }
+
+        return request
+        	.addBinaryField("officeDocument", officeDocument)
+        	.addField("format", exportType.toString());
+	}
+
+	/**
+	 * The payload as shown in the debug log, truncated to HttpReportClientConfig.getPayloadPreviewLimit() bytes
+	 */
+	private String preview(byte[] payload)
+	{
+		return PayloadPreview.preview(payload, config.getPayloadPreviewLimit());
+	}
+
+	private long logWritten(ReportRequest request, Long written)
+	{
+        if(log.isDebugEnabled())
+        {
+        	log.debug("HttpReportClient." + request.getFunction() + "() wrote " + written + " bytes");
+        }
+
+        return written.longValue();
+	}
+
+	private ResponseHandler<ReportResult> resultHandler()
+	{
+		return ResponseHandlers.toResult(config.getResultSpillThreshold(), config.getResultSpillDirectory());
+	}
+
+	private ReportResult logResult(ReportRequest request, ReportResult result)
+	{
+        if(log.isDebugEnabled())
+        {
+        	log.debug("HttpReportClient." + request.getFunction() + "() returned " + result);
+        }
+
+        return result;
+	}
+
+	/**
+	 * Runs the call on the executor, the future is completed with the report or the HttpReportClientException
+	 */
+	private CompletableFuture<byte[]> submit(final ReportRequest request)
+	{
+		final ReportCall call = new ReportCall();
+		final ReportFuture<byte[]> future = new ReportFuture<byte[]>(call);
+		final long queued = System.nanoTime();
+
+		Runnable task = new Runnable()
+		{
+			public void run()
+			{
+				// cancelled while queued
+				if(future.isDone())
+					return;
+
+				long waited = System.nanoTime() - queued;
+				call.setQueueNanos(waited);
+				metrics.recordQueueWait(request, waited);
+
+				// the request carries the options of the caller, the ones left on a pooled thread are not read
+				try
+				{
+					future.complete(executeForBytes(request, call));
+				}
+				catch (Throwable e)
+				{
+					future.completeExceptionally(e);
+				}
+			}
+		};
+
+		try
+		{
+			getExecutor().execute(task);
+		}
+		catch (RuntimeException e)
+		{
+			log.error("The HttpReportClient." + request.getFunction() + "() call could not be scheduled: " + e);
+			future.completeExceptionally(new HttpReportClientException("The HttpReportClient." + request.getFunction() + "() call could not be scheduled: " + e.toString(), e));
+		}
+
+		return future;
+	}
+
+	/**
+	 * Returns the report as a byte[]
+	 * When the call has no side effects and nothing streamed it is answered from the result cache or joins an identical call in progress,
+	 * unless it has CallOptions
+	 */
+	byte[] executeForBytes(final ReportRequest request, ReportCall call) throws HttpReportClientException
+	{
+		CallOptions options = request.getOptions();
+
+		// a coalesced call waits for the shared call, aborting the waiter only makes it leave
+		if(options != null && (call == null || call.getOptions() == null))
+		{
+			ReportCall bound = call != null ? call : new ReportCall();
+
+			options.bind(request, bound);
+
+			try
+			{
+				return executeForBytes(request, bound);
+			}
+			catch (HttpReportClientException e)
+			{
+				throw options.translate(request, e);
+			}
+			finally
+			{
+				options.unbind(bound);
+			}
+		}
+
+		if(!request.isIdempotent() || request.isStreamed())
+			return execute(request, ResponseHandlers.BYTE_ARRAY, call);
+
+		final ReportResultCache cache = resultCache;
+		final String key = request.getDigest();
+
+		if(cache != null)
+		{
+			byte[] cached = cache.get(key);
+
+			if(cached != null)
+			{
+		        if(log.isDebugEnabled())
+		        {
+		        	log.debug("The HttpReportClient." + request.getFunction() + "() call was answered from the result cache");
+		        }
+
+				return cached;
+			}
+		}
+
+		// the first caller runs the shared call on its thread: it could not leave at its deadline while others
+		// wait for the result, and its options (budget header, backoffs) would apply to their call
+		if(coalescer == null || options != null)
+			return executeAndCache(request, call, cache);
+
+		String target = request.getCluster() != null ? "cluster@" + System.identityHashCode(request.getCluster()) : request.getServerUrl();
+
+		return coalescer.execute(target + "#" + key, call, new RequestCoalescer.Loader()
+		{
+			public byte[] load(ReportCall sharedCall) throws HttpReportClientException
+			{
+				return executeAndCache(request, sharedCall, cache);
+			}
+		});
+	}
+
+	private byte[] executeAndCache(ReportRequest request, ReportCall call, ReportResultCache cache) throws HttpReportClientException
+	{
+		byte[] result = capture(request, ResponseHandlers.BYTE_ARRAY, call);
+
+		if(cache != null && result != null)
+			cache.put(request.getDigest(), result);
+
+		return result;
+	}
+
+	/**
+	 * Runs the call within the deadline of its CallOptions, if any
+	 */
+	<T> T execute(ReportRequest request, ResponseHandler<T> handler, ReportCall call) throws HttpReportClientException
+	{
+		CallOptions options = request.getOptions();
+
+		if(options == null || (call != null && call.getOptions() != null))
+			return capture(request, handler, call);
+
+		ReportCall bound = call != null ? call : new ReportCall();
+
+		options.bind(request, bound);
+
+		try
+		{
+			return capture(request, handler, bound);
+		}
+		catch (HttpReportClientException e)
+		{
+			throw options.translate(request, e);
+		}
+		finally
+		{
+			options.unbind(bound);
+		}
+	}
+
+	/**
+	 * Runs the call and hands its payloads to the PayloadCapture, if any
+	 */
+	private <T> T capture(ReportRequest request, ResponseHandler<T> handler, ReportCall call) throws HttpReportClientException
+	{
+		PayloadCapture capture = payloadCapture;
+
+		if(capture == null || !capture.isCaptured(request))
+			return retry(request, handler, call);
+
+		long start = System.currentTimeMillis();
+
+		try
+		{
+			T result = retry(request, handler, call);
+
+			capture.capture(request, result instanceof byte[] ? (byte[])result : null, System.currentTimeMillis() - start, null);
+
+			return result;
+		}
+		catch (HttpReportClientException e)
+		{
+			capture.capture(request, null, System.currentTimeMillis() - start, e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Sends the call again, after a backoff, while the RetryPolicy and the retry budget allow it
+	 * The calls with side effects (printing) and the ones streaming a datasource read only once are sent once; for a cluster every attempt goes to a server
+	 * not tried yet when there is one
+	 */
+	private <T> T retry(ReportRequest request, ResponseHandler<T> handler, ReportCall call) throws HttpReportClientException
+	{
+		RetryPolicy policy = config.getRetryPolicy();
+		Set<ReportServerNode> tried = request.getCluster() != null ? Collections.synchronizedSet(new HashSet<ReportServerNode>()) : null;
+
+		retryBudget.deposit();
+
+		if(!request.isIdempotent() || !request.isReplayable() || policy.getMaxAttempts() <= 1)
+			return route(request, handler, call, tried);
+
+		for(int attempt = 1;; attempt++)
+		{
+			try
+			{
+				if(handler == ResponseHandlers.BYTE_ARRAY && request.getCluster() != null && policy.isHedging())
+				{
+					@SuppressWarnings("unchecked")
+					T result = (T)hedge(request, call, tried, policy);
+
+					return result;
+				}
+
+				return route(request, handler, call, tried);
+			}
+			catch (HttpReportClientException e)
+			{
+				if(attempt >= policy.getMaxAttempts() || (call != null && call.isAborted()) || !policy.isRetryable(e, ResponseHandlers.isReplayable(handler)))
+					throw e;
+
+				if(!retryBudget.tryWithdraw())
+				{
+					log.warn("The HttpReportClient." + request.getFunction() + "() call failed and the retry budget is spent, not retrying");
+					throw e;
+				}
+
+				long backoff = policy.getBackoff(attempt);
+
+				if(request.getOptions() != null && backoff >= request.getOptions().getRemaining())
+				{
+					log.warn("The HttpReportClient." + request.getFunction() + "() call failed and its deadline leaves no time for a retry");
+					throw e;
+				}
+
+				log.warn("The HttpReportClient." + request.getFunction() + "() call failed (" + e.getMessage() + "), retrying in " + backoff + " ms");
+				metrics.get(request.getOperation(), request.getExportType()).retried();
+
+				sleep(request, backoff, call);
+			}
+		}
+	}
+
+	/**
+	 * Waits before a retry, aborting the call ends the wait
+	 */
+	private static void sleep(ReportRequest request, long millis, ReportCall call) throws HttpReportClientException
+	{
+		long end = System.currentTimeMillis() + millis;
+
+		try
+		{
+			for(long left = millis; left > 0; left = end - System.currentTimeMillis())
+			{
+				if(call != null && call.isAborted())
+					break;
+
+				Thread.sleep(Math.min(left, 50));
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new HttpReportClientException("The HttpReportClient." + request.getFunction() + "() call was interrupted", e);
+		}
+
+		if(call != null && call.isAborted())
+			throw new HttpReportClientException("The HttpReportClient." + request.getFunction() + "() call was cancelled");
+	}
+
+	/**
+	 * Sends the call to a server of the cluster and, if it has not answered after the hedge delay,
+	 * to a second one; the first report returned is used and the other request aborted
+	 */
+	private byte[] hedge(final ReportRequest request, ReportCall call, final Set<ReportServerNode> tried, RetryPolicy policy) throws HttpReportClientException
+	{
+		final ReportOperationMetrics operationMetrics = metrics.get(request.getOperation(), request.getExportType());
+		long delay = policy.getHedgeDelay(operationMetrics.getHistogram(ReportPhase.TOTAL));
+
+		if(delay < 0 || request.getCluster().size() < 2)
+			return route(request, ResponseHandlers.BYTE_ARRAY, call, tried);
+
+		final ReportCall primary = new ReportCall();
+		final ReportCall secondary = new ReportCall();
+		final HedgedCall hedged = new HedgedCall();
+
+		primary.setQueueNanos(call != null ? call.getQueueNanos() : 0);
+
+		if(call != null)
+		{
+			call.addAbortListener(new Runnable()
+			{
+				public void run()
+				{
+					primary.abort();
+					secondary.abort();
+				}
+			});
+		}
+
+		final Runnable hedge = new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					byte[] result = route(request, ResponseHandlers.BYTE_ARRAY, secondary, tried);
+
+					if(hedged.hedgeSucceeded(result))
+						primary.abort();
+				}
+				catch (HttpReportClientException e)
+				{
+					hedged.hedgeFailed(e);
+				}
+				catch (Throwable e)
+				{
+					hedged.hedgeFailed(new HttpReportClientException(e));
+				}
+			}
+		};
+
+		ScheduledFuture<?> timer = ReportExecutors.getScheduler().schedule(new Runnable()
+		{
+			public void run()
+			{
+				if(!request.getCluster().hasUntried(tried) || !hedged.startHedge())
+					return;
+
+				log.debug("The HttpReportClient." + request.getFunction() + "() call is slow, sending a hedged request");
+				operationMetrics.hedged();
+
+				try
+				{
+					getExecutor().execute(hedge);
+				}
+				catch (RuntimeException e)
+				{
+					hedged.hedgeFailed(new HttpReportClientException("The hedged request could not be scheduled: " + e.toString(), e));
+				}
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+
+		try
+		{
+			byte[] result = route(request, ResponseHandlers.BYTE_ARRAY, primary, tried);
+
+			timer.cancel(false);
+
+			if(hedged.primarySucceeded(result))
+			{
+				secondary.abort();
+				return result;
+			}
+		}
+		catch (HttpReportClientException e)
 		{
-			log.error("The HttpReportClient.buildReport() call returned the error: " + e);
-			throw new HttpReportClientException("The report server has thrown an HttpException: " + e.toString());
-		} catch (IOException e)
+			timer.cancel(false);
+			hedged.primaryFailed(e);
+		}
+
+		try
 		{
-			log.error("The HttpReportClient.buildReport() call returned the error: " + e);
-			throw new HttpReportClientException("The report server has thrown an IOException: " + e.toString());
+			byte[] result = hedged.await();
+
+			if(hedged.isHedgeWon())
+				operationMetrics.hedgeWon();
+
+			return result;
 		}
-		finally
+		catch (InterruptedException e)
 		{
-			post.releaseConnection();
+			secondary.abort();
+			Thread.currentThread().interrupt();
+			throw new HttpReportClientException("The HttpReportClient." + request.getFunction() + "() call was interrupted", e);
 		}
-
-        if(log.isDebugEnabled())
-        {
-        	log.debug("HttpReportClient.buildReport() returned " + String.valueOf(result.length) + " bytes");
-        	
-        	if(!exportType.equals(ExportType.PDF))
-        		log.debug(new String(result));
-        }
-		
-		return result;
 	}
-	
+
 	/**
-	 * Connects to the report server, passes down the report template, datasource, 
-	 * report type and prints the report
-	 * If the report was printed succesfully returns "true" as byte[]
+	 * Sends the call to its report server or, for a cluster, to the server picked by the cluster
 	 *
-	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
-	 * @param reportTemplate	example:	a byte[] containng the template
-	 * @param dataSource		example:	a byte[] containng the datasource
-	 * @param printTo			example:	this is the printer name		
-	 *  
-	 * @return byte[]
-	 */	
-	public byte[] printReport(String serverUrl, byte[] reportTemplate, byte[] dataSource, String printTo, int nCopies) throws HttpReportClientException
+	 * @param tried		the servers of the cluster already used by the call, its retries and its hedged request
+	 */
+	private <T> T route(ReportRequest request, ResponseHandler<T> handler, ReportCall call, Set<ReportServerNode> tried) throws HttpReportClientException
 	{
-        byte[] result = null;
-        
-        long mili1 = 0;
-        long mili2 = 0;
-        
-        if(log.isDebugEnabled())
-        {
-        	log.debug("Calling function HttpReportClient.printReport()...");
-        	log.debug("param @serverUrl = " + serverUrl);
-        	log.debug("param @reportTemplate = " + new String(reportTemplate));
-        	log.debug("param @dataSource = " + new String(dataSource));
-        	log.debug("param @printTo = " + printTo);
-        	log.debug("param @copies = " + nCopies);
-        	
-        	mili1 = System.currentTimeMillis();
-        }
-        
-		PostMethod post = new PostMethod(serverUrl);
-        
-        NameValuePair[] data = 
-        {
-          new NameValuePair("template", new String(base64.encode(reportTemplate))),
-          new NameValuePair("datasource", new String(base64.encode(dataSource))),
-		  new NameValuePair("printto", printTo),
-		  new NameValuePair("copies", String.valueOf(nCopies))
-        };
-        
-        post.setRequestBody(data);
-        
-        int iGetResultCode;
-		try
-		{
-			iGetResultCode = client.executeMethod(post);
-			
-	        if(log.isDebugEnabled())
-	        {
-	        	mili2 = System.currentTimeMillis();
-	        	
-	        	log.debug("The HttpReportClient.printReport() call took " + String.valueOf(mili2 - mili1) + " miliseconds");
-	        }
+		if(request.getCluster() == null)
+			return schedule(request, request.getServerUrl(), handler, call);
 
-			if(iGetResultCode == HttpStatus.SC_OK)
-	        {
-	    		result = getResponseAsByteArray(post);
-	    		
-		        if(log.isDebugEnabled())
-		        {
-		        	log.debug("The HttpReportClient.printReport() call was succesfull");
-		        }
-	        }
-	        else
-	        {
-	        	log.error("The HttpReportClient.printReport() call returned the error: " + iGetResultCode);
-	        	log.error("The error message was : '" + post.getResponseBodyAsString() + "'");
-	        	throw new HttpReportClientException("The report server returned the error: " + iGetResultCode + ", the error message was: '" + post.getResponseBodyAsString() + "'");
-	        }
-		} 
-		catch (HttpException e)
+		ReportServerCluster cluster = request.getCluster();
+
+		// if the connection cannot be established or the call is rejected by the circuit breaker or the bulkhead
+		// of the server it is sent to the next server, at most once per server
+		for(int attempt = 1;; attempt++)
 		{
-			log.error("The HttpReportClient.printReport() call returned the error: " + e);
-			throw new HttpReportClientException("The report server has thrown an HttpException: " + e.toString());
-		} catch (IOException e)
+			ReportServerNode node = cluster.acquire(tried);
+			long start = System.currentTimeMillis();
+
+			tried.add(node);
+
+			try
+			{
+				T result = schedule(request, node.getUrl(), handler, call);
+
+				cluster.succeeded(node, System.currentTimeMillis() - start);
+
+				return result;
+			}
+			catch (HttpReportClientException e)
+			{
+				cluster.failed(node, e, System.currentTimeMillis() - start);
+
+				if(attempt >= cluster.size() || !(ReportServerCluster.isConnectFailure(e) || e instanceof RequestRejectedException) || (call != null && call.isAborted()))
+					throw e;
+
+				log.warn("The HttpReportClient." + request.getFunction() + "() call could not be sent to " + node.getUrl() + ", trying the next report server");
+			}
+			catch (RuntimeException e)
+			{
+				cluster.failed(node, new HttpReportClientException(e), System.currentTimeMillis() - start);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Waits for a slot of the server in the queue of the call's priority class, when the client has a SchedulingPolicy
+	 * The slot comes before the bulkhead and the circuit breaker: a queued batch call holds no bulkhead permit
+	 * and its wait is not counted as the duration of the call
+	 */
+	private <T> T schedule(ReportRequest request, String serverUrl, ResponseHandler<T> handler, ReportCall call) throws HttpReportClientException
+	{
+		if(scheduler == null)
+			return send(request, serverUrl, handler, call);
+
+		scheduler.acquire(request, serverUrl, call);
+
+		try
 		{
-			log.error("The HttpReportClient.printReport() call returned the error: " + e);
-			throw new HttpReportClientException("The report server has thrown an IOException: " + e.toString());
+			return send(request, serverUrl, handler, call);
 		}
 		finally
 		{
-			post.releaseConnection();
+			scheduler.release(request, serverUrl);
 		}
-
-        if(log.isDebugEnabled())
-        {
-        	log.debug("HttpReportClient.printReport() returned " + new String(result));
-        }
-		
-		return result;
 	}
 
 	/**
-	 * Connects to the report server, passes down the prepared report and prints the report
-	 * If the report was printed succesfully returns "true" as byte[]
-	 *
-	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
-	 * @param preparedReport	example:	a byte[] containng the prepared report
-	 * @param printTo			example:	this is the printer name		
-	 * @param copies			example:	2 //prints 2 copies		
-	 *  
-	 * @return byte[]
-	 */	
-	public byte[] printReport(String serverUrl, byte[] preparedReport, String printTo, int nCopies) throws HttpReportClientException
+	 * Sends the call once the circuit breaker and the bulkhead of the server let it through,
+	 * the outcome is recorded in the circuit breaker
+	 */
+	private <T> T send(ReportRequest request, String serverUrl, ResponseHandler<T> handler, ReportCall call) throws HttpReportClientException
 	{
-        byte[] result = null;
-        
-        long mili1 = 0;
-        long mili2 = 0;
-        
-        if(log.isDebugEnabled())
-        {
-        	log.debug("Calling function HttpReportClient.printReport()...");
-        	log.debug("param @serverUrl = " + serverUrl);
-        	log.debug("param @preparedReport = " + new String(preparedReport));
-        	log.debug("param @printTo = " + printTo);
-        	log.debug("param @copies = " + nCopies);
-        	
-        	mili1 = System.currentTimeMillis();
-        }
-        
-		PostMethod post = new PostMethod(serverUrl);
-        
-        NameValuePair[] data = 
-        {
-          new NameValuePair("preparedReport", new String(base64.encode(preparedReport))),
-		  new NameValuePair("printto", printTo),
-		  new NameValuePair("copies", String.valueOf(nCopies))
-        };
-        
-        post.setRequestBody(data);
-        
-        int iGetResultCode;
+		ServerGuard.Permit permit;
+
 		try
 		{
-			iGetResultCode = client.executeMethod(post);
-			
-	        if(log.isDebugEnabled())
-	        {
-	        	mili2 = System.currentTimeMillis();
-	        	
-	        	log.debug("The HttpReportClient.printReport() call took " + String.valueOf(mili2 - mili1) + " miliseconds");
-	        }
+			permit = guard.acquire(request, serverUrl, call);
+		}
+		catch (RequestRejectedException e)
+		{
+			log.debug(e.getMessage());
+			metrics.get(request.getOperation(), request.getExportType()).rejected();
+			throw e;
+		}
 
-			if(iGetResultCode == HttpStatus.SC_OK)
-	        {
-	    		result = getResponseAsByteArray(post);
-	    		
-		        if(log.isDebugEnabled())
-		        {
-		        	log.debug("The HttpReportClient.printReport() call was succesfull");
-		        }
-	        }
-	        else
-	        {
-	        	log.error("The HttpReportClient.printReport() call returned the error: " + iGetResultCode);
-	        	log.error("The error message was : '" + post.getResponseBodyAsString() + "'");
-	        	throw new HttpReportClientException("The report server returned the error: " + iGetResultCode + ", the error message was: '" + post.getResponseBodyAsString() + "'");
-	        }
-		} 
-		catch (HttpException e)
+		long start = System.currentTimeMillis();
+
+		try
 		{
-			log.error("The HttpReportClient.printReport() call returned the error: " + e);
-			throw new HttpReportClientException("The report server has thrown an HttpException: " + e.toString());
-		} catch (IOException e)
+			T result = limit(request, serverUrl, handler, call);
+
+			permit.complete(null, System.currentTimeMillis() - start, false);
+
+			return result;
+		}
+		catch (HttpReportClientException e)
 		{
-			log.error("The HttpReportClient.printReport() call returned the error: " + e);
-			throw new HttpReportClientException("The report server has thrown an IOException: " + e.toString());
+			// rejected by the concurrency limit: the server was not called
+			permit.complete(e, System.currentTimeMillis() - start, e instanceof RequestRejectedException || (call != null && call.isAborted()));
+			throw e;
 		}
-		finally
+		catch (RuntimeException e)
 		{
-			post.releaseConnection();
+			permit.complete(new HttpReportClientException(e), System.currentTimeMillis() - start, false);
+			throw e;
 		}
-
-        if(log.isDebugEnabled())
-        {
-        	log.debug("HttpReportClient.printReport() returned " + new String(result));
-        }
-		
-		return result;
 	}
-	
 
 	/**
-	 * Connects to the report server, passes down the prepared report, convert type , converts the report and prints it if the printer is not empty
-	 *
-	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
-	 * @param preparedReport	example:	a byte[] containng the prepared report
-	 * @param exportType		example:	ExportType.FP3 or ExportType.PDF or ExportType.HTML or ExportType.RTF		
-	 * @param printTo			example:	this is the printer name		
-	 * @param copies			example:	2 //prints 2 copies		
-	 *  
-	 * @return byte[]
-	 */	
-	public byte[] convertReport(String serverUrl, byte[] preparedReport, ExportType exportType, String printTo, int nCopies) throws HttpReportClientException
+	 * Counts the call against the adaptive concurrency limit of the server and gives the limit its latency and outcome,
+	 * when the client has a ConcurrencyLimitPolicy
+	 */
+	private <T> T limit(ReportRequest request, String serverUrl, ResponseHandler<T> handler, ReportCall call) throws HttpReportClientException
 	{
-        byte[] result = null;
-        
-        long mili1 = 0;
-        long mili2 = 0;
-        
-        if(log.isDebugEnabled())
-        {
-        	log.debug("Calling function HttpReportClient.convertReport()...");
-        	log.debug("param @serverUrl = " + serverUrl);
-        	log.debug("param @preparedReport = " + new String(preparedReport));
-        	log.debug("param @exportType = " + exportType.toString());
-        	log.debug("param @printTo = " + printTo);
-        	log.debug("param @copies = " + nCopies);
-        	
-        	mili1 = System.currentTimeMillis();
-        }
-        
-		PostMethod post = new PostMethod(serverUrl);
-        
-        NameValuePair[] data = 
-        {
-          new NameValuePair("preparedReport", new String(base64.encode(preparedReport))),
-          new NameValuePair("format", exportType.toString()),
-		  new NameValuePair("printto", printTo),
-		  new NameValuePair("copies", String.valueOf(nCopies))
-        };
-        
-        post.setRequestBody(data);
-        
-        int iGetResultCode;
+		if(limiter == null)
+			return negotiate(request, serverUrl, handler, call);
+
+		ConcurrencyLimiter.ServerLimit limit;
+
 		try
 		{
-			iGetResultCode = client.executeMethod(post);
-			
-	        if(log.isDebugEnabled())
-	        {
-	        	mili2 = System.currentTimeMillis();
-	        	
-	        	log.debug("The HttpReportClient.convertReport() call took " + String.valueOf(mili2 - mili1) + " miliseconds");
-	        }
+			limit = limiter.acquire(request, serverUrl);
+		}
+		catch (RequestRejectedException e)
+		{
+			log.debug(e.getMessage());
+			metrics.get(request.getOperation(), request.getExportType()).rejected();
+			throw e;
+		}
 
-			if(iGetResultCode == HttpStatus.SC_OK)
-	        {
-	    		result = getResponseAsByteArray(post);
-	    		
-		        if(log.isDebugEnabled())
-		        {
-		        	log.debug("The HttpReportClient.convertReport() call was succesfull");
-		        }
-	        }
-	        else
-	        {
-	        	log.error("The HttpReportClient.convertReport() call returned the error: " + iGetResultCode);
-	        	log.error("The error message was : '" + post.getResponseBodyAsString() + "'");
-	        	throw new HttpReportClientException("The report server returned the error: " + iGetResultCode + ", the error message was: '" + post.getResponseBodyAsString() + "'");
-	        }
-		} 
-		catch (HttpException e)
+		long start = System.nanoTime();
+
+		try
 		{
-			log.error("The HttpReportClient.convertReport() call returned the error: " + e);
-			throw new HttpReportClientException("The report server has thrown an HttpException: " + e.toString());
-		} catch (IOException e)
+			T result = negotiate(request, serverUrl, handler, call);
+
+			limit.release(request, System.nanoTime() - start, false, false);
+
+			return result;
+		}
+		catch (HttpReportClientException e)
 		{
-			log.error("The HttpReportClient.convertReport() call returned the error: " + e);
-			throw new HttpReportClientException("The report server has thrown an IOException: " + e.toString());
+			limit.release(request, System.nanoTime() - start, ReportServerCluster.isServerFailure(e), call != null && call.isAborted());
+			throw e;
 		}
-		finally
+		catch (RuntimeException e)
 		{
-			post.releaseConnection();
+			limit.release(request, System.nanoTime() - start, false, true);
+			throw e;
 		}
-
-        if(log.isDebugEnabled())
-        {
-        	log.debug("HttpReportClient.printReport() returned " + new String(result));
-        }
-		
-		return result;
 	}
-	
+
 	/**
-	 * Connects to the report server, passes down the office document, convert type , converts the report to desired format
-	 *
-	 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
-	 * @param officeDocument	example:	a byte[] containng the office document
-	 * @param exportType		example:	ExportType.FP3 or ExportType.PDF or ExportType.DOC or ExportType.RTF or ExportType.DOCX		
-	 *  
-	 * @return byte[]
-	 */	
-	public byte[] convertOfficeDocument(String serverUrl, byte[] officeDocument, ExportType exportType) throws HttpReportClientException
+	 * Posts the request to the report server and hands the response body to the handler
+	 * The connection is released once the handler returns
+	 * If a call is given the request can be aborted through it from another thread
+	 */
+	private <T> T negotiate(ReportRequest request, String serverUrl, ResponseHandler<T> handler, ReportCall call) throws HttpReportClientException
+	{
+		TransportMode mode = config.getTransportMode();
+		CompressionPolicy compression = config.getCompression();
+
+		boolean multipart = mode == TransportMode.MULTIPART || (mode == TransportMode.AUTO && capabilities.supports(serverUrl, ServerCapabilities.MULTIPART));
+		boolean gzip = compression.isRequestCompressed(request.getCompressibleLength(), capabilities.supports(serverUrl, ServerCapabilities.GZIP));
+
+		String templateDigest = null;
+		boolean omitTemplate = false;
+
+		if(templates != null && capabilities.supports(serverUrl, ServerCapabilities.TEMPLATE_DIGEST))
+		{
+			templateDigest = request.getTemplateDigest();
+
+			// after a miss the call is sent again, a datasource read only once could not be
+			omitTemplate = templateDigest != null && request.isReplayable() && templates.contains(serverUrl, templateDigest);
+		}
+
+		for(;;)
+		{
+			try
+			{
+				T result = send(request, serverUrl, multipart, gzip, templateDigest, omitTemplate, handler, call);
+
+				if(omitTemplate)
+					templates.sentByDigest(serverUrl, request.getTemplate().length);
+				else if(templateDigest != null)
+					templates.uploaded(serverUrl, templateDigest);
+
+				return result;
+			}
+			catch (HttpReportClientException e)
+			{
+				// 412 means the server no longer holds the template, the call was not run
+				if(omitTemplate && e.getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED)
+				{
+					log.debug("The report server " + serverUrl + " no longer holds the template " + templateDigest + ", uploading it");
+
+					templates.missed(serverUrl, templateDigest);
+					omitTemplate = false;
+					continue;
+				}
+
+				// 415 means the server refused the call without running it, it is safe to repeat it
+				// without the encoding it was negotiated for, the compression first then the multipart post
+				if(e.getStatusCode() != HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE)
+					throw e;
+
+				if(gzip && !compression.isForceRequestCompression())
+				{
+					capabilities.remove(serverUrl, ServerCapabilities.GZIP);
+					gzip = false;
+				}
+				else if(multipart && mode == TransportMode.AUTO)
+				{
+					capabilities.remove(serverUrl, ServerCapabilities.MULTIPART);
+					multipart = false;
+				}
+				else
+				{
+					throw e;
+				}
+
+				// the next calls do without the encoding, this one cannot be sent again with a datasource read only once
+				if(!request.isReplayable())
+					throw e;
+			}
+		}
+	}
+
+	private <T> T send(ReportRequest request, String serverUrl, boolean multipart, boolean gzip, String templateDigest, boolean omitTemplate, ResponseHandler<T> handler, ReportCall call) throws HttpReportClientException
 	{
-        byte[] result = null;
-        
+		String function = request.getFunction();
+		T result = null;
+
         long mili1 = 0;
         long mili2 = 0;
-        
+
         if(log.isDebugEnabled())
         {
-        	log.debug("Calling function HttpReportClient.convertOfficeDocument()...");
-        	log.debug("param @serverUrl = " + serverUrl);
-        	log.debug("param @officeDocument = " + new String(officeDocument));
-        	log.debug("param @exportType = " + exportType.toString());
-        	
         	mili1 = System.currentTimeMillis();
         }
-        
-		PostMethod post = new PostMethod(serverUrl);
-        
-        NameValuePair[] data = 
+
+		RequestEntity entity = multipart ? request.createMultipartEntity(new HttpMethodParams(), templateDigest, omitTemplate) : request.createEntity(templateDigest, omitTemplate);
+
+		if(gzip)
+			entity = new GzipRequestEntity(entity, config.getCompression().getLevel());
+
+		MeteredBody metered = new MeteredBody(entity);
+		TransportRequest transportRequest = new TransportRequest(serverUrl, metered, call);
+
+		if(gzip)
+			transportRequest.setHeader("Content-Encoding", GzipRequestEntity.CONTENT_ENCODING);
+
+        if(config.getCompression().isResponseCompressed(request.getExportType()))
+        	transportRequest.setHeader("Accept-Encoding", "gzip, deflate");
+
+        if(!config.isKeepAlive())
+        	transportRequest.setHeader("Connection", "close");
+
+        CallOptions options = request.getOptions();
+
+        if(options != null && options.hasDeadline())
         {
-          new NameValuePair("officeDocument", new String(base64.encode(officeDocument))),
-          new NameValuePair("format", exportType.toString()),
-        };
-        
-        post.setRequestBody(data);
-        
-        int iGetResultCode;
+        	long remaining = options.getRemaining();
+
+        	if(remaining <= 0)
+        		throw new DeadlineExceededException("The HttpReportClient." + function + "() call was not sent, its deadline passed");
+
+        	transportRequest.setHeader(CallOptions.BUDGET_HEADER, String.valueOf(remaining));
+        	transportRequest.setTimeout(remaining);
+        }
+
+        if(transportRequest.isAborted())
+        	throw new HttpReportClientException("The HttpReportClient." + function + "() call was cancelled");
+
+        ReportOperationMetrics operationMetrics = metrics.callStarted(request);
+        long started = System.nanoTime();
+        long responded = 0;
+        CountingInputStream received = null;
+        boolean succeeded = false;
+        TransportExchange exchange = null;
+
+        int iGetResultCode = -1;
 		try
 		{
-			iGetResultCode = client.executeMethod(post);
-			
+			exchange = transport.post(transportRequest);
+			iGetResultCode = exchange.getStatusCode();
+			responded = System.nanoTime();
+
+			capabilities.update(serverUrl, exchange);
+
+			if(templates != null)
+				templates.update(serverUrl, exchange);
+
 	        if(log.isDebugEnabled())
 	        {
 	        	mili2 = System.currentTimeMillis();
-	        	
-	        	log.debug("The HttpReportClient.convertOfficeDocument() call took " + String.valueOf(mili2 - mili1) + " miliseconds");
+
+	        	log.debug("The HttpReportClient." + function + "() call took " + String.valueOf(mili2 - mili1) + " miliseconds");
 	        }
 
 			if(iGetResultCode == HttpStatus.SC_OK)
 	        {
-	    		result = getResponseAsByteArray(post);
-	    		
+				InputStream body = exchange.getResponseBody();
+				if(body != null)
+					received = new CountingInputStream(body);
+
+	    		result = handleResponse(exchange, received, handler);
+	    		succeeded = true;
+
 		        if(log.isDebugEnabled())
 		        {
-		        	log.debug("The HttpReportClient.convertOfficeDocument() call was succesfull");
+		        	log.debug("The HttpReportClient." + function + "() call was succesfull");
 		        }
 	        }
 	        else
 	        {
-	        	log.error("The HttpReportClient.convertOfficeDocument) call returned the error: " + iGetResultCode);
-	        	log.error("The error message was : '" + post.getResponseBodyAsString() + "'");
-	        	throw new HttpReportClientException("The report server returned the error: " + iGetResultCode + ", the error message was: '" + post.getResponseBodyAsString() + "'");
+	        	log.error("The HttpReportClient." + function + "() call returned the error: " + iGetResultCode);
+	        	log.error("The error message was : '" + exchange.getResponseBodyAsString() + "'");
+	        	throw new HttpReportClientException("The report server returned the error: " + iGetResultCode + ", the error message was: '" + exchange.getResponseBodyAsString() + "'", iGetResultCode);
 	        }
-		} 
+		}
 		catch (HttpException e)
 		{
-			log.error("The HttpReportClient.convertOfficeDocument() call returned the error: " + e);
-			throw new HttpReportClientException("The report server has thrown an HttpException: " + e.toString());
+			log.error("The HttpReportClient." + function + "() call returned the error: " + e);
+			throw new HttpReportClientException("The report server has thrown an HttpException: " + e.toString(), e);
 		} catch (IOException e)
 		{
-			log.error("The HttpReportClient.convertOfficeDocument() call returned the error: " + e);
-			throw new HttpReportClientException("The report server has thrown an IOException: " + e.toString());
+			if(call != null && call.isAborted())
+				throw new HttpReportClientException("The HttpReportClient." + function + "() call was cancelled");
+
+			// the wait for a pooled connection ends at the deadline, see ReportConnectionManager
+			if(e instanceof ConnectionPoolTimeoutException && options != null && options.getRemaining() == 0)
+				throw new DeadlineExceededException("The HttpReportClient." + function + "() call was not sent, its deadline passed while waiting for a connection", e);
+
+			log.error("The HttpReportClient." + function + "() call returned the error: " + e);
+			throw new HttpReportClientException("The report server has thrown an IOException: " + e.toString(), e);
+		} catch (IllegalStateException e)
+		{
+			// PostMethod.execute() refuses to run once aborted
+			if(call != null && call.isAborted())
+				throw new HttpReportClientException("The HttpReportClient." + function + "() call was cancelled");
+
+			throw e;
 		}
 		finally
 		{
-			post.releaseConnection();
+			long ended = System.nanoTime();
+
+			if(call != null)
+				call.detach();
+
+			if(exchange != null)
+				exchange.close();
+
+			metrics.callCompleted(operationMetrics, new ReportCallEvent(request.getOperation(), request.getExportType(), serverUrl, iGetResultCode, succeeded,
+				getPhases(call, metered, started, responded, ended), metered.getBytesWritten(), received != null ? received.getCount() : 0));
 		}
 
-        if(log.isDebugEnabled())
-        {
-        	log.debug("HttpReportClient.convertOfficeDocument() returned " + new String(result));
-        }
-		
 		return result;
 	}
-	
-	private byte[] getResponseAsByteArray(PostMethod post) throws IOException
+
+	/**
+	 * Splits the call duration into the ReportPhases using the points the call reached
+	 */
+	private static long[] getPhases(ReportCall call, MeteredBody metered, long started, long responded, long ended)
 	{
-		InputStream instream = post.getResponseBodyAsStream();
-		
-		if (instream != null) 
-		{
-			long contentLength = post.getResponseContentLength();
-			
-			// guard below cast from overflow
-			if (contentLength > Integer.MAX_VALUE) 
-			{ 
-				throw new IOException("Content too large to be buffered: "+ contentLength +" bytes");
-			}
-			
-			ByteArrayOutputStream outstream = new ByteArrayOutputStream(contentLength > 0 ? (int) contentLength : 4*1024);
-			byte[] buffer = new byte[4096];
-			int len;
-			while ((len = instream.read(buffer)) > 0) 
-			{
-			    outstream.write(buffer, 0, len);
-			}
-			outstream.close();
+		long[] phases = new long[ReportPhase.values().length];
+		long writeStarted = metered.getWriteStarted();
+		long writeEnded = metered.getWriteEnded();
 
-			return outstream.toByteArray();
-        }	
+		// the body may never be written (connection refused, 417) or not completely
+		long connected = writeStarted != 0 ? writeStarted : (responded != 0 ? responded : ended);
+		long uploaded = writeEnded != 0 ? writeEnded : connected;
+
+		phases[ReportPhase.QUEUE.getIndex()] = call != null ? call.getQueueNanos() : 0;
+		phases[ReportPhase.CONNECT.getIndex()] = connected - started;
+		phases[ReportPhase.UPLOAD.getIndex()] = uploaded - connected;
+		phases[ReportPhase.SERVER.getIndex()] = responded != 0 ? responded - uploaded : 0;
+		phases[ReportPhase.DOWNLOAD.getIndex()] = responded != 0 ? ended - responded : 0;
+		phases[ReportPhase.TOTAL.getIndex()] = ended - started;
+
+		return phases;
+	}
+
+	/**
+	 * Hands the response body to the handler, decompressing it if the server compressed it
+	 */
+	private static <T> T handleResponse(TransportExchange exchange, InputStream body, ResponseHandler<T> handler) throws IOException
+	{
+		String encoding = exchange.getResponseHeader("Content-Encoding");
+
+		if(body == null || encoding == null || "identity".equalsIgnoreCase(encoding.trim()))
+			return handler.handleResponse(body, exchange.getResponseContentLength());
+
+		String value = encoding.trim().toLowerCase();
+
+		if(value.equals("gzip") || value.equals("x-gzip"))
+			body = new GZIPInputStream(body, 8 * 1024);
+		else if(value.equals("deflate"))
+			body = new InflaterInputStream(body);
 		else
-			return null;
+			throw new IOException("Unsupported Content-Encoding: " + encoding);
+
+		try
+		{
+			// the decompressed size is not known
+			return handler.handleResponse(body, -1);
+		}
+		finally
+		{
+			body.close();
+		}
 	}
-	
 }
@@ -0,0 +1,635 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.File;
+
+/**
+ * The settings of a HttpReportClient: connection pool, timeouts and the optional features
+ * Instances are immutable, use HttpReportClientConfig.builder() to create one
+ *
+ * <pre>
+ * HttpReportClient client = new HttpReportClient(HttpReportClientConfig.builder()
+ * 		.maxConnectionsPerHost(20)
+ * 		.soTimeout(5 * 60 * 1000)
+ * 		.build());
+ * </pre>
+ */
+public class HttpReportClientConfig
+{
+	public static final HttpReportClientConfig DEFAULT = builder().build();
+
+	private int maxConnectionsPerHost;
+	private int maxTotalConnections;
+	private long connectionPoolTimeout;
+	private int connectionTimeout;
+	private int soTimeout;
+	private boolean tcpNoDelay;
+	private int sendBufferSize;
+	private int receiveBufferSize;
+	private boolean keepAlive;
+	private boolean staleCheckingEnabled;
+	private long idleConnectionTimeout;
+	private long idleCheckInterval;
+	private boolean coalesceRequests;
+	private TransportMode transportMode;
+	private CompressionPolicy compression;
+	private int payloadPreviewLimit;
+	private RetryPolicy retryPolicy;
+	private CircuitBreakerPolicy circuitBreaker;
+	private BulkheadPolicy bulkhead;
+	private SchedulingPolicy scheduling;
+	private ConcurrencyLimitPolicy concurrencyLimit;
+	private HttpBackend httpBackend;
+	private long preparedReportCacheSize;
+	private long preparedReportTimeToLive;
+	private long resultSpillThreshold;
+	private File resultSpillDirectory;
+	private boolean templateDigest;
+	private PrintSpoolerPolicy printSpooler;
+	private BatchPolicy batch;
+	private WarmUpPolicy warmUp;
+
+	private HttpReportClientConfig(Builder builder)
+	{
+		maxConnectionsPerHost = builder.maxConnectionsPerHost;
+		maxTotalConnections = builder.maxTotalConnections;
+		connectionPoolTimeout = builder.connectionPoolTimeout;
+		connectionTimeout = builder.connectionTimeout;
+		soTimeout = builder.soTimeout;
+		tcpNoDelay = builder.tcpNoDelay;
+		sendBufferSize = builder.sendBufferSize;
+		receiveBufferSize = builder.receiveBufferSize;
+		keepAlive = builder.keepAlive;
+		staleCheckingEnabled = builder.staleCheckingEnabled;
+		idleConnectionTimeout = builder.idleConnectionTimeout;
+		idleCheckInterval = builder.idleCheckInterval;
+		coalesceRequests = builder.coalesceRequests;
+		transportMode = builder.transportMode;
+		compression = builder.compression;
+		payloadPreviewLimit = builder.payloadPreviewLimit;
+		retryPolicy = builder.retryPolicy;
+		circuitBreaker = builder.circuitBreaker;
+		bulkhead = builder.bulkhead;
+		scheduling = builder.scheduling;
+		concurrencyLimit = builder.concurrencyLimit;
+		httpBackend = builder.httpBackend;
+		preparedReportCacheSize = builder.preparedReportCacheSize;
+		preparedReportTimeToLive = builder.preparedReportTimeToLive;
+		resultSpillThreshold = builder.resultSpillThreshold;
+		resultSpillDirectory = builder.resultSpillDirectory;
+		templateDigest = builder.templateDigest;
+		printSpooler = builder.printSpooler;
+		batch = builder.batch;
+		warmUp = builder.warmUp;
+	}
+
+	public static Builder builder()
+	{
+		return new Builder();
+	}
+
+	/**
+	 * Returns a builder initialised with the values of this config
+	 */
+	public Builder toBuilder()
+	{
+		return new Builder(this);
+	}
+
+	public int getMaxConnectionsPerHost()
+	{
+		return maxConnectionsPerHost;
+	}
+
+	public int getMaxTotalConnections()
+	{
+		return maxTotalConnections;
+	}
+
+	public long getConnectionPoolTimeout()
+	{
+		return connectionPoolTimeout;
+	}
+
+	public int getConnectionTimeout()
+	{
+		return connectionTimeout;
+	}
+
+	public int getSoTimeout()
+	{
+		return soTimeout;
+	}
+
+	public boolean isTcpNoDelay()
+	{
+		return tcpNoDelay;
+	}
+
+	public int getSendBufferSize()
+	{
+		return sendBufferSize;
+	}
+
+	public int getReceiveBufferSize()
+	{
+		return receiveBufferSize;
+	}
+
+	public boolean isKeepAlive()
+	{
+		return keepAlive;
+	}
+
+	public boolean isStaleCheckingEnabled()
+	{
+		return staleCheckingEnabled;
+	}
+
+	public long getIdleConnectionTimeout()
+	{
+		return idleConnectionTimeout;
+	}
+
+	public long getIdleCheckInterval()
+	{
+		return idleCheckInterval;
+	}
+
+	public boolean isCoalesceRequests()
+	{
+		return coalesceRequests;
+	}
+
+	public TransportMode getTransportMode()
+	{
+		return transportMode;
+	}
+
+	public CompressionPolicy getCompression()
+	{
+		return compression;
+	}
+
+	public int getPayloadPreviewLimit()
+	{
+		return payloadPreviewLimit;
+	}
+
+	public RetryPolicy getRetryPolicy()
+	{
+		return retryPolicy;
+	}
+
+	public CircuitBreakerPolicy getCircuitBreaker()
+	{
+		return circuitBreaker;
+	}
+
+	public BulkheadPolicy getBulkhead()
+	{
+		return bulkhead;
+	}
+
+	public SchedulingPolicy getScheduling()
+	{
+		return scheduling;
+	}
+
+	public ConcurrencyLimitPolicy getConcurrencyLimit()
+	{
+		return concurrencyLimit;
+	}
+
+	public HttpBackend getHttpBackend()
+	{
+		return httpBackend;
+	}
+
+	public long getPreparedReportCacheSize()
+	{
+		return preparedReportCacheSize;
+	}
+
+	public long getPreparedReportTimeToLive()
+	{
+		return preparedReportTimeToLive;
+	}
+
+	public long getResultSpillThreshold()
+	{
+		return resultSpillThreshold;
+	}
+
+	public File getResultSpillDirectory()
+	{
+		return resultSpillDirectory;
+	}
+
+	public boolean isTemplateDigest()
+	{
+		return templateDigest;
+	}
+
+	public PrintSpoolerPolicy getPrintSpooler()
+	{
+		return printSpooler;
+	}
+
+	public BatchPolicy getBatch()
+	{
+		return batch;
+	}
+
+	public WarmUpPolicy getWarmUp()
+	{
+		return warmUp;
+	}
+
+	public static class Builder
+	{
+		private int maxConnectionsPerHost = 20;
+		private int maxTotalConnections = 100;
+		private long connectionPoolTimeout = 0;
+		private int connectionTimeout = 1000 * 60 * 15;
+		private int soTimeout = 0;
+		private boolean tcpNoDelay = true;
+		private int sendBufferSize = -1;
+		private int receiveBufferSize = -1;
+		private boolean keepAlive = true;
+		private boolean staleCheckingEnabled = true;
+		private long idleConnectionTimeout = 1000 * 60;
+		private long idleCheckInterval = 1000 * 30;
+		private boolean coalesceRequests = true;
+		private TransportMode transportMode = TransportMode.FORM;
+		private CompressionPolicy compression = CompressionPolicy.DEFAULT;
+		private int payloadPreviewLimit = 1024;
+		private RetryPolicy retryPolicy = RetryPolicy.NONE;
+		private CircuitBreakerPolicy circuitBreaker = CircuitBreakerPolicy.NONE;
+		private BulkheadPolicy bulkhead = BulkheadPolicy.NONE;
+		private SchedulingPolicy scheduling = SchedulingPolicy.NONE;
+		private ConcurrencyLimitPolicy concurrencyLimit = ConcurrencyLimitPolicy.NONE;
+		private HttpBackend httpBackend = HttpBackend.COMMONS;
+		private long preparedReportCacheSize = 32 * 1024 * 1024;
+		private long preparedReportTimeToLive = 1000 * 60 * 5;
+		private long resultSpillThreshold = 8 * 1024 * 1024;
+		private File resultSpillDirectory;
+		private boolean templateDigest = true;
+		private PrintSpoolerPolicy printSpooler = PrintSpoolerPolicy.NONE;
+		private BatchPolicy batch = BatchPolicy.DEFAULT;
+		private WarmUpPolicy warmUp = WarmUpPolicy.NONE;
+
+		private Builder()
+		{
+		}
+
+		private Builder(HttpReportClientConfig config)
+		{
+			maxConnectionsPerHost = config.maxConnectionsPerHost;
+			maxTotalConnections = config.maxTotalConnections;
+			connectionPoolTimeout = config.connectionPoolTimeout;
+			connectionTimeout = config.connectionTimeout;
+			soTimeout = config.soTimeout;
+			tcpNoDelay = config.tcpNoDelay;
+			sendBufferSize = config.sendBufferSize;
+			receiveBufferSize = config.receiveBufferSize;
+			keepAlive = config.keepAlive;
+			staleCheckingEnabled = config.staleCheckingEnabled;
+			idleConnectionTimeout = config.idleConnectionTimeout;
+			idleCheckInterval = config.idleCheckInterval;
+			coalesceRequests = config.coalesceRequests;
+			transportMode = config.transportMode;
+			compression = config.compression;
+			payloadPreviewLimit = config.payloadPreviewLimit;
+			retryPolicy = config.retryPolicy;
+			circuitBreaker = config.circuitBreaker;
+			bulkhead = config.bulkhead;
+			scheduling = config.scheduling;
+			concurrencyLimit = config.concurrencyLimit;
+			httpBackend = config.httpBackend;
+			preparedReportCacheSize = config.preparedReportCacheSize;
+			preparedReportTimeToLive = config.preparedReportTimeToLive;
+			resultSpillThreshold = config.resultSpillThreshold;
+			resultSpillDirectory = config.resultSpillDirectory;
+			templateDigest = config.templateDigest;
+			printSpooler = config.printSpooler;
+			batch = config.batch;
+			warmUp = config.warmUp;
+		}
+
+		/**
+		 * Maximum number of pooled connections to one report server (default 20)
+		 */
+		public Builder maxConnectionsPerHost(int value)
+		{
+			maxConnectionsPerHost = value;
+			return this;
+		}
+
+		/**
+		 * Maximum number of pooled connections to all the report servers (default 100)
+		 */
+		public Builder maxTotalConnections(int value)
+		{
+			maxTotalConnections = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds to wait for a free pooled connection, 0 waits forever (default)
+		 */
+		public Builder connectionPoolTimeout(long value)
+		{
+			connectionPoolTimeout = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds to wait for the TCP connection to be established (default 15 minutes)
+		 */
+		public Builder connectionTimeout(int value)
+		{
+			connectionTimeout = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds a socket read may block (SO_TIMEOUT), 0 waits forever (default)
+		 * Keep in mind the server sends nothing back while the report is rendered
+		 */
+		public Builder soTimeout(int value)
+		{
+			soTimeout = value;
+			return this;
+		}
+
+		/**
+		 * Disables the Nagle algorithm (default true)
+		 */
+		public Builder tcpNoDelay(boolean value)
+		{
+			tcpNoDelay = value;
+			return this;
+		}
+
+		/**
+		 * SO_SNDBUF in bytes, -1 keeps the system default (default)
+		 */
+		public Builder sendBufferSize(int value)
+		{
+			sendBufferSize = value;
+			return this;
+		}
+
+		/**
+		 * SO_RCVBUF in bytes, -1 keeps the system default (default)
+		 */
+		public Builder receiveBufferSize(int value)
+		{
+			receiveBufferSize = value;
+			return this;
+		}
+
+		/**
+		 * Reuse the connections between calls (default true)
+		 * When false every request is sent with "Connection: close"
+		 */
+		public Builder keepAlive(boolean value)
+		{
+			keepAlive = value;
+			return this;
+		}
+
+		/**
+		 * Check a pooled connection was not closed by the server before using it (default true)
+		 */
+		public Builder staleCheckingEnabled(boolean value)
+		{
+			staleCheckingEnabled = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds a pooled connection may stay idle before the reaper closes it (default 1 minute)
+		 */
+		public Builder idleConnectionTimeout(long value)
+		{
+			idleConnectionTimeout = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds between two runs of the idle/stale connection reaper, 0 disables the reaper (default 30 seconds)
+		 * The reaper runs on the timer thread shared by the clients, a client dropped without shutdown() does not keep it alive
+		 */
+		public Builder idleCheckInterval(long value)
+		{
+			idleCheckInterval = value;
+			return this;
+		}
+
+		/**
+		 * Merge identical calls (same server, operation and fields) running at the same time
+		 * into one report server call, only for the calls printing nothing and without CallOptions (default true)
+		 */
+		public Builder coalesceRequests(boolean value)
+		{
+			coalesceRequests = value;
+			return this;
+		}
+
+		/**
+		 * How the binary fields are sent (default TransportMode.FORM)
+		 */
+		public Builder transportMode(TransportMode value)
+		{
+			transportMode = value;
+			return this;
+		}
+
+		/**
+		 * When the request and response bodies are compressed (default CompressionPolicy.DEFAULT)
+		 * CompressionPolicy.NONE sends and asks for everything uncompressed
+		 */
+		public Builder compression(CompressionPolicy value)
+		{
+			compression = value;
+			return this;
+		}
+
+		/**
+		 * Bytes of a template, datasource or report shown in the debug log, binary content is shown as hex (default 1024)
+		 * Use a PayloadCapture to get the whole payloads
+		 */
+		public Builder payloadPreviewLimit(int value)
+		{
+			payloadPreviewLimit = value;
+			return this;
+		}
+
+		/**
+		 * When the failed calls are retried and the slow ones hedged (default RetryPolicy.NONE, every call is sent once)
+		 */
+		public Builder retryPolicy(RetryPolicy value)
+		{
+			retryPolicy = value;
+			return this;
+		}
+
+		/**
+		 * When a report server is considered down and its calls fail fast (default CircuitBreakerPolicy.NONE)
+		 */
+		public Builder circuitBreaker(CircuitBreakerPolicy value)
+		{
+			circuitBreaker = value;
+			return this;
+		}
+
+		/**
+		 * How many calls may be in progress on a report server (default BulkheadPolicy.NONE, no limit)
+		 */
+		public Builder bulkhead(BulkheadPolicy value)
+		{
+			bulkhead = value;
+			return this;
+		}
+
+		/**
+		 * How the INTERACTIVE and BATCH calls share the connections of a report server (default SchedulingPolicy.NONE)
+		 */
+		public Builder scheduling(SchedulingPolicy value)
+		{
+			scheduling = value;
+			return this;
+		}
+
+		/**
+		 * An adaptive limit on the calls in progress on every report server (default ConcurrencyLimitPolicy.NONE)
+		 */
+		public Builder concurrencyLimit(ConcurrencyLimitPolicy value)
+		{
+			concurrencyLimit = value;
+			return this;
+		}
+
+		/**
+		 * The HTTP client the calls go through (default HttpBackend.COMMONS)
+		 * The connection pool settings only apply to COMMONS, the java.net.http backends use the timeouts only
+		 */
+		public Builder httpBackend(HttpBackend value)
+		{
+			httpBackend = value;
+			return this;
+		}
+
+		/**
+		 * Bytes of prepared reports buildReportMulti() keeps in memory, 0 keeps none (default 32 MB)
+		 */
+		public Builder preparedReportCacheSize(long value)
+		{
+			preparedReportCacheSize = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds buildReportMulti() keeps a prepared report for the formats asked for later (default 5 minutes)
+		 */
+		public Builder preparedReportTimeToLive(long value)
+		{
+			preparedReportTimeToLive = value;
+			return this;
+		}
+
+		/**
+		 * Bytes of a ReportResult kept in memory, a bigger report is written to a temporary file (default 8 MB)
+		 */
+		public Builder resultSpillThreshold(long value)
+		{
+			resultSpillThreshold = value;
+			return this;
+		}
+
+		/**
+		 * Where the temporary files of the ReportResults are created (default null, java.io.tmpdir)
+		 */
+		public Builder resultSpillDirectory(File value)
+		{
+			resultSpillDirectory = value;
+			return this;
+		}
+
+		/**
+		 * Sends the SHA-256 of a template instead of the template to the servers known to hold it (default true)
+		 * Only used with the servers advertising the "template-digest" capability
+		 */
+		public Builder templateDigest(boolean value)
+		{
+			templateDigest = value;
+			return this;
+		}
+
+		/**
+		 * The journal and threads of HttpReportClient.getPrintSpooler() (default PrintSpoolerPolicy.NONE, no spooler)
+		 */
+		public Builder printSpooler(PrintSpoolerPolicy value)
+		{
+			printSpooler = value;
+			return this;
+		}
+
+		/**
+		 * How the jobs of HttpReportClient.submitBatch() are grouped and sent (default BatchPolicy.DEFAULT)
+		 */
+		public Builder batch(BatchPolicy value)
+		{
+			batch = value;
+			return this;
+		}
+
+		/**
+		 * The report servers HttpReportClient.warmUp() prepares and the keep-alive probes (default WarmUpPolicy.NONE, no server)
+		 */
+		public Builder warmUp(WarmUpPolicy value)
+		{
+			warmUp = value;
+			return this;
+		}
+
+		public HttpReportClientConfig build()
+		{
+			if(maxConnectionsPerHost <= 0)
+				throw new IllegalArgumentException("maxConnectionsPerHost must be greater than 0");
+			if(maxTotalConnections < maxConnectionsPerHost)
+				throw new IllegalArgumentException("maxTotalConnections must not be less than maxConnectionsPerHost");
+			if(connectionPoolTimeout < 0 || connectionTimeout < 0 || soTimeout < 0)
+				throw new IllegalArgumentException("The timeouts must not be negative");
+			if(transportMode == null)
+				throw new IllegalArgumentException("transportMode must not be null");
+			if(compression == null)
+				throw new IllegalArgumentException("compression must not be null");
+			if(payloadPreviewLimit < 0)
+				throw new IllegalArgumentException("payloadPreviewLimit must not be negative");
+			if(retryPolicy == null)
+				throw new IllegalArgumentException("retryPolicy must not be null");
+			if(circuitBreaker == null || bulkhead == null)
+				throw new IllegalArgumentException("circuitBreaker and bulkhead must not be null");
+			if(scheduling == null || concurrencyLimit == null)
+				throw new IllegalArgumentException("scheduling and concurrencyLimit must not be null");
+			if(httpBackend == null)
+				throw new IllegalArgumentException("httpBackend must not be null");
+			if(printSpooler == null || batch == null || warmUp == null)
+				throw new IllegalArgumentException("printSpooler, batch and warmUp must not be null");
+			if(preparedReportCacheSize < 0 || preparedReportTimeToLive <= 0)
+				throw new IllegalArgumentException("preparedReportCacheSize must not be negative and preparedReportTimeToLive must be greater than 0");
+			if(resultSpillThreshold < 0 || resultSpillThreshold > Integer.MAX_VALUE - 8)
+				throw new IllegalArgumentException("resultSpillThreshold must be between 0 and 2 GB");
+			if(idleCheckInterval < 0 || idleConnectionTimeout < 0)
+				throw new IllegalArgumentException("idleCheckInterval and idleConnectionTimeout must not be negative");
+
+			return new HttpReportClientConfig(this);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.httpclient.HttpConnectionManager;
+
+/**
+ * Closes the connections of a pool idle for longer than the idleConnectionTimeout of the config
+ * Runs on the shared timer thread of the clients (ReportExecutors.getScheduler()) and holds the pool weakly,
+ * the pool of a client dropped without shutdown() is collected and its reaper stops by itself
+ */
+final class IdleConnectionReaper implements Runnable
+{
+	private final WeakReference<HttpConnectionManager> manager;
+	private final long idleTimeout;
+	private volatile ScheduledFuture<?> future;
+
+	private IdleConnectionReaper(HttpConnectionManager manager, long idleTimeout)
+	{
+		this.manager = new WeakReference<HttpConnectionManager>(manager);
+		this.idleTimeout = idleTimeout;
+	}
+
+	static IdleConnectionReaper start(HttpConnectionManager manager, long interval, long idleTimeout)
+	{
+		IdleConnectionReaper reaper = new IdleConnectionReaper(manager, idleTimeout);
+
+		reaper.future = ReportExecutors.getScheduler().scheduleWithFixedDelay(reaper, interval, interval, TimeUnit.MILLISECONDS);
+
+		return reaper;
+	}
+
+	public void run()
+	{
+		HttpConnectionManager connectionManager = manager.get();
+
+		if(connectionManager == null)
+		{
+			stop();
+			return;
+		}
+
+		try
+		{
+			connectionManager.closeIdleConnections(idleTimeout);
+		}
+		catch (RuntimeException e)
+		{
+			// a failed run must not cancel the next ones
+			HttpReportClient.log.warn("Closing the idle connections failed: " + e);
+		}
+	}
+
+	void stop()
+	{
+		ScheduledFuture<?> scheduled = future;
+
+		if(scheduled != null)
+			scheduled.cancel(false);
+	}
+}
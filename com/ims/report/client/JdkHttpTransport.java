@@ -0,0 +1,357 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+
+import org.apache.commons.httpclient.ConnectTimeoutException;
+
+/**
+ * The ReportTransport built on java.net.http.HttpClient (HttpBackend.JDK_HTTP1 and JDK_HTTP2)
+ * One HttpClient serves every report server: its selector thread does the I/O of all the calls, over
+ * HTTP/2 the calls to a server share one connection
+ * The request body is written by the calling thread as the connection asks for it (EntityBodyPublisher),
+ * the response body is read by the calling thread from the buffers the HttpClient fills
+ * The soTimeout of the config bounds the wait for the response headers; the HttpClient decides
+ * itself when to open or close its connections, maxConnectionsPerHost and keepAlive do not apply
+ */
+class JdkHttpTransport implements ReportTransport
+{
+	// set by the HttpClient itself, it refuses them
+	private static final Set<String> RESTRICTED_HEADERS = new HashSet<String>();
+
+	static
+	{
+		RESTRICTED_HEADERS.add("connection");
+		RESTRICTED_HEADERS.add("content-length");
+		RESTRICTED_HEADERS.add("expect");
+		RESTRICTED_HEADERS.add("host");
+		RESTRICTED_HEADERS.add("upgrade");
+	}
+
+	private final HttpClient client;
+	private final long soTimeout;
+
+	JdkHttpTransport(HttpReportClientConfig config, boolean http2)
+	{
+		HttpClient.Builder builder = HttpClient.newBuilder()
+			.version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+			.followRedirects(HttpClient.Redirect.NEVER);
+
+		if(config.getConnectionTimeout() > 0)
+			builder.connectTimeout(Duration.ofMillis(config.getConnectionTimeout()));
+
+		client = builder.build();
+		soTimeout = config.getSoTimeout();
+	}
+
+	public TransportExchange post(TransportRequest request) throws IOException
+	{
+		final EntityBodyPublisher publisher = new EntityBodyPublisher(request.getBody());
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getServerUrl()))
+			.POST(publisher)
+			.expectContinue(true);
+
+		if(request.getBody().getContentType() != null)
+			builder.header("Content-Type", request.getBody().getContentType());
+
+		for(Iterator<Map.Entry<String, String>> it = request.getHeaders().entrySet().iterator(); it.hasNext();)
+		{
+			Map.Entry<String, String> header = it.next();
+
+			if(!RESTRICTED_HEADERS.contains(header.getKey().toLowerCase()))
+				builder.header(header.getKey(), header.getValue());
+		}
+
+		long timeout = soTimeout;
+
+		// the deadline of the call shortens the wait
+		if(request.getTimeout() > 0 && (timeout == 0 || request.getTimeout() < timeout))
+			timeout = request.getTimeout();
+
+		if(timeout > 0)
+			builder.timeout(Duration.ofMillis(timeout));
+
+		final CompletableFuture<HttpResponse<InputStream>> future = client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+
+		boolean attached = request.setAbortHandler(new Runnable()
+		{
+			public void run()
+			{
+				publisher.stop();
+				future.cancel(true);
+				future.thenAccept(JdkHttpTransport::closeBody);
+			}
+		});
+
+		if(!attached)
+		{
+			future.cancel(true);
+			throw new InterruptedIOException("The call was cancelled");
+		}
+
+		// a response before the whole body was sent (an error) or a failure stops the writing
+		future.whenComplete(new BiConsumer<HttpResponse<InputStream>, Throwable>()
+		{
+			public void accept(HttpResponse<InputStream> response, Throwable e)
+			{
+				publisher.stop();
+			}
+		});
+
+		IOException writeFailure = null;
+
+		try
+		{
+			publisher.write();
+		}
+		catch (IOException e)
+		{
+			writeFailure = e;
+		}
+
+		try
+		{
+			return new JdkExchange(future.get());
+		}
+		catch (InterruptedException e)
+		{
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the report server");
+		}
+		catch (CancellationException e)
+		{
+			throw new InterruptedIOException("The call was cancelled");
+		}
+		catch (ExecutionException e)
+		{
+			IOException failure = translate(e.getCause());
+
+			if(writeFailure != null && failure != writeFailure)
+				failure.addSuppressed(writeFailure);
+
+			throw failure;
+		}
+	}
+
+	/**
+	 * Turns the java.net.http exceptions into the ones HttpReportClient knows, a connect timeout
+	 * lets a cluster try the next server and a read timeout may be retried
+	 */
+	private static IOException translate(Throwable cause)
+	{
+		if(cause instanceof HttpConnectTimeoutException)
+		{
+			ConnectTimeoutException e = new ConnectTimeoutException(cause.getMessage());
+			e.initCause(cause);
+			return e;
+		}
+
+		if(cause instanceof HttpTimeoutException)
+		{
+			SocketTimeoutException e = new SocketTimeoutException(cause.getMessage());
+			e.initCause(cause);
+			return e;
+		}
+
+		// the HttpClient wraps the connection failures of sendAsync() in an IOException of its own
+		if(cause instanceof IOException && cause.getCause() instanceof IOException && cause.getClass() == IOException.class)
+			return (IOException)cause.getCause();
+
+		if(cause instanceof IOException)
+			return (IOException)cause;
+
+		return new IOException(String.valueOf(cause), cause);
+	}
+
+	private static void closeBody(HttpResponse<InputStream> response)
+	{
+		try
+		{
+			response.body().close();
+		}
+		catch (IOException e)
+		{
+			// the call is being aborted
+		}
+	}
+
+	/**
+	 * Sends the probes at the same time, over HTTP/1.1 the HttpClient opens a connection for each
+	 * one it has no idle connection for; over HTTP/2 they share one connection
+	 * A probe counts if it was answered with a 2xx status, the HttpClient does not tell whether it kept the connection
+	 */
+	public int warmUp(String serverUrl, int connections, WarmUpPolicy policy) throws IOException
+	{
+		URI uri = URI.create(serverUrl);
+		HttpRequest probe = HttpRequest.newBuilder(policy.getProbePath() != null ? uri.resolve(policy.getProbePath()) : uri)
+			.method(policy.getProbeMethod(), HttpRequest.BodyPublishers.noBody())
+			.timeout(Duration.ofMillis(policy.getTimeout()))
+			.build();
+		List<CompletableFuture<HttpResponse<Void>>> futures = new ArrayList<CompletableFuture<HttpResponse<Void>>>(connections);
+
+		for(int i = 0; i < connections; i++)
+		{
+			futures.add(client.sendAsync(probe, HttpResponse.BodyHandlers.discarding()));
+		}
+
+		int answered = 0;
+		IOException failure = null;
+
+		for(int i = 0; i < futures.size(); i++)
+		{
+			try
+			{
+				if(futures.get(i).get().statusCode() / 100 == 2)
+					answered++;
+			}
+			catch (InterruptedException e)
+			{
+				for(int j = i; j < futures.size(); j++)
+				{
+					futures.get(j).cancel(true);
+				}
+
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while warming up " + serverUrl);
+			}
+			catch (ExecutionException e)
+			{
+				failure = translate(e.getCause());
+			}
+		}
+
+		if(failure != null && answered == 0)
+			throw failure;
+
+		return answered;
+	}
+
+	/**
+	 * The HttpClient keeps its idle connections open itself (jdk.httpclient.keepalive.timeout)
+	 */
+	public int keepAlive(String serverUrl, WarmUpPolicy policy)
+	{
+		return -1;
+	}
+
+	public List<ConnectionPoolStats> getPoolStats()
+	{
+		return Collections.emptyList();
+	}
+
+	public ConnectionPoolStats getPoolStats(String serverUrl)
+	{
+		return null;
+	}
+
+	/**
+	 * Closes the connections and stops the selector thread at once on JDK 21 and later, the calls in progress fail
+	 * Before JDK 21 the HttpClient does it itself once it is unreachable
+	 */
+	public void shutdown()
+	{
+		try
+		{
+			// HttpClient.shutdownNow() is only available from JDK 21
+			Method shutdownNow = HttpClient.class.getMethod("shutdownNow");
+
+			shutdownNow.invoke(client);
+		}
+		catch (NoSuchMethodException e)
+		{
+			HttpReportClient.log.debug("HttpClient.shutdownNow() is not available, the HttpClient stops once unreachable");
+		}
+		catch (Exception e)
+		{
+			HttpReportClient.log.warn("The HttpClient could not be shut down: " + e);
+		}
+	}
+
+	private static class JdkExchange implements TransportExchange
+	{
+		private final HttpResponse<InputStream> response;
+		private String bodyAsString;
+
+		JdkExchange(HttpResponse<InputStream> response)
+		{
+			this.response = response;
+		}
+
+		public int getStatusCode()
+		{
+			return response.statusCode();
+		}
+
+		public String getProtocol()
+		{
+			return response.version() == HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+		}
+
+		public String getResponseHeader(String name)
+		{
+			return response.headers().firstValue(name).orElse(null);
+		}
+
+		public long getResponseContentLength()
+		{
+			return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+		}
+
+		public InputStream getResponseBody()
+		{
+			return response.body();
+		}
+
+		public String getResponseBodyAsString() throws IOException
+		{
+			if(bodyAsString == null)
+			{
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				InputStream in = response.body();
+				byte[] buffer = new byte[4 * 1024];
+
+				for(int count; (count = in.read(buffer)) != -1;)
+				{
+					out.write(buffer, 0, count);
+				}
+
+				// the charset Commons HttpClient uses when the response names none
+				bodyAsString = out.toString("ISO-8859-1");
+			}
+
+			return bodyAsString;
+		}
+
+		public void close()
+		{
+			closeBody(response);
+		}
+	}
+}
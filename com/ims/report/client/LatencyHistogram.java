@@ -0,0 +1,157 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free latency histogram in the HdrHistogram style: the values (microseconds) are counted
+ * in log-linear buckets, 16 linear sub-buckets per power of two, so every percentile is within
+ * about 6% of the real value whatever the range, from 1 microsecond up to about 25 days
+ * Recording is a few atomic increments, no allocation
+ */
+public class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_SHIFT = 36;
+	private static final int BUCKETS = (MAX_SHIFT + 2) * SUB_BUCKETS;
+	private static final long MAX_VALUE = ((long)(2 * SUB_BUCKETS) << MAX_SHIFT) - 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a duration in nanoseconds
+	 */
+	public void recordNanos(long nanos)
+	{
+		record(Math.max(0, nanos / 1000));
+	}
+
+	private void record(long micros)
+	{
+		if(micros > MAX_VALUE)
+			micros = MAX_VALUE;
+
+		counts.incrementAndGet(getIndex(micros));
+		count.incrementAndGet();
+		sum.addAndGet(micros);
+
+		long current;
+		while(micros < (current = min.get()) && !min.compareAndSet(current, micros))
+		{
+		}
+		while(micros > (current = max.get()) && !max.compareAndSet(current, micros))
+		{
+		}
+	}
+
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	/**
+	 * Returns the counters as they are now, the recording goes on
+	 */
+	public LatencySnapshot getSnapshot()
+	{
+		long[] copy = new long[BUCKETS];
+		long total = 0;
+
+		for(int i = 0; i < BUCKETS; i++)
+		{
+			copy[i] = counts.get(i);
+			total += copy[i];
+		}
+
+		long maximum = max.get();
+
+		if(total == 0)
+			return new LatencySnapshot(0, 0, 0, 0, 0, 0, 0, 0);
+
+		return new LatencySnapshot(total, min.get(), maximum, (double)sum.get() / count.get(),
+			getPercentile(copy, total, 50, maximum), getPercentile(copy, total, 90, maximum),
+			getPercentile(copy, total, 99, maximum), getPercentile(copy, total, 99.9, maximum));
+	}
+
+	/**
+	 * The percentile (example 99.9) in milliseconds, 0 when nothing was recorded
+	 */
+	public long getPercentileMillis(double percentile)
+	{
+		long[] copy = new long[BUCKETS];
+		long total = 0;
+
+		for(int i = 0; i < BUCKETS; i++)
+		{
+			copy[i] = counts.get(i);
+			total += copy[i];
+		}
+
+		if(total == 0)
+			return 0;
+
+		return getPercentile(copy, total, percentile, max.get()) / 1000;
+	}
+
+	public void reset()
+	{
+		for(int i = 0; i < BUCKETS; i++)
+		{
+			counts.set(i, 0);
+		}
+
+		count.set(0);
+		sum.set(0);
+		min.set(Long.MAX_VALUE);
+		max.set(0);
+	}
+
+	/**
+	 * The highest value of the bucket holding the percentile, never more than the maximum recorded
+	 */
+	private static long getPercentile(long[] counts, long total, double percentile, long maximum)
+	{
+		long rank = Math.max(1, (long)Math.ceil(total * percentile / 100));
+		long seen = 0;
+
+		for(int i = 0; i < counts.length; i++)
+		{
+			seen += counts[i];
+
+			if(seen >= rank)
+				return Math.min(getHighestValue(i), maximum);
+		}
+
+		return maximum;
+	}
+
+	static int getIndex(long value)
+	{
+		if(value < 2 * SUB_BUCKETS)
+			return (int)value;
+
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+
+		return (shift + 1) * SUB_BUCKETS + (int)(value >>> shift) - SUB_BUCKETS;
+	}
+
+	static long getHighestValue(int index)
+	{
+		if(index < 2 * SUB_BUCKETS)
+			return index;
+
+		int shift = index / SUB_BUCKETS - 1;
+		long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+
+		return ((mantissa + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * The state of a LatencyHistogram at one moment, the values are in milliseconds
+ */
+public class LatencySnapshot
+{
+	private long count;
+	private long min;
+	private long max;
+	private double mean;
+	private long p50;
+	private long p90;
+	private long p99;
+	private long p999;
+
+	// the values are given in microseconds
+	LatencySnapshot(long count, long min, long max, double mean, long p50, long p90, long p99, long p999)
+	{
+		this.count = count;
+		this.min = min;
+		this.max = max;
+		this.mean = mean;
+		this.p50 = p50;
+		this.p90 = p90;
+		this.p99 = p99;
+		this.p999 = p999;
+	}
+
+	public long getCount()
+	{
+		return count;
+	}
+
+	public double getMin()
+	{
+		return min / 1000.0;
+	}
+
+	public double getMax()
+	{
+		return max / 1000.0;
+	}
+
+	public double getMean()
+	{
+		return mean / 1000.0;
+	}
+
+	public double getP50()
+	{
+		return p50 / 1000.0;
+	}
+
+	public double getP90()
+	{
+		return p90 / 1000.0;
+	}
+
+	public double getP99()
+	{
+		return p99 / 1000.0;
+	}
+
+	public double getP999()
+	{
+		return p999 / 1000.0;
+	}
+
+	public String toString()
+	{
+		return "[count: " + count + "; mean: " + format(getMean()) + " ms; p50: " + format(getP50()) + " ms; p90: " + format(getP90())
+			+ " ms; p99: " + format(getP99()) + " ms; p99.9: " + format(getP999()) + " ms; max: " + format(getMax()) + " ms]";
+	}
+
+	private static String format(double millis)
+	{
+		return String.valueOf(Math.round(millis * 100) / 100.0);
+	}
+}
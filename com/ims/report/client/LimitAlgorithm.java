@@ -0,0 +1,39 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * How the adaptive concurrency limit of a report server follows its latency, see ConcurrencyLimitPolicy
+ */
+public class LimitAlgorithm
+{
+	private String name;
+
+	/**
+	 * Additive increase, multiplicative decrease: +1 for every successful call while the limit is used,
+	 * times backoffRatio for every failed call (or slower than the timeout); reacts to errors only
+	 */
+	public static final LimitAlgorithm AIMD = new LimitAlgorithm("AIMD");
+	/**
+	 * TCP Vegas: estimates the calls queued on the server from the lowest latency seen and the current one,
+	 * grows the limit while the queue is short and shrinks it when it grows
+	 */
+	public static final LimitAlgorithm VEGAS = new LimitAlgorithm("VEGAS");
+	/**
+	 * Compares the current latency with the lowest one seen recently: the limit shrinks as the ratio grows above
+	 * the tolerance and grows by its square root while the latency stays within it
+	 */
+	public static final LimitAlgorithm GRADIENT = new LimitAlgorithm("GRADIENT");
+
+	private LimitAlgorithm(String name)
+	{
+		this.name = name;
+	}
+
+	public String toString()
+	{
+		return name;
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+/**
+ * The TransportBody of a request entity, timed and counted while it is written for ReportMetrics
+ * If the transport writes the body more than once (retry) the last attempt is kept
+ */
+class MeteredBody implements TransportBody
+{
+	private final RequestEntity entity;
+
+	private volatile long writeStarted;
+	private volatile long writeEnded;
+	private volatile long bytesWritten;
+
+	MeteredBody(RequestEntity entity)
+	{
+		this.entity = entity;
+	}
+
+	public boolean isRepeatable()
+	{
+		return entity.isRepeatable();
+	}
+
+	public String getContentType()
+	{
+		return entity.getContentType();
+	}
+
+	public long getContentLength()
+	{
+		return entity.getContentLength();
+	}
+
+	public void writeTo(OutputStream out) throws IOException
+	{
+		writeStarted = System.nanoTime();
+		writeEnded = 0;
+		bytesWritten = 0;
+
+		entity.writeRequest(new FilterOutputStream(out)
+		{
+			public void write(int b) throws IOException
+			{
+				out.write(b);
+				bytesWritten++;
+			}
+
+			public void write(byte[] b, int off, int len) throws IOException
+			{
+				out.write(b, off, len);
+				bytesWritten += len;
+			}
+
+			public void close()
+			{
+				// the connection stream belongs to the transport
+			}
+		});
+
+		writeEnded = System.nanoTime();
+	}
+
+	/**
+	 * System.nanoTime() when the body started being written, 0 if it never was
+	 */
+	long getWriteStarted()
+	{
+		return writeStarted;
+	}
+
+	/**
+	 * System.nanoTime() when the whole body was written, 0 if it was not
+	 */
+	long getWriteEnded()
+	{
+		return writeEnded;
+	}
+
+	long getBytesWritten()
+	{
+		return bytesWritten;
+	}
+}
@@ -0,0 +1,410 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * Writes the full payloads of the report server calls to a directory, to chase a bad report
+ * without turning the debug log on
+ * The files are written by a background thread, the calling thread only queues the call; when more
+ * than maxQueuedBytes are waiting the call is dropped instead of blocking or filling the heap
+ * The directory is capped at maxBytes, the oldest captures are deleted first
+ * Every call produces:
+ * 	&lt;time&gt;-&lt;sequence&gt;-&lt;operation&gt;.txt			the server, text fields, status, duration and error
+ * 	&lt;time&gt;-&lt;sequence&gt;-&lt;operation&gt;.&lt;field&gt;	one file per binary field (template, datasource, ...)
+ * 	&lt;time&gt;-&lt;sequence&gt;-&lt;operation&gt;.response		the report, when returned as a byte[]
+ * The byte[] given to or returned by HttpReportClient are written as they are, they must not be
+ * modified until written
+ *
+ * <pre>
+ * PayloadCapture capture = new PayloadCapture(new File("/var/log/reports"), 512L * 1024 * 1024);
+ * capture.setSampleRate(0.1);
+ * capture.setOperations(new ReportOperation[] { ReportOperation.BUILD_REPORT });
+ * client.setPayloadCapture(capture);
+ * </pre>
+ */
+public class PayloadCapture
+{
+	private static final String TEXT_SUFFIX = ".txt";
+	private static final String RESPONSE_SUFFIX = ".response";
+
+	private final File directory;
+	private final long maxBytes;
+
+	private volatile double sampleRate = 1;
+	private volatile Set<ReportOperation> operations;
+	private volatile boolean captureResponses = true;
+	private volatile boolean failuresOnly;
+	private volatile long maxQueuedBytes = 64 * 1024 * 1024;
+
+	private final LinkedBlockingQueue<Capture> queue = new LinkedBlockingQueue<Capture>();
+	private final AtomicLong queuedBytes = new AtomicLong();
+	private final AtomicLong sequence = new AtomicLong();
+	private final AtomicLong captured = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+
+	// written by the writer thread only
+	private final LinkedList<File> files = new LinkedList<File>();
+	private long directoryBytes;
+
+	private final Thread writer;
+	private volatile boolean closed;
+
+	/**
+	 * @param directory		created if needed, the files already there count towards maxBytes
+	 * @param maxBytes		the size of the directory above which the oldest captures are deleted
+	 */
+	public PayloadCapture(File directory, long maxBytes) throws IOException
+	{
+		if(!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create the capture directory " + directory);
+
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+
+		File[] existing = directory.listFiles();
+		if(existing != null)
+		{
+			// the names start with the time, sorting them sorts the captures
+			Arrays.sort(existing);
+
+			for(int i = 0; i < existing.length; i++)
+			{
+				if(existing[i].isFile())
+				{
+					files.add(existing[i]);
+					directoryBytes += existing[i].length();
+				}
+			}
+		}
+
+		writer = new Thread("PayloadCapture-writer")
+		{
+			public void run()
+			{
+				writeLoop();
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * The fraction of the calls captured, between 0 and 1 (default 1, every call)
+	 */
+	public void setSampleRate(double sampleRate)
+	{
+		if(sampleRate < 0 || sampleRate > 1)
+			throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+
+		this.sampleRate = sampleRate;
+	}
+
+	/**
+	 * Only the calls of these operations are captured, null captures every operation (default)
+	 */
+	public void setOperations(ReportOperation[] operations)
+	{
+		this.operations = operations == null ? null : new HashSet<ReportOperation>(Arrays.asList(operations));
+	}
+
+	/**
+	 * Write the reports returned as a byte[] too (default true)
+	 */
+	public void setCaptureResponses(boolean captureResponses)
+	{
+		this.captureResponses = captureResponses;
+	}
+
+	/**
+	 * Only capture the failed calls (default false)
+	 */
+	public void setFailuresOnly(boolean failuresOnly)
+	{
+		this.failuresOnly = failuresOnly;
+	}
+
+	/**
+	 * The payload bytes that may wait for the writer thread, above that the calls are dropped (default 64 MB)
+	 */
+	public void setMaxQueuedBytes(long maxQueuedBytes)
+	{
+		this.maxQueuedBytes = maxQueuedBytes;
+	}
+
+	public File getDirectory()
+	{
+		return directory;
+	}
+
+	/**
+	 * Calls written to the directory
+	 */
+	public long getCapturedCount()
+	{
+		return captured.get();
+	}
+
+	/**
+	 * Calls not captured because too many bytes were waiting or a file could not be written
+	 */
+	public long getDroppedCount()
+	{
+		return dropped.get();
+	}
+
+	/**
+	 * Writes what is queued and stops the writer thread
+	 */
+	public void close()
+	{
+		closed = true;
+		writer.interrupt();
+
+		try
+		{
+			writer.join(1000 * 10);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Called first so the calls not captured cost nothing more, the sampling decision is taken here
+	 */
+	boolean isCaptured(ReportRequest request)
+	{
+		if(closed)
+			return false;
+
+		Set<ReportOperation> filter = operations;
+		if(filter != null && !filter.contains(request.getOperation()))
+			return false;
+
+		double rate = sampleRate;
+
+		return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+	}
+
+	/**
+	 * Queues the call for the writer thread
+	 *
+	 * @param response		the report or null when it was not returned as a byte[]
+	 * @param error			null if the call succeeded
+	 */
+	void capture(ReportRequest request, byte[] response, long millis, HttpReportClientException error)
+	{
+		if(closed || (failuresOnly && error == null))
+			return;
+
+		Capture capture = new Capture(new Date(), sequence.incrementAndGet(), request, captureResponses ? response : null, millis, error);
+		long size = capture.getSize();
+
+		if(queuedBytes.addAndGet(size) > maxQueuedBytes)
+		{
+			queuedBytes.addAndGet(-size);
+			dropped.incrementAndGet();
+			return;
+		}
+
+		queue.add(capture);
+	}
+
+	private void writeLoop()
+	{
+		for(;;)
+		{
+			Capture capture;
+
+			try
+			{
+				capture = closed ? queue.poll() : queue.poll(1, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				// close() interrupts, what is queued is still written
+				continue;
+			}
+
+			if(capture == null)
+			{
+				if(closed)
+					return;
+
+				continue;
+			}
+
+			queuedBytes.addAndGet(-capture.getSize());
+
+			try
+			{
+				write(capture);
+				captured.incrementAndGet();
+			}
+			catch (IOException e)
+			{
+				dropped.incrementAndGet();
+				HttpReportClient.log.warn("Could not capture the payload of a " + capture.request.getFunction() + "() call: " + e);
+			}
+		}
+	}
+
+	private void write(Capture capture) throws IOException
+	{
+		String prefix = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(capture.time) + "-" + capture.sequence + "-" + capture.request.getFunction();
+		StringBuffer text = new StringBuffer();
+
+		text.append("operation: ").append(capture.request.getFunction()).append("\r\n");
+		text.append("server: ").append(capture.request.getTarget()).append("\r\n");
+		text.append("time: ").append(capture.time).append("\r\n");
+		text.append("duration: ").append(capture.millis).append(" ms\r\n");
+
+		List<ReportRequest.Field> fields = capture.request.getFields();
+
+		for(int i = 0; i < fields.size(); i++)
+		{
+			ReportRequest.Field field = fields.get(i);
+
+			if(field.binary != null)
+			{
+				text.append(field.name).append(": ").append(field.binary.length).append(" bytes, see ").append(prefix).append('.').append(field.name).append("\r\n");
+				writeFile(new File(directory, prefix + "." + field.name), field.binary);
+			}
+			else if(field.source != null)
+			{
+				// read by the call, there is nothing left to write
+				text.append(field.name).append(": ").append(field.source).append(", not captured\r\n");
+			}
+			else
+			{
+				text.append(field.name).append(": ").append(field.text).append("\r\n");
+			}
+		}
+
+		if(capture.error != null)
+		{
+			text.append("status: ").append(capture.error.getStatusCode()).append("\r\n");
+			text.append("error: ").append(capture.error.getMessage()).append("\r\n");
+		}
+		else
+		{
+			text.append("status: 200\r\n");
+		}
+
+		if(capture.response != null)
+		{
+			text.append("response: ").append(capture.response.length).append(" bytes, see ").append(prefix).append(RESPONSE_SUFFIX).append("\r\n");
+			writeFile(new File(directory, prefix + RESPONSE_SUFFIX), capture.response);
+		}
+
+		writeFile(new File(directory, prefix + TEXT_SUFFIX), text.toString().getBytes("UTF-8"));
+
+		trim(prefix);
+	}
+
+	private void writeFile(File file, byte[] data) throws IOException
+	{
+		OutputStream out = new FileOutputStream(file);
+		try
+		{
+			out.write(data);
+		}
+		finally
+		{
+			out.close();
+		}
+
+		files.add(file);
+		directoryBytes += data.length;
+	}
+
+	/**
+	 * Deletes the oldest captures (all their files) until the directory fits, the capture just written is kept
+	 */
+	private void trim(String keep)
+	{
+		while(directoryBytes > maxBytes && !files.isEmpty())
+		{
+			String oldest = getPrefix(files.getFirst());
+
+			if(oldest.equals(keep))
+				return;
+
+			for(Iterator<File> it = files.iterator(); it.hasNext();)
+			{
+				File file = it.next();
+
+				if(getPrefix(file).equals(oldest))
+				{
+					it.remove();
+					directoryBytes -= file.length();
+					file.delete();
+				}
+			}
+		}
+	}
+
+	private static String getPrefix(File file)
+	{
+		String name = file.getName();
+		int dot = name.indexOf('.');
+
+		return dot < 0 ? name : name.substring(0, dot);
+	}
+
+	private static class Capture
+	{
+		final Date time;
+		final long sequence;
+		final ReportRequest request;
+		final byte[] response;
+		final long millis;
+		final HttpReportClientException error;
+
+		Capture(Date time, long sequence, ReportRequest request, byte[] response, long millis, HttpReportClientException error)
+		{
+			this.time = time;
+			this.sequence = sequence;
+			this.request = request;
+			this.response = response;
+			this.millis = millis;
+			this.error = error;
+		}
+
+		long getSize()
+		{
+			long size = response != null ? response.length : 0;
+			List<ReportRequest.Field> fields = request.getFields();
+
+			for(int i = 0; i < fields.size(); i++)
+			{
+				if(fields.get(i).binary != null)
+					size += fields.get(i).binary.length;
+			}
+
+			return size;
+		}
+	}
+}
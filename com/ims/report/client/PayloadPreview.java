@@ -0,0 +1,73 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * Turns a payload into a short string for the debug log
+ * At most limit bytes are looked at, text is shown as it is and binary content (PDF, JPEG, ...)
+ * as the hex of its first bytes, so a big or binary payload never ends up as a huge String
+ */
+final class PayloadPreview
+{
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final int HEX_BYTES = 16;
+
+	private PayloadPreview()
+	{
+	}
+
+	static String preview(byte[] data, int limit)
+	{
+		if(data == null)
+			return "null";
+
+		int length = Math.min(data.length, Math.max(0, limit));
+
+		if(!isText(data, length))
+		{
+			int shown = Math.min(length, HEX_BYTES);
+			StringBuffer buffer = new StringBuffer(shown * 3 + 32);
+
+			buffer.append("[binary, ").append(data.length).append(" bytes");
+			if(shown > 0)
+				buffer.append(": ");
+
+			for(int i = 0; i < shown; i++)
+			{
+				buffer.append(HEX[(data[i] >> 4) & 0x0f]).append(HEX[data[i] & 0x0f]);
+				if(i + 1 < shown)
+					buffer.append(' ');
+			}
+
+			return buffer.append(shown < data.length ? " ...]" : "]").toString();
+		}
+
+		// the platform charset, as the original new String(byte[]) did
+		String text = new String(data, 0, length);
+
+		if(length == data.length)
+			return text;
+
+		return text + "...[" + (data.length - length) + " more bytes, " + data.length + " in total]";
+	}
+
+	/**
+	 * No control characters other than tab, CR and LF, the bytes above 127 are taken as text
+	 */
+	private static boolean isText(byte[] data, int length)
+	{
+		for(int i = 0; i < length; i++)
+		{
+			int b = data[i] & 0xff;
+
+			if(b < 0x20 && b != '\t' && b != '\r' && b != '\n')
+				return false;
+			if(b == 0x7f)
+				return false;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * A print job of the PrintSpooler, the reports themselves stay in the journal until the job is sent
+ */
+class PrintJob
+{
+	private final long id;
+	private final long created;
+	private final String serverUrl;
+	private final String printTo;
+	private final int copies;
+	private final boolean prepared;
+	private final PrintJournal.Segment segment;
+	private final long position;
+	private final int length;
+	private int attempts;
+
+	PrintJob(long id, long created, String serverUrl, String printTo, int copies, boolean prepared, PrintJournal.Segment segment, long position, int length)
+	{
+		this.id = id;
+		this.created = created;
+		this.serverUrl = serverUrl;
+		this.printTo = printTo;
+		this.copies = copies;
+		this.prepared = prepared;
+		this.segment = segment;
+		this.position = position;
+		this.length = length;
+	}
+
+	long getId()
+	{
+		return id;
+	}
+
+	/**
+	 * System.currentTimeMillis() when the job was submitted
+	 */
+	long getCreated()
+	{
+		return created;
+	}
+
+	String getServerUrl()
+	{
+		return serverUrl;
+	}
+
+	String getPrintTo()
+	{
+		return printTo;
+	}
+
+	int getCopies()
+	{
+		return copies;
+	}
+
+	/**
+	 * True for a prepared report, false for a template and a datasource
+	 */
+	boolean isPrepared()
+	{
+		return prepared;
+	}
+
+	PrintJournal.Segment getSegment()
+	{
+		return segment;
+	}
+
+	/**
+	 * The position of the job record in its segment
+	 */
+	long getPosition()
+	{
+		return position;
+	}
+
+	/**
+	 * The size of the job record, header included
+	 */
+	int getLength()
+	{
+		return length;
+	}
+
+	int getAttempts()
+	{
+		return attempts;
+	}
+
+	int attempted()
+	{
+		return ++attempts;
+	}
+
+	public String toString()
+	{
+		return "PrintJob[" + id + " to " + printTo + " on " + serverUrl + "]";
+	}
+}
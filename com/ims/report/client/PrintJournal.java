@@ -0,0 +1,667 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * The append-only journal of the PrintSpooler, a sequence of files named print-&lt;number&gt;.journal
+ * A job is an ADD record holding the reports, a DONE record marks it printed or dropped; every record
+ * is preceded by its length and CRC-32 so the end of a file not completely written is found and cut off
+ * The files are deleted oldest first once all their jobs are done, as the DONE records of a job are
+ * in the same file or a newer one
+ * Only the newest file can end with a record not completely written; with syncWrites the older ones were
+ * forced to disk when the next one was started, a damaged record in them fails open()
+ * The journal holds a lock on print.lock while it is open, a directory used by another client
+ * (of this JVM or another one) is not opened; print.lock also keeps the ids handed out, so they are not
+ * used again once the files of their jobs are deleted
+ */
+class PrintJournal
+{
+	private static final String PREFIX = "print-";
+	private static final String SUFFIX = ".journal";
+	private static final String LOCK = "print.lock";
+	// the directories opened in this JVM, a file lock does not keep out the other channels of the JVM
+	private static final Set<String> opened = new HashSet<String>();
+	private static final int HEADER = 8;
+	private static final byte ADD = 1;
+	private static final byte DONE = 2;
+	// the ids reserved in print.lock at a time
+	private static final long ID_BLOCK = 1024;
+
+	private final File directory;
+	private final long segmentSize;
+	private final boolean syncWrites;
+	private final LinkedList<Segment> segments = new LinkedList<Segment>();
+	private final Object syncLock = new Object();
+	private String path;
+	private FileLock lock;
+	private Segment current;
+	private long nextId = 1;
+	// the ids below it may have been handed out, by this run or a previous one
+	private long reservedId = 1;
+	// bytes appended since the journal was opened, and forced to disk
+	private long written;
+	private long synced;
+	private boolean closed;
+
+	PrintJournal(File directory, long segmentSize, boolean syncWrites)
+	{
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.syncWrites = syncWrites;
+	}
+
+	/**
+	 * Reads the journal left by a previous run and returns its jobs not done yet, oldest first
+	 * New jobs are written to a new file
+	 */
+	synchronized List<PrintJob> open() throws IOException
+	{
+		if(!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("The directory " + directory + " could not be created");
+
+		try
+		{
+			lock();
+
+			return recover();
+		}
+		catch (IOException e)
+		{
+			close();
+			throw e;
+		}
+		catch (RuntimeException e)
+		{
+			close();
+			throw e;
+		}
+	}
+
+	private List<PrintJob> recover() throws IOException
+	{
+		File[] files = directory.listFiles(new FileFilter()
+		{
+			public boolean accept(File file)
+			{
+				return file.isFile() && getNumber(file) > 0;
+			}
+		});
+
+		if(files == null)
+			throw new IOException("The directory " + directory + " could not be read");
+
+		Arrays.sort(files, new Comparator<File>()
+		{
+			public int compare(File a, File b)
+			{
+				return Long.compare(getNumber(a), getNumber(b));
+			}
+		});
+
+		TreeMap<Long, PrintJob> pending = new TreeMap<Long, PrintJob>();
+		long number = 0;
+
+		for(int i = 0; i < files.length; i++)
+		{
+			number = getNumber(files[i]);
+
+			Segment segment = new Segment(number, files[i]);
+			segments.add(segment);
+			scan(segment, pending, i == files.length - 1);
+		}
+
+		readReservedId();
+		nextId = Math.max(nextId, reservedId);
+
+		for(Iterator<PrintJob> it = pending.values().iterator(); it.hasNext();)
+		{
+			it.next().getSegment().live++;
+		}
+
+		current = new Segment(number + 1, new File(directory, PREFIX + (number + 1) + SUFFIX));
+		segments.add(current);
+		deleteDone();
+
+		if(pending.size() > 0)
+			HttpReportClient.log.info("The print journal " + directory + " holds " + pending.size() + " job(s) not printed yet");
+
+		return new ArrayList<PrintJob>(pending.values());
+	}
+
+	/**
+	 * Appends a job and, with syncWrites, returns once it is on disk
+	 *
+	 * @param second	the datasource, null for a prepared report
+	 */
+	PrintJob append(String serverUrl, String printTo, int copies, byte[] first, byte[] second) throws IOException
+	{
+		long created = System.currentTimeMillis();
+		long id;
+
+		synchronized(this)
+		{
+			checkOpen();
+
+			if(nextId >= reservedId)
+				reserveIds();
+
+			id = nextId++;
+		}
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(HEADER + 64 + first.length + (second != null ? second.length : 0));
+		DataOutputStream out = new DataOutputStream(buffer);
+
+		out.writeLong(0);
+		out.writeByte(ADD);
+		out.writeLong(id);
+		out.writeLong(created);
+		out.writeUTF(serverUrl);
+		out.writeUTF(printTo != null ? printTo : "");
+		out.writeInt(copies);
+		out.writeBoolean(second == null);
+		out.writeInt(first.length);
+		out.write(first);
+
+		if(second != null)
+		{
+			out.writeInt(second.length);
+			out.write(second);
+		}
+
+		byte[] record = buffer.toByteArray();
+		PrintJob job;
+		long end;
+
+		synchronized(this)
+		{
+			checkOpen();
+
+			long position = write(record);
+
+			job = new PrintJob(id, created, serverUrl, printTo, copies, second == null, current, position, record.length);
+			current.live++;
+			end = written;
+		}
+
+		if(syncWrites)
+			sync(end);
+
+		return job;
+	}
+
+	/**
+	 * Reads back the reports of a job: the prepared report, or the template and the datasource
+	 */
+	byte[][] read(PrintJob job) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(job.getLength());
+
+		readFully(job.getSegment().channel, buffer, job.getPosition());
+
+		DataInputStream in = parse(buffer.array(), job.getLength());
+
+		if(in == null)
+			throw new IOException("The record of the " + job + " in " + job.getSegment().file + " is corrupted");
+
+		in.readByte();
+		in.readLong();
+		in.readLong();
+		in.readUTF();
+		in.readUTF();
+		in.readInt();
+
+		boolean prepared = in.readBoolean();
+		byte[] first = readBytes(in);
+
+		if(prepared)
+			return new byte[][] { first };
+
+		return new byte[][] { first, readBytes(in) };
+	}
+
+	/**
+	 * Marks a job printed or dropped, it is not sent again after a restart
+	 * The record is not forced to disk, a job printed just before the JVM stopped may be printed again
+	 */
+	synchronized void done(PrintJob job) throws IOException
+	{
+		if(closed)
+			return;
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(HEADER + 9);
+		DataOutputStream out = new DataOutputStream(buffer);
+
+		out.writeLong(0);
+		out.writeByte(DONE);
+		out.writeLong(job.getId());
+
+		write(buffer.toByteArray());
+
+		job.getSegment().live--;
+		deleteDone();
+	}
+
+	/**
+	 * The bytes of the journal files
+	 */
+	synchronized long getSize()
+	{
+		long size = 0;
+
+		for(Iterator<Segment> it = segments.iterator(); it.hasNext();)
+		{
+			size += it.next().size;
+		}
+
+		return size;
+	}
+
+	synchronized void close()
+	{
+		if(closed)
+			return;
+
+		closed = true;
+
+		for(Iterator<Segment> it = segments.iterator(); it.hasNext();)
+		{
+			it.next().close();
+		}
+
+		unlock();
+	}
+
+	/**
+	 * Fails if another client holds the lock of the directory
+	 */
+	private void lock() throws IOException
+	{
+		File file = new File(directory, LOCK);
+		String canonical = directory.getCanonicalPath();
+
+		synchronized(opened)
+		{
+			// checked before opening the file: closing any channel of the file releases the lock of the JVM
+			if(!opened.add(canonical))
+				throw new IOException("The print journal " + directory + " is used by another client of this JVM");
+		}
+
+		path = canonical;
+
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try
+		{
+			lock = channel.tryLock();
+		}
+		finally
+		{
+			if(lock == null)
+				channel.close();
+		}
+
+		if(lock == null)
+			throw new IOException("The print journal " + directory + " is used by another process, " + file + " is locked");
+	}
+
+	/**
+	 * Reads the ids reserved by the previous runs from print.lock, empty if none was reserved yet
+	 */
+	private void readReservedId() throws IOException
+	{
+		FileChannel channel = lock.channel();
+
+		if(channel.size() < 8)
+			return;
+
+		ByteBuffer buffer = ByteBuffer.allocate(8);
+
+		readFully(channel, buffer, 0);
+		reservedId = Math.max(reservedId, buffer.getLong(0));
+	}
+
+	/**
+	 * Reserves the next block of ids in print.lock, before the first of them is handed out
+	 */
+	private void reserveIds() throws IOException
+	{
+		FileChannel channel = lock.channel();
+		ByteBuffer buffer = ByteBuffer.allocate(8);
+
+		buffer.putLong(0, nextId + ID_BLOCK);
+
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer, buffer.position());
+		}
+
+		channel.force(false);
+		reservedId = nextId + ID_BLOCK;
+	}
+
+	private void unlock()
+	{
+		if(lock != null)
+		{
+			try
+			{
+				// closing the channel releases the lock, the file is kept: deleting it would let two clients lock different files
+				lock.channel().close();
+			}
+			catch (IOException e)
+			{
+				HttpReportClient.log.warn("The print journal lock " + new File(directory, LOCK) + " could not be released: " + e);
+			}
+
+			lock = null;
+		}
+
+		if(path != null)
+		{
+			synchronized(opened)
+			{
+				opened.remove(path);
+			}
+
+			path = null;
+		}
+	}
+
+	/**
+	 * Writes a record at the end of the current file, starting a new one when it is full
+	 *
+	 * @return the position of the record
+	 */
+	private long write(byte[] record) throws IOException
+	{
+		int length = record.length - HEADER;
+		CRC32 crc = new CRC32();
+
+		crc.update(record, HEADER, length);
+
+		ByteBuffer buffer = ByteBuffer.wrap(record);
+
+		buffer.putInt(0, length);
+		buffer.putInt(4, (int)crc.getValue());
+
+		if(current.size > 0 && current.size + record.length > segmentSize)
+			roll();
+
+		long position = current.size;
+		FileChannel channel = current.open();
+
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer, position + buffer.position());
+		}
+
+		current.size += record.length;
+		written += record.length;
+
+		return position;
+	}
+
+	private void roll() throws IOException
+	{
+		// the records waiting for a sync are in the current file
+		if(syncWrites && current.channel != null)
+			current.channel.force(false);
+
+		synced = written;
+		current = new Segment(current.number + 1, new File(directory, PREFIX + (current.number + 1) + SUFFIX));
+		segments.add(current);
+		deleteDone();
+	}
+
+	/**
+	 * Forces the journal to disk up to the given number of bytes written
+	 * The threads appending at the same time share one force
+	 */
+	private void sync(long end) throws IOException
+	{
+		synchronized(syncLock)
+		{
+			FileChannel channel;
+			long target;
+
+			synchronized(this)
+			{
+				if(synced >= end)
+					return;
+
+				checkOpen();
+				channel = current.channel;
+				target = written;
+			}
+
+			try
+			{
+				channel.force(false);
+			}
+			catch (ClosedChannelException e)
+			{
+				// the file was completed and forced by roll()
+			}
+
+			synchronized(this)
+			{
+				synced = Math.max(synced, target);
+			}
+		}
+	}
+
+	private void deleteDone()
+	{
+		while(segments.size() > 1 && segments.getFirst() != current && segments.getFirst().live == 0)
+		{
+			Segment segment = segments.removeFirst();
+
+			segment.close();
+
+			if(!segment.file.delete() && segment.file.exists())
+				HttpReportClient.log.warn("The print journal file " + segment.file + " could not be deleted");
+		}
+	}
+
+	/**
+	 * @param last	true for the newest file, the only one the previous run may have left half written
+	 */
+	private void scan(Segment segment, TreeMap<Long, PrintJob> pending, boolean last) throws IOException
+	{
+		FileChannel channel = segment.open();
+		long size = channel.size();
+		long position = 0;
+		ByteBuffer header = ByteBuffer.allocate(HEADER);
+
+		while(position + HEADER <= size)
+		{
+			header.clear();
+			readFully(channel, header, position);
+
+			int length = header.getInt(0);
+
+			if(length <= 0 || position + HEADER + length > size)
+				break;
+
+			ByteBuffer record = ByteBuffer.allocate(HEADER + length);
+			readFully(channel, record, position);
+
+			DataInputStream in = parse(record.array(), record.capacity());
+
+			if(in == null)
+				break;
+
+			byte type = in.readByte();
+			long id = in.readLong();
+
+			nextId = Math.max(nextId, id + 1);
+
+			if(type == ADD)
+			{
+				long created = in.readLong();
+				String serverUrl = in.readUTF();
+				String printTo = in.readUTF();
+				int copies = in.readInt();
+				boolean prepared = in.readBoolean();
+
+				pending.put(id, new PrintJob(id, created, serverUrl, printTo, copies, prepared, segment, position, HEADER + length));
+			}
+			else if(type == DONE)
+			{
+				pending.remove(id);
+			}
+
+			position += HEADER + length;
+		}
+
+		if(position < size && last)
+		{
+			HttpReportClient.log.warn("The print journal file " + segment.file + " was not completely written, " + (size - position) + " byte(s) cut off");
+			channel.truncate(position);
+		}
+		else if(position < size && syncWrites)
+		{
+			throw new IOException("The print journal file " + segment.file + " is corrupted at " + position
+				+ ", its jobs and the ones marked done in it are unknown; move it out of " + directory + " to open the journal without them");
+		}
+		else if(position < size)
+		{
+			// not forced to disk before the next file was started, the machine may have stopped before the end of it was written
+			HttpReportClient.log.error("The print journal file " + segment.file + " was not completely written, the records after "
+				+ position + " are lost");
+		}
+
+		segment.size = position;
+	}
+
+	/**
+	 * Checks the CRC of a record and returns its payload, null if it is corrupted
+	 */
+	private static DataInputStream parse(byte[] record, int length)
+	{
+		ByteBuffer buffer = ByteBuffer.wrap(record, 0, length);
+
+		if(length < HEADER || buffer.getInt(0) != length - HEADER)
+			return null;
+
+		CRC32 crc = new CRC32();
+		crc.update(record, HEADER, length - HEADER);
+
+		if(buffer.getInt(4) != (int)crc.getValue())
+			return null;
+
+		return new DataInputStream(new ByteArrayInputStream(record, HEADER, length - HEADER));
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException
+	{
+		byte[] bytes = new byte[in.readInt()];
+
+		in.readFully(bytes);
+
+		return bytes;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+	{
+		while(buffer.hasRemaining())
+		{
+			if(channel.read(buffer, position + buffer.position()) < 0)
+				throw new EOFException("Unexpected end of the print journal at " + (position + buffer.position()));
+		}
+	}
+
+	private static long getNumber(File file)
+	{
+		String name = file.getName();
+
+		if(!name.startsWith(PREFIX) || !name.endsWith(SUFFIX))
+			return -1;
+
+		try
+		{
+			return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+		}
+		catch (NumberFormatException e)
+		{
+			return -1;
+		}
+	}
+
+	private void checkOpen() throws IOException
+	{
+		if(closed)
+			throw new IOException("The print journal " + directory + " is closed");
+	}
+
+	/**
+	 * One file of the journal
+	 */
+	static class Segment
+	{
+		private final long number;
+		private final File file;
+		private FileChannel channel;
+		private long size;
+		// the jobs of the file not done yet
+		private int live;
+
+		Segment(long number, File file)
+		{
+			this.number = number;
+			this.file = file;
+		}
+
+		/**
+		 * The file is created at its first record
+		 */
+		FileChannel open() throws IOException
+		{
+			if(channel == null)
+				channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+			return channel;
+		}
+
+		void close()
+		{
+			if(channel == null)
+				return;
+
+			try
+			{
+				channel.close();
+			}
+			catch (IOException e)
+			{
+				HttpReportClient.log.warn("The print journal file " + file + " could not be closed: " + e);
+			}
+		}
+	}
+}
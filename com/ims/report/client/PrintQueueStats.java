@@ -0,0 +1,106 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * A snapshot of the jobs of one printer of the PrintSpooler
+ */
+public class PrintQueueStats
+{
+	private String serverUrl;
+	private String printer;
+	private int queued;
+	private long oldestJobAge;
+	private long printed;
+	private long printedLastMinute;
+	private long failed;
+	private long retries;
+	private LatencySnapshot delay;
+
+	PrintQueueStats(String serverUrl, String printer, int queued, long oldestJobAge, long printed, long printedLastMinute, long failed, long retries, LatencySnapshot delay)
+	{
+		this.serverUrl = serverUrl;
+		this.printer = printer;
+		this.queued = queued;
+		this.oldestJobAge = oldestJobAge;
+		this.printed = printed;
+		this.printedLastMinute = printedLastMinute;
+		this.failed = failed;
+		this.retries = retries;
+		this.delay = delay;
+	}
+
+	public String getServerUrl()
+	{
+		return serverUrl;
+	}
+
+	public String getPrinter()
+	{
+		return printer;
+	}
+
+	/**
+	 * Jobs not printed yet, the one being sent included
+	 */
+	public int getQueued()
+	{
+		return queued;
+	}
+
+	/**
+	 * Milliseconds since the oldest job not printed yet was submitted, 0 if there is none
+	 */
+	public long getOldestJobAge()
+	{
+		return oldestJobAge;
+	}
+
+	/**
+	 * Jobs printed since the client was created
+	 */
+	public long getPrinted()
+	{
+		return printed;
+	}
+
+	/**
+	 * Jobs printed during the last minute
+	 */
+	public long getPrintedLastMinute()
+	{
+		return printedLastMinute;
+	}
+
+	/**
+	 * Jobs dropped, refused by the server or out of attempts or time
+	 */
+	public long getFailed()
+	{
+		return failed;
+	}
+
+	/**
+	 * Attempts that failed and were made again
+	 */
+	public long getRetries()
+	{
+		return retries;
+	}
+
+	/**
+	 * The time from the submission of a job to its printing
+	 */
+	public LatencySnapshot getDelay()
+	{
+		return delay;
+	}
+
+	public String toString()
+	{
+		return serverUrl + " " + printer + " [queued: " + queued + "; oldest: " + oldestJobAge + " ms; printed: " + printed + "; last minute: " + printedLastMinute
+			+ "; failed: " + failed + "; retries: " + retries + "; delay: " + delay + "]";
+	}
+}
@@ -0,0 +1,484 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.httpclient.HttpStatus;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * A print queue in front of HttpReportClient.printReport(), see HttpReportClientConfig.printSpooler()
+ * A job is written to the journal and acknowledged straight away, then sent by the spooler threads:
+ * the jobs of one printer one after the other in the order they were submitted, different printers in parallel
+ * A job whose call failed is sent again after a backoff, one refused or failed by the server (4xx, 500) or
+ * out of attempts or time is dropped and logged; the jobs not printed when the JVM stops are sent at the next start
+ * A job is printed at least once: one sent again after a read timeout, or printed just before the JVM
+ * stopped, may be printed twice
+ * The calls are made with the BATCH priority
+ *
+ * <pre>
+ * long jobId = client.getPrintSpooler().printReport(serverUrl, template, datasource, "Ward 3", 1);
+ * </pre>
+ */
+public class PrintSpooler
+{
+	private static final long MINUTE = 1000 * 60;
+
+	private final HttpReportClient client;
+	private final PrintSpoolerPolicy policy;
+	private final PrintJournal journal;
+	private final ThreadPoolExecutor executor;
+	private final ConcurrentHashMap<String, PrintQueue> queues = new ConcurrentHashMap<String, PrintQueue>();
+	private int pending;
+	private volatile boolean closed;
+
+	PrintSpooler(HttpReportClient client, PrintSpoolerPolicy policy) throws IOException
+	{
+		this.client = client;
+		this.policy = policy;
+
+		journal = new PrintJournal(policy.getJournalDirectory(), policy.getSegmentSize(), policy.isSyncWrites());
+
+		List<PrintJob> jobs = journal.open();
+
+		executor = new ThreadPoolExecutor(policy.getThreads(), policy.getThreads(), 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+			new ReportExecutors.DaemonThreadFactory("HttpReportClient-spooler-"));
+		executor.allowCoreThreadTimeOut(true);
+
+		for(int i = 0; i < jobs.size(); i++)
+		{
+			enqueue(jobs.get(i));
+		}
+	}
+
+	/**
+	 * Queues the printing of a report, same parameters as HttpReportClient.printReport()
+	 *
+	 * @return the id of the job
+	 * @throws HttpReportClientException	if the job could not be written to the journal
+	 */
+	public long printReport(String serverUrl, byte[] reportTemplate, byte[] dataSource, String printTo, int nCopies) throws HttpReportClientException
+	{
+		if(reportTemplate == null || dataSource == null)
+			throw new IllegalArgumentException("reportTemplate and dataSource must not be null");
+
+		return submit(serverUrl, printTo, nCopies, reportTemplate, dataSource);
+	}
+
+	/**
+	 * Queues the printing of a prepared report, same parameters as HttpReportClient.printReport()
+	 *
+	 * @return the id of the job
+	 * @throws HttpReportClientException	if the job could not be written to the journal
+	 */
+	public long printReport(String serverUrl, byte[] preparedReport, String printTo, int nCopies) throws HttpReportClientException
+	{
+		if(preparedReport == null)
+			throw new IllegalArgumentException("preparedReport must not be null");
+
+		return submit(serverUrl, printTo, nCopies, preparedReport, null);
+	}
+
+	/**
+	 * The jobs not printed yet
+	 */
+	public synchronized int getPending()
+	{
+		return pending;
+	}
+
+	/**
+	 * Waits until every job is printed or dropped
+	 *
+	 * @return false if jobs are still pending after timeout milliseconds
+	 */
+	public synchronized boolean awaitEmpty(long timeout) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + timeout;
+
+		while(pending > 0)
+		{
+			long wait = deadline - System.currentTimeMillis();
+
+			if(wait <= 0)
+				return false;
+
+			wait(wait);
+		}
+
+		return true;
+	}
+
+	/**
+	 * The bytes of the journal files
+	 */
+	public long getJournalSize()
+	{
+		return journal.getSize();
+	}
+
+	/**
+	 * One entry per printer a job was submitted to
+	 */
+	public List<PrintQueueStats> getStats()
+	{
+		List<PrintQueueStats> stats = new ArrayList<PrintQueueStats>();
+
+		for(Iterator<PrintQueue> it = queues.values().iterator(); it.hasNext();)
+		{
+			stats.add(it.next().getStats());
+		}
+
+		return stats;
+	}
+
+	/**
+	 * Stops sending the jobs, the ones not printed stay in the journal
+	 */
+	void shutdown()
+	{
+		closed = true;
+		executor.shutdownNow();
+		journal.close();
+	}
+
+	private long submit(String serverUrl, String printTo, int nCopies, byte[] first, byte[] second) throws HttpReportClientException
+	{
+		if(serverUrl == null)
+			throw new IllegalArgumentException("serverUrl must not be null");
+
+		if(closed)
+			throw new HttpReportClientException("The print spooler is shut down");
+
+		PrintJob job;
+
+		try
+		{
+			job = journal.append(serverUrl, printTo, nCopies, first, second);
+		}
+		catch (IOException e)
+		{
+			throw new HttpReportClientException("The print job could not be written to the journal: " + e.toString(), e);
+		}
+
+        if(HttpReportClient.log.isDebugEnabled())
+        {
+        	HttpReportClient.log.debug("The " + job + " was queued");
+        }
+
+		enqueue(job);
+
+		return job.getId();
+	}
+
+	private void enqueue(PrintJob job)
+	{
+		String key = job.getServerUrl() + " " + job.getPrintTo();
+		PrintQueue queue = queues.get(key);
+
+		if(queue == null)
+		{
+			PrintQueue created = new PrintQueue(job.getServerUrl(), job.getPrintTo());
+
+			queue = queues.putIfAbsent(key, created);
+			if(queue == null)
+				queue = created;
+		}
+
+		synchronized(this)
+		{
+			pending++;
+		}
+
+		if(queue.add(job))
+			dispatch(queue, 0);
+	}
+
+	/**
+	 * Sends the next job of the printer on a spooler thread, after delay milliseconds
+	 */
+	private void dispatch(final PrintQueue queue, long delay)
+	{
+		if(closed)
+			return;
+
+		try
+		{
+			if(delay > 0)
+			{
+				ReportExecutors.getScheduler().schedule(new Runnable()
+				{
+					public void run()
+					{
+						dispatch(queue, 0);
+					}
+				}, delay, TimeUnit.MILLISECONDS);
+			}
+			else
+			{
+				executor.execute(new Runnable()
+				{
+					public void run()
+					{
+						send(queue);
+					}
+				});
+			}
+		}
+		catch (RejectedExecutionException e)
+		{
+			if(!closed)
+				HttpReportClient.log.error("The print jobs of " + queue.printer + " could not be scheduled: " + e);
+		}
+	}
+
+	private void send(PrintQueue queue)
+	{
+		PrintJob job = queue.next();
+
+		if(job == null || closed)
+			return;
+
+		if(policy.getMaxJobAge() > 0 && System.currentTimeMillis() - job.getCreated() > policy.getMaxJobAge())
+		{
+			drop(queue, job, "it was not printed in " + policy.getMaxJobAge() + " ms");
+			return;
+		}
+
+		int attempt = job.attempted();
+
+		try
+		{
+			byte[][] reports = journal.read(job);
+			ReportPriority previous = ReportPriority.setCurrent(ReportPriority.BATCH);
+
+			try
+			{
+				if(job.isPrepared())
+					client.printReport(job.getServerUrl(), reports[0], job.getPrintTo(), job.getCopies());
+				else
+					client.printReport(job.getServerUrl(), reports[0], reports[1], job.getPrintTo(), job.getCopies());
+			}
+			finally
+			{
+				ReportPriority.setCurrent(previous);
+			}
+		}
+		catch (IOException e)
+		{
+			if(!closed)
+				drop(queue, job, "its record could not be read: " + e);
+
+			return;
+		}
+		catch (HttpReportClientException e)
+		{
+			if(!closed)
+				failed(queue, job, attempt, e);
+
+			return;
+		}
+		catch (RuntimeException e)
+		{
+			// the client was shut down during the call, the job stays in the journal
+			if(closed)
+				return;
+
+			// left uncaught the queue would stay active and its next jobs never be sent
+			HttpReportClient.log.error("The " + job + " failed: " + e, e);
+			failed(queue, job, attempt, new HttpReportClientException(e));
+			return;
+		}
+
+		done(job);
+		queue.printed(job);
+
+        if(HttpReportClient.log.isDebugEnabled())
+        {
+        	HttpReportClient.log.debug("The " + job + " was printed");
+        }
+
+		finished(queue);
+	}
+
+	/**
+	 * Sends the job again after a backoff or drops it
+	 */
+	private void failed(PrintQueue queue, PrintJob job, int attempt, HttpReportClientException e)
+	{
+		if(!isRetryable(e) || (policy.getMaxAttempts() > 0 && attempt >= policy.getMaxAttempts()))
+		{
+			drop(queue, job, e.getMessage());
+			return;
+		}
+
+		long backoff = getBackoff(attempt);
+
+		HttpReportClient.log.warn("The " + job + " failed (attempt " + attempt + "), sent again in " + backoff + " ms: " + e.getMessage());
+
+		queue.retried();
+		dispatch(queue, backoff);
+	}
+
+	private void drop(PrintQueue queue, PrintJob job, String reason)
+	{
+		HttpReportClient.log.error("The " + job + " was dropped after " + job.getAttempts() + " attempt(s): " + reason);
+
+		done(job);
+		queue.failed(job);
+		finished(queue);
+	}
+
+	private void done(PrintJob job)
+	{
+		try
+		{
+			journal.done(job);
+		}
+		catch (IOException e)
+		{
+			HttpReportClient.log.error("The " + job + " could not be marked done in the journal, it may be printed again after a restart: " + e);
+		}
+	}
+
+	/**
+	 * Moves on to the next job of the printer
+	 */
+	private void finished(PrintQueue queue)
+	{
+		synchronized(this)
+		{
+			pending--;
+			notifyAll();
+		}
+
+		dispatch(queue, 0);
+	}
+
+	/**
+	 * A job refused or failed by the server (a 4xx or 500) is dropped, the report would fail again and
+	 * hold up the printer; the failures of the connection and of a busy or unreachable server are temporary
+	 */
+	private static boolean isRetryable(HttpReportClientException e)
+	{
+		int status = e.getStatusCode();
+
+		if(status < 400)
+			return true;
+
+		return status == HttpStatus.SC_REQUEST_TIMEOUT || status == 429 || status == HttpStatus.SC_BAD_GATEWAY
+			|| status == HttpStatus.SC_SERVICE_UNAVAILABLE || status == HttpStatus.SC_GATEWAY_TIMEOUT;
+	}
+
+	private long getBackoff(int attempt)
+	{
+		double backoff = policy.getInitialBackoff() * Math.pow(2, attempt - 1);
+
+		return (long)Math.min(backoff, policy.getMaxBackoff());
+	}
+
+	/**
+	 * The jobs of one printer, one of them is sent at a time
+	 */
+	private static class PrintQueue
+	{
+		private final String serverUrl;
+		private final String printer;
+		private final LinkedList<PrintJob> jobs = new LinkedList<PrintJob>();
+		// the printing times of the last minute
+		private final LinkedList<Long> recent = new LinkedList<Long>();
+		private final LatencyHistogram delay = new LatencyHistogram();
+		// a job of the queue is being sent or waits for its backoff
+		private boolean active;
+		private long printed;
+		private long failed;
+		private long retries;
+
+		PrintQueue(String serverUrl, String printer)
+		{
+			this.serverUrl = serverUrl;
+			this.printer = printer;
+		}
+
+		/**
+		 * Returns true if the queue was idle and must be dispatched
+		 */
+		synchronized boolean add(PrintJob job)
+		{
+			jobs.add(job);
+
+			if(active)
+				return false;
+
+			active = true;
+			return true;
+		}
+
+		/**
+		 * The job to send, null once the queue is empty
+		 */
+		synchronized PrintJob next()
+		{
+			if(jobs.isEmpty())
+			{
+				active = false;
+				return null;
+			}
+
+			return jobs.getFirst();
+		}
+
+		synchronized void printed(PrintJob job)
+		{
+			long now = System.currentTimeMillis();
+
+			jobs.remove(job);
+			printed++;
+			recent.add(Long.valueOf(now));
+			prune(now);
+			delay.recordNanos((now - job.getCreated()) * 1000000L);
+		}
+
+		synchronized void failed(PrintJob job)
+		{
+			jobs.remove(job);
+			failed++;
+		}
+
+		synchronized void retried()
+		{
+			retries++;
+		}
+
+		synchronized PrintQueueStats getStats()
+		{
+			long now = System.currentTimeMillis();
+			long oldest = jobs.isEmpty() ? 0 : now - jobs.getFirst().getCreated();
+
+			prune(now);
+
+			return new PrintQueueStats(serverUrl, printer, jobs.size(), oldest, printed, recent.size(), failed, retries, delay.getSnapshot());
+		}
+
+		private void prune(long now)
+		{
+			while(!recent.isEmpty() && now - recent.getFirst().longValue() > MINUTE)
+			{
+				recent.removeFirst();
+			}
+		}
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.File;
+
+/**
+ * How the print jobs of HttpReportClient.getPrintSpooler() are kept and sent
+ * The jobs are appended to a journal in journalDirectory before being acknowledged, they are sent by
+ * the spooler threads and survive a restart of the JVM; a job whose call failed is sent again after
+ * a backoff, the next jobs of the same printer waiting for it
+ */
+public class PrintSpoolerPolicy
+{
+	/**
+	 * No spooler (the default)
+	 */
+	public static final PrintSpoolerPolicy NONE = builder().build();
+
+	private final File journalDirectory;
+	private final int threads;
+	private final boolean syncWrites;
+	private final long segmentSize;
+	private final long initialBackoff;
+	private final long maxBackoff;
+	private final int maxAttempts;
+	private final long maxJobAge;
+
+	private PrintSpoolerPolicy(Builder builder)
+	{
+		journalDirectory = builder.journalDirectory;
+		threads = builder.threads;
+		syncWrites = builder.syncWrites;
+		segmentSize = builder.segmentSize;
+		initialBackoff = builder.initialBackoff;
+		maxBackoff = builder.maxBackoff;
+		maxAttempts = builder.maxAttempts;
+		maxJobAge = builder.maxJobAge;
+	}
+
+	public static Builder builder()
+	{
+		return new Builder();
+	}
+
+	public File getJournalDirectory()
+	{
+		return journalDirectory;
+	}
+
+	public int getThreads()
+	{
+		return threads;
+	}
+
+	public boolean isSyncWrites()
+	{
+		return syncWrites;
+	}
+
+	public long getSegmentSize()
+	{
+		return segmentSize;
+	}
+
+	public long getInitialBackoff()
+	{
+		return initialBackoff;
+	}
+
+	public long getMaxBackoff()
+	{
+		return maxBackoff;
+	}
+
+	public int getMaxAttempts()
+	{
+		return maxAttempts;
+	}
+
+	public long getMaxJobAge()
+	{
+		return maxJobAge;
+	}
+
+	public boolean isEnabled()
+	{
+		return journalDirectory != null;
+	}
+
+	public String toString()
+	{
+		return "PrintSpoolerPolicy[journal: " + journalDirectory + "; threads: " + threads + "; sync: " + syncWrites + "; segment: " + segmentSize
+			+ " bytes; backoff: " + initialBackoff + "-" + maxBackoff + " ms; attempts: " + maxAttempts + "; max age: " + maxJobAge + " ms]";
+	}
+
+	public static class Builder
+	{
+		private File journalDirectory;
+		private int threads = 4;
+		private boolean syncWrites = true;
+		private long segmentSize = 16 * 1024 * 1024;
+		private long initialBackoff = 1000;
+		private long maxBackoff = 1000 * 60 * 5;
+		private int maxAttempts = 20;
+		private long maxJobAge = 1000 * 60 * 60 * 24;
+
+		private Builder()
+		{
+		}
+
+		/**
+		 * The directory of the journal, created if missing; null disables the spooler (default)
+		 * A directory is used by one client at a time, a client given a directory in use fails to start
+		 */
+		public Builder journalDirectory(File value)
+		{
+			journalDirectory = value;
+			return this;
+		}
+
+		/**
+		 * Jobs sent at the same time, to different printers (default 4)
+		 */
+		public Builder threads(int value)
+		{
+			threads = value;
+			return this;
+		}
+
+		/**
+		 * Forces every job to disk before it is acknowledged (default true)
+		 * The jobs submitted at the same time share one force, false leaves it to the operating system
+		 */
+		public Builder syncWrites(boolean value)
+		{
+			syncWrites = value;
+			return this;
+		}
+
+		/**
+		 * Bytes after which the journal continues in a new file (default 16 MB)
+		 * A file is deleted once all its jobs are done
+		 */
+		public Builder segmentSize(long value)
+		{
+			segmentSize = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds before the first new attempt of a failed job (default 1 second), doubled after every failure
+		 */
+		public Builder initialBackoff(long value)
+		{
+			initialBackoff = value;
+			return this;
+		}
+
+		/**
+		 * Maximum milliseconds between two attempts of a job (default 5 minutes)
+		 */
+		public Builder maxBackoff(long value)
+		{
+			maxBackoff = value;
+			return this;
+		}
+
+		/**
+		 * Attempts after which a job is dropped, 0 for no limit (default 20, about an hour with the default backoffs)
+		 * The next jobs of the printer wait while a job is sent again
+		 */
+		public Builder maxAttempts(int value)
+		{
+			maxAttempts = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds after its submission a job not printed yet is dropped, 0 for no limit (default 24 hours)
+		 */
+		public Builder maxJobAge(long value)
+		{
+			maxJobAge = value;
+			return this;
+		}
+
+		public PrintSpoolerPolicy build()
+		{
+			if(threads <= 0)
+				throw new IllegalArgumentException("threads must be greater than 0");
+			if(segmentSize <= 0)
+				throw new IllegalArgumentException("segmentSize must be greater than 0");
+			if(initialBackoff < 0 || maxBackoff < initialBackoff)
+				throw new IllegalArgumentException("The backoffs must not be negative and maxBackoff must not be less than initialBackoff");
+			if(maxAttempts < 0 || maxJobAge < 0)
+				throw new IllegalArgumentException("maxAttempts and maxJobAge must not be negative");
+
+			return new PrintSpoolerPolicy(this);
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * The queues of the priority classes in front of the connection pool, see SchedulingPolicy
+ * The waiting classes are served by stride scheduling: every class has a pass advanced by 1 / weight
+ * each time one of its calls gets a slot, the class with the lowest pass goes next
+ */
+class PriorityScheduler
+{
+	private final SchedulingPolicy policy;
+	private final int capacity;
+	private final ConcurrentHashMap<String, ServerQueue> servers = new ConcurrentHashMap<String, ServerQueue>();
+
+	PriorityScheduler(SchedulingPolicy policy, int maxConnectionsPerHost)
+	{
+		this.policy = policy;
+
+		capacity = policy.getMaxConcurrentPerServer() > 0 ? policy.getMaxConcurrentPerServer() : maxConnectionsPerHost;
+	}
+
+	/**
+	 * Waits for a slot of the server, the slot must be given back with release()
+	 */
+	void acquire(ReportRequest request, String serverUrl, ReportCall call) throws HttpReportClientException
+	{
+		getQueue(serverUrl).acquire(request, call);
+	}
+
+	void release(ReportRequest request, String serverUrl)
+	{
+		getQueue(serverUrl).release(request.getPriority());
+	}
+
+	List<SchedulerStats> getStats()
+	{
+		List<SchedulerStats> stats = new ArrayList<SchedulerStats>();
+
+		for(Iterator<Map.Entry<String, ServerQueue>> it = servers.entrySet().iterator(); it.hasNext();)
+		{
+			Map.Entry<String, ServerQueue> entry = it.next();
+
+			entry.getValue().getStats(entry.getKey(), stats);
+		}
+
+		return stats;
+	}
+
+	private ServerQueue getQueue(String serverUrl)
+	{
+		ServerQueue queue = servers.get(serverUrl);
+
+		if(queue == null)
+		{
+			ServerQueue created = new ServerQueue();
+
+			queue = servers.putIfAbsent(serverUrl, created);
+			if(queue == null)
+				queue = created;
+		}
+
+		return queue;
+	}
+
+	private class ServerQueue
+	{
+		private final ReportPriority[] priorities = ReportPriority.values();
+		private final int[] running = new int[priorities.length];
+		private final long[] scheduled = new long[priorities.length];
+		private final double[] pass = new double[priorities.length];
+		private final LatencyHistogram[] waits = new LatencyHistogram[priorities.length];
+		private final List<LinkedList<Waiter>> queues = new ArrayList<LinkedList<Waiter>>(priorities.length);
+		private int total;
+		private double virtualTime;
+
+		ServerQueue()
+		{
+			for(int i = 0; i < priorities.length; i++)
+			{
+				waits[i] = new LatencyHistogram();
+				queues.add(new LinkedList<Waiter>());
+			}
+		}
+
+		void acquire(ReportRequest request, ReportCall call) throws HttpReportClientException
+		{
+			int index = request.getPriority().getIndex();
+			LinkedList<Waiter> queue = queues.get(index);
+			Waiter waiter;
+
+			synchronized(this)
+			{
+				// a call waiting in its class goes first
+				if(queue.isEmpty() && hasSlot(index))
+				{
+					start(index);
+					waits[index].recordNanos(0);
+					return;
+				}
+
+				// a class becoming active starts at the current virtual time, it gets no credit for having been idle
+				if(queue.isEmpty())
+					pass[index] = Math.max(pass[index], virtualTime);
+
+				waiter = new Waiter();
+				queue.add(waiter);
+			}
+
+			if(call != null)
+			{
+				call.addAbortListener(new Runnable()
+				{
+					public void run()
+					{
+						synchronized(ServerQueue.this)
+						{
+							ServerQueue.this.notifyAll();
+						}
+					}
+				});
+			}
+
+			long queued = System.nanoTime();
+
+			synchronized(this)
+			{
+				try
+				{
+					while(!waiter.granted)
+					{
+						if(call != null && call.isAborted())
+							throw new HttpReportClientException("The HttpReportClient." + request.getFunction() + "() call was cancelled");
+
+						wait();
+					}
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+
+					if(!waiter.granted)
+					{
+						queue.remove(waiter);
+						throw new HttpReportClientException("The HttpReportClient." + request.getFunction() + "() call was interrupted", e);
+					}
+				}
+				catch (HttpReportClientException e)
+				{
+					queue.remove(waiter);
+					throw e;
+				}
+
+				waits[index].recordNanos(System.nanoTime() - queued);
+			}
+		}
+
+		synchronized void release(ReportPriority priority)
+		{
+			running[priority.getIndex()]--;
+			total--;
+
+			dispatch();
+		}
+
+		synchronized void getStats(String serverUrl, List<SchedulerStats> stats)
+		{
+			for(int i = 0; i < priorities.length; i++)
+			{
+				stats.add(new SchedulerStats(serverUrl, priorities[i], running[i], queues.get(i).size(), scheduled[i], waits[i].getSnapshot()));
+			}
+		}
+
+		/**
+		 * Gives the free slots to the waiting calls, the eligible class with the lowest pass first
+		 */
+		private void dispatch()
+		{
+			boolean granted = false;
+
+			for(;;)
+			{
+				int next = -1;
+
+				for(int i = 0; i < priorities.length; i++)
+				{
+					if(!queues.get(i).isEmpty() && hasSlot(i) && (next < 0 || pass[i] < pass[next]))
+						next = i;
+				}
+
+				if(next < 0)
+					break;
+
+				Waiter waiter = queues.get(next).removeFirst();
+
+				virtualTime = pass[next];
+				pass[next] += 1.0 / policy.getWeight(priorities[next]);
+
+				start(next);
+				waiter.granted = true;
+				granted = true;
+			}
+
+			if(granted)
+				notifyAll();
+		}
+
+		private boolean hasSlot(int index)
+		{
+			// with a small pool the batch calls still get one slot
+			int limit = priorities[index] == ReportPriority.INTERACTIVE ? capacity : Math.max(1, capacity - policy.getReservedForInteractive());
+
+			return total < limit;
+		}
+
+		private void start(int index)
+		{
+			running[index]++;
+			scheduled[index]++;
+			total++;
+		}
+	}
+
+	private static class Waiter
+	{
+		boolean granted;
+	}
+}
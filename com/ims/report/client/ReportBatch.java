@@ -0,0 +1,96 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The jobs of HttpReportClient.submitBatch(): reports to build or convert, nothing is printed
+ * Each method returns the position of the job, which is also the position of its future
+ *
+ * <pre>
+ * ReportBatch batch = new ReportBatch();
+ * for(...)
+ * 	batch.buildReport(template, datasource, ExportType.PDF);
+ *
+ * List&lt;CompletableFuture&lt;byte[]&gt;&gt; reports = client.submitBatch(serverUrl, batch);
+ * </pre>
+ */
+public class ReportBatch
+{
+	private final List<Job> jobs = new ArrayList<Job>();
+
+	/**
+	 * Adds a buildReport() job
+	 */
+	public int buildReport(byte[] reportTemplate, byte[] dataSource, ExportType exportType)
+	{
+		if(reportTemplate == null || dataSource == null || exportType == null)
+			throw new IllegalArgumentException("reportTemplate, dataSource and exportType must not be null");
+
+		return add(new Job(ReportOperation.BUILD_REPORT, reportTemplate, dataSource, exportType));
+	}
+
+	/**
+	 * Adds a convertReport() job
+	 */
+	public int convertReport(byte[] preparedReport, ExportType exportType)
+	{
+		if(preparedReport == null || exportType == null)
+			throw new IllegalArgumentException("preparedReport and exportType must not be null");
+
+		return add(new Job(ReportOperation.CONVERT_REPORT, preparedReport, null, exportType));
+	}
+
+	/**
+	 * Adds a convertOfficeDocument() job
+	 */
+	public int convertOfficeDocument(byte[] officeDocument, ExportType exportType)
+	{
+		if(officeDocument == null || exportType == null)
+			throw new IllegalArgumentException("officeDocument and exportType must not be null");
+
+		return add(new Job(ReportOperation.CONVERT_OFFICE_DOCUMENT, officeDocument, null, exportType));
+	}
+
+	public int size()
+	{
+		return jobs.size();
+	}
+
+	List<Job> getJobs()
+	{
+		return jobs;
+	}
+
+	private int add(Job job)
+	{
+		jobs.add(job);
+
+		return jobs.size() - 1;
+	}
+
+	public String toString()
+	{
+		return "ReportBatch[" + jobs.size() + " jobs]";
+	}
+
+	static class Job
+	{
+		final ReportOperation operation;
+		final byte[] first;
+		final byte[] second;
+		final ExportType exportType;
+
+		Job(ReportOperation operation, byte[] first, byte[] second, ExportType exportType)
+		{
+			this.operation = operation;
+			this.first = first;
+			this.second = second;
+			this.exportType = exportType;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * A snapshot of the ReportResultCache counters
+ */
+public class ReportCacheStats
+{
+	private long memoryHits;
+	private long diskHits;
+	private long misses;
+	private long evictions;
+	private long expirations;
+	private int memoryEntries;
+	private long memoryBytes;
+	private int diskEntries;
+	private long diskBytes;
+
+	ReportCacheStats(long memoryHits, long diskHits, long misses, long evictions, long expirations, int memoryEntries, long memoryBytes, int diskEntries, long diskBytes)
+	{
+		this.memoryHits = memoryHits;
+		this.diskHits = diskHits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.expirations = expirations;
+		this.memoryEntries = memoryEntries;
+		this.memoryBytes = memoryBytes;
+		this.diskEntries = diskEntries;
+		this.diskBytes = diskBytes;
+	}
+
+	public long getHits()
+	{
+		return memoryHits + diskHits;
+	}
+
+	public long getMemoryHits()
+	{
+		return memoryHits;
+	}
+
+	public long getDiskHits()
+	{
+		return diskHits;
+	}
+
+	public long getMisses()
+	{
+		return misses;
+	}
+
+	/**
+	 * Hits divided by lookups, 0 when nothing was looked up yet
+	 */
+	public double getHitRatio()
+	{
+		long lookups = getHits() + misses;
+
+		return lookups == 0 ? 0 : (double)getHits() / lookups;
+	}
+
+	/**
+	 * Entries dropped to make room (spilling from memory to disk is not counted)
+	 */
+	public long getEvictions()
+	{
+		return evictions;
+	}
+
+	public long getExpirations()
+	{
+		return expirations;
+	}
+
+	public int getMemoryEntries()
+	{
+		return memoryEntries;
+	}
+
+	public long getMemoryBytes()
+	{
+		return memoryBytes;
+	}
+
+	public int getDiskEntries()
+	{
+		return diskEntries;
+	}
+
+	public long getDiskBytes()
+	{
+		return diskBytes;
+	}
+
+	public String toString()
+	{
+		return "hits: " + getHits() + " (memory " + memoryHits + ", disk " + diskHits + "); misses: " + misses
+			+ "; evictions: " + evictions + "; expirations: " + expirations
+			+ "; memory: " + memoryEntries + " entries/" + memoryBytes + " bytes; disk: " + diskEntries + " entries/" + diskBytes + " bytes";
+	}
+}
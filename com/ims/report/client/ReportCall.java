@@ -0,0 +1,115 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks the request of one report server call so it can be aborted from another thread
+ * Aborting runs the abort handler set by the ReportTransport, which closes the connection; the executing
+ * thread then fails and releases it
+ */
+class ReportCall
+{
+	private Runnable abortHandler;
+	private boolean aborted;
+	private List<Runnable> abortListeners;
+	private volatile long queueNanos;
+	private volatile CallOptions options;
+
+	/**
+	 * Sets what aborts the request in progress, returns false if the call was already aborted
+	 */
+	synchronized boolean attach(Runnable abortHandler)
+	{
+		if(aborted)
+			return false;
+
+		this.abortHandler = abortHandler;
+
+		return true;
+	}
+
+	synchronized void detach()
+	{
+		abortHandler = null;
+	}
+
+	void abort()
+	{
+		List<Runnable> listeners;
+
+		synchronized(this)
+		{
+			if(aborted)
+				return;
+
+			aborted = true;
+
+			if(abortHandler != null)
+				abortHandler.run();
+
+			listeners = abortListeners;
+			abortListeners = null;
+		}
+
+		for(int i = 0; listeners != null && i < listeners.size(); i++)
+		{
+			listeners.get(i).run();
+		}
+	}
+
+	/**
+	 * Runs the listener when the call is aborted, straight away if it already was
+	 */
+	void addAbortListener(Runnable listener)
+	{
+		synchronized(this)
+		{
+			if(!aborted)
+			{
+				if(abortListeners == null)
+					abortListeners = new ArrayList<Runnable>(2);
+
+				abortListeners.add(listener);
+				return;
+			}
+		}
+
+		listener.run();
+	}
+
+	/**
+	 * Time an async call waited for a thread, for ReportMetrics
+	 */
+	void setQueueNanos(long queueNanos)
+	{
+		this.queueNanos = queueNanos;
+	}
+
+	long getQueueNanos()
+	{
+		return queueNanos;
+	}
+
+	/**
+	 * The CallOptions the call is bound to, see CallOptions.bind()
+	 */
+	void setOptions(CallOptions options)
+	{
+		this.options = options;
+	}
+
+	CallOptions getOptions()
+	{
+		return options;
+	}
+
+	synchronized boolean isAborted()
+	{
+		return aborted;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * What one report server call did, handed to the ReportMetricsListeners
+ * The durations are in nanoseconds, a phase the call never reached is 0
+ */
+public class ReportCallEvent
+{
+	private ReportOperation operation;
+	private ExportType exportType;
+	private String serverUrl;
+	private int statusCode;
+	private boolean succeeded;
+	private long[] phases;
+	private long bytesSent;
+	private long bytesReceived;
+
+	ReportCallEvent(ReportOperation operation, ExportType exportType, String serverUrl, int statusCode, boolean succeeded, long[] phases, long bytesSent, long bytesReceived)
+	{
+		this.operation = operation;
+		this.exportType = exportType;
+		this.serverUrl = serverUrl;
+		this.statusCode = statusCode;
+		this.succeeded = succeeded;
+		this.phases = phases;
+		this.bytesSent = bytesSent;
+		this.bytesReceived = bytesReceived;
+	}
+
+	public ReportOperation getOperation()
+	{
+		return operation;
+	}
+
+	/**
+	 * Null for the print calls
+	 */
+	public ExportType getExportType()
+	{
+		return exportType;
+	}
+
+	public String getServerUrl()
+	{
+		return serverUrl;
+	}
+
+	/**
+	 * The HTTP status, -1 if the call failed before getting one (connection error, cancelled)
+	 */
+	public int getStatusCode()
+	{
+		return statusCode;
+	}
+
+	public boolean isSucceeded()
+	{
+		return succeeded;
+	}
+
+	public long getNanos(ReportPhase phase)
+	{
+		return phases[phase.getIndex()];
+	}
+
+	/**
+	 * Request body bytes written to the connection (after compression)
+	 */
+	public long getBytesSent()
+	{
+		return bytesSent;
+	}
+
+	/**
+	 * Response body bytes read from the connection (before decompression)
+	 */
+	public long getBytesReceived()
+	{
+		return bytesReceived;
+	}
+
+	public String toString()
+	{
+		StringBuffer buffer = new StringBuffer();
+
+		buffer.append(operation).append(' ').append(exportType == null ? "print" : exportType.toString()).append(' ').append(serverUrl)
+			.append(" [status: ").append(statusCode).append("; sent: ").append(bytesSent).append("; received: ").append(bytesReceived);
+
+		ReportPhase[] all = ReportPhase.values();
+		for(int i = 0; i < all.length; i++)
+		{
+			buffer.append("; ").append(all[i].getName()).append(": ").append(phases[i] / 1000000).append(" ms");
+		}
+
+		return buffer.append(']').toString();
+	}
+}
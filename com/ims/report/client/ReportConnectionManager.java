@@ -0,0 +1,217 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.HttpException;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+
+/**
+ * Wraps the MultiThreadedHttpConnectionManager to count, per report server, the calls
+ * waiting for a connection and the connections in use
+ * The connections themselves are still handed out and pooled by the MultiThreadedHttpConnectionManager;
+ * the connections leased through this manager release themselves through it, so a connection stops
+ * counting as leased the moment it goes back to the pool, before another call can get it
+ * The wait for a connection is cut short at the deadline of the call the thread makes, see setCallTimeout()
+ */
+class ReportConnectionManager implements HttpConnectionManager
+{
+	private final MultiThreadedHttpConnectionManager delegate;
+	private final ConcurrentHashMap<String, HostCounters> hosts = new ConcurrentHashMap<String, HostCounters>();
+	// the deadline (System.nanoTime()) of the call the current thread makes, null if it has none
+	private final ThreadLocal<Long> deadlineByThread = new ThreadLocal<Long>();
+
+	ReportConnectionManager(MultiThreadedHttpConnectionManager delegate)
+	{
+		this.delegate = delegate;
+	}
+
+	MultiThreadedHttpConnectionManager getDelegate()
+	{
+		return delegate;
+	}
+
+	public HttpConnection getConnection(HostConfiguration hostConfiguration)
+	{
+		try
+		{
+			return getConnectionWithTimeout(hostConfiguration, 0);
+		}
+		catch (ConnectionPoolTimeoutException e)
+		{
+			// no timeout, should not happen
+			throw new IllegalStateException(e.toString());
+		}
+	}
+
+	/**
+	 * @deprecated
+	 */
+	@Deprecated
+	public HttpConnection getConnection(HostConfiguration hostConfiguration, long timeout) throws HttpException
+	{
+		try
+		{
+			return getConnectionWithTimeout(hostConfiguration, timeout);
+		}
+		catch (ConnectionPoolTimeoutException e)
+		{
+			throw new HttpException(e.getMessage());
+		}
+	}
+
+	/**
+	 * The current thread waits for a connection at most the given milliseconds from now, until
+	 * clearCallTimeout(); the call of the thread must complete by then
+	 */
+	void setCallTimeout(long timeout)
+	{
+		deadlineByThread.set(Long.valueOf(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout)));
+	}
+
+	void clearCallTimeout()
+	{
+		deadlineByThread.remove();
+	}
+
+	public HttpConnection getConnectionWithTimeout(HostConfiguration hostConfiguration, long timeout) throws ConnectionPoolTimeoutException
+	{
+		HostCounters counters = getCounters(hostConfiguration);
+		Long deadline = deadlineByThread.get();
+
+		if(deadline != null)
+		{
+			// rounded up, the pool must not give up before the deadline; 0 would wait without a limit
+			long remaining = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline.longValue() - System.nanoTime())) + 1;
+
+			if(timeout <= 0 || remaining < timeout)
+				timeout = remaining;
+		}
+
+		counters.pending.incrementAndGet();
+		try
+		{
+			HttpConnection connection = delegate.getConnectionWithTimeout(hostConfiguration, timeout);
+
+			// the pooled connection hands itself back through releaseConnection()
+			connection.setHttpConnectionManager(this);
+			counters.leased.incrementAndGet();
+
+			return connection;
+		}
+		finally
+		{
+			counters.pending.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Called once per lease, by the connection itself when its method is done with it
+	 */
+	public void releaseConnection(HttpConnection conn)
+	{
+		HostConfiguration hostConfiguration = new HostConfiguration();
+		hostConfiguration.setHost(conn.getHost(), conn.getPort(), conn.getProtocol());
+
+		HostCounters counters = hosts.get(hostConfiguration.getHostURL());
+
+		// counted first, the pool may hand the connection to a waiting call at once
+		if(counters != null)
+			counters.leased.decrementAndGet();
+
+		delegate.releaseConnection(conn);
+	}
+
+	public void closeIdleConnections(long idleTimeout)
+	{
+		delegate.closeIdleConnections(idleTimeout);
+	}
+
+	public HttpConnectionManagerParams getParams()
+	{
+		return delegate.getParams();
+	}
+
+	public void setParams(HttpConnectionManagerParams params)
+	{
+		delegate.setParams(params);
+	}
+
+	void shutdown()
+	{
+		delegate.shutdown();
+	}
+
+	List<ConnectionPoolStats> getStats()
+	{
+		List<ConnectionPoolStats> result = new ArrayList<ConnectionPoolStats>();
+
+		for(Iterator<HostCounters> it = hosts.values().iterator(); it.hasNext();)
+		{
+			result.add(getStats(it.next()));
+		}
+
+		return result;
+	}
+
+	ConnectionPoolStats getStats(String hostUrl)
+	{
+		HostCounters counters = hosts.get(hostUrl);
+
+		return counters != null ? getStats(counters) : null;
+	}
+
+	private ConnectionPoolStats getStats(HostCounters counters)
+	{
+		int leased = Math.max(0, counters.leased.get());
+		int available = Math.max(0, delegate.getConnectionsInPool(counters.hostConfiguration) - leased);
+		int max = getParams().getMaxConnectionsPerHost(counters.hostConfiguration);
+
+		return new ConnectionPoolStats(counters.hostUrl, leased, available, counters.pending.get(), max);
+	}
+
+	private HostCounters getCounters(HostConfiguration hostConfiguration)
+	{
+		String hostUrl = hostConfiguration.getHostURL();
+		HostCounters counters = hosts.get(hostUrl);
+
+		if(counters == null)
+		{
+			counters = new HostCounters(hostUrl, (HostConfiguration)hostConfiguration.clone());
+
+			HostCounters previous = hosts.putIfAbsent(hostUrl, counters);
+
+			if(previous != null)
+				counters = previous;
+		}
+
+		return counters;
+	}
+
+	private static class HostCounters
+	{
+		final String hostUrl;
+		final HostConfiguration hostConfiguration;
+		final AtomicInteger pending = new AtomicInteger();
+		final AtomicInteger leased = new AtomicInteger();
+
+		HostCounters(String hostUrl, HostConfiguration hostConfiguration)
+		{
+			this.hostUrl = hostUrl;
+			this.hostConfiguration = hostConfiguration;
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Supplier;
+
+/**
+ * A datasource read while the request is sent instead of being held in a byte[]
+ * The request is sent with chunked transfer encoding, its size being unknown up front
+ * A streamed call is never answered from the result cache nor shared with an identical call, and is
+ * retried or hedged only if the datasource can be read again (fromSupplier() and fromWriter())
+ */
+public class ReportDatasource
+{
+	private InputStream stream;
+	private Supplier<InputStream> supplier;
+	private DatasourceWriter writer;
+	private String description;
+	private boolean opened;
+
+	private ReportDatasource(InputStream stream, Supplier<InputStream> supplier, DatasourceWriter writer, String description)
+	{
+		this.stream = stream;
+		this.supplier = supplier;
+		this.writer = writer;
+		this.description = description;
+	}
+
+	/**
+	 * The datasource is read from the stream, which is closed once sent
+	 * A stream can be read only once, the call is not retried
+	 */
+	public static ReportDatasource fromStream(InputStream stream)
+	{
+		if(stream == null)
+			throw new IllegalArgumentException("stream must not be null");
+
+		return new ReportDatasource(stream, null, null, "streamed from an InputStream");
+	}
+
+	/**
+	 * The datasource is read from a stream the supplier opens for every attempt of the call
+	 */
+	public static ReportDatasource fromSupplier(Supplier<InputStream> supplier)
+	{
+		if(supplier == null)
+			throw new IllegalArgumentException("supplier must not be null");
+
+		return new ReportDatasource(null, supplier, null, "streamed from a Supplier");
+	}
+
+	/**
+	 * The datasource is written by the writer for every attempt of the call, while it is being uploaded
+	 */
+	public static ReportDatasource fromWriter(DatasourceWriter writer)
+	{
+		if(writer == null)
+			throw new IllegalArgumentException("writer must not be null");
+
+		return new ReportDatasource(null, null, writer, "streamed from a DatasourceWriter");
+	}
+
+	/**
+	 * True if the datasource can be sent more than once
+	 */
+	boolean isReplayable()
+	{
+		return stream == null;
+	}
+
+	/**
+	 * Opens the datasource for one attempt of the call, the caller closes the returned stream
+	 */
+	InputStream open() throws IOException
+	{
+		if(writer != null)
+			return new WriterInputStream(writer);
+
+		if(supplier != null)
+		{
+			InputStream in = supplier.get();
+
+			if(in == null)
+				throw new IOException("The datasource Supplier returned null");
+
+			return in;
+		}
+
+		synchronized(this)
+		{
+			if(opened)
+				throw new IOException("The datasource InputStream was already sent, use ReportDatasource.fromSupplier() for a call that may be repeated");
+
+			opened = true;
+		}
+
+		return stream;
+	}
+
+	public String toString()
+	{
+		return description;
+	}
+}
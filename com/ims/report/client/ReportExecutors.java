@@ -0,0 +1,90 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the default executor of the HttpReportClient async methods
+ * On a JDK with virtual threads a virtual thread is started per call, otherwise
+ * an unbounded pool of daemon threads is used (the calls spend their time blocked on I/O)
+ */
+final class ReportExecutors
+{
+	private static ExecutorService defaultExecutor;
+	private static ScheduledExecutorService scheduler;
+
+	private ReportExecutors()
+	{
+	}
+
+	static synchronized Executor getDefault()
+	{
+		if(defaultExecutor == null)
+			defaultExecutor = create();
+
+		return defaultExecutor;
+	}
+
+	/**
+	 * One daemon thread running the timers of the client (the hedged requests), the tasks must be short
+	 */
+	static synchronized ScheduledExecutorService getScheduler()
+	{
+		if(scheduler == null)
+		{
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("HttpReportClient-timer-"));
+
+			// most timers are cancelled, the call answered before them
+			executor.setRemoveOnCancelPolicy(true);
+			scheduler = executor;
+		}
+
+		return scheduler;
+	}
+
+	private static ExecutorService create()
+	{
+		try
+		{
+			// Executors.newVirtualThreadPerTaskExecutor() is only available from JDK 21
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+
+			return (ExecutorService)factory.invoke(null);
+		}
+		catch (Exception e)
+		{
+			HttpReportClient.log.debug("Virtual threads are not available, using a thread pool for the async calls");
+		}
+
+		return Executors.newCachedThreadPool(new DaemonThreadFactory("HttpReportClient-async-"));
+	}
+
+	static class DaemonThreadFactory implements ThreadFactory
+	{
+		private final String prefix;
+		private final AtomicInteger count = new AtomicInteger();
+
+		DaemonThreadFactory(String prefix)
+		{
+			this.prefix = prefix;
+		}
+
+		public Thread newThread(Runnable r)
+		{
+			Thread thread = new Thread(r, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The future returned by the HttpReportClient async methods
+ * Cancelling it aborts the request in progress and releases its connection
+ */
+class ReportFuture<T> extends CompletableFuture<T>
+{
+	private final ReportCall call;
+
+	ReportFuture(ReportCall call)
+	{
+		this.call = call;
+	}
+
+	public boolean cancel(boolean mayInterruptIfRunning)
+	{
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+
+		if(cancelled)
+			call.abort();
+
+		return cancelled;
+	}
+}
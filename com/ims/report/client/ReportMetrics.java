@@ -0,0 +1,209 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The always-on instrumentation of a HttpReportClient, see HttpReportClient.getMetrics()
+ * Every report server call is timed by phase (ReportPhase) and counted per operation and export type,
+ * the listeners get every call as it ends and the numbers can be published as JMX MBeans
+ *
+ * <pre>
+ * client.getMetrics().registerMBeans("main");
+ * client.getMetrics().addListener(new ReportMetricsListener()
+ * {
+ * 	public void callCompleted(ReportCallEvent event)
+ * 	{
+ * 		registry.timer("report." + event.getOperation()).record(event.getNanos(ReportPhase.TOTAL), TimeUnit.NANOSECONDS);
+ * 	}
+ * });
+ * </pre>
+ */
+public class ReportMetrics
+{
+	public static final String JMX_DOMAIN = "com.ims.report.client";
+
+	private final ConcurrentHashMap<String, ReportOperationMetrics> operations = new ConcurrentHashMap<String, ReportOperationMetrics>();
+	private final CopyOnWriteArrayList<ReportMetricsListener> listeners = new CopyOnWriteArrayList<ReportMetricsListener>();
+
+	private String jmxName;
+	private final List<ObjectName> registered = new ArrayList<ObjectName>();
+
+	ReportMetrics()
+	{
+	}
+
+	public void addListener(ReportMetricsListener listener)
+	{
+		listeners.addIfAbsent(listener);
+	}
+
+	public void removeListener(ReportMetricsListener listener)
+	{
+		listeners.remove(listener);
+	}
+
+	/**
+	 * The metrics of the operation and export type (null for the print calls), created on first use
+	 */
+	public ReportOperationMetrics get(ReportOperation operation, ExportType exportType)
+	{
+		String key = getKey(operation, exportType);
+		ReportOperationMetrics metrics = operations.get(key);
+
+		if(metrics == null)
+		{
+			ReportOperationMetrics created = new ReportOperationMetrics(operation, exportType);
+
+			metrics = operations.putIfAbsent(key, created);
+
+			if(metrics == null)
+			{
+				metrics = created;
+				register(created);
+			}
+		}
+
+		return metrics;
+	}
+
+	/**
+	 * The metrics of every operation and export type used so far
+	 */
+	public List<ReportOperationMetrics> getAll()
+	{
+		List<ReportOperationMetrics> list = new ArrayList<ReportOperationMetrics>(operations.values());
+		Collections.sort(list, new Comparator<ReportOperationMetrics>()
+		{
+			public int compare(ReportOperationMetrics a, ReportOperationMetrics b)
+			{
+				int result = a.getOperation().compareTo(b.getOperation());
+
+				return result != 0 ? result : a.getExportType().compareTo(b.getExportType());
+			}
+		});
+
+		return list;
+	}
+
+	public void reset()
+	{
+		for(Iterator<ReportOperationMetrics> it = operations.values().iterator(); it.hasNext();)
+		{
+			it.next().reset();
+		}
+	}
+
+	/**
+	 * Publishes the metrics in the platform MBean server, one MBean per operation and export type:
+	 * com.ims.report.client:type=HttpReportClient,name=&lt;name&gt;,operation=buildReport,exportType=PDF
+	 * The operations used later are published as they appear
+	 */
+	public synchronized void registerMBeans(String name)
+	{
+		if(jmxName != null)
+			unregisterMBeans();
+
+		jmxName = name;
+
+		for(Iterator<ReportOperationMetrics> it = operations.values().iterator(); it.hasNext();)
+		{
+			register(it.next());
+		}
+	}
+
+	public synchronized void unregisterMBeans()
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		for(int i = 0; i < registered.size(); i++)
+		{
+			try
+			{
+				server.unregisterMBean(registered.get(i));
+			}
+			catch (JMException e)
+			{
+				HttpReportClient.log.debug("Could not unregister the MBean " + registered.get(i) + ": " + e);
+			}
+		}
+
+		registered.clear();
+		jmxName = null;
+	}
+
+	private synchronized void register(ReportOperationMetrics metrics)
+	{
+		if(jmxName == null)
+			return;
+
+		try
+		{
+			ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=HttpReportClient,name=" + ObjectName.quote(jmxName)
+				+ ",operation=" + metrics.getOperation() + ",exportType=" + (metrics.getExportType().length() == 0 ? "none" : metrics.getExportType()));
+
+			// registerMBeans() and a new operation may race
+			if(registered.contains(objectName))
+				return;
+
+			ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName);
+			registered.add(objectName);
+		}
+		catch (JMException e)
+		{
+			HttpReportClient.log.warn("Could not register the metrics of " + metrics.getOperation() + " as an MBean: " + e);
+		}
+	}
+
+	void recordQueueWait(ReportRequest request, long nanos)
+	{
+		get(request.getOperation(), request.getExportType()).recordQueueWait(nanos);
+	}
+
+	ReportOperationMetrics callStarted(ReportRequest request)
+	{
+		ReportOperationMetrics metrics = get(request.getOperation(), request.getExportType());
+
+		metrics.callStarted();
+
+		return metrics;
+	}
+
+	void callCompleted(ReportOperationMetrics metrics, ReportCallEvent event)
+	{
+		metrics.callCompleted(event);
+
+		for(Iterator<ReportMetricsListener> it = listeners.iterator(); it.hasNext();)
+		{
+			ReportMetricsListener listener = it.next();
+
+			try
+			{
+				listener.callCompleted(event);
+			}
+			catch (RuntimeException e)
+			{
+				HttpReportClient.log.warn("The metrics listener " + listener + " failed: " + e);
+			}
+		}
+	}
+
+	private static String getKey(ReportOperation operation, ExportType exportType)
+	{
+		return exportType == null ? operation.getName() : operation.getName() + "/" + exportType.toString();
+	}
+}
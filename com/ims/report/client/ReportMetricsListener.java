@@ -0,0 +1,19 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * Receives every report server call made by a HttpReportClient, used to feed an external
+ * metrics system (Micrometer, Prometheus, ...), see ReportMetrics.addListener()
+ * The methods are called on the thread making the call and must return quickly
+ */
+public interface ReportMetricsListener
+{
+	/**
+	 * A call to a report server ended, successful or not
+	 * The calls answered from the result cache or joining an identical call never reach the server and are not reported
+	 */
+	void callCompleted(ReportCallEvent event);
+}
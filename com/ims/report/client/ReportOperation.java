@@ -0,0 +1,58 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * The calls the report server knows about
+ */
+public class ReportOperation
+{
+	private String name;
+	private boolean idempotent;
+
+	public static final ReportOperation BUILD_REPORT = new ReportOperation("buildReport", true);
+	public static final ReportOperation PRINT_REPORT = new ReportOperation("printReport", false);
+	public static final ReportOperation CONVERT_REPORT = new ReportOperation("convertReport", true);
+	public static final ReportOperation CONVERT_OFFICE_DOCUMENT = new ReportOperation("convertOfficeDocument", true);
+	/**
+	 * Several of the calls above in one request, see HttpReportClient.submitBatch()
+	 */
+	public static final ReportOperation SUBMIT_BATCH = new ReportOperation("submitBatch", true);
+
+	private static final ReportOperation[] ALL = { BUILD_REPORT, PRINT_REPORT, CONVERT_REPORT, CONVERT_OFFICE_DOCUMENT, SUBMIT_BATCH };
+
+	private ReportOperation(String name, boolean idempotent)
+	{
+		this.name = name;
+		this.idempotent = idempotent;
+	}
+
+	public static ReportOperation[] values()
+	{
+		return ALL.clone();
+	}
+
+	/**
+	 * The name of the HttpReportClient method, example: buildReport
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Whether the operation can be repeated without side effects
+	 * A buildReport() or convertReport() call with a printer is not idempotent either, see ReportRequest
+	 */
+	public boolean isIdempotent()
+	{
+		return idempotent;
+	}
+
+	public String toString()
+	{
+		return name;
+	}
+}
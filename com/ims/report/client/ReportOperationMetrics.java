@@ -0,0 +1,235 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The counters and latency histograms of the calls of one operation and export type
+ */
+public class ReportOperationMetrics implements ReportOperationMetricsMXBean
+{
+	private final ReportOperation operation;
+	private final ExportType exportType;
+
+	private final LatencyHistogram[] phases;
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong succeeded = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong bytesSent = new AtomicLong();
+	private final AtomicLong bytesReceived = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong hedges = new AtomicLong();
+	private final AtomicLong hedgeWins = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final ConcurrentHashMap<Integer, AtomicLong> errors = new ConcurrentHashMap<Integer, AtomicLong>();
+
+	ReportOperationMetrics(ReportOperation operation, ExportType exportType)
+	{
+		this.operation = operation;
+		this.exportType = exportType;
+
+		phases = new LatencyHistogram[ReportPhase.values().length];
+		for(int i = 0; i < phases.length; i++)
+		{
+			phases[i] = new LatencyHistogram();
+		}
+	}
+
+	public String getOperation()
+	{
+		return operation.getName();
+	}
+
+	public String getExportType()
+	{
+		return exportType == null ? "" : exportType.toString();
+	}
+
+	public long getRequests()
+	{
+		return requests.get();
+	}
+
+	public long getSucceeded()
+	{
+		return succeeded.get();
+	}
+
+	public long getFailed()
+	{
+		return failed.get();
+	}
+
+	public int getInFlight()
+	{
+		return inFlight.get();
+	}
+
+	public long getBytesSent()
+	{
+		return bytesSent.get();
+	}
+
+	public long getBytesReceived()
+	{
+		return bytesReceived.get();
+	}
+
+	public long getRetries()
+	{
+		return retries.get();
+	}
+
+	public long getHedges()
+	{
+		return hedges.get();
+	}
+
+	public long getHedgeWins()
+	{
+		return hedgeWins.get();
+	}
+
+	public long getRejected()
+	{
+		return rejected.get();
+	}
+
+	public Map<Integer, Long> getErrorsByStatus()
+	{
+		Map<Integer, Long> map = new TreeMap<Integer, Long>();
+
+		for(Iterator<Map.Entry<Integer, AtomicLong>> it = errors.entrySet().iterator(); it.hasNext();)
+		{
+			Map.Entry<Integer, AtomicLong> entry = it.next();
+
+			map.put(entry.getKey(), Long.valueOf(entry.getValue().get()));
+		}
+
+		return map;
+	}
+
+	public Map<String, LatencySnapshot> getLatency()
+	{
+		Map<String, LatencySnapshot> map = new LinkedHashMap<String, LatencySnapshot>();
+		ReportPhase[] all = ReportPhase.values();
+
+		for(int i = 0; i < all.length; i++)
+		{
+			map.put(all[i].getName(), phases[i].getSnapshot());
+		}
+
+		return map;
+	}
+
+	public LatencySnapshot getTotalLatency()
+	{
+		return getHistogram(ReportPhase.TOTAL).getSnapshot();
+	}
+
+	public LatencyHistogram getHistogram(ReportPhase phase)
+	{
+		return phases[phase.getIndex()];
+	}
+
+	public void reset()
+	{
+		for(int i = 0; i < phases.length; i++)
+		{
+			phases[i].reset();
+		}
+
+		requests.set(0);
+		succeeded.set(0);
+		failed.set(0);
+		bytesSent.set(0);
+		bytesReceived.set(0);
+		retries.set(0);
+		hedges.set(0);
+		hedgeWins.set(0);
+		rejected.set(0);
+		errors.clear();
+	}
+
+	void callStarted()
+	{
+		inFlight.incrementAndGet();
+	}
+
+	void recordQueueWait(long nanos)
+	{
+		phases[ReportPhase.QUEUE.getIndex()].recordNanos(nanos);
+	}
+
+	void retried()
+	{
+		retries.incrementAndGet();
+	}
+
+	void hedged()
+	{
+		hedges.incrementAndGet();
+	}
+
+	void hedgeWon()
+	{
+		hedgeWins.incrementAndGet();
+	}
+
+	void rejected()
+	{
+		rejected.incrementAndGet();
+	}
+
+	void callCompleted(ReportCallEvent event)
+	{
+		inFlight.decrementAndGet();
+		requests.incrementAndGet();
+
+		if(event.isSucceeded())
+		{
+			succeeded.incrementAndGet();
+		}
+		else
+		{
+			failed.incrementAndGet();
+
+			AtomicLong counter = errors.get(Integer.valueOf(event.getStatusCode()));
+			if(counter == null)
+			{
+				AtomicLong created = new AtomicLong();
+				counter = errors.putIfAbsent(Integer.valueOf(event.getStatusCode()), created);
+				if(counter == null)
+					counter = created;
+			}
+			counter.incrementAndGet();
+		}
+
+		bytesSent.addAndGet(event.getBytesSent());
+		bytesReceived.addAndGet(event.getBytesReceived());
+
+		ReportPhase[] all = ReportPhase.values();
+		for(int i = 0; i < all.length; i++)
+		{
+			// the queue wait is recorded when the call leaves the queue, once per call and not per attempt
+			if(all[i] != ReportPhase.QUEUE && (event.getNanos(all[i]) > 0 || all[i] == ReportPhase.TOTAL))
+				phases[i].recordNanos(event.getNanos(all[i]));
+		}
+	}
+
+	public String toString()
+	{
+		return operation + " " + (exportType == null ? "print" : exportType.toString()) + " [requests: " + getRequests() + "; failed: " + getFailed()
+			+ "; in flight: " + getInFlight() + "; sent: " + getBytesSent() + "; received: " + getBytesReceived() + "; total: " + getTotalLatency() + "]";
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the calls of one operation and export type, see ReportMetrics.registerMBeans()
+ */
+public interface ReportOperationMetricsMXBean
+{
+	String getOperation();
+
+	/**
+	 * Empty for the print calls
+	 */
+	String getExportType();
+
+	long getRequests();
+
+	long getSucceeded();
+
+	long getFailed();
+
+	/**
+	 * Calls currently in progress
+	 */
+	int getInFlight();
+
+	long getBytesSent();
+
+	long getBytesReceived();
+
+	/**
+	 * Attempts sent again by the RetryPolicy, they are counted in the requests too
+	 */
+	long getRetries();
+
+	/**
+	 * Hedged requests sent because the first one was slow
+	 */
+	long getHedges();
+
+	/**
+	 * Hedged requests that answered before the first one
+	 */
+	long getHedgeWins();
+
+	/**
+	 * Calls not sent because the circuit breaker of the server was open or its bulkhead full
+	 */
+	long getRejected();
+
+	/**
+	 * The failed calls by HTTP status, -1 for the calls that got no status
+	 */
+	Map<Integer, Long> getErrorsByStatus();
+
+	/**
+	 * The latency of every phase (queue, connect, upload, server, download, total) in milliseconds
+	 */
+	Map<String, LatencySnapshot> getLatency();
+
+	LatencySnapshot getTotalLatency();
+
+	void reset();
+}
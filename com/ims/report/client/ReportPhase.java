@@ -0,0 +1,68 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * The phases a report server call is timed in, see ReportMetrics
+ */
+public class ReportPhase
+{
+	private String name;
+	private int index;
+
+	/**
+	 * Time an async call waited for a thread of the executor
+	 */
+	public static final ReportPhase QUEUE = new ReportPhase("queue", 0);
+	/**
+	 * From the start of the call until the body starts being sent: pooled connection,
+	 * TCP connect, request headers and the 100-continue answer
+	 */
+	public static final ReportPhase CONNECT = new ReportPhase("connect", 1);
+	/**
+	 * Sending the body (template, datasource, ...)
+	 */
+	public static final ReportPhase UPLOAD = new ReportPhase("upload", 2);
+	/**
+	 * From the end of the body until the response headers, the rendering time on the server
+	 */
+	public static final ReportPhase SERVER = new ReportPhase("server", 3);
+	/**
+	 * Reading the response body
+	 */
+	public static final ReportPhase DOWNLOAD = new ReportPhase("download", 4);
+	/**
+	 * The whole call, queue excluded
+	 */
+	public static final ReportPhase TOTAL = new ReportPhase("total", 5);
+
+	private static final ReportPhase[] ALL = { QUEUE, CONNECT, UPLOAD, SERVER, DOWNLOAD, TOTAL };
+
+	private ReportPhase(String name, int index)
+	{
+		this.name = name;
+		this.index = index;
+	}
+
+	public static ReportPhase[] values()
+	{
+		return ALL.clone();
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	int getIndex()
+	{
+		return index;
+	}
+
+	public String toString()
+	{
+		return name;
+	}
+}
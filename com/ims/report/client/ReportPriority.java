@@ -0,0 +1,89 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * The priority class of a report server call, see SchedulingPolicy
+ * The calls take the priority of the thread making them, INTERACTIVE unless set otherwise:
+ *
+ * <pre>
+ * ReportPriority previous = ReportPriority.setCurrent(ReportPriority.BATCH);
+ * try
+ * {
+ * 	for(...)
+ * 		client.convertOfficeDocument(serverUrl, document, ExportType.PDF);
+ * }
+ * finally
+ * {
+ * 	ReportPriority.setCurrent(previous);
+ * }
+ * </pre>
+ *
+ * The async calls take the priority of the thread calling them, not of the thread running them
+ */
+public class ReportPriority
+{
+	private static final ThreadLocal<ReportPriority> current = new ThreadLocal<ReportPriority>();
+
+	private String name;
+	private int index;
+
+	/**
+	 * A user waiting for the report, example: a PDF preview
+	 */
+	public static final ReportPriority INTERACTIVE = new ReportPriority("INTERACTIVE", 0);
+	/**
+	 * Bulk jobs, they use the capacity left by the interactive calls
+	 */
+	public static final ReportPriority BATCH = new ReportPriority("BATCH", 1);
+
+	private static final ReportPriority[] ALL = { INTERACTIVE, BATCH };
+
+	private ReportPriority(String name, int index)
+	{
+		this.name = name;
+		this.index = index;
+	}
+
+	public static ReportPriority[] values()
+	{
+		return ALL.clone();
+	}
+
+	/**
+	 * The priority of the calls made by the current thread
+	 */
+	public static ReportPriority getCurrent()
+	{
+		ReportPriority priority = current.get();
+
+		return priority != null ? priority : INTERACTIVE;
+	}
+
+	/**
+	 * Sets the priority of the calls made by the current thread and returns the previous one, null resets it to INTERACTIVE
+	 */
+	public static ReportPriority setCurrent(ReportPriority priority)
+	{
+		ReportPriority previous = getCurrent();
+
+		if(priority == null || priority == INTERACTIVE)
+			current.remove();
+		else
+			current.set(priority);
+
+		return previous;
+	}
+
+	int getIndex()
+	{
+		return index;
+	}
+
+	public String toString()
+	{
+		return name;
+	}
+}
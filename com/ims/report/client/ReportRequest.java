@@ -0,0 +1,507 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.httpclient.methods.multipart.ByteArrayPartSource;
+import org.apache.commons.httpclient.methods.multipart.FilePart;
+import org.apache.commons.httpclient.methods.multipart.MultipartRequestEntity;
+import org.apache.commons.httpclient.methods.multipart.Part;
+import org.apache.commons.httpclient.methods.multipart.PartSource;
+import org.apache.commons.httpclient.methods.multipart.StringPart;
+import org.apache.commons.httpclient.params.HttpMethodParams;
+
+/**
+ * One call to the report server: the operation, the target and the form fields
+ * The fields are kept as given by the caller, the request entity is created for every attempt
+ * A streamed field (ReportDatasource) is read again by every attempt
+ */
+class ReportRequest
+{
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	static final String TEMPLATE = "template";
+	static final String TEMPLATE_DIGEST = "templateDigest";
+	static final String BATCH = "batch";
+
+	private final ReportOperation operation;
+	private final ExportType exportType;
+	private final String printTo;
+	private final String serverUrl;
+	private final ReportServerCluster cluster;
+	private final ReportPriority priority;
+	private final CallOptions options;
+
+	private final List<Field> fields = new ArrayList<Field>();
+	private String digest;
+	private String templateDigest;
+
+	/**
+	 * @param options	null if the call has none
+	 */
+	ReportRequest(ReportOperation operation, String serverUrl, ReportServerCluster cluster, ExportType exportType, String printTo, CallOptions options)
+	{
+		// taken from the calling thread, an async call runs on another one
+		this(operation, serverUrl, cluster, exportType, printTo, ReportPriority.getCurrent(), options);
+	}
+
+	/**
+	 * A request made by the client itself on one of its threads, with the priority and options of the caller it runs for
+	 */
+	ReportRequest(ReportOperation operation, String serverUrl, ReportServerCluster cluster, ExportType exportType, String printTo,
+		ReportPriority priority, CallOptions options)
+	{
+		this.operation = operation;
+		this.serverUrl = serverUrl;
+		this.cluster = cluster;
+		this.exportType = exportType;
+		this.printTo = printTo;
+		this.priority = priority;
+		this.options = options;
+	}
+
+	ReportRequest addField(String name, String value)
+	{
+		fields.add(new Field(name, value, null, null, false));
+		digest = null;
+
+		return this;
+	}
+
+	ReportRequest addBinaryField(String name, byte[] value)
+	{
+		return addBinaryField(name, value, false);
+	}
+
+	/**
+	 * @param compressible	true for the text like fields (template, datasource), see CompressionPolicy
+	 */
+	ReportRequest addBinaryField(String name, byte[] value, boolean compressible)
+	{
+		fields.add(new Field(name, null, value, null, compressible));
+		digest = null;
+
+		return this;
+	}
+
+	/**
+	 * A binary field read while the request is sent, the request is then sent chunked
+	 */
+	ReportRequest addStreamedField(String name, ReportDatasource value, boolean compressible)
+	{
+		fields.add(new Field(name, null, null, value, compressible));
+		digest = null;
+
+		return this;
+	}
+
+	/**
+	 * Adds the fields of a job of a batch, their names prefixed with the position of the job: 0.template, 0.datasource, ...
+	 */
+	ReportRequest addJob(int index, ReportRequest job)
+	{
+		List<Field> jobFields = job.getFields();
+
+		for(int i = 0; i < jobFields.size(); i++)
+		{
+			Field field = jobFields.get(i);
+
+			fields.add(new Field(index + "." + field.name, field.text, field.binary, field.source, field.compressible));
+		}
+
+		digest = null;
+
+		return this;
+	}
+
+	ReportOperation getOperation()
+	{
+		return operation;
+	}
+
+	/**
+	 * The method name used in the log messages
+	 */
+	String getFunction()
+	{
+		return operation.getName();
+	}
+
+	/**
+	 * Null for the print calls
+	 */
+	ExportType getExportType()
+	{
+		return exportType;
+	}
+
+	String getServerUrl()
+	{
+		return serverUrl;
+	}
+
+	ReportServerCluster getCluster()
+	{
+		return cluster;
+	}
+
+	ReportPriority getPriority()
+	{
+		return priority;
+	}
+
+	/**
+	 * The deadline and cancel switch of the call, null if none
+	 */
+	CallOptions getOptions()
+	{
+		return options;
+	}
+
+	/**
+	 * The server url or the cluster, for the log messages
+	 */
+	String getTarget()
+	{
+		return cluster != null ? cluster.toString() : serverUrl;
+	}
+
+	/**
+	 * True if nothing gets printed, the call can then be repeated or answered from a cache
+	 */
+	boolean isIdempotent()
+	{
+		return operation.isIdempotent() && (printTo == null || printTo.length() == 0);
+	}
+
+	/**
+	 * The template field, null if the call has none
+	 */
+	byte[] getTemplate()
+	{
+		for(int i = 0; i < fields.size(); i++)
+		{
+			Field field = fields.get(i);
+
+			if(TEMPLATE.equals(field.name) && field.binary != null)
+				return field.binary;
+		}
+
+		return null;
+	}
+
+	/**
+	 * SHA-256 of the template as a hex string, null if the call has no template
+	 */
+	synchronized String getTemplateDigest()
+	{
+		if(templateDigest == null)
+		{
+			byte[] template = getTemplate();
+
+			if(template == null)
+				return null;
+
+			MessageDigest md = newSha256();
+			md.update(template);
+			templateDigest = toHex(md.digest());
+		}
+
+		return templateDigest;
+	}
+
+	/**
+	 * True if a field is streamed, the request has no digest then
+	 */
+	boolean isStreamed()
+	{
+		for(int i = 0; i < fields.size(); i++)
+		{
+			if(fields.get(i).source != null)
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * False if a streamed field can be read only once, the call is then sent once
+	 */
+	boolean isReplayable()
+	{
+		for(int i = 0; i < fields.size(); i++)
+		{
+			Field field = fields.get(i);
+
+			if(field.source != null && !field.source.isReplayable())
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * The fields in the order they are sent, not to be modified
+	 */
+	List<Field> getFields()
+	{
+		return fields;
+	}
+
+	/**
+	 * The size of the binary fields, the streamed ones excepted
+	 */
+	long getBinaryLength()
+	{
+		long length = 0;
+
+		for(int i = 0; i < fields.size(); i++)
+		{
+			Field field = fields.get(i);
+
+			if(field.binary != null)
+				length += field.binary.length;
+		}
+
+		return length;
+	}
+
+	/**
+	 * The size of the fields worth compressing, Long.MAX_VALUE if one of them is streamed
+	 */
+	long getCompressibleLength()
+	{
+		long length = 0;
+
+		for(int i = 0; i < fields.size(); i++)
+		{
+			Field field = fields.get(i);
+
+			// a datasource is streamed because it is big
+			if(field.compressible && field.source != null)
+				return Long.MAX_VALUE;
+
+			if(field.compressible)
+				length += field.binary.length;
+		}
+
+		return length;
+	}
+
+	/**
+	 * The original form post, the binary fields are base64 encoded
+	 *
+	 * @param templateDigest	sent along with the template when not null, see TemplateRegistry
+	 * @param omitTemplate		the digest is sent instead of the template
+	 */
+	RequestEntity createEntity(String templateDigest, boolean omitTemplate)
+	{
+		FormRequestEntity entity = new FormRequestEntity();
+
+		for(int i = 0; i < fields.size(); i++)
+		{
+			Field field = fields.get(i);
+
+			if(templateDigest != null && TEMPLATE.equals(field.name))
+			{
+				if(!omitTemplate)
+					entity.addBase64Field(field.name, field.binary);
+
+				entity.addField(TEMPLATE_DIGEST, templateDigest);
+			}
+			else if(field.binary != null)
+				entity.addBase64Field(field.name, field.binary);
+			else if(field.source != null)
+				entity.addBase64Field(field.name, field.source);
+			else
+				entity.addField(field.name, field.text);
+		}
+
+		return entity;
+	}
+
+	/**
+	 * A multipart/form-data post, the binary fields are sent as they are
+	 *
+	 * @param templateDigest	sent along with the template when not null, see TemplateRegistry
+	 * @param omitTemplate		the digest is sent instead of the template
+	 */
+	RequestEntity createMultipartEntity(HttpMethodParams params, String templateDigest, boolean omitTemplate)
+	{
+		List<Part> parts = new ArrayList<Part>(fields.size() + 1);
+
+		for(int i = 0; i < fields.size(); i++)
+		{
+			Field field = fields.get(i);
+
+			if(templateDigest != null && TEMPLATE.equals(field.name))
+			{
+				if(!omitTemplate)
+					parts.add(new FilePart(field.name, new ByteArrayPartSource(field.name, field.binary), FilePart.DEFAULT_CONTENT_TYPE, null));
+
+				parts.add(new StringPart(TEMPLATE_DIGEST, templateDigest, "ISO-8859-1"));
+			}
+			else if(field.binary != null)
+				parts.add(new FilePart(field.name, new ByteArrayPartSource(field.name, field.binary), FilePart.DEFAULT_CONTENT_TYPE, null));
+			else if(field.source != null)
+				parts.add(new FilePart(field.name, new DatasourcePartSource(field.name, field.source), FilePart.DEFAULT_CONTENT_TYPE, null));
+			else
+				parts.add(new StringPart(field.name, field.text == null ? "" : field.text, "ISO-8859-1"));
+		}
+
+		return new MultipartRequestEntity(parts.toArray(new Part[parts.size()]), params);
+	}
+
+	/**
+	 * SHA-256 of the operation and of every field, as a hex string
+	 * Two requests with the same digest produce the same report
+	 * A streamed request has no digest, its datasource cannot be read twice
+	 */
+	synchronized String getDigest()
+	{
+		if(isStreamed())
+			throw new IllegalStateException("A streamed " + getFunction() + "() request has no digest");
+
+		if(digest == null)
+		{
+			MessageDigest md = newSha256();
+
+			update(md, operation.getName());
+
+			for(int i = 0; i < fields.size(); i++)
+			{
+				Field field = fields.get(i);
+
+				update(md, field.name);
+
+				if(field.binary != null)
+				{
+					updateLength(md, field.binary.length);
+					md.update(field.binary);
+				}
+				else
+				{
+					update(md, field.text);
+				}
+			}
+
+			digest = toHex(md.digest());
+		}
+
+		return digest;
+	}
+
+	static MessageDigest newSha256()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			// every JRE has SHA-256
+			throw new IllegalStateException(e.toString());
+		}
+	}
+
+	static String toHex(byte[] bytes)
+	{
+		char[] chars = new char[bytes.length * 2];
+
+		for(int i = 0; i < bytes.length; i++)
+		{
+			chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+		}
+
+		return new String(chars);
+	}
+
+	// every value is length prefixed so ("ab", "c") and ("a", "bc") differ
+	private static void update(MessageDigest md, String value)
+	{
+		if(value == null)
+		{
+			updateLength(md, -1);
+			return;
+		}
+
+		try
+		{
+			byte[] bytes = value.getBytes("UTF-8");
+
+			updateLength(md, bytes.length);
+			md.update(bytes);
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			throw new IllegalStateException(e.toString());
+		}
+	}
+
+	private static void updateLength(MessageDigest md, long length)
+	{
+		for(int i = 7; i >= 0; i--)
+		{
+			md.update((byte)(length >>> (i * 8)));
+		}
+	}
+
+	static class Field
+	{
+		final String name;
+		final String text;
+		final byte[] binary;
+		final ReportDatasource source;
+		final boolean compressible;
+
+		Field(String name, String text, byte[] binary, ReportDatasource source, boolean compressible)
+		{
+			this.name = name;
+			this.text = text;
+			this.binary = binary;
+			this.source = source;
+			this.compressible = compressible;
+		}
+	}
+
+	/**
+	 * A multipart file part read from a ReportDatasource, of unknown length
+	 */
+	private static class DatasourcePartSource implements PartSource
+	{
+		private final String name;
+		private final ReportDatasource source;
+
+		DatasourcePartSource(String name, ReportDatasource source)
+		{
+			this.name = name;
+			this.source = source;
+		}
+
+		public long getLength()
+		{
+			return -1;
+		}
+
+		public String getFileName()
+		{
+			return name;
+		}
+
+		public InputStream createInputStream() throws IOException
+		{
+			return source.open();
+		}
+	}
+}
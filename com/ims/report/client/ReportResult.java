@@ -0,0 +1,265 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A report returned by the *AsResult() methods of HttpReportClient
+ * A report up to HttpReportClientConfig.getResultSpillThreshold() bytes is kept in memory, a bigger one
+ * is written to a temporary file as it is received and read back from there, so it never goes through the heap
+ * Close the result once done with it, the temporary file is deleted
+ *
+ * <pre>
+ * try(ReportResult result = client.buildReportAsResult(url, template, datasource, ExportType.XLS, null, 1))
+ * {
+ * 	result.transferTo(channel);
+ * }
+ * </pre>
+ */
+public class ReportResult implements AutoCloseable
+{
+	private final byte[] data;
+	private final Path file;
+	private final long length;
+	private volatile boolean closed;
+
+	ReportResult(byte[] data)
+	{
+		this.data = data;
+		this.file = null;
+		this.length = data.length;
+	}
+
+	ReportResult(Path file, long length)
+	{
+		this.data = null;
+		this.file = file;
+		this.length = length;
+	}
+
+	/**
+	 * The size of the report in bytes
+	 */
+	public long getLength()
+	{
+		return length;
+	}
+
+	/**
+	 * False if the report was written to a temporary file
+	 */
+	public boolean isInMemory()
+	{
+		return file == null;
+	}
+
+	/**
+	 * The temporary file holding the report, null if it is in memory
+	 * The file is deleted by close(), move it first to keep it
+	 */
+	public Path getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * Copies the report into a byte[], a report bigger than 2 GB cannot be
+	 */
+	public byte[] toByteArray() throws IOException
+	{
+		checkOpen();
+
+		if(file == null)
+			return data.clone();
+
+		if(length > Integer.MAX_VALUE - 8)
+			throw new IOException("Content too large to be buffered: " + length + " bytes");
+
+		return Files.readAllBytes(file);
+	}
+
+	/**
+	 * A stream reading the report from the start, the caller closes it
+	 */
+	public InputStream openStream() throws IOException
+	{
+		checkOpen();
+
+		if(file == null)
+			return new ByteArrayInputStream(data);
+
+		return Files.newInputStream(file);
+	}
+
+	/**
+	 * A channel reading the report from the start, the caller closes it
+	 */
+	public ReadableByteChannel openChannel() throws IOException
+	{
+		checkOpen();
+
+		if(file == null)
+			return Channels.newChannel(new ByteArrayInputStream(data));
+
+		return FileChannel.open(file, StandardOpenOption.READ);
+	}
+
+	/**
+	 * The whole report as a read-only buffer, memory mapped when it is in a file
+	 * A report bigger than 2 GB must be mapped in parts, see map()
+	 */
+	public ByteBuffer asByteBuffer() throws IOException
+	{
+		checkOpen();
+
+		if(file == null)
+			return ByteBuffer.wrap(data).asReadOnlyBuffer();
+
+		return map(0, length);
+	}
+
+	/**
+	 * A read-only buffer over the given part of the report, memory mapped when it is in a file
+	 * The mapping lasts until the buffer is garbage collected, it is not to be used after close()
+	 */
+	public ByteBuffer map(long position, long size) throws IOException
+	{
+		checkOpen();
+
+		if(position < 0 || size < 0 || position + size > length || size > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Invalid part of the report: " + position + "+" + size + " of " + length + " bytes");
+
+		if(file == null)
+		{
+			ByteBuffer buffer = ByteBuffer.wrap(data, (int)position, (int)size).slice();
+
+			return buffer.asReadOnlyBuffer();
+		}
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+		try
+		{
+			// the mapping stays valid once the channel is closed
+			return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	/**
+	 * Writes the report to the stream, which is not closed
+	 *
+	 * @return the number of bytes written
+	 */
+	public long writeTo(OutputStream out) throws IOException
+	{
+		checkOpen();
+
+		if(file == null)
+		{
+			out.write(data);
+			return length;
+		}
+
+		return Files.copy(file, out);
+	}
+
+	/**
+	 * Writes the report to the channel, which is not closed; from a file FileChannel.transferTo is used
+	 *
+	 * @return the number of bytes written
+	 */
+	public long transferTo(WritableByteChannel out) throws IOException
+	{
+		checkOpen();
+
+		if(file == null)
+		{
+			ByteBuffer buffer = ByteBuffer.wrap(data);
+
+			while(buffer.hasRemaining())
+			{
+				out.write(buffer);
+			}
+
+			return length;
+		}
+
+		FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+
+		try
+		{
+			long position = 0;
+
+			while(position < length)
+			{
+				position += in.transferTo(position, length - position, out);
+			}
+
+			return position;
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Deletes the temporary file, if any
+	 * On Windows a file still mapped cannot be deleted, it is then deleted when the JVM exits
+	 */
+	public void close()
+	{
+		if(closed)
+			return;
+
+		closed = true;
+
+		if(file != null)
+			delete(file);
+	}
+
+	static void delete(Path file)
+	{
+		try
+		{
+			Files.deleteIfExists(file);
+		}
+		catch (IOException e)
+		{
+			HttpReportClient.log.warn("The temporary report file " + file + " could not be deleted now: " + e);
+
+			File pending = file.toFile();
+			pending.deleteOnExit();
+		}
+	}
+
+	private void checkOpen() throws IOException
+	{
+		if(closed)
+			throw new IOException("The ReportResult is closed");
+	}
+
+	public String toString()
+	{
+		return "ReportResult[" + length + " bytes " + (file == null ? "in memory" : "in " + file) + "]";
+	}
+}
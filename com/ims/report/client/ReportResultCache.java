@@ -0,0 +1,480 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the reports already rendered, keyed by the SHA-256 of the operation, template,
+ * datasource and format, so a repeated render is answered without calling the report server
+ * The memory tier is a LRU bounded by the total size of the reports, the entries evicted from it
+ * are moved to the optional disk tier (also a size bounded LRU) instead of being dropped
+ * Only the calls without side effects are cached, a call printing something never is
+ *
+ * <pre>
+ * ReportResultCache cache = new ReportResultCache(64 * 1024 * 1024);
+ * cache.setTimeToLive(1000 * 60 * 60);
+ * cache.setDiskTier(new File("/var/cache/reports"), 1024L * 1024 * 1024);
+ * client.setResultCache(cache);
+ * </pre>
+ */
+public class ReportResultCache
+{
+	private static final String SUFFIX = ".report";
+
+	private final long maxMemoryBytes;
+	private long maxEntryBytes;
+	private long timeToLive;
+
+	private File diskDirectory;
+	private long maxDiskBytes;
+
+	private final LinkedHashMap<String, MemoryEntry> memory = new LinkedHashMap<String, MemoryEntry>(16, 0.75f, true);
+	private long memoryBytes;
+	private final LinkedHashMap<String, DiskEntry> disk = new LinkedHashMap<String, DiskEntry>(16, 0.75f, true);
+	private long diskBytes;
+	// the entries being written to disk, an entry invalidated or replaced meanwhile is not published
+	private final Map<String, MemoryEntry> spilling = new HashMap<String, MemoryEntry>();
+	private long spills;
+
+	private long memoryHits;
+	private long diskHits;
+	private long misses;
+	private long evictions;
+	private long expirations;
+
+	/**
+	 * @param maxMemoryBytes	the total size of the reports kept in memory
+	 */
+	public ReportResultCache(long maxMemoryBytes)
+	{
+		if(maxMemoryBytes <= 0)
+			throw new IllegalArgumentException("maxMemoryBytes must be greater than 0");
+
+		this.maxMemoryBytes = maxMemoryBytes;
+		this.maxEntryBytes = maxMemoryBytes / 4;
+	}
+
+	/**
+	 * Milliseconds a report stays valid, 0 keeps it until evicted (default)
+	 */
+	public synchronized void setTimeToLive(long timeToLive)
+	{
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Reports bigger than this are not cached (default a quarter of the memory size)
+	 */
+	public synchronized void setMaxEntryBytes(long maxEntryBytes)
+	{
+		this.maxEntryBytes = maxEntryBytes;
+	}
+
+	/**
+	 * Moves the reports evicted from memory to the directory instead of dropping them
+	 * The reports already in the directory (from a previous run) are picked up
+	 */
+	public synchronized void setDiskTier(File directory, long maxDiskBytes) throws IOException
+	{
+		if(!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create the cache directory " + directory);
+
+		this.diskDirectory = directory;
+		this.maxDiskBytes = maxDiskBytes;
+
+		disk.clear();
+		diskBytes = 0;
+
+		File[] files = directory.listFiles();
+		long now = System.currentTimeMillis();
+
+		for(int i = 0; files != null && i < files.length; i++)
+		{
+			String name = files[i].getName();
+
+			// a spill interrupted by the end of the previous run
+			if(name.endsWith(".tmp") && name.contains(SUFFIX + "."))
+			{
+				files[i].delete();
+				continue;
+			}
+
+			if(!name.endsWith(SUFFIX))
+				continue;
+
+			long expires = readExpiry(files[i]);
+
+			if(expires < 0 || (expires != 0 && expires <= now))
+			{
+				files[i].delete();
+				continue;
+			}
+
+			String key = name.substring(0, name.length() - SUFFIX.length());
+			disk.put(key, new DiskEntry(files[i].length(), expires));
+			diskBytes += files[i].length();
+		}
+
+		trimDisk(null);
+	}
+
+	/**
+	 * Returns a copy of the cached report or null
+	 */
+	public byte[] get(String key)
+	{
+		long now = System.currentTimeMillis();
+		File file;
+
+		synchronized(this)
+		{
+			MemoryEntry entry = memory.get(key);
+
+			if(entry != null)
+			{
+				if(entry.isExpired(now))
+				{
+					memory.remove(key);
+					memoryBytes -= entry.data.length;
+					expirations++;
+				}
+				else
+				{
+					memoryHits++;
+					return entry.data.clone();
+				}
+			}
+
+			DiskEntry diskEntry = disk.get(key);
+
+			if(diskEntry == null)
+			{
+				misses++;
+				return null;
+			}
+
+			file = getFile(key);
+
+			if(diskEntry.isExpired(now))
+			{
+				removeFromDisk(key, file);
+				expirations++;
+				misses++;
+				return null;
+			}
+		}
+
+		byte[] data = readFile(file);
+
+		synchronized(this)
+		{
+			if(data == null)
+			{
+				if(disk.containsKey(key))
+					removeFromDisk(key, file);
+
+				misses++;
+				return null;
+			}
+
+			diskHits++;
+		}
+
+		return data;
+	}
+
+	/**
+	 * Caches a copy of the report
+	 */
+	public void put(String key, byte[] data)
+	{
+		List<Map.Entry<String, MemoryEntry>> spilled;
+
+		synchronized(this)
+		{
+			if(data.length > maxEntryBytes)
+				return;
+
+			MemoryEntry previous = memory.put(key, new MemoryEntry(data.clone(), timeToLive > 0 ? System.currentTimeMillis() + timeToLive : 0));
+
+			if(previous != null)
+				memoryBytes -= previous.data.length;
+
+			memoryBytes += data.length;
+			spilling.remove(key);
+
+			spilled = trimMemory();
+		}
+
+		for(int i = 0; i < spilled.size(); i++)
+		{
+			Map.Entry<String, MemoryEntry> entry = spilled.get(i);
+
+			spill(entry.getKey(), entry.getValue());
+		}
+	}
+
+	public synchronized void invalidate(String key)
+	{
+		MemoryEntry entry = memory.remove(key);
+
+		if(entry != null)
+			memoryBytes -= entry.data.length;
+
+		spilling.remove(key);
+
+		if(disk.containsKey(key))
+			removeFromDisk(key, getFile(key));
+	}
+
+	public synchronized void invalidateAll()
+	{
+		memory.clear();
+		memoryBytes = 0;
+		spilling.clear();
+
+		for(Iterator<String> it = new ArrayList<String>(disk.keySet()).iterator(); it.hasNext();)
+		{
+			String key = it.next();
+
+			removeFromDisk(key, getFile(key));
+		}
+	}
+
+	public synchronized ReportCacheStats getStats()
+	{
+		return new ReportCacheStats(memoryHits, diskHits, misses, evictions, expirations, memory.size(), memoryBytes, disk.size(), diskBytes);
+	}
+
+	/**
+	 * Removes the least recently used entries until the memory tier fits, returns the ones to move to disk
+	 */
+	private List<Map.Entry<String, MemoryEntry>> trimMemory()
+	{
+		List<Map.Entry<String, MemoryEntry>> spilled = new ArrayList<Map.Entry<String, MemoryEntry>>();
+		long now = System.currentTimeMillis();
+
+		for(Iterator<Map.Entry<String, MemoryEntry>> it = memory.entrySet().iterator(); memoryBytes > maxMemoryBytes && it.hasNext();)
+		{
+			Map.Entry<String, MemoryEntry> entry = it.next();
+
+			it.remove();
+			memoryBytes -= entry.getValue().data.length;
+
+			if(entry.getValue().isExpired(now))
+				expirations++;
+			else if(diskDirectory != null)
+			{
+				spilled.add(entry);
+				spilling.put(entry.getKey(), entry.getValue());
+			}
+			else
+				evictions++;
+		}
+
+		return spilled;
+	}
+
+	private void spill(String key, MemoryEntry entry)
+	{
+		File directory;
+		long spill;
+
+		synchronized(this)
+		{
+			directory = diskDirectory;
+			spill = ++spills;
+		}
+
+		if(directory == null)
+			return;
+
+		File file = new File(directory, key + SUFFIX);
+		// a name of its own, another spill of the key may be writing at the same time
+		File temp = new File(directory, key + SUFFIX + "." + spill + ".tmp");
+
+		try
+		{
+			DataOutputStream out = new DataOutputStream(new FileOutputStream(temp));
+			try
+			{
+				out.writeLong(entry.expires);
+				out.write(entry.data);
+			}
+			finally
+			{
+				out.close();
+			}
+		}
+		catch (IOException e)
+		{
+			temp.delete();
+			HttpReportClient.log.warn("Could not move the cached report " + key + " to disk: " + e);
+
+			synchronized(this)
+			{
+				spilling.remove(key, entry);
+				evictions++;
+			}
+
+			return;
+		}
+
+		synchronized(this)
+		{
+			// invalidated or replaced while it was written, the file would bring a stale report back
+			if(!spilling.remove(key, entry))
+			{
+				temp.delete();
+				return;
+			}
+
+			if(!temp.renameTo(file))
+			{
+				file.delete();
+
+				if(!temp.renameTo(file))
+				{
+					temp.delete();
+					HttpReportClient.log.warn("Could not move the cached report " + key + " to disk: cannot rename " + temp + " to " + file);
+					evictions++;
+					return;
+				}
+			}
+
+			DiskEntry previous = disk.put(key, new DiskEntry(file.length(), entry.expires));
+
+			if(previous != null)
+				diskBytes -= previous.size;
+
+			diskBytes += file.length();
+
+			trimDisk(key);
+		}
+	}
+
+	private void trimDisk(String keep)
+	{
+		for(Iterator<Map.Entry<String, DiskEntry>> it = disk.entrySet().iterator(); diskBytes > maxDiskBytes && it.hasNext();)
+		{
+			Map.Entry<String, DiskEntry> entry = it.next();
+
+			if(entry.getKey().equals(keep) && disk.size() > 1)
+				continue;
+
+			it.remove();
+			diskBytes -= entry.getValue().size;
+			getFile(entry.getKey()).delete();
+			evictions++;
+		}
+	}
+
+	private void removeFromDisk(String key, File file)
+	{
+		DiskEntry entry = disk.remove(key);
+
+		if(entry != null)
+			diskBytes -= entry.size;
+
+		file.delete();
+	}
+
+	private File getFile(String key)
+	{
+		return new File(diskDirectory, key + SUFFIX);
+	}
+
+	private static byte[] readFile(File file)
+	{
+		try
+		{
+			DataInputStream in = new DataInputStream(new FileInputStream(file));
+			try
+			{
+				in.readLong();
+
+				byte[] data = new byte[(int)(file.length() - 8)];
+				in.readFully(data);
+
+				return data;
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch (IOException e)
+		{
+			HttpReportClient.log.warn("Could not read the cached report " + file + ": " + e);
+			return null;
+		}
+	}
+
+	private static long readExpiry(File file)
+	{
+		try
+		{
+			DataInputStream in = new DataInputStream(new FileInputStream(file));
+			try
+			{
+				return in.readLong();
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch (IOException e)
+		{
+			return -1;
+		}
+	}
+
+	private static class MemoryEntry
+	{
+		final byte[] data;
+		final long expires;
+
+		MemoryEntry(byte[] data, long expires)
+		{
+			this.data = data;
+			this.expires = expires;
+		}
+
+		boolean isExpired(long now)
+		{
+			return expires != 0 && expires <= now;
+		}
+	}
+
+	private static class DiskEntry
+	{
+		final long size;
+		final long expires;
+
+		DiskEntry(long size, long expires)
+		{
+			this.size = size;
+			this.expires = expires;
+		}
+
+		boolean isExpired(long now)
+		{
+			return expires != 0 && expires <= now;
+		}
+	}
+}
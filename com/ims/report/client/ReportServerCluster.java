@@ -0,0 +1,354 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.NoRouteToHostException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.httpclient.ConnectTimeoutException;
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HttpStatus;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * A group of report servers that can be passed to HttpReportClient in place of the server url
+ * Every call goes to the least loaded healthy server, the load being the number of
+ * outstanding calls multiplied by the moving average of the call duration; a server with no call
+ * completed yet is given the mean average of the others (initialLatency if there is none), a failed
+ * call raises the average and equal loads go to the server with fewer outstanding calls
+ * A server failing maxFailures calls in a row (connection errors, 502, 503, 504) is taken out of
+ * rotation for ejectionTime, doubled on every new ejection; once the time is over one call is let
+ * through and the server is back in rotation if it succeeds
+ * Optionally the servers are probed in the background (startHealthChecks())
+ *
+ * <pre>
+ * ReportServerCluster cluster = new ReportServerCluster(new String[] {
+ * 		"http://192.168.1.10/ImsReportServerCgi.exe",
+ * 		"http://192.168.1.11/ImsReportServerCgi.exe" });
+ * byte[] pdf = client.buildReport(cluster, template, dataSource, ExportType.PDF, "", 1);
+ * </pre>
+ */
+public class ReportServerCluster
+{
+	private final List<ReportServerNode> nodes;
+
+	private int maxFailures = 3;
+	private long ejectionTime = 1000 * 30;
+	private long maxEjectionTime = 1000 * 60 * 5;
+	private double latencyAlpha = 0.3;
+	private long initialLatency = 100;
+	private int probeTimeout = 1000 * 5;
+
+	private ScheduledExecutorService healthChecker;
+
+	public ReportServerCluster(String[] serverUrls)
+	{
+		if(serverUrls == null || serverUrls.length == 0)
+			throw new IllegalArgumentException("At least one report server url is needed");
+
+		List<ReportServerNode> list = new ArrayList<ReportServerNode>(serverUrls.length);
+		for(int i = 0; i < serverUrls.length; i++)
+		{
+			list.add(new ReportServerNode(serverUrls[i]));
+		}
+
+		nodes = Collections.unmodifiableList(list);
+	}
+
+	public List<ReportServerNode> getNodes()
+	{
+		return nodes;
+	}
+
+	public int size()
+	{
+		return nodes.size();
+	}
+
+	/**
+	 * Number of failures in a row taking a server out of rotation (default 3)
+	 */
+	public void setMaxFailures(int maxFailures)
+	{
+		this.maxFailures = maxFailures;
+	}
+
+	/**
+	 * Milliseconds a failed server stays out of rotation the first time (default 30 seconds)
+	 */
+	public void setEjectionTime(long ejectionTime)
+	{
+		this.ejectionTime = ejectionTime;
+	}
+
+	/**
+	 * Upper bound of the ejection time when a server keeps failing (default 5 minutes)
+	 */
+	public void setMaxEjectionTime(long maxEjectionTime)
+	{
+		this.maxEjectionTime = maxEjectionTime;
+	}
+
+	/**
+	 * Weight of the last call in the latency moving average, between 0 and 1 (default 0.3)
+	 */
+	public void setLatencyAlpha(double latencyAlpha)
+	{
+		if(latencyAlpha <= 0 || latencyAlpha > 1)
+			throw new IllegalArgumentException("latencyAlpha must be in (0, 1]");
+
+		this.latencyAlpha = latencyAlpha;
+	}
+
+	/**
+	 * Milliseconds assumed for the calls of a server when no server of the cluster completed a call yet (default 100)
+	 * Only the ratio between the servers matters, the first calls then go to the servers with fewer outstanding calls
+	 */
+	public void setInitialLatency(long initialLatency)
+	{
+		if(initialLatency <= 0)
+			throw new IllegalArgumentException("initialLatency must be greater than 0");
+
+		this.initialLatency = initialLatency;
+	}
+
+	/**
+	 * Connect and read timeout of the health probes in milliseconds (default 5 seconds)
+	 */
+	public void setProbeTimeout(int probeTimeout)
+	{
+		this.probeTimeout = probeTimeout;
+	}
+
+	/**
+	 * Probes every server each interval milliseconds with a GET on its url
+	 * Any HTTP response means the server is up, a connection error takes it out of rotation
+	 */
+	public synchronized void startHealthChecks(long interval)
+	{
+		if(healthChecker != null)
+			return;
+
+		healthChecker = Executors.newSingleThreadScheduledExecutor(new ReportExecutors.DaemonThreadFactory("ReportServerCluster-health-"));
+		healthChecker.scheduleWithFixedDelay(new Runnable()
+		{
+			public void run()
+			{
+				probeAll();
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void stopHealthChecks()
+	{
+		if(healthChecker != null)
+		{
+			healthChecker.shutdownNow();
+			healthChecker = null;
+		}
+	}
+
+	/**
+	 * Picks the node for the next call and counts the call as outstanding
+	 * The nodes in rotation not tried yet by the call come first, then the ones in rotation already
+	 * tried (a retry); if every node is out of rotation the one coming back first is used
+	 *
+	 * @param tried		the nodes already tried by the call, may be null
+	 */
+	ReportServerNode acquire(Collection<ReportServerNode> tried)
+	{
+		long now = System.currentTimeMillis();
+		ReportServerNode best = pick(tried, now);
+
+		if(best == null && tried != null)
+			best = pick(null, now);
+
+		if(best == null)
+		{
+			for(int i = 0; i < nodes.size(); i++)
+			{
+				ReportServerNode node = nodes.get(i);
+
+				if(best == null || node.getEjectedUntil() < best.getEjectedUntil())
+					best = node;
+			}
+
+			HttpReportClient.log.warn("No report server is in rotation, trying " + best.getUrl());
+		}
+
+		best.acquired(now);
+
+		return best;
+	}
+
+	/**
+	 * Whether a node in rotation was not tried yet by the call, a hedged request is only sent to such a node
+	 */
+	boolean hasUntried(Collection<ReportServerNode> tried)
+	{
+		return pick(tried, System.currentTimeMillis()) != null;
+	}
+
+	/**
+	 * The node in rotation and not tried with the lowest score, null if there is none
+	 */
+	private ReportServerNode pick(Collection<ReportServerNode> tried, long now)
+	{
+		ReportServerNode best = null;
+		double bestScore = 0;
+		int bestOutstanding = 0;
+		int ties = 0;
+		double seed = getSeedLatency();
+
+		for(int i = 0; i < nodes.size(); i++)
+		{
+			ReportServerNode node = nodes.get(i);
+
+			if((tried != null && tried.contains(node)) || !node.isAvailable(now))
+				continue;
+
+			double score = node.getScore(seed);
+			int outstanding = node.getOutstanding();
+
+			if(best == null || score < bestScore || (score == bestScore && outstanding < bestOutstanding))
+			{
+				best = node;
+				bestScore = score;
+				bestOutstanding = outstanding;
+				ties = 1;
+			}
+			else if(score == bestScore && outstanding == bestOutstanding && ThreadLocalRandom.current().nextInt(++ties) == 0)
+			{
+				// reservoir sampling so equal nodes share the load
+				best = node;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * The mean latency average of the nodes with a history, initialLatency if there is none
+	 */
+	private double getSeedLatency()
+	{
+		double sum = 0;
+		int count = 0;
+
+		for(int i = 0; i < nodes.size(); i++)
+		{
+			ReportServerNode node = nodes.get(i);
+
+			if(node.isSampled())
+			{
+				sum += node.getLatencyEwma();
+				count++;
+			}
+		}
+
+		return count > 0 ? sum / count : initialLatency;
+	}
+
+	void succeeded(ReportServerNode node, long millis)
+	{
+		node.succeeded(millis, latencyAlpha);
+	}
+
+	/**
+	 * Records the outcome of a failed call, only the errors telling the server is unusable count as failures;
+	 * the other server errors (500) weigh on the latency average of the server
+	 */
+	void failed(ReportServerNode node, HttpReportClientException e, long millis)
+	{
+		if(isServerFailure(e))
+			node.failed(System.currentTimeMillis(), millis, latencyAlpha, maxFailures, ejectionTime, maxEjectionTime);
+		else if(e.getStatusCode() >= HttpStatus.SC_INTERNAL_SERVER_ERROR)
+			node.rejected(millis, latencyAlpha);
+		else
+			node.released();
+	}
+
+	/**
+	 * The call never reached the server, it is safe to send it to another one whatever the operation
+	 */
+	static boolean isConnectFailure(HttpReportClientException e)
+	{
+		Throwable cause = e.getCause();
+
+		return cause instanceof ConnectException || cause instanceof NoRouteToHostException
+			|| cause instanceof UnknownHostException || cause instanceof ConnectTimeoutException;
+	}
+
+	static boolean isServerFailure(HttpReportClientException e)
+	{
+		int status = e.getStatusCode();
+
+		if(status == HttpStatus.SC_BAD_GATEWAY || status == HttpStatus.SC_SERVICE_UNAVAILABLE || status == HttpStatus.SC_GATEWAY_TIMEOUT)
+			return true;
+
+		Throwable cause = e.getCause();
+
+		// waiting too long for a pooled connection is a local problem
+		return status == -1 && cause instanceof IOException && !(cause instanceof ConnectionPoolTimeoutException);
+	}
+
+	private void probeAll()
+	{
+		for(int i = 0; i < nodes.size(); i++)
+		{
+			ReportServerNode node = nodes.get(i);
+
+			if(probe(node.getUrl()))
+				node.probeSucceeded();
+			else
+				node.probeFailed(System.currentTimeMillis(), ejectionTime, maxEjectionTime);
+		}
+	}
+
+	private boolean probe(String url)
+	{
+		HttpURLConnection connection = null;
+
+		try
+		{
+			connection = (HttpURLConnection)new URL(url).openConnection();
+			connection.setConnectTimeout(probeTimeout);
+			connection.setReadTimeout(probeTimeout);
+			connection.setRequestMethod("GET");
+
+			int status = connection.getResponseCode();
+
+			return status != HttpStatus.SC_SERVICE_UNAVAILABLE && status != HttpStatus.SC_BAD_GATEWAY && status != HttpStatus.SC_GATEWAY_TIMEOUT;
+		}
+		catch (IOException e)
+		{
+			HttpReportClient.log.debug("The health probe of " + url + " failed: " + e);
+			return false;
+		}
+		finally
+		{
+			if(connection != null)
+				connection.disconnect();
+		}
+	}
+
+	public String toString()
+	{
+		return "ReportServerCluster" + nodes;
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One report server of a ReportServerCluster
+ * Keeps the load (outstanding calls, latency EWMA) and the health of the server
+ */
+public class ReportServerNode
+{
+	// a failed call weighs at least this many times the latency average
+	private static final double FAILURE_PENALTY = 2;
+
+	private final String url;
+	private final AtomicInteger outstanding = new AtomicInteger();
+
+	private double latencyEwma;
+	private boolean sampled;
+	private int consecutiveFailures;
+	private int ejections;
+	private long ejectedUntil;
+	private boolean probation;
+	private long requests;
+	private long failures;
+
+	ReportServerNode(String url)
+	{
+		this.url = url;
+	}
+
+	public String getUrl()
+	{
+		return url;
+	}
+
+	/**
+	 * Calls currently in progress against this server
+	 */
+	public int getOutstanding()
+	{
+		return outstanding.get();
+	}
+
+	/**
+	 * The exponentially weighted moving average of the call duration in milliseconds
+	 */
+	public synchronized double getLatencyEwma()
+	{
+		return latencyEwma;
+	}
+
+	public synchronized boolean isHealthy()
+	{
+		return ejectedUntil == 0;
+	}
+
+	public synchronized long getRequests()
+	{
+		return requests;
+	}
+
+	public synchronized long getFailures()
+	{
+		return failures;
+	}
+
+	public synchronized int getConsecutiveFailures()
+	{
+		return consecutiveFailures;
+	}
+
+	/**
+	 * Healthy nodes, and ejected nodes whose ejection period is over (one trial call is let through)
+	 */
+	synchronized boolean isAvailable(long now)
+	{
+		if(ejectedUntil == 0)
+			return true;
+
+		return now >= ejectedUntil && !probation;
+	}
+
+	synchronized long getEjectedUntil()
+	{
+		return ejectedUntil;
+	}
+
+	/**
+	 * Lower is better
+	 *
+	 * @param seed		the latency of a node with no history yet, the mean of the other nodes or the initial latency
+	 */
+	synchronized double getScore(double seed)
+	{
+		// a node answering in 0 ms must still weigh its outstanding calls
+		return (outstanding.get() + 1) * Math.max(1, sampled ? latencyEwma : seed);
+	}
+
+	synchronized boolean isSampled()
+	{
+		return sampled;
+	}
+
+	void acquired(long now)
+	{
+		outstanding.incrementAndGet();
+
+		synchronized(this)
+		{
+			requests++;
+
+			// the ejection period is over, this call decides whether the node comes back
+			if(ejectedUntil != 0 && now >= ejectedUntil)
+				probation = true;
+		}
+	}
+
+	synchronized void succeeded(long millis, double alpha)
+	{
+		outstanding.decrementAndGet();
+
+		sample(millis, alpha);
+
+		if(ejectedUntil != 0)
+			HttpReportClient.log.info("The report server " + url + " is back in rotation");
+
+		consecutiveFailures = 0;
+		ejections = 0;
+		ejectedUntil = 0;
+		probation = false;
+	}
+
+	/**
+	 * Records a failure, returns true if the node was taken out of rotation
+	 * The call counts in the latency average for at least FAILURE_PENALTY times the average, a node
+	 * failing fast must not look like the least loaded one
+	 */
+	synchronized boolean failed(long now, long millis, double alpha, int maxFailures, long ejectionTime, long maxEjectionTime)
+	{
+		outstanding.decrementAndGet();
+
+		penalize(millis, alpha);
+
+		failures++;
+		consecutiveFailures++;
+
+		if(probation || (ejectedUntil == 0 && consecutiveFailures >= maxFailures))
+		{
+			eject(now, ejectionTime, maxEjectionTime);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Records a call the report server answered with an error (500) without being out of order, it counts
+	 * in the latency average like a failure but does not eject the node
+	 */
+	void rejected(long millis, double alpha)
+	{
+		outstanding.decrementAndGet();
+
+		synchronized(this)
+		{
+			penalize(millis, alpha);
+			probation = false;
+		}
+	}
+
+	/**
+	 * Records a call that did not tell anything about the health of the node (cancelled, rejected by the report)
+	 */
+	void released()
+	{
+		outstanding.decrementAndGet();
+
+		synchronized(this)
+		{
+			probation = false;
+		}
+	}
+
+	synchronized void probeSucceeded()
+	{
+		if(ejectedUntil != 0)
+			HttpReportClient.log.info("The report server " + url + " answered the health probe, back in rotation");
+
+		consecutiveFailures = 0;
+		ejections = 0;
+		ejectedUntil = 0;
+		probation = false;
+	}
+
+	synchronized boolean probeFailed(long now, long ejectionTime, long maxEjectionTime)
+	{
+		if(ejectedUntil != 0 && now < ejectedUntil)
+			return false;
+
+		eject(now, ejectionTime, maxEjectionTime);
+
+		return true;
+	}
+
+	private void sample(double millis, double alpha)
+	{
+		latencyEwma = sampled ? alpha * millis + (1 - alpha) * latencyEwma : millis;
+		sampled = true;
+	}
+
+	private void penalize(long millis, double alpha)
+	{
+		sample(Math.max(millis, Math.max(1, latencyEwma) * FAILURE_PENALTY), alpha);
+	}
+
+	private void eject(long now, long ejectionTime, long maxEjectionTime)
+	{
+		// every new ejection in a row doubles the period
+		long period = Math.min(maxEjectionTime, ejectionTime << Math.min(ejections, 16));
+
+		ejections++;
+		ejectedUntil = now + period;
+		probation = false;
+
+		HttpReportClient.log.warn("The report server " + url + " was taken out of rotation for " + period + " miliseconds after " + consecutiveFailures + " failure(s)");
+	}
+
+	public String toString()
+	{
+		return url + " [outstanding: " + getOutstanding() + "; latency: " + Math.round(getLatencyEwma()) + " ms; healthy: " + isHealthy() + "]";
+	}
+}
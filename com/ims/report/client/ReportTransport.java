@@ -0,0 +1,55 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Sends the report server calls over HTTP, HttpReportClient builds the request and reads the response
+ * The implementations are chosen with HttpReportClientConfig.httpBackend() (Commons HttpClient or
+ * java.net.http) or given to the HttpReportClient constructor; they must be thread safe
+ */
+public interface ReportTransport
+{
+	/**
+	 * Posts the request and returns once the status and the headers of the response are received
+	 * The returned exchange holds the connection until closed, it is closed by the calling thread
+	 * An IOException that is a ConnectException, NoRouteToHostException, UnknownHostException or
+	 * ConnectTimeoutException means the request never reached the server, a read timeout must be
+	 * thrown as a SocketTimeoutException
+	 */
+	TransportExchange post(TransportRequest request) throws IOException;
+
+	/**
+	 * Opens up to the given number of connections to the report server, keeps them in the pool and sends
+	 * the probe of the policy over each; returns the connections that answered with a 2xx status and are still open
+	 * Used by HttpReportClient.warmUp(), a connection already open is probed again
+	 */
+	int warmUp(String serverUrl, int connections, WarmUpPolicy policy) throws IOException;
+
+	/**
+	 * Sends the probe of the policy over the connections to the report server idle in the pool, without
+	 * opening new ones; returns the connections that answered with a 2xx status and are still open, or -1 if
+	 * the transport keeps its connections open itself
+	 * Used by the keep-alive rounds of the WarmUpPolicy
+	 */
+	int keepAlive(String serverUrl, WarmUpPolicy policy) throws IOException;
+
+	/**
+	 * Returns a snapshot of the connection pool of every report server used so far, empty if the transport has no pool
+	 */
+	List<ConnectionPoolStats> getPoolStats();
+
+	/**
+	 * Returns a snapshot of the connection pool of the report server or null if it was not used yet or there is no pool
+	 */
+	ConnectionPoolStats getPoolStats(String serverUrl);
+
+	/**
+	 * Closes the connections and stops the threads of the transport
+	 */
+	void shutdown();
+}
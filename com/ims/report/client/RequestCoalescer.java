@@ -0,0 +1,195 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * Merges identical calls running at the same time into one report server call
+ * The first caller (the leader) runs the call on behalf of everybody, the others wait for its result
+ * The shared call has its own ReportCall: cancelling one waiter does not affect the others,
+ * the shared call is aborted only once every waiter has gone
+ */
+class RequestCoalescer
+{
+	interface Loader
+	{
+		byte[] load(ReportCall call) throws HttpReportClientException;
+	}
+
+	private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<String, Flight>();
+
+	/**
+	 * @param key		identifies identical calls: target, operation and digest of the fields
+	 * @param waiter	the ReportCall of the caller, null if the caller cannot be cancelled
+	 */
+	byte[] execute(String key, ReportCall waiter, Loader loader) throws HttpReportClientException
+	{
+		Flight flight = new Flight();
+		Flight existing = flights.putIfAbsent(key, flight);
+
+		if(existing != null && existing.join())
+			return follow(key, existing, waiter);
+
+		if(existing != null)
+		{
+			// the flight was abandoned by all its waiters, start a new one
+			flights.remove(key, existing);
+			return execute(key, waiter, loader);
+		}
+
+		flight.join();
+		watch(flight, waiter);
+
+		byte[] result;
+
+		try
+		{
+			result = loader.load(flight.call);
+		}
+		catch (HttpReportClientException e)
+		{
+			flights.remove(key, flight);
+			flight.result.completeExceptionally(e);
+			throw e;
+		}
+		catch (RuntimeException e)
+		{
+			flights.remove(key, flight);
+			flight.result.completeExceptionally(e);
+			throw e;
+		}
+
+		flights.remove(key, flight);
+		flight.result.complete(result);
+
+		return result;
+	}
+
+	int getInFlight()
+	{
+		return flights.size();
+	}
+
+	private byte[] follow(String key, Flight flight, ReportCall waiter) throws HttpReportClientException
+	{
+		HttpReportClient.log.debug("Joining the identical call in progress " + key);
+
+		final CompletableFuture<byte[]> mine = flight.result.thenApply(ResultCopy.INSTANCE);
+
+		if(waiter != null)
+		{
+			waiter.addAbortListener(new Runnable()
+			{
+				public void run()
+				{
+					mine.cancel(false);
+				}
+			});
+		}
+
+		watch(flight, waiter);
+
+		try
+		{
+			return mine.get();
+		}
+		catch (CancellationException e)
+		{
+			throw new HttpReportClientException("The call was cancelled");
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new HttpReportClientException("Interrupted while waiting for an identical call", e);
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+
+			if(cause instanceof HttpReportClientException)
+				throw (HttpReportClientException)cause;
+			if(cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+
+			throw new HttpReportClientException(cause);
+		}
+	}
+
+	/**
+	 * Registers the waiter so the flight is aborted once the last waiter is cancelled
+	 */
+	private void watch(final Flight flight, ReportCall waiter)
+	{
+		if(waiter == null)
+		{
+			// nothing can cancel this waiter, it keeps the flight alive
+			return;
+		}
+
+		waiter.addAbortListener(new Runnable()
+		{
+			public void run()
+			{
+				flight.leave();
+			}
+		});
+	}
+
+	private static class Flight
+	{
+		final CompletableFuture<byte[]> result = new CompletableFuture<byte[]>();
+		final ReportCall call = new ReportCall();
+		private int waiters;
+		private boolean abandoned;
+
+		/**
+		 * Returns false if every waiter already left, the flight is then being aborted
+		 */
+		synchronized boolean join()
+		{
+			if(abandoned)
+				return false;
+
+			waiters++;
+
+			return true;
+		}
+
+		void leave()
+		{
+			synchronized(this)
+			{
+				waiters--;
+
+				if(waiters > 0 || result.isDone())
+					return;
+
+				abandoned = true;
+			}
+
+			call.abort();
+		}
+	}
+
+	/**
+	 * Every follower gets its own copy, the callers may modify the byte[] they get
+	 */
+	private static class ResultCopy implements Function<byte[], byte[]>
+	{
+		static final ResultCopy INSTANCE = new ResultCopy();
+
+		public byte[] apply(byte[] result)
+		{
+			return result == null ? null : result.clone();
+		}
+	}
+}
@@ -0,0 +1,20 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Consumes the body of a succesfull report server response
+ */
+interface ResponseHandler<T>
+{
+	/**
+	 * @param body			the response body, null if the server sent no body
+	 * @param contentLength	the Content-Length of the response or -1 if unknown
+	 */
+	T handleResponse(InputStream body, long contentLength) throws IOException;
+}
@@ -0,0 +1,301 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The ResponseHandler implementations used by HttpReportClient
+ * The stream, channel and file handlers copy the report through a fixed size buffer
+ * so the report is never held in memory
+ */
+final class ResponseHandlers
+{
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+	/**
+	 * Reads the whole response into a byte[]
+	 */
+	static final ResponseHandler<byte[]> BYTE_ARRAY = new ResponseHandler<byte[]>()
+	{
+		public byte[] handleResponse(InputStream body, long contentLength) throws IOException
+		{
+			if(body == null)
+				return null;
+
+			// guard below cast from overflow
+			if(contentLength > Integer.MAX_VALUE)
+			{
+				throw new IOException("Content too large to be buffered: " + contentLength + " bytes");
+			}
+
+			if(contentLength >= 0)
+				return readKnownLength(body, (int)contentLength);
+
+			ByteArrayOutputStream outstream = new ByteArrayOutputStream(4 * 1024);
+			copy(body, outstream);
+			outstream.close();
+
+			return outstream.toByteArray();
+		}
+	};
+
+	private ResponseHandlers()
+	{
+	}
+
+	/**
+	 * True if the handler can be run again after a failure, it wrote nothing the caller sees
+	 */
+	static boolean isReplayable(ResponseHandler<?> handler)
+	{
+		return handler == BYTE_ARRAY || handler instanceof ResultHandler;
+	}
+
+	/**
+	 * Keeps the response in memory up to the threshold, beyond it writes the response to a temporary file
+	 *
+	 * @param directory		where the temporary files are created, null for java.io.tmpdir
+	 */
+	static ResponseHandler<ReportResult> toResult(long threshold, File directory)
+	{
+		return new ResultHandler(threshold, directory);
+	}
+
+	static ResponseHandler<Long> toStream(final OutputStream out)
+	{
+		return new ResponseHandler<Long>()
+		{
+			public Long handleResponse(InputStream body, long contentLength) throws IOException
+			{
+				if(body == null)
+					return Long.valueOf(0);
+
+				long count = copy(body, out);
+				out.flush();
+
+				checkLength(contentLength, count);
+
+				return Long.valueOf(count);
+			}
+		};
+	}
+
+	static ResponseHandler<Long> toChannel(final WritableByteChannel out)
+	{
+		return new ResponseHandler<Long>()
+		{
+			public Long handleResponse(InputStream body, long contentLength) throws IOException
+			{
+				if(body == null)
+					return Long.valueOf(0);
+
+				ReadableByteChannel in = Channels.newChannel(body);
+				ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+				long count = 0;
+
+				while(in.read(buffer) >= 0)
+				{
+					buffer.flip();
+
+					while(buffer.hasRemaining())
+					{
+						count += out.write(buffer);
+					}
+
+					buffer.clear();
+				}
+
+				checkLength(contentLength, count);
+
+				return Long.valueOf(count);
+			}
+		};
+	}
+
+	/**
+	 * Writes the response into the file (created or truncated) using FileChannel.transferFrom
+	 */
+	static ResponseHandler<Long> toFile(final Path file)
+	{
+		return new ResponseHandler<Long>()
+		{
+			public Long handleResponse(InputStream body, long contentLength) throws IOException
+			{
+				FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+				try
+				{
+					if(body == null)
+						return Long.valueOf(0);
+
+					ReadableByteChannel in = Channels.newChannel(body);
+					long position = 0;
+					long n;
+
+					// transferFrom returns 0 once the source channel is exhausted
+					while((n = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0)
+					{
+						position += n;
+					}
+
+					out.force(false);
+
+					checkLength(contentLength, position);
+
+					return Long.valueOf(position);
+				}
+				finally
+				{
+					out.close();
+				}
+			}
+		};
+	}
+
+	private static class ResultHandler implements ResponseHandler<ReportResult>
+	{
+		private final long threshold;
+		private final File directory;
+
+		ResultHandler(long threshold, File directory)
+		{
+			this.threshold = threshold;
+			this.directory = directory;
+		}
+
+		public ReportResult handleResponse(InputStream body, long contentLength) throws IOException
+		{
+			if(body == null)
+				return new ReportResult(new byte[0]);
+
+			if(contentLength >= 0 && contentLength <= threshold)
+				return new ReportResult(readKnownLength(body, (int)contentLength));
+
+			byte[] head = new byte[0];
+
+			// the length is not known, the response is buffered until it proves bigger than the threshold
+			if(contentLength < 0)
+			{
+				head = readUpTo(body, (int)threshold + 1);
+
+				if(head.length <= threshold)
+					return new ReportResult(head);
+			}
+
+			Path file = directory != null ? File.createTempFile("report-", ".tmp", directory).toPath() : Files.createTempFile("report-", ".tmp");
+			boolean written = false;
+
+			try
+			{
+				FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+				long position = head.length;
+
+				try
+				{
+					out.write(ByteBuffer.wrap(head));
+
+					ReadableByteChannel in = Channels.newChannel(body);
+					long n;
+
+					while((n = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0)
+					{
+						position += n;
+					}
+				}
+				finally
+				{
+					out.close();
+				}
+
+				checkLength(contentLength, position);
+
+				written = true;
+
+				return new ReportResult(file, position);
+			}
+			finally
+			{
+				if(!written)
+					ReportResult.delete(file);
+			}
+		}
+	}
+
+	/**
+	 * A connection closed before the end of the response must not pass for a complete report
+	 */
+	private static void checkLength(long contentLength, long received) throws IOException
+	{
+		if(contentLength >= 0 && received != contentLength)
+			throw new IOException("Premature end of response: expected " + contentLength + " bytes, received " + received);
+	}
+
+	static long copy(InputStream in, OutputStream out) throws IOException
+	{
+		byte[] buffer = new byte[BUFFER_SIZE];
+		long count = 0;
+		int len;
+
+		while((len = in.read(buffer)) > 0)
+		{
+			out.write(buffer, 0, len);
+			count += len;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Reads until the end of the stream or max bytes, whichever comes first
+	 */
+	private static byte[] readUpTo(InputStream in, int max) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(max, 4 * 1024));
+		byte[] buffer = new byte[Math.min(max, BUFFER_SIZE)];
+		int len;
+
+		while(out.size() < max && (len = in.read(buffer, 0, Math.min(buffer.length, max - out.size()))) > 0)
+		{
+			out.write(buffer, 0, len);
+		}
+
+		return out.toByteArray();
+	}
+
+	/**
+	 * Reads straight into an array of the announced size, avoiding the ByteArrayOutputStream copy
+	 */
+	private static byte[] readKnownLength(InputStream in, int length) throws IOException
+	{
+		byte[] result = new byte[length];
+		int pos = 0;
+
+		while(pos < length)
+		{
+			int n = in.read(result, pos, length - pos);
+
+			if(n < 0)
+				throw new IOException("Premature end of response: expected " + length + " bytes, received " + pos);
+
+			pos += n;
+		}
+
+		return result;
+	}
+}
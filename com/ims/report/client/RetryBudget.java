@@ -0,0 +1,61 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * Limits the retries of a client to a fraction of its calls, plus a few every second
+ * Every call deposits budgetRatio of a retry, every retry withdraws one; the deposits are capped
+ * so a long quiet period does not allow a burst of retries
+ */
+class RetryBudget
+{
+	private static final double MAX_BALANCE = 100;
+
+	private final double ratio;
+	private final int minPerSecond;
+
+	private double balance;
+	private long second;
+	private int retriesThisSecond;
+
+	RetryBudget(double ratio, int minPerSecond)
+	{
+		this.ratio = ratio;
+		this.minPerSecond = minPerSecond;
+	}
+
+	synchronized void deposit()
+	{
+		balance = Math.min(MAX_BALANCE, balance + ratio);
+	}
+
+	/**
+	 * Returns true and counts the retry if the budget allows it
+	 */
+	synchronized boolean tryWithdraw()
+	{
+		long now = System.currentTimeMillis() / 1000;
+
+		if(now != second)
+		{
+			second = now;
+			retriesThisSecond = 0;
+		}
+
+		if(retriesThisSecond < minPerSecond)
+		{
+			retriesThisSecond++;
+			return true;
+		}
+
+		if(balance >= 1)
+		{
+			balance -= 1;
+			return true;
+		}
+
+		return false;
+	}
+}
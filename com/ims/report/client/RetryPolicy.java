@@ -0,0 +1,320 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HttpStatus;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * When a failed call is sent again and when a slow call gets a second (hedged) request
+ * Only the calls without side effects are retried or hedged: buildReport(), convertReport() and
+ * convertOfficeDocument() printing nothing; printReport() and the calls with a printer never are
+ * A call is retried when the server answered one of the retryable statuses (default 502, 503, 504)
+ * or the connection failed or was dropped; the wait between attempts grows exponentially, with
+ * full jitter, and the retries of a client are limited by a budget so a failing server does not get
+ * more load from the retries
+ * Hedging needs a ReportServerCluster: when the call has not answered after the hedge delay a second
+ * request goes to another server and the first answer wins, the other request is aborted
+ *
+ * <pre>
+ * HttpReportClient client = new HttpReportClient(HttpReportClientConfig.builder()
+ * 		.retryPolicy(RetryPolicy.builder().maxAttempts(3).hedgeAfterPercentile(95).build())
+ * 		.build());
+ * </pre>
+ */
+public class RetryPolicy
+{
+	/**
+	 * Every call is sent once (the default)
+	 */
+	public static final RetryPolicy NONE = builder().maxAttempts(1).build();
+
+	/**
+	 * 3 attempts, 100 ms to 5 seconds backoff, no hedging
+	 */
+	public static final RetryPolicy DEFAULT = builder().build();
+
+	private final int maxAttempts;
+	private final long initialBackoff;
+	private final long maxBackoff;
+	private final double multiplier;
+	private final int[] retryableStatuses;
+	private final boolean retryIOExceptions;
+	private final double budgetRatio;
+	private final int budgetMinPerSecond;
+	private final long hedgeDelay;
+	private final double hedgePercentile;
+
+	private RetryPolicy(Builder builder)
+	{
+		maxAttempts = builder.maxAttempts;
+		initialBackoff = builder.initialBackoff;
+		maxBackoff = builder.maxBackoff;
+		multiplier = builder.multiplier;
+		retryableStatuses = builder.retryableStatuses.clone();
+		retryIOExceptions = builder.retryIOExceptions;
+		budgetRatio = builder.budgetRatio;
+		budgetMinPerSecond = builder.budgetMinPerSecond;
+		hedgeDelay = builder.hedgeDelay;
+		hedgePercentile = builder.hedgePercentile;
+	}
+
+	public static Builder builder()
+	{
+		return new Builder();
+	}
+
+	public int getMaxAttempts()
+	{
+		return maxAttempts;
+	}
+
+	public long getInitialBackoff()
+	{
+		return initialBackoff;
+	}
+
+	public long getMaxBackoff()
+	{
+		return maxBackoff;
+	}
+
+	public double getMultiplier()
+	{
+		return multiplier;
+	}
+
+	public int[] getRetryableStatuses()
+	{
+		return retryableStatuses.clone();
+	}
+
+	public boolean isRetryIOExceptions()
+	{
+		return retryIOExceptions;
+	}
+
+	public double getBudgetRatio()
+	{
+		return budgetRatio;
+	}
+
+	public int getBudgetMinPerSecond()
+	{
+		return budgetMinPerSecond;
+	}
+
+	public long getHedgeDelay()
+	{
+		return hedgeDelay;
+	}
+
+	public double getHedgePercentile()
+	{
+		return hedgePercentile;
+	}
+
+	public boolean isHedging()
+	{
+		return hedgeDelay > 0 || hedgePercentile > 0;
+	}
+
+	/**
+	 * Whether the failure is worth another attempt, the side effects of the call are checked by the caller
+	 *
+	 * @param replayable	false when the response was being written to the caller's stream, channel or file:
+	 * 						an error reading it cannot be retried, part of the report was already written
+	 */
+	boolean isRetryable(HttpReportClientException e, boolean replayable)
+	{
+		int status = e.getStatusCode();
+
+		if(status > 0)
+			return Arrays.binarySearch(retryableStatuses, status) >= 0;
+
+		Throwable cause = e.getCause();
+
+		// waiting too long for a pooled connection is a local problem
+		if(cause instanceof ConnectionPoolTimeoutException)
+			return false;
+
+		if(ReportServerCluster.isConnectFailure(e))
+			return true;
+
+		// no cause: cancelled
+		if(!retryIOExceptions || !replayable || !(cause instanceof IOException))
+			return false;
+
+		// a read timeout is retried, an interrupted thread is not
+		return !(cause instanceof InterruptedIOException) || cause instanceof SocketTimeoutException;
+	}
+
+	/**
+	 * The wait before the given retry (1 for the first one): a random time between 0 and the exponential backoff
+	 */
+	long getBackoff(int retry)
+	{
+		double backoff = initialBackoff * Math.pow(multiplier, retry - 1);
+
+		backoff = Math.min(backoff, maxBackoff);
+
+		return (long)(ThreadLocalRandom.current().nextDouble() * backoff);
+	}
+
+	/**
+	 * The delay before hedging, computed from the latency histogram of the operation when a percentile is set
+	 * Returns -1 when the call must not be hedged
+	 */
+	long getHedgeDelay(LatencyHistogram latency)
+	{
+		if(hedgePercentile > 0 && latency != null && latency.getCount() >= 20)
+			return Math.max(hedgeDelay, latency.getPercentileMillis(hedgePercentile));
+
+		return hedgeDelay > 0 ? hedgeDelay : -1;
+	}
+
+	public String toString()
+	{
+		return "RetryPolicy[maxAttempts: " + maxAttempts + "; backoff: " + initialBackoff + "-" + maxBackoff + " ms; statuses: " + Arrays.toString(retryableStatuses)
+			+ "; budget: " + budgetRatio + " + " + budgetMinPerSecond + "/s; hedge: " + hedgeDelay + " ms, p" + hedgePercentile + "]";
+	}
+
+	public static class Builder
+	{
+		private int maxAttempts = 3;
+		private long initialBackoff = 100;
+		private long maxBackoff = 1000 * 5;
+		private double multiplier = 2;
+		private int[] retryableStatuses = { HttpStatus.SC_BAD_GATEWAY, HttpStatus.SC_SERVICE_UNAVAILABLE, HttpStatus.SC_GATEWAY_TIMEOUT };
+		private boolean retryIOExceptions = true;
+		private double budgetRatio = 0.1;
+		private int budgetMinPerSecond = 10;
+		private long hedgeDelay = 0;
+		private double hedgePercentile = 0;
+
+		private Builder()
+		{
+		}
+
+		/**
+		 * The number of times a call is sent, the first one included (default 3)
+		 */
+		public Builder maxAttempts(int value)
+		{
+			maxAttempts = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds, the upper bound of the wait before the first retry (default 100)
+		 */
+		public Builder initialBackoff(long value)
+		{
+			initialBackoff = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds, the upper bound of the wait whatever the retry (default 5 seconds)
+		 */
+		public Builder maxBackoff(long value)
+		{
+			maxBackoff = value;
+			return this;
+		}
+
+		/**
+		 * How much the backoff grows for every retry (default 2)
+		 */
+		public Builder multiplier(double value)
+		{
+			multiplier = value;
+			return this;
+		}
+
+		/**
+		 * The HTTP statuses retried (default 502, 503, 504)
+		 * 500 is not there by default, the report server uses it for a report that cannot be rendered
+		 */
+		public Builder retryableStatuses(int[] value)
+		{
+			retryableStatuses = value.clone();
+			return this;
+		}
+
+		/**
+		 * Retry the calls whose connection failed or was dropped (default true)
+		 */
+		public Builder retryIOExceptions(boolean value)
+		{
+			retryIOExceptions = value;
+			return this;
+		}
+
+		/**
+		 * The retries may add this fraction of the calls on top of them (default 0.1, 10%)
+		 */
+		public Builder budgetRatio(double value)
+		{
+			budgetRatio = value;
+			return this;
+		}
+
+		/**
+		 * Retries allowed every second whatever the ratio, so a client making few calls can still retry (default 10)
+		 */
+		public Builder budgetMinPerSecond(int value)
+		{
+			budgetMinPerSecond = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds after which a call to a cluster is hedged, 0 disables it (default)
+		 * With hedgeAfterPercentile() this is the minimum delay and the delay used until there is enough history
+		 */
+		public Builder hedgeDelay(long value)
+		{
+			hedgeDelay = value;
+			return this;
+		}
+
+		/**
+		 * Hedge the calls slower than this percentile (example 95) of the calls of the same operation
+		 * and export type, 0 disables it (default)
+		 */
+		public Builder hedgeAfterPercentile(double value)
+		{
+			hedgePercentile = value;
+			return this;
+		}
+
+		public RetryPolicy build()
+		{
+			if(maxAttempts < 1)
+				throw new IllegalArgumentException("maxAttempts must be at least 1");
+			if(initialBackoff < 0 || maxBackoff < 0 || hedgeDelay < 0)
+				throw new IllegalArgumentException("The delays must not be negative");
+			if(multiplier < 1)
+				throw new IllegalArgumentException("multiplier must be at least 1");
+			if(budgetRatio < 0 || budgetMinPerSecond < 0)
+				throw new IllegalArgumentException("The retry budget must not be negative");
+			if(hedgePercentile < 0 || hedgePercentile >= 100)
+				throw new IllegalArgumentException("hedgeAfterPercentile must be in [0, 100)");
+
+			Arrays.sort(retryableStatuses);
+
+			return new RetryPolicy(this);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * A snapshot of one priority class on one report server, see SchedulingPolicy
+ */
+public class SchedulerStats
+{
+	private String serverUrl;
+	private ReportPriority priority;
+	private int running;
+	private int queued;
+	private long scheduled;
+	private LatencySnapshot wait;
+
+	SchedulerStats(String serverUrl, ReportPriority priority, int running, int queued, long scheduled, LatencySnapshot wait)
+	{
+		this.serverUrl = serverUrl;
+		this.priority = priority;
+		this.running = running;
+		this.queued = queued;
+		this.scheduled = scheduled;
+		this.wait = wait;
+	}
+
+	public String getServerUrl()
+	{
+		return serverUrl;
+	}
+
+	public ReportPriority getPriority()
+	{
+		return priority;
+	}
+
+	/**
+	 * Calls of the class running on the server
+	 */
+	public int getRunning()
+	{
+		return running;
+	}
+
+	/**
+	 * Calls of the class waiting for a slot
+	 */
+	public int getQueued()
+	{
+		return queued;
+	}
+
+	/**
+	 * Calls of the class let through so far
+	 */
+	public long getScheduled()
+	{
+		return scheduled;
+	}
+
+	/**
+	 * The time the calls waited for a slot, in milliseconds
+	 */
+	public LatencySnapshot getWait()
+	{
+		return wait;
+	}
+
+	public String toString()
+	{
+		return serverUrl + " " + priority + " [running: " + running + "; queued: " + queued + "; scheduled: " + scheduled + "; wait: " + wait + "]";
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * How the calls of the INTERACTIVE and BATCH priority classes share the connections to a report server
+ * At most maxConcurrentPerServer calls run on a server, the others wait in the queue of their class;
+ * the last reservedForInteractive slots are only given to interactive calls, and when both classes
+ * wait the free slots are shared by weighted fair queuing (by default 4 interactive calls for 1 batch
+ * call), so the batch jobs use the spare capacity without delaying the interactive calls
+ */
+public class SchedulingPolicy
+{
+	/**
+	 * No scheduling (the default), the calls go straight to the connection pool
+	 */
+	public static final SchedulingPolicy NONE = builder().enabled(false).build();
+
+	/**
+	 * maxConnectionsPerHost slots, 2 reserved for the interactive calls, weights 4 to 1
+	 */
+	public static final SchedulingPolicy DEFAULT = builder().build();
+
+	private final boolean enabled;
+	private final int maxConcurrentPerServer;
+	private final int reservedForInteractive;
+	private final int interactiveWeight;
+	private final int batchWeight;
+
+	private SchedulingPolicy(Builder builder)
+	{
+		enabled = builder.enabled;
+		maxConcurrentPerServer = builder.maxConcurrentPerServer;
+		reservedForInteractive = builder.reservedForInteractive;
+		interactiveWeight = builder.interactiveWeight;
+		batchWeight = builder.batchWeight;
+	}
+
+	public static Builder builder()
+	{
+		return new Builder();
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public int getMaxConcurrentPerServer()
+	{
+		return maxConcurrentPerServer;
+	}
+
+	public int getReservedForInteractive()
+	{
+		return reservedForInteractive;
+	}
+
+	public int getWeight(ReportPriority priority)
+	{
+		return priority == ReportPriority.BATCH ? batchWeight : interactiveWeight;
+	}
+
+	public String toString()
+	{
+		if(!enabled)
+			return "SchedulingPolicy[none]";
+
+		return "SchedulingPolicy[per server: " + (maxConcurrentPerServer > 0 ? String.valueOf(maxConcurrentPerServer) : "maxConnectionsPerHost")
+			+ "; reserved: " + reservedForInteractive + "; weights: " + interactiveWeight + "/" + batchWeight + "]";
+	}
+
+	public static class Builder
+	{
+		private boolean enabled = true;
+		private int maxConcurrentPerServer = 0;
+		private int reservedForInteractive = 2;
+		private int interactiveWeight = 4;
+		private int batchWeight = 1;
+
+		private Builder()
+		{
+		}
+
+		private Builder enabled(boolean value)
+		{
+			enabled = value;
+			return this;
+		}
+
+		/**
+		 * Calls running at the same time on one report server, 0 uses maxConnectionsPerHost (default)
+		 */
+		public Builder maxConcurrentPerServer(int value)
+		{
+			maxConcurrentPerServer = value;
+			return this;
+		}
+
+		/**
+		 * Slots of every server the batch calls never use (default 2)
+		 */
+		public Builder reservedForInteractive(int value)
+		{
+			reservedForInteractive = value;
+			return this;
+		}
+
+		/**
+		 * The share of the free slots given to the waiting interactive calls (default 4)
+		 */
+		public Builder interactiveWeight(int value)
+		{
+			interactiveWeight = value;
+			return this;
+		}
+
+		/**
+		 * The share of the free slots given to the waiting batch calls (default 1)
+		 */
+		public Builder batchWeight(int value)
+		{
+			batchWeight = value;
+			return this;
+		}
+
+		public SchedulingPolicy build()
+		{
+			if(maxConcurrentPerServer < 0 || reservedForInteractive < 0)
+				throw new IllegalArgumentException("maxConcurrentPerServer and reservedForInteractive must not be negative");
+			if(maxConcurrentPerServer > 0 && reservedForInteractive >= maxConcurrentPerServer)
+				throw new IllegalArgumentException("reservedForInteractive must be less than maxConcurrentPerServer");
+			if(interactiveWeight < 1 || batchWeight < 1)
+				throw new IllegalArgumentException("The weights must be at least 1");
+
+			return new SchedulingPolicy(this);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What each report server said it supports, learned from the X-Report-Server-Capabilities header
+ * sent back with every response, example: "X-Report-Server-Capabilities: multipart, gzip, template-digest, batch"
+ * A server that never sent the header is assumed to only support the original form post
+ */
+class ServerCapabilities
+{
+	static final String HEADER = "X-Report-Server-Capabilities";
+
+	static final String MULTIPART = "multipart";
+	static final String GZIP = "gzip";
+	static final String TEMPLATE_DIGEST = "template-digest";
+	static final String BATCH = "batch";
+
+	private final ConcurrentHashMap<String, Set<String>> servers = new ConcurrentHashMap<String, Set<String>>();
+
+	boolean supports(String serverUrl, String capability)
+	{
+		Set<String> capabilities = servers.get(serverUrl);
+
+		return capabilities != null && capabilities.contains(capability);
+	}
+
+	/**
+	 * True once the server sent its capabilities
+	 */
+	boolean isKnown(String serverUrl)
+	{
+		return servers.containsKey(serverUrl);
+	}
+
+	/**
+	 * Records the capabilities sent back by the server, if any
+	 */
+	void update(String serverUrl, TransportExchange exchange)
+	{
+		String header = exchange.getResponseHeader(HEADER);
+
+		if(header == null)
+			return;
+
+		Set<String> capabilities = new HashSet<String>();
+		StringTokenizer tokens = new StringTokenizer(header, ", ");
+
+		while(tokens.hasMoreTokens())
+		{
+			capabilities.add(tokens.nextToken().toLowerCase());
+		}
+
+		Set<String> previous = servers.put(serverUrl, Collections.unmodifiableSet(capabilities));
+
+		if(previous == null || !previous.equals(capabilities))
+			HttpReportClient.log.info("The report server " + serverUrl + " supports " + capabilities);
+	}
+
+	/**
+	 * Forgets a capability the server turned out not to support
+	 */
+	void remove(String serverUrl, String capability)
+	{
+		Set<String> capabilities = servers.get(serverUrl);
+
+		if(capabilities == null || !capabilities.contains(capability))
+			return;
+
+		Set<String> reduced = new HashSet<String>(capabilities);
+		reduced.remove(capability);
+
+		servers.put(serverUrl, Collections.unmodifiableSet(reduced));
+
+		HttpReportClient.log.warn("The report server " + serverUrl + " does not support " + capability + " any more");
+	}
+}
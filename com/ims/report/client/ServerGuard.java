@@ -0,0 +1,177 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.ims.report.client.exceptions.DeadlineExceededException;
+import com.ims.report.client.exceptions.HttpReportClientException;
+import com.ims.report.client.exceptions.RejectionReason;
+import com.ims.report.client.exceptions.RequestRejectedException;
+
+/**
+ * The circuit breakers and bulkheads of the report servers of a client
+ * Every call takes a Permit before being sent and completes it with its outcome
+ */
+class ServerGuard
+{
+	private final CircuitBreakerPolicy breakerPolicy;
+	private final BulkheadPolicy bulkheadPolicy;
+
+	private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<String, CircuitBreaker>();
+	private final ConcurrentHashMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<String, Bulkhead>();
+
+	ServerGuard(CircuitBreakerPolicy breakerPolicy, BulkheadPolicy bulkheadPolicy)
+	{
+		this.breakerPolicy = breakerPolicy;
+		this.bulkheadPolicy = bulkheadPolicy;
+	}
+
+	/**
+	 * Returns null when the server has no circuit breaker or had no call yet
+	 */
+	CircuitState getState(String serverUrl)
+	{
+		CircuitBreaker breaker = breakers.get(serverUrl);
+
+		return breaker == null ? null : breaker.getState();
+	}
+
+	/**
+	 * Throws a RequestRejectedException if the circuit of the server is open or its bulkhead is full
+	 * The wait for a bulkhead slot ends at the deadline of the call, an aborted call gives its slot back
+	 *
+	 * @param call		null if the call cannot be aborted
+	 */
+	Permit acquire(ReportRequest request, String serverUrl, ReportCall call) throws HttpReportClientException
+	{
+		CircuitBreaker breaker = null;
+
+		if(breakerPolicy.isEnabled())
+		{
+			breaker = getBreaker(serverUrl);
+
+			if(!breaker.tryAcquire())
+				throw new RequestRejectedException("The circuit breaker of the report server " + serverUrl + " is open, the HttpReportClient." + request.getFunction() + "() call was not sent", RejectionReason.CIRCUIT_OPEN);
+		}
+
+		Permit permit = new Permit(breaker);
+
+		if(!bulkheadPolicy.isEnabled())
+			return permit;
+
+		try
+		{
+			if(bulkheadPolicy.getMaxConcurrentPerServer() > 0)
+				permit.server = acquire(request, serverUrl, call, serverUrl, bulkheadPolicy.getMaxConcurrentPerServer());
+
+			if(bulkheadPolicy.getMaxConcurrentPerOperation() > 0)
+				permit.operation = acquire(request, serverUrl, call, serverUrl + "#" + request.getFunction(), bulkheadPolicy.getMaxConcurrentPerOperation());
+		}
+		catch (HttpReportClientException e)
+		{
+			permit.complete(null, 0, true);
+			throw e;
+		}
+
+		return permit;
+	}
+
+	private Bulkhead acquire(ReportRequest request, String serverUrl, ReportCall call, String key, int limit) throws HttpReportClientException
+	{
+		Bulkhead bulkhead = bulkheads.get(key);
+
+		if(bulkhead == null)
+		{
+			Bulkhead created = new Bulkhead(limit);
+
+			bulkhead = bulkheads.putIfAbsent(key, created);
+			if(bulkhead == null)
+				bulkhead = created;
+		}
+
+		CallOptions options = request.getOptions();
+		long maxWait = bulkheadPolicy.getMaxWait();
+		boolean capped = options != null && options.hasDeadline() && options.getRemaining() < maxWait;
+
+		if(capped)
+			maxWait = options.getRemaining();
+
+		try
+		{
+			boolean acquired = bulkhead.tryAcquire(bulkheadPolicy.getMaxQueued(), maxWait);
+
+			if(!acquired && capped && options.getRemaining() == 0)
+				throw new DeadlineExceededException("The HttpReportClient." + request.getFunction() + "() call was not sent, its deadline passed while waiting for the bulkhead of the report server " + serverUrl);
+
+			if(!acquired)
+				throw new RequestRejectedException("Too many calls in progress on the report server " + serverUrl + ", the HttpReportClient." + request.getFunction() + "() call was not sent", RejectionReason.BULKHEAD_FULL);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new HttpReportClientException("The HttpReportClient." + request.getFunction() + "() call was interrupted", e);
+		}
+
+		// cancelled or timed out while waiting
+		if(call != null && call.isAborted())
+		{
+			bulkhead.release();
+			throw new HttpReportClientException("The HttpReportClient." + request.getFunction() + "() call was cancelled");
+		}
+
+		return bulkhead;
+	}
+
+	private CircuitBreaker getBreaker(String serverUrl)
+	{
+		CircuitBreaker breaker = breakers.get(serverUrl);
+
+		if(breaker == null)
+		{
+			CircuitBreaker created = new CircuitBreaker(serverUrl, breakerPolicy);
+
+			breaker = breakers.putIfAbsent(serverUrl, created);
+			if(breaker == null)
+				breaker = created;
+		}
+
+		return breaker;
+	}
+
+	static class Permit
+	{
+		private final CircuitBreaker breaker;
+		private Bulkhead server;
+		private Bulkhead operation;
+
+		private Permit(CircuitBreaker breaker)
+		{
+			this.breaker = breaker;
+		}
+
+		/**
+		 * Frees the bulkhead slots and records the outcome of the call in the circuit breaker
+		 *
+		 * @param error			null if the call succeeded
+		 * @param cancelled		the call was cancelled, its outcome says nothing about the server
+		 */
+		void complete(HttpReportClientException error, long millis, boolean cancelled)
+		{
+			if(operation != null)
+				operation.release();
+			if(server != null)
+				server.release();
+
+			if(breaker == null)
+				return;
+
+			if(cancelled)
+				breaker.released();
+			else
+				breaker.recordOutcome(error != null && ReportServerCluster.isServerFailure(error), millis);
+		}
+	}
+}
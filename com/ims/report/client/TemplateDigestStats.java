@@ -0,0 +1,89 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * A snapshot of the templates a report server holds for the client, see HttpReportClientConfig.templateDigest()
+ */
+public class TemplateDigestStats
+{
+	private String serverUrl;
+	private int templates;
+	private long sentByDigest;
+	private long uploaded;
+	private long misses;
+	private long bytesSaved;
+	private long restarts;
+
+	TemplateDigestStats(String serverUrl, int templates, long sentByDigest, long uploaded, long misses, long bytesSaved, long restarts)
+	{
+		this.serverUrl = serverUrl;
+		this.templates = templates;
+		this.sentByDigest = sentByDigest;
+		this.uploaded = uploaded;
+		this.misses = misses;
+		this.bytesSaved = bytesSaved;
+		this.restarts = restarts;
+	}
+
+	public String getServerUrl()
+	{
+		return serverUrl;
+	}
+
+	/**
+	 * The templates the client believes the server holds
+	 */
+	public int getTemplates()
+	{
+		return templates;
+	}
+
+	/**
+	 * The calls that sent the digest of their template instead of the template
+	 */
+	public long getSentByDigest()
+	{
+		return sentByDigest;
+	}
+
+	/**
+	 * The calls that uploaded their template along with its digest
+	 */
+	public long getUploaded()
+	{
+		return uploaded;
+	}
+
+	/**
+	 * The calls the server answered it no longer held the template, they were sent again with it
+	 */
+	public long getMisses()
+	{
+		return misses;
+	}
+
+	/**
+	 * The template bytes not uploaded, before the base64 encoding
+	 */
+	public long getBytesSaved()
+	{
+		return bytesSaved;
+	}
+
+	/**
+	 * The times the server came back as a new instance, forgetting its templates
+	 */
+	public long getRestarts()
+	{
+		return restarts;
+	}
+
+	public String toString()
+	{
+		return serverUrl + " [templates: " + templates + "; sent by digest: " + sentByDigest + "; uploaded: " + uploaded + "; misses: " + misses
+			+ "; bytes saved: " + bytesSaved + "; restarts: " + restarts + "]";
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The template digests each report server received from the client, for the servers advertising
+ * the "template-digest" capability
+ * A call whose template the server holds sends the SHA-256 of the template (templateDigest field) instead
+ * of the template; a call whose template the server may not hold sends both, the server keeps the template
+ * under its digest. A server that evicted the template answers 412 and the call is sent again with it
+ * Every response carries the X-Report-Server-Instance header, a new value means the server restarted
+ * and lost its templates
+ */
+class TemplateRegistry
+{
+	static final String INSTANCE_HEADER = "X-Report-Server-Instance";
+
+	// the templates remembered per server, the least recently used are forgotten first
+	private static final int MAX_TEMPLATES = 1024;
+
+	private final ConcurrentHashMap<String, ServerTemplates> servers = new ConcurrentHashMap<String, ServerTemplates>();
+
+	/**
+	 * True if the server received the template from this client and did not restart since
+	 */
+	boolean contains(String serverUrl, String digest)
+	{
+		ServerTemplates templates = servers.get(serverUrl);
+
+		return templates != null && templates.contains(digest);
+	}
+
+	/**
+	 * Counts a call that sent its template by digest only
+	 */
+	void sentByDigest(String serverUrl, long templateLength)
+	{
+		getTemplates(serverUrl).sentByDigest(templateLength);
+	}
+
+	/**
+	 * Records that the server answered a call that uploaded the template
+	 */
+	void uploaded(String serverUrl, String digest)
+	{
+		getTemplates(serverUrl).uploaded(digest);
+	}
+
+	/**
+	 * Forgets a template the server no longer holds
+	 */
+	void missed(String serverUrl, String digest)
+	{
+		getTemplates(serverUrl).missed(digest);
+	}
+
+	/**
+	 * Forgets every template of a server that came back as a new instance
+	 */
+	void update(String serverUrl, TransportExchange exchange)
+	{
+		String instance = exchange.getResponseHeader(INSTANCE_HEADER);
+
+		if(instance != null)
+			getTemplates(serverUrl).setInstance(serverUrl, instance);
+	}
+
+	List<TemplateDigestStats> getStats()
+	{
+		List<TemplateDigestStats> stats = new ArrayList<TemplateDigestStats>();
+
+		for(Iterator<Map.Entry<String, ServerTemplates>> it = servers.entrySet().iterator(); it.hasNext();)
+		{
+			Map.Entry<String, ServerTemplates> entry = it.next();
+
+			stats.add(entry.getValue().getStats(entry.getKey()));
+		}
+
+		return stats;
+	}
+
+	private ServerTemplates getTemplates(String serverUrl)
+	{
+		ServerTemplates templates = servers.get(serverUrl);
+
+		if(templates == null)
+		{
+			ServerTemplates created = new ServerTemplates();
+
+			templates = servers.putIfAbsent(serverUrl, created);
+			if(templates == null)
+				templates = created;
+		}
+
+		return templates;
+	}
+
+	private static class ServerTemplates
+	{
+		private final LinkedHashMap<String, Boolean> digests = new LinkedHashMap<String, Boolean>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest)
+			{
+				return size() > MAX_TEMPLATES;
+			}
+		};
+		private String instance;
+		private long sentByDigest;
+		private long uploaded;
+		private long misses;
+		private long bytesSaved;
+		private long restarts;
+
+		synchronized boolean contains(String digest)
+		{
+			return digests.get(digest) != null;
+		}
+
+		synchronized void sentByDigest(long templateLength)
+		{
+			sentByDigest++;
+			bytesSaved += templateLength;
+		}
+
+		synchronized void uploaded(String digest)
+		{
+			uploaded++;
+			digests.put(digest, Boolean.TRUE);
+		}
+
+		synchronized void missed(String digest)
+		{
+			misses++;
+			digests.remove(digest);
+		}
+
+		synchronized void setInstance(String serverUrl, String value)
+		{
+			if(value.equals(instance))
+				return;
+
+			if(instance != null)
+			{
+				restarts++;
+
+				HttpReportClient.log.info("The report server " + serverUrl + " restarted, its " + digests.size() + " template(s) will be uploaded again");
+			}
+
+			instance = value;
+			digests.clear();
+		}
+
+		synchronized TemplateDigestStats getStats(String serverUrl)
+		{
+			return new TemplateDigestStats(serverUrl, digests.size(), sentByDigest, uploaded, misses, bytesSaved, restarts);
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The body of a TransportRequest (base64 form, multipart, gzip), written by the transport to its connection
+ * It is not tied to an HTTP library, each ReportTransport adapts it to its own
+ */
+public interface TransportBody
+{
+	/**
+	 * The number of bytes writeTo() writes, -1 if not known: the body is then sent chunked
+	 */
+	long getContentLength();
+
+	/**
+	 * The Content-Type header, null if none
+	 */
+	String getContentType();
+
+	/**
+	 * False if the body can only be written once (a streamed datasource read as it is sent)
+	 */
+	boolean isRepeatable();
+
+	/**
+	 * Writes the body, the stream is not closed
+	 */
+	void writeTo(OutputStream out) throws IOException;
+}
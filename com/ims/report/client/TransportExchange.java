@@ -0,0 +1,46 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The response of a ReportTransport.post(), it holds the connection until closed
+ */
+public interface TransportExchange
+{
+	int getStatusCode();
+
+	/**
+	 * The protocol the response came over, example: HTTP/1.1
+	 */
+	String getProtocol();
+
+	/**
+	 * The first value of the response header or null
+	 */
+	String getResponseHeader(String name);
+
+	/**
+	 * The Content-Length of the response, -1 if not known
+	 */
+	long getResponseContentLength();
+
+	/**
+	 * The response body as it comes from the connection (not decompressed), may be null
+	 */
+	InputStream getResponseBody() throws IOException;
+
+	/**
+	 * Reads the whole body as text, used for the error messages
+	 */
+	String getResponseBodyAsString() throws IOException;
+
+	/**
+	 * Releases the connection, the body is no longer readable
+	 */
+	void close();
+}
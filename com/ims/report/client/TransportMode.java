@@ -0,0 +1,37 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * How the template, datasource, prepared report and office document are sent to the report server
+ */
+public class TransportMode
+{
+	private String name;
+
+	/**
+	 * application/x-www-form-urlencoded with the binary fields base64 encoded, understood by every report server
+	 */
+	public static final TransportMode FORM = new TransportMode("FORM");
+	/**
+	 * multipart/form-data with the binary fields sent as raw bytes, the report server must support it
+	 */
+	public static final TransportMode MULTIPART = new TransportMode("MULTIPART");
+	/**
+	 * FORM until the report server advertises multipart support, then MULTIPART
+	 * If the server later rejects a multipart call (415) it falls back to FORM for that server
+	 */
+	public static final TransportMode AUTO = new TransportMode("AUTO");
+
+	private TransportMode(String name)
+	{
+		this.name = name;
+	}
+
+	public String toString()
+	{
+		return name;
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A POST handed to a ReportTransport: the report server, the headers and the body
+ * The body writes itself to the connection, see TransportBody
+ */
+public class TransportRequest
+{
+	private final String serverUrl;
+	private final TransportBody body;
+	private final Map<String, String> headers = new LinkedHashMap<String, String>();
+	private final ReportCall call;
+	private long timeout;
+
+	TransportRequest(String serverUrl, TransportBody body, ReportCall call)
+	{
+		this.serverUrl = serverUrl;
+		this.body = body;
+		this.call = call;
+	}
+
+	void setHeader(String name, String value)
+	{
+		headers.put(name, value);
+	}
+
+	void setTimeout(long timeout)
+	{
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Milliseconds left before the deadline of the call, 0 if it has none
+	 * The transport waits for the response at most that long, the call is aborted anyway when it is over
+	 */
+	public long getTimeout()
+	{
+		return timeout;
+	}
+
+	public String getServerUrl()
+	{
+		return serverUrl;
+	}
+
+	public TransportBody getBody()
+	{
+		return body;
+	}
+
+	/**
+	 * The headers to send besides Content-Type and Content-Length, which come from the body
+	 */
+	public Map<String, String> getHeaders()
+	{
+		return Collections.unmodifiableMap(headers);
+	}
+
+	/**
+	 * Called by the transport before it sends the request: the handler is run if the call is cancelled
+	 * and must make the blocked post() throw an IOException, soon
+	 * Returns false if the call was already cancelled, the request must then not be sent
+	 */
+	public boolean setAbortHandler(Runnable handler)
+	{
+		return call == null || call.attach(handler);
+	}
+
+	public boolean isAborted()
+	{
+		return call != null && call.isAborted();
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Which report servers HttpReportClient.warmUp() prepares and how the prepared connections are kept
+ * For every server the address is resolved (and kept by the JVM address cache), minConnections pooled
+ * connections are opened and each is sent a probe (HEAD on the server url by default), so the first calls
+ * after a start do not pay for the DNS lookup, the TCP handshakes and the cold paths of the server
+ * A connection counts as warm if its probe was answered with a 2xx status and the server kept it open
+ * Every keepAliveInterval the connections idle in the pool are probed again, they then stay open and below
+ * the idleConnectionTimeout of the config; the ones the server closed meanwhile are not opened again until
+ * the next warmUp()
+ *
+ * <pre>
+ * HttpReportClientConfig config = HttpReportClientConfig.builder()
+ * 	.warmUp(WarmUpPolicy.builder().server(serverUrl).minConnections(4).build())
+ * 	.build();
+ * </pre>
+ */
+public class WarmUpPolicy
+{
+	/**
+	 * No server to warm up (the default), HttpReportClient.warmUp(serverUrl) can still be called
+	 */
+	public static final WarmUpPolicy NONE = builder().build();
+
+	private final List<String> servers;
+	private final int minConnections;
+	private final boolean atStartup;
+	private final long keepAliveInterval;
+	private final int timeout;
+	private final String probeMethod;
+	private final String probePath;
+
+	private WarmUpPolicy(Builder builder)
+	{
+		servers = Collections.unmodifiableList(new ArrayList<String>(builder.servers));
+		minConnections = builder.minConnections;
+		atStartup = builder.atStartup;
+		keepAliveInterval = builder.keepAliveInterval;
+		timeout = builder.timeout;
+		probeMethod = builder.probeMethod;
+		probePath = builder.probePath;
+	}
+
+	public static Builder builder()
+	{
+		return new Builder();
+	}
+
+	public List<String> getServers()
+	{
+		return servers;
+	}
+
+	public int getMinConnections()
+	{
+		return minConnections;
+	}
+
+	public boolean isAtStartup()
+	{
+		return atStartup;
+	}
+
+	public long getKeepAliveInterval()
+	{
+		return keepAliveInterval;
+	}
+
+	public int getTimeout()
+	{
+		return timeout;
+	}
+
+	public String getProbeMethod()
+	{
+		return probeMethod;
+	}
+
+	/**
+	 * The path and query the probes are sent to, null for the ones of the server url
+	 */
+	public String getProbePath()
+	{
+		return probePath;
+	}
+
+	public String toString()
+	{
+		return "WarmUpPolicy[servers: " + servers + "; connections: " + minConnections + "; at startup: " + atStartup
+			+ "; keep alive: " + keepAliveInterval + " ms; timeout: " + timeout + " ms; probe: " + probeMethod
+			+ (probePath != null ? " " + probePath : "") + "]";
+	}
+
+	public static class Builder
+	{
+		private List<String> servers = new ArrayList<String>();
+		private int minConnections = 2;
+		private boolean atStartup = true;
+		private long keepAliveInterval = 1000 * 30;
+		private int timeout = 1000 * 5;
+		private String probeMethod = "HEAD";
+		private String probePath;
+
+		private Builder()
+		{
+		}
+
+		/**
+		 * Adds a report server to warm up
+		 *
+		 * @param serverUrl			example:	http://192.168.1.10/ImsReportServerCgi.exe
+		 */
+		public Builder server(String serverUrl)
+		{
+			if(serverUrl == null)
+				throw new IllegalArgumentException("serverUrl must not be null");
+
+			servers.add(serverUrl);
+			return this;
+		}
+
+		/**
+		 * Adds every report server of the cluster
+		 */
+		public Builder cluster(ReportServerCluster cluster)
+		{
+			List<ReportServerNode> nodes = cluster.getNodes();
+
+			for(int i = 0; i < nodes.size(); i++)
+			{
+				servers.add(nodes.get(i).getUrl());
+			}
+
+			return this;
+		}
+
+		/**
+		 * Pooled connections opened and kept to every server (default 2), never more than maxConnectionsPerHost
+		 * With the java.net.http backends as many probes are sent at the same time, over HTTP/2 they share one connection
+		 */
+		public Builder minConnections(int value)
+		{
+			minConnections = value;
+			return this;
+		}
+
+		/**
+		 * Warms the servers up in the background when the client is created (default true)
+		 */
+		public Builder atStartup(boolean value)
+		{
+			atStartup = value;
+			return this;
+		}
+
+		/**
+		 * Milliseconds between two rounds of keep-alive probes, 0 for none (default 30 seconds)
+		 * It should be less than the idleConnectionTimeout of the config and the keep-alive timeout of the server
+		 */
+		public Builder keepAliveInterval(long value)
+		{
+			keepAliveInterval = value;
+			return this;
+		}
+
+		/**
+		 * Connect and read timeout of the probes in milliseconds (default 5 seconds)
+		 */
+		public Builder timeout(int value)
+		{
+			timeout = value;
+			return this;
+		}
+
+		/**
+		 * The method of the probes: HEAD (the default), OPTIONS or GET
+		 * The probes should not make the server do any work, a GET on the CGI runs it
+		 */
+		public Builder probeMethod(String value)
+		{
+			probeMethod = value;
+			return this;
+		}
+
+		/**
+		 * The path and query the probes are sent to on every server, example: /health
+		 * By default the ones of the server url
+		 */
+		public Builder probePath(String value)
+		{
+			probePath = value;
+			return this;
+		}
+
+		public WarmUpPolicy build()
+		{
+			if(minConnections <= 0)
+				throw new IllegalArgumentException("minConnections must be greater than 0");
+			if(keepAliveInterval < 0)
+				throw new IllegalArgumentException("keepAliveInterval must not be negative");
+			if(timeout <= 0)
+				throw new IllegalArgumentException("timeout must be greater than 0");
+			if(!"HEAD".equals(probeMethod) && !"OPTIONS".equals(probeMethod) && !"GET".equals(probeMethod))
+				throw new IllegalArgumentException("probeMethod must be HEAD, OPTIONS or GET");
+			if(probePath != null && !probePath.startsWith("/"))
+				throw new IllegalArgumentException("probePath must start with /");
+
+			return new WarmUpPolicy(this);
+		}
+	}
+}
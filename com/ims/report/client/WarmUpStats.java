@@ -0,0 +1,94 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+/**
+ * The outcome of the last warm-up or keep-alive round of one report server
+ */
+public class WarmUpStats
+{
+	private String serverUrl;
+	private int requested;
+	private int connections;
+	private long resolveTime;
+	private long duration;
+	private long time;
+	private String error;
+
+	WarmUpStats(String serverUrl, int requested, int connections, long resolveTime, long duration, long time, String error)
+	{
+		this.serverUrl = serverUrl;
+		this.requested = requested;
+		this.connections = connections;
+		this.resolveTime = resolveTime;
+		this.duration = duration;
+		this.time = time;
+		this.error = error;
+	}
+
+	public String getServerUrl()
+	{
+		return serverUrl;
+	}
+
+	/**
+	 * Connections the round had to warm
+	 */
+	public int getRequested()
+	{
+		return requested;
+	}
+
+	/**
+	 * Connections that answered their probe with a 2xx status and stayed open
+	 */
+	public int getConnections()
+	{
+		return connections;
+	}
+
+	/**
+	 * Milliseconds the address lookup took
+	 */
+	public long getResolveTime()
+	{
+		return resolveTime;
+	}
+
+	/**
+	 * Milliseconds the whole round took
+	 */
+	public long getDuration()
+	{
+		return duration;
+	}
+
+	/**
+	 * When the round ended (System.currentTimeMillis())
+	 */
+	public long getTime()
+	{
+		return time;
+	}
+
+	/**
+	 * Why the round failed, null if every connection answered
+	 */
+	public String getError()
+	{
+		return error;
+	}
+
+	public boolean isWarm()
+	{
+		return error == null && connections >= requested;
+	}
+
+	public String toString()
+	{
+		return serverUrl + " [connections: " + connections + "/" + requested + "; resolve: " + resolveTime + " ms; duration: " + duration + " ms"
+			+ (error != null ? "; error: " + error : "") + "]";
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Turns a DatasourceWriter into the stream the request entity reads
+ * The writer runs on a thread of the default executor and hands its output over in chunks; at most
+ * MAX_CHUNKS are waiting to be sent, a writer faster than the connection waits for it
+ * Closing the stream stops the writer at its next write
+ */
+class WriterInputStream extends InputStream
+{
+	private static final int CHUNK_SIZE = 16 * 1024;
+	private static final int MAX_CHUNKS = 4;
+
+	private final LinkedList<byte[]> chunks = new LinkedList<byte[]>();
+	private byte[] current;
+	private int currentPos;
+	private boolean finished;
+	private Throwable failure;
+	private boolean closed;
+
+	WriterInputStream(final DatasourceWriter writer) throws IOException
+	{
+		try
+		{
+			ReportExecutors.getDefault().execute(new Runnable()
+			{
+				public void run()
+				{
+					ChunkOutputStream out = new ChunkOutputStream();
+
+					try
+					{
+						writer.write(out);
+						out.flush();
+						finish(null);
+					}
+					catch (Throwable e)
+					{
+						finish(e);
+					}
+				}
+			});
+		}
+		catch (RejectedExecutionException e)
+		{
+			throw new IOException("The DatasourceWriter could not be started: " + e.toString(), e);
+		}
+	}
+
+	public int read() throws IOException
+	{
+		byte[] single = new byte[1];
+		int len = read(single, 0, 1);
+
+		return len <= 0 ? -1 : single[0] & 0xff;
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		if(len == 0)
+			return 0;
+
+		if(current == null || currentPos >= current.length)
+		{
+			current = take();
+			currentPos = 0;
+
+			if(current == null)
+				return -1;
+		}
+
+		int n = Math.min(len, current.length - currentPos);
+		System.arraycopy(current, currentPos, b, off, n);
+		currentPos += n;
+
+		return n;
+	}
+
+	public synchronized void close()
+	{
+		closed = true;
+		chunks.clear();
+		notifyAll();
+	}
+
+	/**
+	 * Returns the next chunk written, null once the writer is done
+	 */
+	private synchronized byte[] take() throws IOException
+	{
+		try
+		{
+			while(chunks.isEmpty() && !finished && !closed)
+			{
+				wait();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the DatasourceWriter");
+		}
+
+		if(closed)
+			throw new IOException("The datasource stream is closed");
+
+		// the chunks written before the writer failed are not worth sending
+		if(failure != null)
+			throw new IOException("The DatasourceWriter failed: " + failure.toString(), failure);
+
+		if(chunks.isEmpty())
+			return null;
+
+		byte[] chunk = chunks.removeFirst();
+		notifyAll();
+
+		return chunk;
+	}
+
+	private synchronized void put(byte[] chunk) throws IOException
+	{
+		try
+		{
+			while(chunks.size() >= MAX_CHUNKS && !closed)
+			{
+				wait();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the datasource to be sent");
+		}
+
+		if(closed)
+			throw new IOException("The call was aborted, the datasource is no longer sent");
+
+		chunks.add(chunk);
+		notifyAll();
+	}
+
+	private synchronized void finish(Throwable e)
+	{
+		finished = true;
+		failure = e;
+		notifyAll();
+	}
+
+	private class ChunkOutputStream extends OutputStream
+	{
+		private byte[] buffer = new byte[CHUNK_SIZE];
+		private int count;
+
+		public void write(int b) throws IOException
+		{
+			if(count == buffer.length)
+				flushBuffer();
+
+			buffer[count++] = (byte)b;
+		}
+
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			while(len > 0)
+			{
+				if(count == buffer.length)
+					flushBuffer();
+
+				int n = Math.min(len, buffer.length - count);
+
+				System.arraycopy(b, off, buffer, count, n);
+				count += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		public void flush() throws IOException
+		{
+			if(count > 0)
+				flushBuffer();
+		}
+
+		private void flushBuffer() throws IOException
+		{
+			byte[] chunk = buffer;
+
+			if(count < buffer.length)
+			{
+				chunk = new byte[count];
+				System.arraycopy(buffer, 0, chunk, 0, count);
+			}
+			else
+			{
+				buffer = new byte[CHUNK_SIZE];
+			}
+
+			count = 0;
+			put(chunk);
+		}
+	}
+}
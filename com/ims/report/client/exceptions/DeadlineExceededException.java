@@ -0,0 +1,24 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client.exceptions;
+
+/**
+ * The call did not complete before the deadline of its CallOptions, it was aborted
+ * A call with side effects (printing) may still have been carried out by the report server
+ */
+public class DeadlineExceededException extends HttpReportClientException
+{
+	private static final long serialVersionUID = 1L;
+
+	public DeadlineExceededException(String arg0)
+	{
+		super(arg0);
+	}
+
+	public DeadlineExceededException(String arg0, Throwable arg1)
+	{
+		super(arg0, arg1);
+	}
+}
@@ -10,6 +10,8 @@ package com.ims.report.client.exceptions;
  */
 public class HttpReportClientException extends Exception
 {
+	private int statusCode = -1;
+
 	public HttpReportClientException()
 	{
 		super();
@@ -29,4 +31,18 @@ public class HttpReportClientException extends Exception
 	{
 		super(arg0, arg1);
 	}
+
+	public HttpReportClientException(String arg0, int statusCode)
+	{
+		super(arg0);
+		this.statusCode = statusCode;
+	}
+
+	/**
+	 * The HTTP status returned by the report server or -1 if the call failed before a response was received
+	 */
+	public int getStatusCode()
+	{
+		return statusCode;
+	}
 }
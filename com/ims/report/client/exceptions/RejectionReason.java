@@ -0,0 +1,56 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client.exceptions;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+/**
+ * Why a call was rejected by the client without being sent, see RequestRejectedException
+ */
+public class RejectionReason implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private String name;
+
+	/**
+	 * The circuit breaker of the report server is open
+	 */
+	public static final RejectionReason CIRCUIT_OPEN = new RejectionReason("CIRCUIT_OPEN");
+	/**
+	 * The bulkhead of the report server or of the operation is full
+	 */
+	public static final RejectionReason BULKHEAD_FULL = new RejectionReason("BULKHEAD_FULL");
+	/**
+	 * The adaptive concurrency limit of the report server is reached
+	 */
+	public static final RejectionReason CONCURRENCY_LIMIT = new RejectionReason("CONCURRENCY_LIMIT");
+
+	private RejectionReason(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * Keeps the constants unique when a RequestRejectedException is deserialized, they are compared with ==
+	 */
+	private Object readResolve() throws ObjectStreamException
+	{
+		if(CIRCUIT_OPEN.name.equals(name))
+			return CIRCUIT_OPEN;
+		if(BULKHEAD_FULL.name.equals(name))
+			return BULKHEAD_FULL;
+		if(CONCURRENCY_LIMIT.name.equals(name))
+			return CONCURRENCY_LIMIT;
+
+		return this;
+	}
+
+	public String toString()
+	{
+		return name;
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client.exceptions;
+
+/**
+ * The call was rejected by the client without being sent: the circuit breaker of the report server
+ * is open, its bulkhead is full or its concurrency limit is reached
+ * Nothing reached the server, a call to a cluster is sent to the next server
+ */
+public class RequestRejectedException extends HttpReportClientException
+{
+	private static final long serialVersionUID = 1L;
+
+	private RejectionReason reason;
+
+	public RequestRejectedException(String arg0, RejectionReason reason)
+	{
+		super(arg0);
+		this.reason = reason;
+	}
+
+	public RejectionReason getReason()
+	{
+		return reason;
+	}
+
+	/**
+	 * True when rejected by the circuit breaker
+	 */
+	public boolean isCircuitOpen()
+	{
+		return reason == RejectionReason.CIRCUIT_OPEN;
+	}
+}
@@ -0,0 +1,268 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.ims.report.client.stub.StubReportServer;
+
+/**
+ * Measures HttpReportClient before a change is deployed, against an in-process StubReportServer
+ * Every benchmark reports its throughput and its latency percentiles, and the GC profiler the allocation
+ * rate and the GC activity
+ *
+ * The benchmarks:
+ * 	encode		writing the base64 form post of a template and a datasource (FormRequestEntity)
+ * 	decode		reading a response into a byte[] (the getResponseAsByteArray() path)
+ * 	build		buildReport() end to end
+ * 	convert		convertReport() end to end
+ *
+ * <pre>
+ * mvn -Pjmh test -Djmh.args="build -p size=1k,1m -threads 1,16,256"
+ * </pre>
+ *
+ * The arguments are the ones of the JMH command line, and:
+ * 	-threads		1,4,16,64,256 (the callers of build and convert, encode and decode always run on 1 thread)
+ *
+ * The parameters (-p name=values):
+ * 	size			1k,64k,1m,16m,100m (the datasource / prepared report size)
+ * 	mode			form (form, multipart or auto, see TransportMode)
+ * 	compression		default (default or none, see CompressionPolicy)
+ * 	latency			0 (milliseconds the stub waits before answering)
+ * 	backend			commons (commons, jdk_http1 or jdk_http2, see HttpBackend)
+ *
+ * The runs needing more memory than a quarter of the heap (size multiplied by callers) fail in their setup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReportBenchmark
+{
+	private static final int[] THREADS = { 1, 4, 16, 64, 256 };
+
+	@Param({ "1k", "64k", "1m", "16m", "100m" })
+	public String size;
+
+	@Param("form")
+	public String mode;
+
+	@Param("default")
+	public String compression;
+
+	@Param("0")
+	public long latency;
+
+	@Param("commons")
+	public String backend;
+
+	private StubReportServer stub;
+	private HttpReportClient client;
+	private byte[] template;
+	private byte[] payload;
+
+	public static void main(String[] args) throws Exception
+	{
+		List<String> jmhArgs = new ArrayList<String>();
+		int[] threads = THREADS;
+
+		for(int i = 0; i < args.length; i++)
+		{
+			if(args[i].equals("-threads") && i + 1 < args.length)
+				threads = parseThreads(args[++i]);
+			else
+				jmhArgs.add(args[i]);
+		}
+
+		CommandLineOptions options = new CommandLineOptions(jmhArgs.toArray(new String[jmhArgs.size()]));
+
+		// no benchmark named, all of them
+		String micro = options.getIncludes().isEmpty() ? ReportBenchmark.class.getName() + "\\.(encode|decode)$" : null;
+		String calls = options.getIncludes().isEmpty() ? ReportBenchmark.class.getName() + "\\.(build|convert)$" : null;
+
+		if(micro != null)
+			new Runner(new OptionsBuilder().parent(options).include(micro).threads(1).addProfiler(GCProfiler.class).build()).run();
+
+		for(int i = 0; i < threads.length; i++)
+		{
+			OptionsBuilder builder = new OptionsBuilder();
+
+			if(calls != null)
+				builder.include(calls);
+
+			new Runner(builder.parent(options).threads(threads[i]).addProfiler(GCProfiler.class).build()).run();
+		}
+	}
+
+	@Setup
+	public void setUp(BenchmarkParams params) throws Exception
+	{
+		// the debug logging copies every payload into a String, it would be measured instead of the client
+		if(!Logger.getRootLogger().getAllAppenders().hasMoreElements())
+		{
+			BasicConfigurator.configure();
+			Logger.getRootLogger().setLevel(Level.WARN);
+		}
+
+		long bytes = parseSize(size);
+		boolean micro = params.getBenchmark().endsWith(".encode") || params.getBenchmark().endsWith(".decode");
+
+		if(bytes * params.getThreads() * (micro ? 3 : 6) > Runtime.getRuntime().maxMemory() / 4)
+			throw new IllegalStateException(size + " with " + params.getThreads() + " thread(s) needs a bigger heap");
+
+		template = createPayload(4 * 1024);
+		payload = createPayload(bytes);
+
+		stub = new StubReportServer(0).start();
+		stub.setLatency(latency);
+
+		// identical calls must not be merged or cached, every call has to reach the stub
+		client = new HttpReportClient(HttpReportClientConfig.builder()
+			.maxConnectionsPerHost(params.getThreads())
+			.maxTotalConnections(params.getThreads())
+			.coalesceRequests(false)
+			.transportMode(mode.equals("multipart") ? TransportMode.MULTIPART : mode.equals("auto") ? TransportMode.AUTO : TransportMode.FORM)
+			.compression(compression.equals("none") ? CompressionPolicy.NONE : CompressionPolicy.DEFAULT)
+			.httpBackend(backend.equals("jdk_http2") ? HttpBackend.JDK_HTTP2 : backend.equals("jdk_http1") ? HttpBackend.JDK_HTTP1 : HttpBackend.COMMONS)
+			.build());
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		client.shutdown();
+		stub.stop();
+	}
+
+	@Benchmark
+	public long encode() throws Exception
+	{
+		CountingOutputStream out = new CountingOutputStream();
+
+		new FormRequestEntity()
+			.addBase64Field("template", template)
+			.addBase64Field("datasource", payload)
+			.addField("format", ExportType.PDF.toString())
+			.writeRequest(out);
+
+		return out.count;
+	}
+
+	@Benchmark
+	public byte[] decode() throws Exception
+	{
+		return ResponseHandlers.BYTE_ARRAY.handleResponse(new ByteArrayInputStream(payload), payload.length);
+	}
+
+	@Benchmark
+	public byte[] build() throws Exception
+	{
+		return client.buildReport(stub.getUrl(), template, payload, ExportType.PDF, null, 1);
+	}
+
+	@Benchmark
+	public byte[] convert() throws Exception
+	{
+		return client.convertReport(stub.getUrl(), payload, ExportType.PDF, null, 1);
+	}
+
+	/**
+	 * A datasource like payload: XML rows with varying values, compresses about as well as a real one
+	 */
+	static byte[] createPayload(long size)
+	{
+		byte[] payload = new byte[(int)size];
+		Random random = new Random(size);
+		int pos = 0;
+
+		while(pos < payload.length)
+		{
+			byte[] row = ("<row><id>" + random.nextInt(1000000) + "</id><name>Patient " + random.nextInt(10000)
+				+ "</name><ward>" + (char)('A' + random.nextInt(26)) + "</ward></row>\n").getBytes();
+
+			int len = Math.min(row.length, payload.length - pos);
+			System.arraycopy(row, 0, payload, pos, len);
+			pos += len;
+		}
+
+		return payload;
+	}
+
+	private static int[] parseThreads(String value)
+	{
+		StringTokenizer tokens = new StringTokenizer(value, ",");
+		int[] threads = new int[tokens.countTokens()];
+
+		for(int i = 0; i < threads.length; i++)
+		{
+			threads[i] = Integer.parseInt(tokens.nextToken().trim());
+		}
+
+		return threads;
+	}
+
+	static long parseSize(String value)
+	{
+		String lower = value.toLowerCase();
+		long multiplier = 1;
+
+		if(lower.endsWith("k"))
+			multiplier = 1024;
+		else if(lower.endsWith("m"))
+			multiplier = 1024 * 1024;
+
+		if(multiplier != 1)
+			lower = lower.substring(0, lower.length() - 1);
+
+		return Long.parseLong(lower) * multiplier;
+	}
+
+	/**
+	 * Counts the bytes written, the count is returned so that the writes cannot be optimized away
+	 */
+	private static class CountingOutputStream extends OutputStream
+	{
+		long count;
+
+		public void write(int b)
+		{
+			count++;
+		}
+
+		public void write(byte[] b, int off, int len)
+		{
+			count += len;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * The CompletableFuture counterparts of the report calls against a StubReportServer
+ */
+public class AsyncCallTest extends StubServerTestCase
+{
+	/**
+	 * The calls wait for the server at the same time, not one after the other
+	 */
+	@Test
+	public void callsRunConcurrently() throws Exception
+	{
+		stub.setLatency(200);
+
+		List<CompletableFuture<byte[]>> futures = new ArrayList<CompletableFuture<byte[]>>();
+		long start = System.currentTimeMillis();
+
+		for(int i = 0; i < 20; i++)
+		{
+			futures.add(client.buildReportAsync(stub.getUrl(), TEMPLATE, ("data " + i).getBytes(), ExportType.PDF, null, 1));
+		}
+
+		for(int i = 0; i < futures.size(); i++)
+		{
+			assertArrayEquals(("data " + i).getBytes(), futures.get(i).get(5, TimeUnit.SECONDS));
+		}
+
+		long elapsed = System.currentTimeMillis() - start;
+
+		assertTrue("elapsed: " + elapsed + " ms", elapsed < 20 * 200 / 2);
+	}
+
+	@Test
+	public void failedCallCompletesExceptionally() throws Exception
+	{
+		stub.setFailureStatus(500);
+
+		try
+		{
+			client.buildReportAsync(stub.getUrl(), TEMPLATE, "data".getBytes(), ExportType.PDF, null, 1).get(5, TimeUnit.SECONDS);
+			fail("the call succeeded");
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof HttpReportClientException);
+			assertEquals(500, ((HttpReportClientException)e.getCause()).getStatusCode());
+		}
+	}
+
+	@Test
+	public void cancelAbortsTheRequestAndReleasesItsConnection() throws Exception
+	{
+		stub.setLatency(3000);
+
+		CompletableFuture<byte[]> future = client.buildReportAsync(stub.getUrl(), TEMPLATE, "slow".getBytes(), ExportType.PDF, null, 1);
+
+		while(stub.getInFlight() == 0)
+		{
+			sleep(10);
+		}
+
+		assertTrue(future.cancel(true));
+		assertTrue(future.isCancelled());
+
+		long deadline = System.currentTimeMillis() + 1000;
+
+		while(client.getPoolStats(stub.getUrl()).getLeased() > 0 && System.currentTimeMillis() < deadline)
+		{
+			sleep(10);
+		}
+
+		assertEquals("the connection of the cancelled call is released", 0, client.getPoolStats(stub.getUrl()).getLeased());
+	}
+
+	@Test
+	public void rejectedCallCompletesExceptionally() throws Exception
+	{
+		client.setExecutor(new Executor()
+		{
+			public void execute(Runnable command)
+			{
+				throw new RejectedExecutionException("full");
+			}
+		});
+
+		try
+		{
+			client.buildReportAsync(stub.getUrl(), TEMPLATE, "data".getBytes(), ExportType.PDF, null, 1).get(5, TimeUnit.SECONDS);
+			fail("the call was not scheduled but succeeded");
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof HttpReportClientException);
+		}
+
+		assertEquals(0, stub.getRequestCount());
+	}
+}
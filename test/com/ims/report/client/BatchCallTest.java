@@ -0,0 +1,141 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+import com.ims.report.client.stub.StubReportServer;
+
+/**
+ * The framing of the batch requests and responses against a StubReportServer, and the jobs sent one by one
+ * after a batch request failed
+ */
+public class BatchCallTest extends StubServerTestCase
+{
+	protected HttpReportClientConfig createConfig()
+	{
+		return HttpReportClientConfig.builder().batch(BatchPolicy.DEFAULT).build();
+	}
+
+	@Test
+	public void jobsAreSentInOneRequest() throws Exception
+	{
+		List<CompletableFuture<byte[]>> futures = submit("job 0", "job 1", "job 2", "job 3", "job 4");
+
+		assertReports(futures, "job 0", "job 1", "job 2", "job 3", "job 4");
+		assertEquals("the first job alone tells whether the server takes batches, then one batch", 2, stub.getRequestCount());
+	}
+
+	@Test
+	public void serverWithoutBatchesGetsOneCallPerJob() throws Exception
+	{
+		stub.setBatchSupported(false);
+
+		assertReports(submit("job 0", "job 1", "job 2"), "job 0", "job 1", "job 2");
+		assertEquals(3, stub.getRequestCount());
+	}
+
+	@Test
+	public void failedJobDoesNotFailTheOthers() throws Exception
+	{
+		stub = start(new StubReportServer(0)
+		{
+			protected byte[] render(Map<String, byte[]> fields)
+			{
+				if(Arrays.equals(fields.get("datasource"), "bad".getBytes()))
+					throw new IllegalArgumentException("bad datasource");
+
+				return super.render(fields);
+			}
+		});
+
+		List<CompletableFuture<byte[]>> futures = submit("job 0", "job 1", "bad", "job 3");
+
+		assertArrayEquals("job 3".getBytes(), futures.get(3).get(10, TimeUnit.SECONDS));
+
+		try
+		{
+			futures.get(2).get(10, TimeUnit.SECONDS);
+			fail("the bad job succeeded");
+		}
+		catch (ExecutionException e)
+		{
+			assertEquals(400, ((HttpReportClientException)e.getCause()).getStatusCode());
+		}
+
+		assertEquals("the error frame answers the job, it is not sent again", 2, stub.getRequestCount());
+	}
+
+	@Test
+	public void jobsNotAnsweredWhenTheConnectionDropsAreSentAlone() throws Exception
+	{
+		final AtomicBoolean crashed = new AtomicBoolean();
+
+		stub = start(new StubReportServer(0)
+		{
+			protected byte[] render(Map<String, byte[]> fields)
+			{
+				// the first time only, the job succeeds when sent again
+				if(Arrays.equals(fields.get("datasource"), "crash".getBytes()) && crashed.compareAndSet(false, true))
+					throw new IllegalStateException("the server went down");
+
+				return super.render(fields);
+			}
+		});
+
+		List<CompletableFuture<byte[]>> futures = submit("job 0", "job 1", "crash", "job 3");
+
+		assertReports(futures, "job 0", "job 1", "crash", "job 3");
+		assertTrue(crashed.get());
+		assertEquals("job 0 alone, the batch answering job 1, then crash and job 3 alone", 4, stub.getRequestCount());
+	}
+
+	@Test
+	public void frameOverTheLimitIsNotRead() throws Exception
+	{
+		client = newClient(HttpReportClientConfig.builder().batch(BatchPolicy.builder().maxFrameBytes(1024).build()).build());
+
+		String big = new String(new char[4096]).replace('\0', 'x');
+
+		assertReports(submit("job 0", "job 1", big, "job 3"), "job 0", "job 1", big, "job 3");
+		assertEquals("job 0 alone, the batch failing at the big frame, then the big job and job 3 alone", 4, stub.getRequestCount());
+	}
+
+	private List<CompletableFuture<byte[]>> submit(String... datasources)
+	{
+		ReportBatch batch = new ReportBatch();
+
+		for(int i = 0; i < datasources.length; i++)
+		{
+			batch.buildReport(TEMPLATE, datasources[i].getBytes(), ExportType.PDF);
+		}
+
+		return client.submitBatch(stub.getUrl(), batch);
+	}
+
+	private static void assertReports(List<CompletableFuture<byte[]>> futures, String... expected) throws Exception
+	{
+		assertEquals(expected.length, futures.size());
+
+		for(int i = 0; i < expected.length; i++)
+		{
+			assertArrayEquals("job " + i, expected[i].getBytes(), futures.get(i).get(10, TimeUnit.SECONDS));
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+import com.ims.report.client.stub.StubReportServer;
+
+/**
+ * A report rendered once and converted to several formats by a StubReportServer
+ */
+public class BuildReportMultiTest extends StubServerTestCase
+{
+	private static final byte[] DATASOURCE = "data".getBytes();
+
+	private StubReportServer server;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		// the answers tell which format they were made for
+		server = start(new StubReportServer(0)
+		{
+			protected byte[] render(Map<String, byte[]> fields)
+			{
+				byte[] source = super.render(fields);
+				byte[] format = fields.get("format");
+
+				return (new String(format) + ":" + new String(source)).getBytes();
+			}
+		});
+	}
+
+	@Test
+	public void reportIsRenderedOnceAndConvertedToEveryFormat() throws Exception
+	{
+		Map<ExportType, byte[]> reports = client.buildReportMulti(server.getUrl(), TEMPLATE, DATASOURCE, types(ExportType.PDF, ExportType.FP3, ExportType.HTML));
+
+		assertEquals(Arrays.asList(ExportType.PDF, ExportType.FP3, ExportType.HTML), Arrays.asList(reports.keySet().toArray()));
+		assertArrayEquals(answer(ExportType.FP3, DATASOURCE), reports.get(ExportType.FP3));
+		assertArrayEquals(answer(ExportType.PDF, reports.get(ExportType.FP3)), reports.get(ExportType.PDF));
+		assertArrayEquals(answer(ExportType.HTML, reports.get(ExportType.FP3)), reports.get(ExportType.HTML));
+
+		assertEquals("one render and two conversions", 3, server.getRequestCount());
+		assertEquals(1, client.getMetrics().get(ReportOperation.BUILD_REPORT, ExportType.FP3).getRequests());
+		assertEquals(1, client.getMetrics().get(ReportOperation.CONVERT_REPORT, ExportType.PDF).getRequests());
+	}
+
+	@Test
+	public void formatAskedForLaterIsOnlyAConversion() throws Exception
+	{
+		client.buildReportMulti(server.getUrl(), TEMPLATE, DATASOURCE, types(ExportType.PDF));
+		server.resetCounters();
+
+		Map<ExportType, byte[]> reports = client.buildReportMulti(server.getUrl(), TEMPLATE, DATASOURCE, types(ExportType.XLS));
+
+		assertArrayEquals(answer(ExportType.XLS, answer(ExportType.FP3, DATASOURCE)), reports.get(ExportType.XLS));
+		assertEquals(1, server.getRequestCount());
+		assertEquals(1, client.getPreparedReportCacheStats().getMemoryHits());
+
+		// another datasource is rendered again
+		client.buildReportMulti(server.getUrl(), TEMPLATE, "other".getBytes(), types(ExportType.XLS));
+
+		assertEquals(3, server.getRequestCount());
+	}
+
+	@Test
+	public void preparedReportsAreNotKeptWithoutACache() throws Exception
+	{
+		client = newClient(HttpReportClientConfig.builder().preparedReportCacheSize(0).build());
+
+		client.buildReportMulti(server.getUrl(), TEMPLATE, DATASOURCE, types(ExportType.PDF));
+		client.buildReportMulti(server.getUrl(), TEMPLATE, DATASOURCE, types(ExportType.PDF));
+
+		assertEquals(4, server.getRequestCount());
+		assertNull(client.getPreparedReportCacheStats());
+	}
+
+	@Test
+	public void failedRenderFailsTheCall() throws Exception
+	{
+		server.setFailureStatus(500);
+
+		try
+		{
+			client.buildReportMulti(server.getUrl(), TEMPLATE, DATASOURCE, types(ExportType.PDF, ExportType.HTML));
+			fail("the call succeeded");
+		}
+		catch (HttpReportClientException e)
+		{
+			assertEquals(500, e.getStatusCode());
+		}
+
+		assertEquals("nothing to convert", 1, server.getRequestCount());
+
+		try
+		{
+			client.buildReportMulti(server.getUrl(), TEMPLATE, DATASOURCE, types());
+			fail("no format at all was taken");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// expected
+		}
+	}
+
+	private static Set<ExportType> types(ExportType... exportTypes)
+	{
+		return new LinkedHashSet<ExportType>(Arrays.asList(exportTypes));
+	}
+
+	private static byte[] answer(ExportType exportType, byte[] source)
+	{
+		return (exportType.toString() + ":" + new String(source)).getBytes();
+	}
+}
@@ -0,0 +1,280 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.DeadlineExceededException;
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * The deadlines and the cancellation of the calls made to a slow StubReportServer
+ */
+public class CallOptionsTest extends StubServerTestCase
+{
+	private static final byte[] DATASOURCE = "data".getBytes();
+
+	private ExecutorService threads = Executors.newCachedThreadPool();
+
+	@After
+	public void tearDown()
+	{
+		threads.shutdownNow();
+	}
+
+	/**
+	 * The options set on the thread, for the methods without a CallOptions parameter
+	 */
+	@Test
+	public void deadlineEndsTheCall() throws Exception
+	{
+		stub.setLatency(2000);
+
+		long start = System.currentTimeMillis();
+		CallOptions previous = CallOptions.setCurrent(CallOptions.withTimeout(300));
+
+		try
+		{
+			build();
+			fail("the call outlived its deadline");
+		}
+		catch (DeadlineExceededException e)
+		{
+			// expected
+		}
+		finally
+		{
+			CallOptions.setCurrent(previous);
+		}
+
+		long elapsed = System.currentTimeMillis() - start;
+
+		assertTrue("elapsed: " + elapsed + " ms", elapsed < 1500);
+		assertTrue("budget: " + stub.getLastTimeBudget(), stub.getLastTimeBudget() > 0 && stub.getLastTimeBudget() <= 300);
+	}
+
+	@Test
+	public void deadlineEndsTheWaitForAPooledConnection() throws Exception
+	{
+		client = newClient(HttpReportClientConfig.builder().maxConnectionsPerHost(1).build());
+		stub.setLatency(3000);
+
+		// holds the only connection
+		threads.submit(new Callable<byte[]>()
+		{
+			public byte[] call() throws Exception
+			{
+				return build("slow".getBytes());
+			}
+		});
+
+		while(stub.getInFlight() == 0)
+		{
+			sleep(10);
+		}
+
+		long start = System.currentTimeMillis();
+
+		try
+		{
+			build(CallOptions.withTimeout(200));
+			fail("the call outlived its deadline");
+		}
+		catch (DeadlineExceededException e)
+		{
+			// expected
+		}
+
+		long elapsed = System.currentTimeMillis() - start;
+
+		assertTrue("elapsed: " + elapsed + " ms", elapsed < 1000);
+		assertEquals("the call was not sent", 1, stub.getRequestCount());
+	}
+
+	@Test
+	public void deadlineEndsTheWaitForABulkheadSlot() throws Exception
+	{
+		client = newClient(HttpReportClientConfig.builder()
+			.bulkhead(BulkheadPolicy.builder().maxConcurrentPerServer(1).maxQueued(1).maxWait(5000).build())
+			.build());
+		stub.setLatency(3000);
+
+		// holds the only slot
+		threads.submit(new Callable<byte[]>()
+		{
+			public byte[] call() throws Exception
+			{
+				return build("slow".getBytes());
+			}
+		});
+
+		while(stub.getInFlight() == 0)
+		{
+			sleep(10);
+		}
+
+		long start = System.currentTimeMillis();
+
+		try
+		{
+			build(CallOptions.withTimeout(200));
+			fail("the call outlived its deadline");
+		}
+		catch (DeadlineExceededException e)
+		{
+			// expected
+		}
+
+		long elapsed = System.currentTimeMillis() - start;
+
+		assertTrue("elapsed: " + elapsed + " ms", elapsed < 1000);
+		assertEquals("the call was not sent", 1, stub.getRequestCount());
+	}
+
+	@Test
+	public void cancelAbortsTheCall() throws Exception
+	{
+		stub.setLatency(2000);
+
+		final CallOptions options = CallOptions.cancellable();
+		long start = System.currentTimeMillis();
+
+		threads.execute(new Runnable()
+		{
+			public void run()
+			{
+				sleep(200);
+				options.cancel();
+			}
+		});
+
+		try
+		{
+			build(options);
+			fail("the cancelled call succeeded");
+		}
+		catch (HttpReportClientException e)
+		{
+			assertFalse(e instanceof DeadlineExceededException);
+		}
+
+		assertTrue(System.currentTimeMillis() - start < 1000);
+	}
+
+	/**
+	 * An identical call joining the one of a caller with a deadline must not keep that caller waiting past it
+	 */
+	@Test
+	public void deadlineIsKeptWhenAnIdenticalCallJoins() throws Exception
+	{
+		stub.setLatency(2000);
+
+		Future<Long> leader = threads.submit(new Callable<Long>()
+		{
+			public Long call() throws Exception
+			{
+				long start = System.currentTimeMillis();
+
+				try
+				{
+					build(CallOptions.withTimeout(500));
+					fail("the call outlived its deadline");
+				}
+				catch (DeadlineExceededException e)
+				{
+					// expected
+				}
+
+				return Long.valueOf(System.currentTimeMillis() - start);
+			}
+		});
+
+		sleep(100);
+
+		// no deadline, waits for the report
+		build();
+
+		long elapsed = leader.get(5, TimeUnit.SECONDS).longValue();
+
+		assertTrue("the leader returned after " + elapsed + " ms", elapsed < 1500);
+	}
+
+	@Test
+	public void explicitOptionsAreUsedInsteadOfTheOnesOfTheThread() throws Exception
+	{
+		CallOptions cancelled = CallOptions.cancellable();
+		cancelled.cancel();
+
+		CallOptions previous = CallOptions.setCurrent(cancelled);
+
+		try
+		{
+			build((CallOptions)null);
+			build(CallOptions.withTimeout(5000));
+		}
+		finally
+		{
+			CallOptions.setCurrent(previous);
+		}
+	}
+
+	@Test
+	public void optionsLeftOnAPooledThreadDoNotReachTheAsyncCalls() throws Exception
+	{
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+
+		try
+		{
+			// other code leaves cancelled options on the only thread of the executor
+			pool.submit(new Runnable()
+			{
+				public void run()
+				{
+					CallOptions options = CallOptions.cancellable();
+					options.cancel();
+					CallOptions.setCurrent(options);
+				}
+			}).get();
+
+			client.setExecutor(pool);
+
+			assertArrayEquals(DATASOURCE, client.buildReportAsync(stub.getUrl(), TEMPLATE, DATASOURCE, ExportType.PDF, null, 1).get(5, TimeUnit.SECONDS));
+
+			ReportBatch batch = new ReportBatch();
+			batch.buildReport(TEMPLATE, "job 0".getBytes(), ExportType.PDF);
+			batch.buildReport(TEMPLATE, "job 1".getBytes(), ExportType.PDF);
+			batch.buildReport(TEMPLATE, "job 2".getBytes(), ExportType.PDF);
+
+			assertArrayEquals("job 2".getBytes(), client.submitBatch(stub.getUrl(), batch).get(2).get(5, TimeUnit.SECONDS));
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	private void build() throws HttpReportClientException
+	{
+		assertArrayEquals(DATASOURCE, build(DATASOURCE));
+	}
+
+	private void build(CallOptions options) throws HttpReportClientException
+	{
+		assertArrayEquals(DATASOURCE, client.buildReport(stub.getUrl(), TEMPLATE, DATASOURCE, ExportType.PDF, null, 1, options));
+	}
+}
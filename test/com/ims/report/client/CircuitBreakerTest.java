@@ -0,0 +1,236 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+import com.ims.report.client.exceptions.RejectionReason;
+import com.ims.report.client.exceptions.RequestRejectedException;
+
+/**
+ * The circuit breakers and bulkheads guarding the calls to a StubReportServer
+ */
+public class CircuitBreakerTest extends StubServerTestCase
+{
+	private static final CircuitBreakerPolicy POLICY = CircuitBreakerPolicy.builder()
+		.windowSize(4)
+		.minimumCalls(4)
+		.openDuration(300)
+		.halfOpenCalls(2)
+		.build();
+
+	protected HttpReportClientConfig createConfig()
+	{
+		return HttpReportClientConfig.builder().circuitBreaker(POLICY).build();
+	}
+
+	@Test
+	public void failingServerOpensTheCircuitUntilTheTrialCallsSucceed() throws Exception
+	{
+		assertNull("no call yet", client.getCircuitState(stub.getUrl()));
+
+		stub.setFailureStatus(503);
+
+		for(int i = 0; i < 4; i++)
+		{
+			assertFailsWith(503);
+		}
+
+		assertSame(CircuitState.OPEN, client.getCircuitState(stub.getUrl()));
+		assertRejected(RejectionReason.CIRCUIT_OPEN);
+		assertEquals("the rejected call was not sent", 4, stub.getRequestCount());
+
+		stub.setFailureStatus(0);
+		sleep(350);
+
+		build("data".getBytes());
+
+		assertSame(CircuitState.HALF_OPEN, client.getCircuitState(stub.getUrl()));
+
+		build("data".getBytes());
+
+		assertSame(CircuitState.CLOSED, client.getCircuitState(stub.getUrl()));
+	}
+
+	@Test
+	public void failingTrialCallsOpenTheCircuitAgain() throws Exception
+	{
+		stub.setFailureStatus(503);
+
+		for(int i = 0; i < 4; i++)
+		{
+			assertFailsWith(503);
+		}
+
+		sleep(350);
+
+		assertFailsWith(503);
+		assertFailsWith(503);
+
+		assertSame(CircuitState.OPEN, client.getCircuitState(stub.getUrl()));
+		assertRejected(RejectionReason.CIRCUIT_OPEN);
+	}
+
+	@Test
+	public void reportThatCannotBeRenderedDoesNotOpenTheCircuit() throws Exception
+	{
+		stub.setFailureStatus(500);
+
+		for(int i = 0; i < 8; i++)
+		{
+			assertFailsWith(500);
+		}
+
+		assertSame(CircuitState.CLOSED, client.getCircuitState(stub.getUrl()));
+	}
+
+	@Test
+	public void halfOpenCircuitLetsOnlyTheTrialCallsThrough()
+	{
+		CircuitBreaker breaker = new CircuitBreaker("server", POLICY);
+
+		for(int i = 0; i < 3; i++)
+		{
+			assertTrue(breaker.tryAcquire());
+			breaker.recordOutcome(true, 10);
+		}
+
+		assertSame("below minimumCalls", CircuitState.CLOSED, breaker.getState());
+
+		breaker.recordOutcome(true, 10);
+
+		assertSame(CircuitState.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire());
+
+		sleep(350);
+
+		assertTrue(breaker.tryAcquire());
+		assertTrue(breaker.tryAcquire());
+		assertFalse(breaker.tryAcquire());
+
+		// a cancelled trial gives its place back
+		breaker.released();
+
+		assertTrue(breaker.tryAcquire());
+	}
+
+	@Test
+	public void slowCallsOpenTheCircuit()
+	{
+		CircuitBreaker breaker = new CircuitBreaker("server", CircuitBreakerPolicy.builder()
+			.failureRateThreshold(0)
+			.slowCallRateThreshold(50)
+			.slowCallDuration(100)
+			.windowSize(4)
+			.minimumCalls(4)
+			.build());
+
+		breaker.recordOutcome(false, 10);
+		breaker.recordOutcome(false, 10);
+		breaker.recordOutcome(false, 200);
+		breaker.recordOutcome(true, 10);
+
+		assertSame("failures are ignored", CircuitState.CLOSED, breaker.getState());
+
+		// the oldest call leaves the window
+		breaker.recordOutcome(false, 200);
+
+		assertSame(CircuitState.OPEN, breaker.getState());
+	}
+
+	@Test
+	public void fullBulkheadRejectsTheCall() throws Exception
+	{
+		client = newClient(HttpReportClientConfig.builder().bulkhead(BulkheadPolicy.builder().maxConcurrentPerServer(1).build()).build());
+		stub.setLatency(500);
+
+		CompletableFuture<byte[]> first = client.buildReportAsync(stub.getUrl(), TEMPLATE, "first".getBytes(), ExportType.PDF, null, 1);
+
+		awaitInFlight();
+		assertRejected(RejectionReason.BULKHEAD_FULL);
+
+		assertArrayEquals("first".getBytes(), first.get(5, TimeUnit.SECONDS));
+		assertEquals(1, stub.getRequestCount());
+	}
+
+	@Test
+	public void queuedCallWaitsForTheBulkhead() throws Exception
+	{
+		client = newClient(HttpReportClientConfig.builder().bulkhead(BulkheadPolicy.builder().maxConcurrentPerServer(1).maxQueued(1).maxWait(5000).build()).build());
+		stub.setLatency(300);
+
+		CompletableFuture<byte[]> first = client.buildReportAsync(stub.getUrl(), TEMPLATE, "first".getBytes(), ExportType.PDF, null, 1);
+
+		awaitInFlight();
+
+		assertArrayEquals("second".getBytes(), build("second".getBytes()));
+		assertArrayEquals("first".getBytes(), first.get(5, TimeUnit.SECONDS));
+		assertEquals(2, stub.getRequestCount());
+	}
+
+	@Test
+	public void invalidPolicyIsRefused()
+	{
+		try
+		{
+			CircuitBreakerPolicy.builder().windowSize(10).minimumCalls(20).build();
+			fail("more minimum calls than the window holds were taken");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// expected
+		}
+	}
+
+	private void assertFailsWith(int status)
+	{
+		try
+		{
+			build("data".getBytes());
+			fail("the call succeeded");
+		}
+		catch (HttpReportClientException e)
+		{
+			assertEquals(status, e.getStatusCode());
+		}
+	}
+
+	private void assertRejected(RejectionReason reason)
+	{
+		try
+		{
+			build("data".getBytes());
+			fail("the call was not rejected");
+		}
+		catch (RequestRejectedException e)
+		{
+			assertSame(reason, e.getReason());
+		}
+		catch (HttpReportClientException e)
+		{
+			throw new AssertionError("the call failed instead of being rejected: " + e);
+		}
+	}
+
+	private void awaitInFlight()
+	{
+		while(stub.getInFlight() == 0)
+		{
+			sleep(10);
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * The compressed requests and responses exchanged with a StubReportServer
+ */
+public class CompressionPolicyTest extends StubServerTestCase
+{
+	private static final byte[] DATASOURCE = rows(64 * 1024);
+
+	@Test
+	public void requestIsCompressedOnceTheServerAdvertisesGzip() throws Exception
+	{
+		// nothing known of the server yet
+		assertArrayEquals(DATASOURCE, html(DATASOURCE));
+		long plain = stub.getBytesReceived();
+
+		assertTrue("received: " + plain, plain > DATASOURCE.length);
+
+		stub.resetCounters();
+
+		assertArrayEquals(DATASOURCE, html(DATASOURCE));
+		assertTrue("received: " + stub.getBytesReceived(), stub.getBytesReceived() < plain / 10);
+	}
+
+	@Test
+	public void requestBelowTheThresholdIsSentAsItIs() throws Exception
+	{
+		byte[] small = rows(4 * 1024);
+
+		html(small);
+		stub.resetCounters();
+
+		assertArrayEquals(small, html(small));
+		assertTrue("received: " + stub.getBytesReceived(), stub.getBytesReceived() > small.length);
+	}
+
+	@Test
+	public void forcedCompressionDoesNotWaitForTheServer() throws Exception
+	{
+		client = newClient(HttpReportClientConfig.builder().compression(CompressionPolicy.builder().forceRequestCompression(true).build()).build());
+
+		assertArrayEquals(DATASOURCE, html(DATASOURCE));
+		assertTrue("received: " + stub.getBytesReceived(), stub.getBytesReceived() < DATASOURCE.length / 5);
+	}
+
+	@Test
+	public void gzipRefusedIsDroppedForTheServer() throws Exception
+	{
+		html(DATASOURCE);
+		stub.setCompressionSupported(false);
+		stub.resetCounters();
+
+		assertArrayEquals(DATASOURCE, html(DATASOURCE));
+		assertEquals("refused, then sent again uncompressed", 2, stub.getRequestCount());
+
+		stub.resetCounters();
+
+		assertArrayEquals(DATASOURCE, html(DATASOURCE));
+		assertEquals(1, stub.getRequestCount());
+	}
+
+	@Test
+	public void onlyTheListedExportTypesAreAskedCompressed() throws Exception
+	{
+		assertArrayEquals(DATASOURCE, html(DATASOURCE));
+		assertTrue("sent: " + stub.getBytesSent(), stub.getBytesSent() < DATASOURCE.length / 10);
+
+		stub.resetCounters();
+
+		// a PDF is compressed already
+		assertArrayEquals(DATASOURCE, build(DATASOURCE));
+		assertEquals(DATASOURCE.length, stub.getBytesSent());
+
+		client = newClient(HttpReportClientConfig.builder().compression(CompressionPolicy.NONE).build());
+		stub.resetCounters();
+
+		assertArrayEquals(DATASOURCE, html(DATASOURCE));
+		assertEquals(DATASOURCE.length, stub.getBytesSent());
+	}
+
+	private byte[] html(byte[] datasource) throws Exception
+	{
+		return client.buildReport(stub.getUrl(), TEMPLATE, datasource, ExportType.HTML, null, 1);
+	}
+
+	/**
+	 * A datasource as they come, compressible
+	 */
+	private static byte[] rows(int size)
+	{
+		StringBuffer rows = new StringBuffer(size + 64);
+
+		for(int i = 0; rows.length() < size; i++)
+		{
+			rows.append("<row><id>").append(i).append("</id><ward>Ward ").append(i % 12).append("</ward></row>");
+		}
+
+		return rows.substring(0, size).getBytes();
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.RejectionReason;
+import com.ims.report.client.exceptions.RequestRejectedException;
+
+/**
+ * The adaptive concurrency limit following the latency of a StubReportServer
+ */
+public class ConcurrencyLimiterTest extends StubServerTestCase
+{
+	protected HttpReportClientConfig createConfig()
+	{
+		return HttpReportClientConfig.builder().concurrencyLimit(ConcurrencyLimitPolicy.DEFAULT).build();
+	}
+
+	@Test
+	public void limitShrinksWhenTheServerSlowsDown() throws Exception
+	{
+		stub.setLatency(20);
+
+		build(10, ExportType.PDF);
+		assertTrue("limit: " + getLimit(), getLimit() >= 18);
+
+		stub.setLatency(120);
+		build(15, ExportType.PDF);
+
+		assertTrue("limit: " + getLimit(), getLimit() < 15);
+	}
+
+	@Test
+	public void slowExportTypeKeepsItsOwnBaseline() throws Exception
+	{
+		stub.setLatency(20);
+
+		build(10, ExportType.PDF);
+
+		// as slow from its first call: a bigger kind of report, not a server in trouble
+		stub.setLatency(120);
+		build(15, ExportType.XLS);
+
+		assertTrue("limit: " + getLimit(), getLimit() >= 18);
+
+		build(15, ExportType.PDF);
+
+		assertTrue("limit: " + getLimit(), getLimit() < 15);
+	}
+
+	@Test
+	public void callsOverTheLimitAreRejected() throws Exception
+	{
+		ConcurrencyLimitPolicy fixed = ConcurrencyLimitPolicy.builder().algorithm(LimitAlgorithm.AIMD).initialLimit(2).minLimit(2).maxLimit(2).build();
+
+		client = newClient(HttpReportClientConfig.builder().concurrencyLimit(fixed).build());
+		stub.setLatency(500);
+
+		List<CompletableFuture<byte[]>> futures = new ArrayList<CompletableFuture<byte[]>>();
+
+		for(int i = 0; i < 5; i++)
+		{
+			// different datasources, identical calls would be merged
+			futures.add(client.buildReportAsync(stub.getUrl(), TEMPLATE, ("call " + i).getBytes(), ExportType.PDF, null, 1));
+			Thread.sleep(20);
+		}
+
+		int rejected = 0;
+
+		for(int i = 0; i < futures.size(); i++)
+		{
+			try
+			{
+				futures.get(i).get();
+			}
+			catch (ExecutionException e)
+			{
+				assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof RequestRejectedException);
+				assertSame(RejectionReason.CONCURRENCY_LIMIT, ((RequestRejectedException)e.getCause()).getReason());
+				rejected++;
+			}
+		}
+
+		assertEquals(3, rejected);
+		assertEquals(2, stub.getRequestCount());
+		assertEquals(3, client.getConcurrencyLimits().get(0).getRejected());
+	}
+
+	private void build(int calls, ExportType exportType) throws Exception
+	{
+		for(int i = 0; i < calls; i++)
+		{
+			client.buildReport(stub.getUrl(), TEMPLATE, "data".getBytes(), exportType, null, 1);
+		}
+	}
+
+	private int getLimit()
+	{
+		return client.getConcurrencyLimits().get(0).getLimit();
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * The pooled connections of the Commons HttpClient transport and their ConnectionPoolStats
+ */
+public class ConnectionPoolTest extends StubServerTestCase
+{
+	@Test
+	public void connectionIsReusedByTheNextCalls() throws Exception
+	{
+		for(int i = 0; i < 5; i++)
+		{
+			build("data".getBytes());
+		}
+
+		ConnectionPoolStats stats = client.getPoolStats(stub.getUrl());
+
+		assertEquals(0, stats.getLeased());
+		assertEquals(1, stats.getAvailable());
+		assertEquals(0, stats.getPending());
+		assertEquals(20, stats.getMax());
+		assertEquals(1, client.getPoolStats().size());
+	}
+
+	@Test
+	public void callsWaitForAConnectionBeyondTheMaximum() throws Exception
+	{
+		client = newClient(HttpReportClientConfig.builder().maxConnectionsPerHost(2).build());
+		stub.setLatency(300);
+
+		List<CompletableFuture<byte[]>> futures = new ArrayList<CompletableFuture<byte[]>>();
+
+		for(int i = 0; i < 4; i++)
+		{
+			futures.add(client.buildReportAsync(stub.getUrl(), TEMPLATE, ("data " + i).getBytes(), ExportType.PDF, null, 1));
+		}
+
+		int maxPending = 0;
+
+		while(!futures.get(3).isDone())
+		{
+			ConnectionPoolStats stats = client.getPoolStats(stub.getUrl());
+
+			if(stats != null)
+			{
+				assertTrue(String.valueOf(stats), stats.getLeased() <= 2);
+				maxPending = Math.max(maxPending, stats.getPending());
+			}
+
+			assertTrue("in flight: " + stub.getInFlight(), stub.getInFlight() <= 2);
+			sleep(10);
+		}
+
+		assertTrue("no call waited for a connection", maxPending > 0);
+
+		for(int i = 0; i < futures.size(); i++)
+		{
+			assertArrayEquals(("data " + i).getBytes(), futures.get(i).get(5, TimeUnit.SECONDS));
+		}
+
+		assertEquals(2, client.getPoolStats(stub.getUrl()).getAvailable());
+	}
+
+	@Test
+	public void waitForAConnectionEndsAtThePoolTimeout() throws Exception
+	{
+		client = newClient(HttpReportClientConfig.builder().maxConnectionsPerHost(1).connectionPoolTimeout(200).build());
+		stub.setLatency(2000);
+
+		// holds the only connection
+		CompletableFuture<byte[]> slow = client.buildReportAsync(stub.getUrl(), TEMPLATE, "slow".getBytes(), ExportType.PDF, null, 1);
+
+		while(stub.getInFlight() == 0)
+		{
+			sleep(10);
+		}
+
+		long start = System.currentTimeMillis();
+
+		try
+		{
+			build("data".getBytes());
+			fail("the call got a connection beyond the maximum");
+		}
+		catch (HttpReportClientException e)
+		{
+			assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof ConnectionPoolTimeoutException);
+		}
+
+		assertTrue(System.currentTimeMillis() - start < 1500);
+		assertEquals("the call was not sent", 1, stub.getRequestCount());
+		assertArrayEquals("slow".getBytes(), slow.get(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.ims.report.client.stub.StubReportServer;
+
+/**
+ * The warm-up and keep-alive probes sent to the StubReportServer
+ */
+public class ConnectionWarmerTest extends StubServerTestCase
+{
+	@Test
+	public void warmUpOpensTheConnectionsWithHeadProbes() throws Exception
+	{
+		client = newClient(config(WarmUpPolicy.builder().minConnections(3)));
+
+		WarmUpStats stats = client.warmUp(stub.getUrl());
+
+		assertNull(stats.getError());
+		assertEquals(3, stats.getConnections());
+		assertEquals(3, stub.getProbeCount());
+		assertEquals("HEAD " + StubReportServer.PATH, stub.getLastProbe());
+		assertEquals(3, client.getPoolStats(stub.getUrl()).getAvailable());
+	}
+
+	@Test
+	public void probeMethodAndPathAreTheOnesOfThePolicy() throws Exception
+	{
+		client = newClient(config(WarmUpPolicy.builder().probeMethod("OPTIONS").probePath(StubReportServer.PATH + "?probe")));
+
+		assertEquals(2, client.warmUp(stub.getUrl()).getConnections());
+		assertEquals("OPTIONS " + StubReportServer.PATH + "?probe", stub.getLastProbe());
+	}
+
+	@Test
+	public void probeNotAnsweredWith2xxDoesNotCount() throws Exception
+	{
+		// the stub has no /health, it answers 404
+		client = newClient(config(WarmUpPolicy.builder().probePath("/health")));
+
+		assertEquals(0, client.warmUp(stub.getUrl()).getConnections());
+	}
+
+	@Test
+	public void connectionClosedAfterTheProbeDoesNotCount() throws Exception
+	{
+		client = newClient(config(WarmUpPolicy.builder()));
+		stub.setCloseAfterProbe(true);
+
+		assertEquals(0, client.warmUp(stub.getUrl()).getConnections());
+	}
+
+	/**
+	 * The keep-alive rounds probe the idle connections, the ones the server closed are not opened again
+	 * (OPTIONS probes, the stub closes the connection after a HEAD)
+	 */
+	@Test
+	public void keepAliveProbesOnlyTheIdleConnections() throws Exception
+	{
+		client = newClient(config(WarmUpPolicy.builder().probeMethod("OPTIONS").keepAliveInterval(200)));
+
+		assertEquals(2, client.warmUp(stub.getUrl()).getConnections());
+
+		awaitProbes(4);
+		assertEquals(2, client.getWarmUpStats().get(0).getConnections());
+		assertEquals(0, client.getWarmUpStats().get(0).getResolveTime());
+
+		// the server closes the connections as it answers the next round
+		stub.setCloseAfterProbe(true);
+		awaitProbes(6);
+		sleep(100);
+		assertEquals(0, client.getWarmUpStats().get(0).getConnections());
+
+		// no idle connection left, the next rounds send nothing
+		sleep(600);
+		assertEquals(6, stub.getProbeCount());
+	}
+
+	@Test
+	public void policyTakesOnlyProbesWithoutABody() throws Exception
+	{
+		assertEquals("HEAD", WarmUpPolicy.builder().build().getProbeMethod());
+
+		try
+		{
+			WarmUpPolicy.builder().probeMethod("POST").build();
+			fail("a POST probe was accepted");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// expected
+		}
+
+		try
+		{
+			WarmUpPolicy.builder().probePath("health").build();
+			fail("a relative probe path was accepted");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// expected
+		}
+	}
+
+	private HttpReportClientConfig config(WarmUpPolicy.Builder warmUp)
+	{
+		return HttpReportClientConfig.builder().warmUp(warmUp.atStartup(false).build()).build();
+	}
+
+	private void awaitProbes(long count)
+	{
+		long deadline = System.currentTimeMillis() + 5000;
+
+		while(stub.getProbeCount() < count && System.currentTimeMillis() < deadline)
+		{
+			sleep(20);
+		}
+
+		assertEquals(count, stub.getProbeCount());
+	}
+}
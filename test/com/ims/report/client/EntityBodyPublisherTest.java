@@ -0,0 +1,254 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.Flow;
+
+import org.junit.Test;
+
+/**
+ * The request body handed to java.net.http.HttpClient as it asks for it
+ */
+public class EntityBodyPublisherTest
+{
+	private static final byte[] BODY = body(40 * 1024);
+
+	@Test
+	public void bodyIsWrittenOnlyAsFastAsTheHttpClientAsksForIt() throws Exception
+	{
+		EntityBodyPublisher publisher = new EntityBodyPublisher(new BytesBody(BODY));
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		Writer writer = new Writer(publisher);
+
+		writer.start();
+		sleep(100);
+
+		assertTrue("nothing is written before the subscription", writer.isAlive());
+
+		publisher.subscribe(subscriber);
+		subscriber.request(1);
+
+		subscriber.awaitBuffers(1);
+		sleep(100);
+
+		assertEquals("the writer waits for the next request", 1, subscriber.getBufferCount());
+		assertTrue(writer.isAlive());
+
+		subscriber.request(Long.MAX_VALUE);
+		writer.join(5000);
+
+		assertFalse(writer.isAlive());
+		assertEquals(null, writer.failure);
+		assertEquals(3, subscriber.getBufferCount());
+		assertTrue(subscriber.completed);
+		assertArrayEquals(BODY, subscriber.received.toByteArray());
+		assertEquals(BODY.length, publisher.contentLength());
+	}
+
+	@Test
+	public void cancelledSubscriptionStopsTheWriter() throws Exception
+	{
+		EntityBodyPublisher publisher = new EntityBodyPublisher(new BytesBody(BODY));
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		Writer writer = new Writer(publisher);
+
+		publisher.subscribe(subscriber);
+		subscriber.request(1);
+		writer.start();
+		subscriber.awaitBuffers(1);
+
+		subscriber.subscription.cancel();
+		writer.join(5000);
+
+		assertTrue(String.valueOf(writer.failure), writer.failure instanceof IOException);
+		assertTrue("the error is passed on", subscriber.error != null);
+	}
+
+	@Test
+	public void stopEndsTheWaitForTheSubscription() throws Exception
+	{
+		EntityBodyPublisher publisher = new EntityBodyPublisher(new BytesBody(BODY));
+		Writer writer = new Writer(publisher);
+
+		writer.start();
+		sleep(100);
+		publisher.stop();
+		writer.join(5000);
+
+		assertTrue(String.valueOf(writer.failure), writer.failure instanceof IOException);
+	}
+
+	@Test
+	public void bodyIsNotSentTwice() throws Exception
+	{
+		EntityBodyPublisher publisher = new EntityBodyPublisher(new BytesBody(BODY));
+		RecordingSubscriber first = new RecordingSubscriber();
+		RecordingSubscriber second = new RecordingSubscriber();
+
+		publisher.subscribe(first);
+		publisher.subscribe(second);
+
+		assertEquals(null, first.error);
+		assertTrue(second.error instanceof IOException);
+
+		try
+		{
+			first.request(Long.MAX_VALUE);
+			publisher.write();
+		}
+		catch (IOException e)
+		{
+			fail("the first subscription did not get the body: " + e);
+		}
+
+		assertArrayEquals(BODY, first.received.toByteArray());
+	}
+
+	private static void sleep(long millis) throws InterruptedException
+	{
+		Thread.sleep(millis);
+	}
+
+	private static byte[] body(int size)
+	{
+		byte[] body = new byte[size];
+
+		new Random(size).nextBytes(body);
+
+		return body;
+	}
+
+	private static class BytesBody implements TransportBody
+	{
+		private final byte[] data;
+
+		BytesBody(byte[] data)
+		{
+			this.data = data;
+		}
+
+		public long getContentLength()
+		{
+			return data.length;
+		}
+
+		public String getContentType()
+		{
+			return "application/octet-stream";
+		}
+
+		public boolean isRepeatable()
+		{
+			return true;
+		}
+
+		public void writeTo(OutputStream out) throws IOException
+		{
+			// byte by byte for the first part, then in one go
+			for(int i = 0; i < 100; i++)
+			{
+				out.write(data[i]);
+			}
+
+			out.write(data, 100, data.length - 100);
+		}
+	}
+
+	/**
+	 * Stands for the calling thread of the JDK transport
+	 */
+	private static class Writer extends Thread
+	{
+		private final EntityBodyPublisher publisher;
+		volatile Exception failure;
+
+		Writer(EntityBodyPublisher publisher)
+		{
+			this.publisher = publisher;
+		}
+
+		public void run()
+		{
+			try
+			{
+				publisher.write();
+			}
+			catch (Exception e)
+			{
+				failure = e;
+			}
+		}
+	}
+
+	/**
+	 * Stands for the HttpClient, asks for the buffers when the test says so
+	 */
+	private static class RecordingSubscriber implements Flow.Subscriber<ByteBuffer>
+	{
+		final ByteArrayOutputStream received = new ByteArrayOutputStream();
+		volatile Flow.Subscription subscription;
+		volatile Throwable error;
+		volatile boolean completed;
+		private int buffers;
+
+		public void onSubscribe(Flow.Subscription subscription)
+		{
+			this.subscription = subscription;
+		}
+
+		public synchronized void onNext(ByteBuffer item)
+		{
+			byte[] bytes = new byte[item.remaining()];
+
+			item.get(bytes);
+			received.write(bytes, 0, bytes.length);
+			buffers++;
+			notifyAll();
+		}
+
+		public void onError(Throwable throwable)
+		{
+			error = throwable;
+		}
+
+		public void onComplete()
+		{
+			completed = true;
+		}
+
+		void request(long n)
+		{
+			subscription.request(n);
+		}
+
+		synchronized int getBufferCount()
+		{
+			return buffers;
+		}
+
+		synchronized void awaitBuffers(int count) throws InterruptedException
+		{
+			long end = System.currentTimeMillis() + 5000;
+
+			while(buffers < count && System.currentTimeMillis() < end)
+			{
+				wait(100);
+			}
+
+			assertEquals(count, buffers);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.httpclient.NameValuePair;
+import org.apache.commons.httpclient.util.EncodingUtil;
+import org.junit.Test;
+
+/**
+ * The body written by FormRequestEntity against the one PostMethod builds from the base64 encoded fields
+ */
+public class FormRequestEntityTest
+{
+	@Test
+	public void bodyAndLengthAreTheOnesOfThePostMethod() throws Exception
+	{
+		// every length modulo 3, the base64 padding differs
+		int[] sizes = { 0, 1, 2, 3, 4, 5, 1000, 3 * 1024, 3 * 1024 + 1, 100 * 1024 + 2 };
+		Random random = new Random(17);
+
+		for(int i = 0; i < sizes.length; i++)
+		{
+			byte[] template = new byte[sizes[i]];
+			byte[] datasource = new byte[sizes[sizes.length - 1 - i]];
+
+			random.nextBytes(template);
+			random.nextBytes(datasource);
+
+			FormRequestEntity entity = new FormRequestEntity()
+				.addField("operation", "buildReport")
+				.addBase64Field("template", template)
+				.addBase64Field("datasource", datasource)
+				.addField("printTo", "Ward 1 & 2 = \u00e9");
+
+			byte[] expected = encode(new NameValuePair[] { new NameValuePair("operation", "buildReport"), base64("template", template),
+				base64("datasource", datasource), new NameValuePair("printTo", "Ward 1 & 2 = \u00e9") });
+			byte[] body = write(entity);
+
+			assertArrayEquals("sizes " + template.length + "/" + datasource.length, expected, body);
+			assertEquals(body.length, entity.getContentLength());
+			assertTrue(entity.isRepeatable());
+			assertArrayEquals("written twice", body, write(entity));
+		}
+	}
+
+	@Test
+	public void streamedFieldIsSentChunked() throws Exception
+	{
+		byte[] datasource = new byte[10 * 1024 + 1];
+		new Random(3).nextBytes(datasource);
+
+		FormRequestEntity entity = new FormRequestEntity()
+			.addBase64Field("template", "template".getBytes())
+			.addBase64Field("datasource", ReportDatasource.fromStream(new ByteArrayInputStream(datasource)));
+
+		assertEquals(-1, entity.getContentLength());
+		assertFalse(entity.isRepeatable());
+		assertArrayEquals(encode(new NameValuePair[] { base64("template", "template".getBytes()), base64("datasource", datasource) }), write(entity));
+	}
+
+	@Test
+	public void lengthFollowsTheAddedFields() throws Exception
+	{
+		FormRequestEntity entity = new FormRequestEntity().addField("operation", "buildReport");
+		long length = entity.getContentLength();
+
+		entity.addBase64Field("template", new byte[] { 1, 2, 3 });
+
+		assertEquals(length + "&template=".length() + 4, entity.getContentLength());
+		assertEquals(write(entity).length, entity.getContentLength());
+	}
+
+	private static byte[] write(FormRequestEntity entity) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		entity.writeRequest(out);
+
+		return out.toByteArray();
+	}
+
+	private static NameValuePair base64(String name, byte[] value)
+	{
+		return new NameValuePair(name, EncodingUtil.getAsciiString(Base64.encodeBase64(value)));
+	}
+
+	/**
+	 * The body of PostMethod.setRequestBody(NameValuePair[])
+	 */
+	private static byte[] encode(NameValuePair[] fields)
+	{
+		return EncodingUtil.getAsciiBytes(EncodingUtil.formUrlEncode(fields, "ISO-8859-1"));
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * The payloads of the calls to a StubReportServer written by a PayloadCapture
+ */
+public class PayloadCaptureTest extends StubServerTestCase
+{
+	private File directory;
+	private PayloadCapture capture;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		directory = Files.createTempDirectory("payload-capture").toFile();
+	}
+
+	@After
+	public void tearDown()
+	{
+		if(capture != null)
+			capture.close();
+
+		File[] files = directory.listFiles();
+
+		for(int i = 0; files != null && i < files.length; i++)
+		{
+			files[i].delete();
+		}
+
+		directory.delete();
+	}
+
+	@Test
+	public void callIsWrittenWithItsFieldsAndResponse() throws Exception
+	{
+		capture = new PayloadCapture(directory, 1024 * 1024);
+		client.setPayloadCapture(capture);
+
+		build("data".getBytes());
+		awaitCaptures(1);
+
+		String[] names = directory.list();
+		Arrays.sort(names);
+
+		assertEquals(Arrays.asList(names).toString(), 4, names.length);
+		assertTrue(names[0].endsWith("-buildReport.datasource"));
+		assertTrue(names[1].endsWith("-buildReport.response"));
+		assertTrue(names[2].endsWith("-buildReport.template"));
+		assertTrue(names[3].endsWith("-buildReport.txt"));
+
+		assertArrayEquals("data".getBytes(), read(names[0]));
+		assertArrayEquals("data".getBytes(), read(names[1]));
+		assertArrayEquals(TEMPLATE, read(names[2]));
+
+		String text = new String(read(names[3]), "UTF-8");
+
+		assertTrue(text, text.contains("server: " + stub.getUrl()));
+		assertTrue(text, text.contains("status: 200"));
+	}
+
+	@Test
+	public void onlyTheFailuresOfTheChosenOperationsAreWritten() throws Exception
+	{
+		capture = new PayloadCapture(directory, 1024 * 1024);
+		capture.setOperations(new ReportOperation[] { ReportOperation.BUILD_REPORT });
+		capture.setFailuresOnly(true);
+		client.setPayloadCapture(capture);
+
+		build("data".getBytes());
+		client.printReport(stub.getUrl(), TEMPLATE, "data".getBytes(), "Ward 1", 1);
+
+		stub.setFailureStatus(500);
+
+		try
+		{
+			client.printReport(stub.getUrl(), TEMPLATE, "data".getBytes(), "Ward 1", 1);
+			fail("the call succeeded");
+		}
+		catch (HttpReportClientException e)
+		{
+			// not a BUILD_REPORT
+		}
+
+		try
+		{
+			build("data".getBytes());
+			fail("the call succeeded");
+		}
+		catch (HttpReportClientException e)
+		{
+			// captured
+		}
+
+		awaitCaptures(1);
+		capture.close();
+
+		assertEquals(1, capture.getCapturedCount());
+
+		File[] texts = directory.listFiles(new FilenameFilter()
+		{
+			public boolean accept(File dir, String name)
+			{
+				return name.endsWith(".txt");
+			}
+		});
+		String text = new String(Files.readAllBytes(texts[0].toPath()), "UTF-8");
+
+		assertEquals(1, texts.length);
+		assertTrue(text, text.contains("status: 500"));
+	}
+
+	@Test
+	public void oldestCapturesAreDeletedAboveMaxBytes() throws Exception
+	{
+		byte[] datasource = new byte[4 * 1024];
+
+		capture = new PayloadCapture(directory, 20 * 1024);
+		capture.setCaptureResponses(false);
+		client.setPayloadCapture(capture);
+
+		for(int i = 0; i < 10; i++)
+		{
+			build(datasource);
+		}
+
+		awaitCaptures(10);
+
+		long size = 0;
+		File[] files = directory.listFiles();
+
+		for(int i = 0; i < files.length; i++)
+		{
+			size += files[i].length();
+		}
+
+		assertTrue("directory: " + size, size <= 20 * 1024);
+		assertEquals("the captures are deleted whole", 0, files.length % 3);
+	}
+
+	@Test
+	public void callsAreDroppedRatherThanQueuedBeyondMaxQueuedBytes() throws Exception
+	{
+		capture = new PayloadCapture(directory, 1024 * 1024);
+		capture.setMaxQueuedBytes(10);
+		client.setPayloadCapture(capture);
+
+		build(new byte[1024]);
+
+		assertEquals(1, capture.getDroppedCount());
+
+		capture.close();
+
+		assertEquals(0, capture.getCapturedCount());
+		assertEquals(0, directory.list().length);
+	}
+
+	@Test
+	public void sampleRateOfZeroCapturesNothing() throws Exception
+	{
+		capture = new PayloadCapture(directory, 1024 * 1024);
+		capture.setSampleRate(0);
+		client.setPayloadCapture(capture);
+
+		build("data".getBytes());
+		capture.close();
+
+		assertEquals(0, capture.getCapturedCount() + capture.getDroppedCount());
+
+		try
+		{
+			capture.setSampleRate(1.5);
+			fail("a rate above 1 was taken");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// expected
+		}
+	}
+
+	private void awaitCaptures(long count)
+	{
+		long end = System.currentTimeMillis() + 5000;
+
+		while(capture.getCapturedCount() < count && System.currentTimeMillis() < end)
+		{
+			sleep(10);
+		}
+
+		assertEquals(count, capture.getCapturedCount());
+	}
+
+	private byte[] read(String name) throws Exception
+	{
+		return Files.readAllBytes(new File(directory, name).toPath());
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * The payloads as shown in the debug log
+ */
+public class PayloadPreviewTest
+{
+	@Test
+	public void shortTextIsShownAsItIs()
+	{
+		assertEquals("<row>\r\n\t<id>1</id>\r\n</row>", PayloadPreview.preview("<row>\r\n\t<id>1</id>\r\n</row>".getBytes(), 1024));
+		assertEquals("null", PayloadPreview.preview(null, 1024));
+	}
+
+	@Test
+	public void longTextIsCutAtTheLimit()
+	{
+		assertEquals("abcd...[6 more bytes, 10 in total]", PayloadPreview.preview("abcdefghij".getBytes(), 4));
+	}
+
+	@Test
+	public void binaryIsShownAsTheHexOfItsFirstBytes()
+	{
+		byte[] pdf = new byte[100];
+		pdf[0] = '%';
+		pdf[1] = (byte)0xff;
+
+		assertEquals("[binary, 100 bytes: 25 ff 00 00 00 00 00 00 00 00 00 00 00 00 00 00 ...]", PayloadPreview.preview(pdf, 1024));
+		assertEquals("[binary, 2 bytes: 01 7f]", PayloadPreview.preview(new byte[] { 1, 0x7f }, 1024));
+	}
+
+	@Test
+	public void zeroLimitShowsOnlyTheSize()
+	{
+		assertEquals("...[3 more bytes, 3 in total]", PayloadPreview.preview("abc".getBytes(), 0));
+	}
+}
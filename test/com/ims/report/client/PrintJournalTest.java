@@ -0,0 +1,289 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The journal of the PrintSpooler across restarts, crashes in the middle of a write and a StubReportServer
+ */
+public class PrintJournalTest extends StubServerTestCase
+{
+	private File directory;
+	private PrintJournal journal;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		directory = Files.createTempDirectory("print-journal").toFile();
+	}
+
+	@After
+	public void tearDown()
+	{
+		if(journal != null)
+			journal.close();
+
+		File[] files = directory.listFiles();
+
+		for(int i = 0; files != null && i < files.length; i++)
+		{
+			files[i].delete();
+		}
+
+		directory.delete();
+	}
+
+	@Test
+	public void pendingJobsAreReplayedAfterARestart() throws Exception
+	{
+		journal = open();
+
+		PrintJob first = journal.append("http://server/a", "Ward 1", 1, "template 1".getBytes(), "data 1".getBytes());
+		PrintJob second = journal.append("http://server/a", "Ward 2", 2, "template 2".getBytes(), "data 2".getBytes());
+		PrintJob third = journal.append("http://server/b", "Ward 3", 3, "prepared 3".getBytes(), null);
+
+		journal.done(second);
+		journal.close();
+
+		List<PrintJob> jobs = reopen();
+
+		assertEquals(2, jobs.size());
+		assertEquals(first.getId(), jobs.get(0).getId());
+		assertEquals(third.getId(), jobs.get(1).getId());
+		assertEquals("Ward 3", jobs.get(1).getPrintTo());
+		assertEquals(3, jobs.get(1).getCopies());
+		assertTrue(jobs.get(1).isPrepared());
+
+		byte[][] reports = journal.read(jobs.get(0));
+
+		assertArrayEquals("template 1".getBytes(), reports[0]);
+		assertArrayEquals("data 1".getBytes(), reports[1]);
+		assertArrayEquals("prepared 3".getBytes(), journal.read(jobs.get(1))[0]);
+
+		PrintJob next = journal.append("http://server/a", "Ward 1", 1, "template".getBytes(), "data".getBytes());
+
+		assertTrue("the ids go on from the replayed ones", next.getId() > third.getId());
+	}
+
+	@Test
+	public void tornTailIsCutOff() throws Exception
+	{
+		journal = open();
+
+		PrintJob first = journal.append("http://server/a", "Ward 1", 1, "template 1".getBytes(), "data 1".getBytes());
+		journal.append("http://server/a", "Ward 1", 1, "template 2".getBytes(), "data 2".getBytes());
+		journal.close();
+
+		// the JVM stopped while the second job was being written
+		File file = getJournalFile();
+		long length = file.length();
+		RandomAccessFile torn = new RandomAccessFile(file, "rw");
+
+		try
+		{
+			torn.setLength(length - 5);
+		}
+		finally
+		{
+			torn.close();
+		}
+
+		List<PrintJob> jobs = reopen();
+
+		assertEquals(1, jobs.size());
+		assertEquals(first.getId(), jobs.get(0).getId());
+		assertArrayEquals("data 1".getBytes(), journal.read(jobs.get(0))[1]);
+		assertTrue("the partial record is truncated", file.length() < length - 5);
+	}
+
+	/**
+	 * A file followed by a newer one was completely written, the damage is not the one of a crash
+	 */
+	@Test
+	public void corruptedOlderFileFailsTheOpen() throws Exception
+	{
+		journal = new PrintJournal(directory, 100, true);
+		journal.open();
+
+		// a file per job
+		journal.append("http://server/a", "Ward 1", 1, "template 1".getBytes(), "data 1".getBytes());
+		journal.append("http://server/a", "Ward 2", 1, "template 2".getBytes(), "data 2".getBytes());
+		journal.close();
+
+		File oldest = getJournalFiles()[0];
+		long length = oldest.length();
+		RandomAccessFile damaged = new RandomAccessFile(oldest, "rw");
+
+		try
+		{
+			damaged.seek(length - 3);
+			damaged.write('x');
+		}
+		finally
+		{
+			damaged.close();
+		}
+
+		try
+		{
+			reopen();
+			fail("a journal with a corrupted file was opened");
+		}
+		catch (IOException e)
+		{
+			assertTrue(e.getMessage(), e.getMessage().contains(oldest.getName()));
+		}
+
+		assertEquals("the file is left as it is", length, oldest.length());
+
+		// moved aside by hand
+		assertTrue(oldest.renameTo(new File(directory, oldest.getName() + ".corrupted")));
+
+		List<PrintJob> jobs = reopen();
+
+		assertEquals(1, jobs.size());
+		assertEquals("Ward 2", jobs.get(0).getPrintTo());
+	}
+
+	@Test
+	public void idsAreNotUsedAgainOnceTheirFilesAreDeleted() throws Exception
+	{
+		journal = open();
+
+		PrintJob job = journal.append("http://server/a", "Ward 1", 1, "template".getBytes(), "data".getBytes());
+
+		journal.done(job);
+		journal.close();
+
+		assertTrue(reopen().isEmpty());
+		journal.close();
+		assertEquals("the files of the done jobs are deleted", 0, getJournalFiles().length);
+
+		reopen();
+
+		assertTrue(journal.append("http://server/a", "Ward 1", 1, "template".getBytes(), "data".getBytes()).getId() > job.getId());
+	}
+
+	@Test
+	public void directoryInUseIsRefused() throws Exception
+	{
+		journal = open();
+
+		try
+		{
+			open();
+			fail("a second journal was opened on the directory");
+		}
+		catch (IOException e)
+		{
+			// expected
+		}
+
+		journal.close();
+		journal = open();
+	}
+
+	@Test
+	public void spoolerPrintsTheJobsLeftByThePreviousRun() throws Exception
+	{
+		// no attempt after the first one during the test, none can reach the stub once its counters are reset
+		PrintSpoolerPolicy policy = PrintSpoolerPolicy.builder().journalDirectory(directory).initialBackoff(60000).maxBackoff(60000).build();
+		HttpReportClient spooling = newClient(HttpReportClientConfig.builder().printSpooler(policy).build());
+
+		stub.setFailureStatus(503);
+		spooling.getPrintSpooler().printReport(stub.getUrl(), "template".getBytes(), "data".getBytes(), "Ward 1", 1);
+
+		// the 503 is answered and the job waits for its backoff
+		while(spooling.getPrintSpooler().getStats().isEmpty() || spooling.getPrintSpooler().getStats().get(0).getRetries() == 0)
+		{
+			sleep(10);
+		}
+
+		assertEquals(1, spooling.getPrintSpooler().getPending());
+
+		spooling.shutdown();
+		stub.setFailureStatus(0);
+		stub.resetCounters();
+
+		spooling = newClient(HttpReportClientConfig.builder().printSpooler(PrintSpoolerPolicy.builder().journalDirectory(directory).build()).build());
+
+		assertTrue(spooling.getPrintSpooler().awaitEmpty(5000));
+		assertEquals(1, stub.getRequestCount());
+	}
+
+	private PrintJournal open() throws IOException
+	{
+		PrintJournal opened = new PrintJournal(directory, 1024 * 1024, true);
+
+		opened.open();
+
+		return opened;
+	}
+
+	/**
+	 * Opens the journal again, as at the next start of the JVM
+	 */
+	private List<PrintJob> reopen() throws IOException
+	{
+		journal = new PrintJournal(directory, 1024 * 1024, true);
+
+		return journal.open();
+	}
+
+	private File getJournalFile()
+	{
+		File[] files = getJournalFiles();
+
+		if(files.length == 0)
+			throw new AssertionError("No journal file in " + directory);
+
+		return files[0];
+	}
+
+	/**
+	 * The journal files, oldest first
+	 */
+	private File[] getJournalFiles()
+	{
+		File[] files = directory.listFiles(new FileFilter()
+		{
+			public boolean accept(File file)
+			{
+				return file.getName().endsWith(".journal");
+			}
+		});
+
+		Arrays.sort(files, new Comparator<File>()
+		{
+			public int compare(File a, File b)
+			{
+				// print-<number>.journal, a shorter number is a smaller one
+				if(a.getName().length() != b.getName().length())
+					return a.getName().length() - b.getName().length();
+
+				return a.getName().compareTo(b.getName());
+			}
+		});
+
+		return files;
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * The queues of the interactive and batch calls of a report server
+ */
+public class PrioritySchedulerTest extends StubServerTestCase
+{
+	private static final String SERVER = "http://reports/";
+
+	@Test
+	public void waitingClassesShareTheSlotsByWeight() throws Exception
+	{
+		final PriorityScheduler scheduler = new PriorityScheduler(SchedulingPolicy.builder()
+			.maxConcurrentPerServer(1)
+			.reservedForInteractive(0)
+			.interactiveWeight(4)
+			.batchWeight(1)
+			.build(), 20);
+		final List<ReportRequest> granted = Collections.synchronizedList(new ArrayList<ReportRequest>());
+		List<Thread> threads = new ArrayList<Thread>();
+
+		ReportRequest holder = request(ReportPriority.INTERACTIVE);
+		scheduler.acquire(holder, SERVER, null);
+
+		for(int i = 0; i < 20; i++)
+		{
+			final ReportRequest request = request(i % 2 == 0 ? ReportPriority.INTERACTIVE : ReportPriority.BATCH);
+			Thread thread = new Thread()
+			{
+				public void run()
+				{
+					try
+					{
+						scheduler.acquire(request, SERVER, null);
+						granted.add(request);
+					}
+					catch (HttpReportClientException e)
+					{
+						// the test fails waiting for the grant
+					}
+				}
+			};
+
+			thread.start();
+			threads.add(thread);
+		}
+
+		while(getStats(scheduler, ReportPriority.INTERACTIVE).getQueued() + getStats(scheduler, ReportPriority.BATCH).getQueued() < 20)
+		{
+			sleep(10);
+		}
+
+		// one slot: every release lets the next call in
+		for(int i = 0; i < 20; i++)
+		{
+			scheduler.release(holder, SERVER);
+
+			long end = System.currentTimeMillis() + 5000;
+			while(granted.size() <= i && System.currentTimeMillis() < end)
+			{
+				sleep(5);
+			}
+
+			holder = granted.get(i);
+		}
+
+		for(int i = 0; i < threads.size(); i++)
+		{
+			threads.get(i).join(5000);
+		}
+
+		int interactive = 0;
+
+		for(int i = 0; i < 10; i++)
+		{
+			if(granted.get(i).getPriority() == ReportPriority.INTERACTIVE)
+				interactive++;
+		}
+
+		assertEquals("4 interactive calls for every batch call", 8, interactive);
+		assertSame("the batch calls are not starved", ReportPriority.BATCH, granted.get(1).getPriority());
+		assertEquals(11, getStats(scheduler, ReportPriority.INTERACTIVE).getScheduled());
+		assertEquals(10, getStats(scheduler, ReportPriority.BATCH).getScheduled());
+	}
+
+	@Test
+	public void batchCallsLeaveTheReservedSlotsToTheInteractiveOnes() throws Exception
+	{
+		final PriorityScheduler scheduler = new PriorityScheduler(SchedulingPolicy.builder().maxConcurrentPerServer(3).reservedForInteractive(2).build(), 20);
+		final ReportCall call = new ReportCall();
+		final HttpReportClientException[] failure = new HttpReportClientException[1];
+
+		scheduler.acquire(request(ReportPriority.BATCH), SERVER, null);
+
+		Thread waiting = new Thread()
+		{
+			public void run()
+			{
+				try
+				{
+					scheduler.acquire(request(ReportPriority.BATCH), SERVER, call);
+				}
+				catch (HttpReportClientException e)
+				{
+					failure[0] = e;
+				}
+			}
+		};
+		waiting.start();
+
+		while(getStats(scheduler, ReportPriority.BATCH).getQueued() == 0)
+		{
+			sleep(10);
+		}
+
+		// the reserved slots
+		scheduler.acquire(request(ReportPriority.INTERACTIVE), SERVER, null);
+		scheduler.acquire(request(ReportPriority.INTERACTIVE), SERVER, null);
+
+		assertEquals(2, getStats(scheduler, ReportPriority.INTERACTIVE).getRunning());
+		assertEquals(1, getStats(scheduler, ReportPriority.BATCH).getRunning());
+
+		// a cancelled call leaves the queue
+		call.abort();
+		waiting.join(5000);
+
+		assertTrue(String.valueOf(failure[0]), failure[0] != null);
+		assertEquals(0, getStats(scheduler, ReportPriority.BATCH).getQueued());
+	}
+
+	@Test
+	public void callsOfTheClientAreCountedInTheirClass() throws Exception
+	{
+		client = newClient(HttpReportClientConfig.builder().scheduling(SchedulingPolicy.DEFAULT).build());
+
+		assertArrayEquals("interactive".getBytes(), build("interactive".getBytes()));
+
+		ReportPriority previous = ReportPriority.setCurrent(ReportPriority.BATCH);
+		try
+		{
+			assertArrayEquals("batch".getBytes(), build("batch".getBytes()));
+			assertArrayEquals("batch".getBytes(), build("batch".getBytes()));
+		}
+		finally
+		{
+			ReportPriority.setCurrent(previous);
+		}
+
+		List<SchedulerStats> stats = client.getSchedulerStats();
+
+		assertEquals(2, stats.size());
+
+		for(int i = 0; i < stats.size(); i++)
+		{
+			assertEquals(stub.getUrl(), stats.get(i).getServerUrl());
+			assertEquals(0, stats.get(i).getRunning());
+			assertEquals(stats.get(i).getPriority() == ReportPriority.BATCH ? 2 : 1, stats.get(i).getScheduled());
+		}
+	}
+
+	private static ReportRequest request(ReportPriority priority)
+	{
+		return new ReportRequest(ReportOperation.BUILD_REPORT, SERVER, null, ExportType.PDF, null, priority, null);
+	}
+
+	private static SchedulerStats getStats(PriorityScheduler scheduler, ReportPriority priority)
+	{
+		List<SchedulerStats> stats = scheduler.getStats();
+
+		for(int i = 0; i < stats.size(); i++)
+		{
+			if(stats.get(i).getPriority() == priority)
+				return stats.get(i);
+		}
+
+		throw new AssertionError("no stats for " + priority);
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Supplier;
+
+import org.apache.commons.httpclient.HttpStatus;
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * The streamed datasources sent to the StubReportServer
+ */
+public class ReportDatasourceTest extends StubServerTestCase
+{
+	private static final byte[] DATASOURCE = "<rows><row>1</row><row>2</row></rows>".getBytes();
+
+	protected HttpReportClientConfig createConfig()
+	{
+		return HttpReportClientConfig.builder().transportMode(TransportMode.AUTO).build();
+	}
+
+	@Test
+	public void streamIsSentAndClosed() throws Exception
+	{
+		ClosingStream stream = new ClosingStream(DATASOURCE);
+
+		assertArrayEquals(DATASOURCE, build(ReportDatasource.fromStream(stream)));
+		assertTrue(stream.closed);
+	}
+
+	/**
+	 * The server refuses the multipart post it advertised, a stream already read cannot be sent again as a form
+	 */
+	@Test
+	public void streamIsNotSentAgainAfterUnsupportedMediaType() throws Exception
+	{
+		// learns that the server takes multipart posts
+		assertArrayEquals(DATASOURCE, build(DATASOURCE));
+		stub.setMultipartSupported(false);
+
+		try
+		{
+			build(ReportDatasource.fromStream(new ByteArrayInputStream(DATASOURCE)));
+			fail("the stream was sent twice");
+		}
+		catch (HttpReportClientException e)
+		{
+			assertEquals(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, e.getStatusCode());
+		}
+
+		assertEquals(2, stub.getRequestCount());
+
+		// the call is not repeated, the next calls do without the encoding the server refused
+		assertArrayEquals(DATASOURCE, build(DATASOURCE));
+	}
+
+	@Test
+	public void supplierIsReadAgainAfterUnsupportedMediaType() throws Exception
+	{
+		assertArrayEquals(DATASOURCE, build(DATASOURCE));
+		stub.setMultipartSupported(false);
+
+		final int[] opened = new int[1];
+
+		assertArrayEquals(DATASOURCE, build(ReportDatasource.fromSupplier(new Supplier<InputStream>()
+		{
+			public InputStream get()
+			{
+				opened[0]++;
+
+				return new ByteArrayInputStream(DATASOURCE);
+			}
+		})));
+
+		assertTrue("opened: " + opened[0], opened[0] >= 2);
+	}
+
+	@Test
+	public void failingWriterFailsTheCall() throws Exception
+	{
+		final IOException failure = new IOException("the datasource query failed");
+
+		try
+		{
+			build(ReportDatasource.fromWriter(new DatasourceWriter()
+			{
+				public void write(OutputStream out) throws IOException
+				{
+					out.write(DATASOURCE);
+					throw failure;
+				}
+			}));
+			fail("the call succeeded without its datasource");
+		}
+		catch (HttpReportClientException e)
+		{
+			assertTrue(String.valueOf(e), causedBy(e, failure));
+		}
+
+		// the client is still usable
+		assertArrayEquals(DATASOURCE, build(DATASOURCE));
+	}
+
+	private byte[] build(ReportDatasource datasource) throws HttpReportClientException
+	{
+		return client.buildReport(stub.getUrl(), TEMPLATE, datasource, ExportType.PDF, null, 1);
+	}
+
+	private static boolean causedBy(Throwable e, Throwable cause)
+	{
+		for(; e != null; e = e.getCause())
+		{
+			if(e == cause || e.getMessage() != null && e.getMessage().contains(cause.getMessage()))
+				return true;
+		}
+
+		return false;
+	}
+
+	private static class ClosingStream extends ByteArrayInputStream
+	{
+		boolean closed;
+
+		ClosingStream(byte[] bytes)
+		{
+			super(bytes);
+		}
+
+		public void close() throws IOException
+		{
+			closed = true;
+			super.close();
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * The metrics of the calls made to a StubReportServer, by operation and export type
+ */
+public class ReportMetricsTest extends StubServerTestCase
+{
+	@Test
+	public void callsAreCountedAndTimedByOperationAndExportType() throws Exception
+	{
+		stub.setLatency(100);
+
+		build("data".getBytes());
+		build("data".getBytes());
+		client.printReport(stub.getUrl(), TEMPLATE, "data".getBytes(), "Ward 1", 1);
+
+		ReportOperationMetrics pdf = client.getMetrics().get(ReportOperation.BUILD_REPORT, ExportType.PDF);
+
+		assertEquals(2, pdf.getRequests());
+		assertEquals(2, pdf.getSucceeded());
+		assertEquals(0, pdf.getInFlight());
+		assertTrue(pdf.getBytesSent() > 2 * "data".length());
+		assertEquals(2 * "data".length(), pdf.getBytesReceived());
+		assertEquals(2, pdf.getTotalLatency().getCount());
+		assertTrue("the server phase holds the rendering: " + pdf.getLatency(), pdf.getHistogram(ReportPhase.SERVER).getPercentileMillis(50) >= 90);
+
+		assertEquals(1, client.getMetrics().get(ReportOperation.PRINT_REPORT, null).getSucceeded());
+		assertEquals(0, client.getMetrics().get(ReportOperation.BUILD_REPORT, ExportType.HTML).getRequests());
+	}
+
+	@Test
+	public void failedCallsAreCountedByStatus() throws Exception
+	{
+		stub.setFailureStatus(500);
+
+		for(int i = 0; i < 2; i++)
+		{
+			try
+			{
+				build("data".getBytes());
+				fail("the call succeeded");
+			}
+			catch (HttpReportClientException e)
+			{
+				// expected
+			}
+		}
+
+		ReportOperationMetrics pdf = client.getMetrics().get(ReportOperation.BUILD_REPORT, ExportType.PDF);
+
+		assertEquals(2, pdf.getFailed());
+		assertEquals(Long.valueOf(2), pdf.getErrorsByStatus().get(Integer.valueOf(500)));
+
+		pdf.reset();
+
+		assertEquals(0, pdf.getRequests());
+		assertTrue(pdf.getErrorsByStatus().isEmpty());
+	}
+
+	@Test
+	public void listenerGetsEveryCall() throws Exception
+	{
+		final List<ReportCallEvent> events = new CopyOnWriteArrayList<ReportCallEvent>();
+
+		client.getMetrics().addListener(new ReportMetricsListener()
+		{
+			public void callCompleted(ReportCallEvent event)
+			{
+				events.add(event);
+			}
+		});
+		client.getMetrics().addListener(new ReportMetricsListener()
+		{
+			public void callCompleted(ReportCallEvent event)
+			{
+				throw new IllegalStateException("a failing listener does not fail the call");
+			}
+		});
+
+		build("data".getBytes());
+
+		assertEquals(1, events.size());
+
+		ReportCallEvent event = events.get(0);
+
+		assertEquals(ReportOperation.BUILD_REPORT, event.getOperation());
+		assertEquals(ExportType.PDF, event.getExportType());
+		assertEquals(stub.getUrl(), event.getServerUrl());
+		assertEquals(200, event.getStatusCode());
+		assertTrue(event.isSucceeded());
+		assertTrue(event.getNanos(ReportPhase.TOTAL) >= event.getNanos(ReportPhase.SERVER));
+	}
+
+	@Test
+	public void metricsArePublishedAsMBeans() throws Exception
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName query = new ObjectName(ReportMetrics.JMX_DOMAIN + ":type=HttpReportClient,name=" + ObjectName.quote("metrics test") + ",*");
+
+		build("data".getBytes());
+		client.getMetrics().registerMBeans("metrics test");
+
+		try
+		{
+			assertEquals(1, server.queryNames(query, null).size());
+
+			// the operations used later are published as they appear
+			client.printReport(stub.getUrl(), TEMPLATE, "data".getBytes(), "Ward 1", 1);
+
+			assertEquals(2, server.queryNames(query, null).size());
+
+			ObjectName pdf = new ObjectName(ReportMetrics.JMX_DOMAIN + ":type=HttpReportClient,name=" + ObjectName.quote("metrics test")
+				+ ",operation=buildReport,exportType=PDF");
+
+			assertEquals(Long.valueOf(1), server.getAttribute(pdf, "Succeeded"));
+		}
+		finally
+		{
+			client.getMetrics().unregisterMBeans();
+		}
+
+		assertFalse(server.queryNames(query, null).size() > 0);
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The memory and disk tiers of the ReportResultCache, alone and in front of a StubReportServer
+ */
+public class ReportResultCacheTest extends StubServerTestCase
+{
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		directory = Files.createTempDirectory("report-cache").toFile();
+	}
+
+	@After
+	public void tearDown()
+	{
+		File[] files = directory.listFiles();
+
+		for(int i = 0; files != null && i < files.length; i++)
+		{
+			files[i].delete();
+		}
+
+		directory.delete();
+	}
+
+	@Test
+	public void repeatedRenderIsAnsweredFromTheCache() throws Exception
+	{
+		ReportResultCache cache = new ReportResultCache(1024 * 1024);
+		client.setResultCache(cache);
+
+		assertArrayEquals("data".getBytes(), build("data".getBytes()));
+		assertArrayEquals("data".getBytes(), build("data".getBytes()));
+		assertEquals(1, stub.getRequestCount());
+
+		// another datasource, another report
+		assertArrayEquals("other".getBytes(), build("other".getBytes()));
+		assertEquals(2, stub.getRequestCount());
+
+		assertEquals(1, cache.getStats().getMemoryHits());
+		assertEquals(2, cache.getStats().getMisses());
+	}
+
+	@Test
+	public void printingIsNeverCached() throws Exception
+	{
+		client.setResultCache(new ReportResultCache(1024 * 1024));
+
+		client.printReport(stub.getUrl(), TEMPLATE, "data".getBytes(), "Ward 1", 1);
+		client.printReport(stub.getUrl(), TEMPLATE, "data".getBytes(), "Ward 1", 1);
+
+		assertEquals(2, stub.getRequestCount());
+	}
+
+	@Test
+	public void leastRecentlyUsedReportIsEvicted() throws Exception
+	{
+		ReportResultCache cache = new ReportResultCache(100);
+		cache.setMaxEntryBytes(100);
+
+		cache.put("a", new byte[40]);
+		cache.put("b", new byte[40]);
+		cache.get("a");
+		cache.put("c", new byte[40]);
+
+		assertNull("b was the least recently used", cache.get("b"));
+		assertEquals(40, cache.get("a").length);
+		assertEquals(40, cache.get("c").length);
+		assertEquals(1, cache.getStats().getEvictions());
+		assertEquals(80, cache.getStats().getMemoryBytes());
+
+		// bigger than maxEntryBytes
+		cache.put("d", new byte[101]);
+		assertNull(cache.get("d"));
+	}
+
+	@Test
+	public void evictedReportMovesToDiskAndOutlivesTheCache() throws Exception
+	{
+		ReportResultCache cache = new ReportResultCache(100);
+		cache.setMaxEntryBytes(100);
+		cache.setDiskTier(directory, 1024);
+
+		cache.put("a", report(60, 1));
+		cache.put("b", report(60, 2));
+
+		assertEquals(1, cache.getStats().getDiskEntries());
+		assertArrayEquals(report(60, 1), cache.get("a"));
+		assertEquals(1, cache.getStats().getDiskHits());
+
+		// the next run picks the file up
+		ReportResultCache next = new ReportResultCache(100);
+		next.setDiskTier(directory, 1024);
+
+		assertArrayEquals(report(60, 1), next.get("a"));
+
+		next.invalidate("a");
+
+		assertNull(next.get("a"));
+		assertEquals(0, directory.listFiles().length);
+	}
+
+	@Test
+	public void expiredReportIsNotReturned() throws Exception
+	{
+		ReportResultCache cache = new ReportResultCache(1024);
+		cache.setTimeToLive(50);
+
+		cache.put("a", new byte[10]);
+		sleep(100);
+
+		assertNull(cache.get("a"));
+		assertEquals(1, cache.getStats().getExpirations());
+	}
+
+	@Test
+	public void callerGetsACopy() throws Exception
+	{
+		ReportResultCache cache = new ReportResultCache(1024);
+		byte[] report = report(10, 3);
+
+		cache.put("a", report);
+		report[0]++;
+		cache.get("a")[1]++;
+
+		assertArrayEquals(report(10, 3), cache.get("a"));
+	}
+
+	private static byte[] report(int size, int seed)
+	{
+		byte[] report = new byte[size];
+
+		for(int i = 0; i < size; i++)
+		{
+			report[i] = (byte)(seed + i);
+		}
+
+		return report;
+	}
+}
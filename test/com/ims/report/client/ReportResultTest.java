@@ -0,0 +1,255 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The reports of a StubReportServer kept in memory or spilled to a temporary file
+ */
+public class ReportResultTest extends StubServerTestCase
+{
+	private static final int THRESHOLD = 16 * 1024;
+	private static final byte[] SMALL = report(1024);
+	private static final byte[] BIG = report(200 * 1024);
+
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		directory = Files.createTempDirectory("report-results").toFile();
+		client = newClient(HttpReportClientConfig.builder().resultSpillThreshold(THRESHOLD).resultSpillDirectory(directory).build());
+	}
+
+	@After
+	public void tearDown()
+	{
+		File[] files = directory.listFiles();
+
+		for(int i = 0; files != null && i < files.length; i++)
+		{
+			files[i].delete();
+		}
+
+		directory.delete();
+	}
+
+	@Test
+	public void smallReportIsKeptInMemory() throws Exception
+	{
+		ReportResult result = buildAsResult(SMALL);
+
+		try
+		{
+			assertTrue(result.isInMemory());
+			assertNull(result.getFile());
+			assertEquals(SMALL.length, result.getLength());
+			assertArrayEquals(SMALL, result.toByteArray());
+			assertEquals(0, directory.list().length);
+		}
+		finally
+		{
+			result.close();
+		}
+	}
+
+	@Test
+	public void bigReportIsWrittenToATemporaryFile() throws Exception
+	{
+		ReportResult result = buildAsResult(BIG);
+
+		try
+		{
+			assertFalse(result.isInMemory());
+			assertEquals(directory, result.getFile().toFile().getParentFile());
+			assertEquals(BIG.length, result.getLength());
+			assertEquals(BIG.length, Files.size(result.getFile()));
+
+			assertArrayEquals(BIG, result.toByteArray());
+			assertArrayEquals(BIG, readAll(result.openStream()));
+			assertArrayEquals(BIG, readAll(Channels.newInputStream(result.openChannel())));
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+			assertEquals(BIG.length, result.writeTo(out));
+			assertArrayEquals(BIG, out.toByteArray());
+
+			out = new ByteArrayOutputStream();
+
+			assertEquals(BIG.length, result.transferTo(Channels.newChannel(out)));
+			assertArrayEquals(BIG, out.toByteArray());
+		}
+		finally
+		{
+			result.close();
+		}
+	}
+
+	@Test
+	public void fileIsMemoryMapped() throws Exception
+	{
+		ReportResult result = buildAsResult(BIG);
+
+		try
+		{
+			ByteBuffer whole = result.asByteBuffer();
+
+			assertTrue(whole instanceof MappedByteBuffer);
+			assertTrue(whole.isReadOnly());
+			assertEquals(BIG.length, whole.remaining());
+			assertEquals(BIG[BIG.length - 1], whole.get(BIG.length - 1));
+
+			ByteBuffer part = result.map(1000, 100);
+			byte[] bytes = new byte[100];
+
+			part.get(bytes);
+
+			assertArrayEquals(copyOf(BIG, 1000, 100), bytes);
+
+			try
+			{
+				result.map(BIG.length - 10, 20);
+				fail("a part beyond the end of the report was mapped");
+			}
+			catch (IllegalArgumentException e)
+			{
+				// expected
+			}
+		}
+		finally
+		{
+			result.close();
+		}
+	}
+
+	@Test
+	public void inMemoryReportIsWrappedReadOnly() throws Exception
+	{
+		ReportResult result = buildAsResult(SMALL);
+		ByteBuffer part = result.map(10, 20);
+
+		assertTrue(part.isReadOnly());
+		assertEquals(20, part.remaining());
+		assertEquals(SMALL[10], part.get(0));
+	}
+
+	@Test
+	public void closeDeletesTheFile() throws Exception
+	{
+		ReportResult result = buildAsResult(BIG);
+
+		result.close();
+		result.close();
+
+		assertFalse(Files.exists(result.getFile()));
+		assertEquals(0, directory.list().length);
+
+		try
+		{
+			result.openStream();
+			fail("a closed result was read");
+		}
+		catch (IOException e)
+		{
+			// expected
+		}
+	}
+
+	@Test
+	public void responseWithoutLengthIsSpilledOnceItGoesBeyondTheThreshold() throws Exception
+	{
+		ResponseHandler<ReportResult> handler = ResponseHandlers.toResult(THRESHOLD, directory);
+
+		ReportResult small = handler.handleResponse(new ByteArrayInputStream(SMALL), -1);
+		ReportResult big = handler.handleResponse(new ByteArrayInputStream(BIG), -1);
+
+		try
+		{
+			assertTrue(small.isInMemory());
+			assertFalse(big.isInMemory());
+			assertArrayEquals(BIG, big.toByteArray());
+		}
+		finally
+		{
+			big.close();
+		}
+	}
+
+	@Test
+	public void truncatedResponseLeavesNoFile() throws Exception
+	{
+		try
+		{
+			ResponseHandlers.toResult(THRESHOLD, directory).handleResponse(new ByteArrayInputStream(BIG, 0, BIG.length - 10), BIG.length);
+			fail("a truncated report was accepted");
+		}
+		catch (IOException e)
+		{
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Premature end of response"));
+		}
+
+		assertEquals(0, directory.list().length);
+	}
+
+	private ReportResult buildAsResult(byte[] datasource) throws Exception
+	{
+		return client.buildReportAsResult(stub.getUrl(), TEMPLATE, datasource, ExportType.PDF, null, 1);
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException
+	{
+		try
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+			ResponseHandlers.copy(in, out);
+
+			return out.toByteArray();
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	private static byte[] copyOf(byte[] data, int position, int size)
+	{
+		byte[] copy = new byte[size];
+
+		System.arraycopy(data, position, copy, 0, size);
+
+		return copy;
+	}
+
+	private static byte[] report(int size)
+	{
+		byte[] report = new byte[size];
+
+		new Random(size).nextBytes(report);
+
+		return report;
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.ServerSocket;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ims.report.client.stub.StubReportServer;
+
+/**
+ * Failover, ejection and load balancing of a ReportServerCluster against StubReportServers
+ */
+public class ReportServerClusterTest extends StubServerTestCase
+{
+	private StubReportServer first;
+	private StubReportServer second;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		first = stub;
+		second = start(new StubReportServer(0));
+	}
+
+	protected HttpReportClientConfig createConfig()
+	{
+		return HttpReportClientConfig.builder()
+			.retryPolicy(RetryPolicy.builder().maxAttempts(3).initialBackoff(1).maxBackoff(1).build())
+			.build();
+	}
+
+	@Test
+	public void connectionRefusedGoesToTheNextServer() throws Exception
+	{
+		ReportServerCluster cluster = new ReportServerCluster(new String[] { deadUrl(), second.getUrl() });
+		cluster.setMaxFailures(1);
+
+		// the first calls go to either server at random
+		for(int i = 0; i < 20; i++)
+		{
+			byte[] datasource = ("call " + i).getBytes();
+
+			assertArrayEquals(datasource, client.buildReport(cluster, TEMPLATE, datasource, ExportType.PDF, null, 1));
+		}
+
+		ReportServerNode dead = cluster.getNodes().get(0);
+
+		assertEquals(20, second.getRequestCount());
+		assertFalse("the server refusing connections is out of rotation", dead.isHealthy());
+		assertEquals("no call is sent to an ejected server", 1, dead.getFailures());
+	}
+
+	@Test
+	public void failingServerIsEjectedThenTriedAgainAfterTheEjectionTime() throws Exception
+	{
+		ReportServerCluster cluster = new ReportServerCluster(new String[] { first.getUrl(), second.getUrl() });
+		cluster.setMaxFailures(1);
+		cluster.setEjectionTime(300);
+
+		first.setFailureStatus(503);
+
+		for(int i = 0; i < 20; i++)
+		{
+			client.buildReport(cluster, TEMPLATE, "data".getBytes(), ExportType.PDF, null, 1);
+		}
+
+		ReportServerNode failing = cluster.getNodes().get(0);
+
+		assertFalse(failing.isHealthy());
+		assertEquals("the 503 is retried on the other server, then the failing one is left out", 1, first.getRequestCount());
+		assertEquals(20, second.getRequestCount());
+
+		// the ejection is over and the other server fails now, the call or its retry is the trial call of the first one
+		first.setFailureStatus(0);
+		second.setFailureStatus(503);
+		Thread.sleep(400);
+
+		client.buildReport(cluster, TEMPLATE, "data".getBytes(), ExportType.PDF, null, 1);
+
+		assertTrue("the trial call succeeded, the server is back in rotation", failing.isHealthy());
+		// the scores of the servers decide which one is tried first
+		assertEquals("the other server is left out once it answered a 503", second.getRequestCount() > 20, !cluster.getNodes().get(1).isHealthy());
+	}
+
+	@Test
+	public void slowServerGetsFewerCalls() throws Exception
+	{
+		ReportServerCluster cluster = new ReportServerCluster(new String[] { first.getUrl(), second.getUrl() });
+
+		// the first call of the JVM would be the first latency sample of a server
+		client.buildReport(first.getUrl(), TEMPLATE, "data".getBytes(), ExportType.PDF, null, 1);
+		client.buildReport(second.getUrl(), TEMPLATE, "data".getBytes(), ExportType.PDF, null, 1);
+		first.resetCounters();
+		second.resetCounters();
+
+		first.setLatency(100);
+
+		for(int i = 0; i < 20; i++)
+		{
+			client.buildReport(cluster, TEMPLATE, "data".getBytes(), ExportType.PDF, null, 1);
+		}
+
+		assertTrue("slow: " + first.getRequestCount() + ", fast: " + second.getRequestCount(), first.getRequestCount() * 2 < second.getRequestCount());
+		assertEquals(20, first.getRequestCount() + second.getRequestCount());
+	}
+
+	/**
+	 * The url of a port nothing listens on
+	 */
+	private static String deadUrl() throws Exception
+	{
+		ServerSocket socket = new ServerSocket(0);
+		int port = socket.getLocalPort();
+
+		socket.close();
+
+		return "http://127.0.0.1:" + port + StubReportServer.PATH;
+	}
+}
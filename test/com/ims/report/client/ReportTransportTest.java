@@ -0,0 +1,251 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import com.ims.report.client.exceptions.DeadlineExceededException;
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * The calls of every HttpBackend to the StubReportServer
+ */
+@RunWith(Parameterized.class)
+public class ReportTransportTest extends StubServerTestCase
+{
+	private final HttpBackend backend;
+
+	@Parameterized.Parameters(name = "{0}")
+	public static Collection<Object[]> backends()
+	{
+		return Arrays.asList(new Object[][] { { HttpBackend.COMMONS }, { HttpBackend.JDK_HTTP1 }, { HttpBackend.JDK_HTTP2 } });
+	}
+
+	public ReportTransportTest(HttpBackend backend)
+	{
+		this.backend = backend;
+	}
+
+	protected HttpReportClientConfig createConfig()
+	{
+		return HttpReportClientConfig.builder().httpBackend(backend).build();
+	}
+
+	@Test
+	public void bigDatasourceIsSentAndAnswered() throws Exception
+	{
+		byte[] datasource = payload(1024 * 1024);
+
+		assertArrayEquals(datasource, build(datasource));
+		assertArrayEquals(datasource, build(datasource));
+	}
+
+	@Test
+	public void streamedDatasourceIsSentAndAnswered() throws Exception
+	{
+		final byte[] datasource = payload(200 * 1024);
+
+		byte[] report = client.buildReport(stub.getUrl(), TEMPLATE, ReportDatasource.fromWriter(new DatasourceWriter()
+		{
+			public void write(OutputStream out) throws IOException
+			{
+				// in small pieces, the transport must not wait for a full buffer it does not get
+				for(int i = 0; i < datasource.length; i += 1000)
+				{
+					out.write(datasource, i, Math.min(1000, datasource.length - i));
+				}
+			}
+		}), ExportType.PDF, null, 1);
+
+		assertArrayEquals(datasource, report);
+	}
+
+	@Test
+	public void errorStatusFailsTheCall() throws Exception
+	{
+		stub.setFailureStatus(500);
+
+		try
+		{
+			build("data".getBytes());
+			fail("the call succeeded");
+		}
+		catch (HttpReportClientException e)
+		{
+			assertFalse(e instanceof DeadlineExceededException);
+		}
+	}
+
+	@Test
+	public void deadlineEndsTheWaitForTheResponse() throws Exception
+	{
+		stub.setLatency(2000);
+
+		long start = System.currentTimeMillis();
+
+		try
+		{
+			client.buildReport(stub.getUrl(), TEMPLATE, "data".getBytes(), ExportType.PDF, null, 1, CallOptions.withTimeout(300));
+			fail("the call outlived its deadline");
+		}
+		catch (DeadlineExceededException e)
+		{
+			// expected
+		}
+
+		long elapsed = System.currentTimeMillis() - start;
+
+		assertTrue("elapsed: " + elapsed + " ms", elapsed < 1500);
+	}
+
+	/**
+	 * The transport writes the body as it is and sends the length it announces
+	 */
+	@Test
+	public void bodyIsWrittenAsAnnounced() throws Exception
+	{
+		HttpReportClientConfig config = HttpReportClientConfig.builder().httpBackend(backend).compression(CompressionPolicy.NONE).build();
+		RecordingTransport transport = new RecordingTransport(createTransport(config));
+
+		client = new HttpReportClient(config, transport);
+
+		try
+		{
+			byte[] datasource = payload(100 * 1024);
+
+			assertArrayEquals(datasource, build(datasource));
+		}
+		finally
+		{
+			client.shutdown();
+		}
+
+		assertEquals(1, transport.bodies.size());
+
+		MeteredBody body = (MeteredBody)transport.bodies.get(0);
+
+		assertTrue(body.getContentLength() > 100 * 1024);
+		assertEquals(body.getContentLength(), body.getBytesWritten());
+		assertEquals(body.getBytesWritten(), stub.getBytesReceived());
+	}
+
+	@Test
+	public void shutdownStopsTheTransport() throws Exception
+	{
+		// the java.net.http.HttpClient can only be stopped from JDK 21, before it stops once unreachable
+		Assume.assumeTrue(backend == HttpBackend.COMMONS || hasShutdownNow());
+
+		build("data".getBytes());
+		client.shutdown();
+
+		try
+		{
+			build("data".getBytes());
+			fail("the call went through a transport shut down");
+		}
+		catch (Exception e)
+		{
+			// expected
+		}
+
+		assertEquals(1, stub.getRequestCount());
+	}
+
+	private static ReportTransport createTransport(HttpReportClientConfig config)
+	{
+		if(config.getHttpBackend() == HttpBackend.COMMONS)
+			return new CommonsHttpTransport(config);
+
+		return new JdkHttpTransport(config, config.getHttpBackend() == HttpBackend.JDK_HTTP2);
+	}
+
+	private static boolean hasShutdownNow()
+	{
+		try
+		{
+			HttpClient.class.getMethod("shutdownNow");
+			return true;
+		}
+		catch (NoSuchMethodException e)
+		{
+			return false;
+		}
+	}
+
+	private static byte[] payload(int size)
+	{
+		byte[] payload = new byte[size];
+
+		for(int i = 0; i < size; i++)
+		{
+			payload[i] = (byte)('a' + i % 26);
+		}
+
+		return payload;
+	}
+
+	/**
+	 * Keeps the bodies of the requests it passes on
+	 */
+	private static class RecordingTransport implements ReportTransport
+	{
+		private final ReportTransport transport;
+		final List<TransportBody> bodies = new ArrayList<TransportBody>();
+
+		RecordingTransport(ReportTransport transport)
+		{
+			this.transport = transport;
+		}
+
+		public TransportExchange post(TransportRequest request) throws IOException
+		{
+			bodies.add(request.getBody());
+
+			return transport.post(request);
+		}
+
+		public int warmUp(String serverUrl, int connections, WarmUpPolicy policy) throws IOException
+		{
+			return transport.warmUp(serverUrl, connections, policy);
+		}
+
+		public int keepAlive(String serverUrl, WarmUpPolicy policy) throws IOException
+		{
+			return transport.keepAlive(serverUrl, policy);
+		}
+
+		public List<ConnectionPoolStats> getPoolStats()
+		{
+			return transport.getPoolStats();
+		}
+
+		public ConnectionPoolStats getPoolStats(String serverUrl)
+		{
+			return transport.getPoolStats(serverUrl);
+		}
+
+		public void shutdown()
+		{
+			transport.shutdown();
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * The identical calls made at the same time to a slow StubReportServer
+ */
+public class RequestCoalescerTest extends StubServerTestCase
+{
+	private static final byte[] DATASOURCE = "data".getBytes();
+
+	@Test
+	public void identicalCallsShareOneServerCall() throws Exception
+	{
+		stub.setLatency(300);
+
+		List<CompletableFuture<byte[]>> futures = submit(5, DATASOURCE);
+		List<byte[]> reports = new ArrayList<byte[]>();
+
+		for(int i = 0; i < futures.size(); i++)
+		{
+			reports.add(futures.get(i).get(5, TimeUnit.SECONDS));
+			assertArrayEquals(DATASOURCE, reports.get(i));
+		}
+
+		assertEquals(1, stub.getRequestCount());
+
+		// every caller may modify its report
+		assertNotSame(reports.get(0), reports.get(1));
+	}
+
+	@Test
+	public void differentCallsAreNotMerged() throws Exception
+	{
+		stub.setLatency(300);
+
+		CompletableFuture<byte[]> first = submit(1, "first".getBytes()).get(0);
+		CompletableFuture<byte[]> second = submit(1, "second".getBytes()).get(0);
+		CompletableFuture<byte[]> printed = client.printReportAsync(stub.getUrl(), TEMPLATE, "first".getBytes(), "Ward 1", 1);
+
+		assertArrayEquals("first".getBytes(), first.get(5, TimeUnit.SECONDS));
+		assertArrayEquals("second".getBytes(), second.get(5, TimeUnit.SECONDS));
+		printed.get(5, TimeUnit.SECONDS);
+
+		assertEquals("a printing call is never merged", 3, stub.getRequestCount());
+	}
+
+	@Test
+	public void failureReachesEveryCallerAndIsNotKept() throws Exception
+	{
+		stub.setLatency(300);
+		stub.setFailureStatus(500);
+
+		List<CompletableFuture<byte[]>> futures = submit(3, DATASOURCE);
+
+		for(int i = 0; i < futures.size(); i++)
+		{
+			try
+			{
+				futures.get(i).get(5, TimeUnit.SECONDS);
+				fail("the call succeeded");
+			}
+			catch (ExecutionException e)
+			{
+				assertEquals(500, ((HttpReportClientException)e.getCause()).getStatusCode());
+			}
+		}
+
+		assertEquals(1, stub.getRequestCount());
+
+		stub.setFailureStatus(0);
+
+		assertArrayEquals(DATASOURCE, build(DATASOURCE));
+		assertEquals(2, stub.getRequestCount());
+	}
+
+	@Test
+	public void cancelledCallerDoesNotCancelTheOthers() throws Exception
+	{
+		stub.setLatency(500);
+
+		List<CompletableFuture<byte[]>> futures = submit(2, DATASOURCE);
+
+		awaitRequest();
+		assertTrue(futures.get(0).cancel(true));
+
+		assertArrayEquals(DATASOURCE, futures.get(1).get(5, TimeUnit.SECONDS));
+		assertEquals(1, stub.getRequestCount());
+	}
+
+	@Test
+	public void sharedCallIsAbortedOnceEveryCallerLeft() throws Exception
+	{
+		stub.setLatency(3000);
+
+		List<CompletableFuture<byte[]>> futures = submit(2, DATASOURCE);
+
+		awaitRequest();
+		futures.get(0).cancel(true);
+		futures.get(1).cancel(true);
+
+		// the next identical call does not join the aborted one
+		stub.setLatency(0);
+
+		long start = System.currentTimeMillis();
+
+		assertArrayEquals(DATASOURCE, build(DATASOURCE));
+		assertTrue(System.currentTimeMillis() - start < 2000);
+		assertEquals(2, stub.getRequestCount());
+	}
+
+	private List<CompletableFuture<byte[]>> submit(int count, byte[] datasource)
+	{
+		List<CompletableFuture<byte[]>> futures = new ArrayList<CompletableFuture<byte[]>>();
+
+		for(int i = 0; i < count; i++)
+		{
+			futures.add(client.buildReportAsync(stub.getUrl(), TEMPLATE, datasource, ExportType.PDF, null, 1));
+		}
+
+		return futures;
+	}
+
+	private void awaitRequest()
+	{
+		while(stub.getInFlight() == 0)
+		{
+			sleep(10);
+		}
+
+		// the other callers join meanwhile
+		sleep(100);
+	}
+}
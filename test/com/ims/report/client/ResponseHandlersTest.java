@@ -0,0 +1,116 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * The reports written to an OutputStream, a channel or a file instead of a byte[]
+ */
+public class ResponseHandlersTest extends StubServerTestCase
+{
+	private static final byte[] REPORT = report(300 * 1024);
+
+	@Test
+	public void reportIsWrittenToTheStream() throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		assertEquals(REPORT.length, client.buildReport(stub.getUrl(), TEMPLATE, REPORT, ExportType.PDF, null, 1, out));
+		assertArrayEquals(REPORT, out.toByteArray());
+	}
+
+	@Test
+	public void reportIsWrittenToTheChannel() throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		assertEquals(REPORT.length, client.buildReport(stub.getUrl(), TEMPLATE, REPORT, ExportType.PDF, null, 1, Channels.newChannel(out)));
+		assertArrayEquals(REPORT, out.toByteArray());
+	}
+
+	@Test
+	public void fileIsReplacedByTheReport() throws Exception
+	{
+		Path file = Files.createTempFile("report", ".pdf");
+
+		try
+		{
+			// longer than the report, what is left of it would corrupt the report
+			Files.write(file, report(REPORT.length + 1000));
+
+			assertEquals(REPORT.length, client.buildReport(stub.getUrl(), TEMPLATE, REPORT, ExportType.PDF, null, 1, file));
+			assertArrayEquals(REPORT, Files.readAllBytes(file));
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * The connection was closed before the end of the response
+	 */
+	@Test
+	public void truncatedResponseFailsEveryTarget() throws Exception
+	{
+		Path file = Files.createTempFile("report", ".pdf");
+
+		try
+		{
+			assertTruncated(ResponseHandlers.toStream(new ByteArrayOutputStream()));
+			assertTruncated(ResponseHandlers.toChannel(Channels.newChannel(new ByteArrayOutputStream())));
+			assertTruncated(ResponseHandlers.toFile(file));
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void responseWithoutLengthIsReadToItsEnd() throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		assertEquals(Long.valueOf(REPORT.length), ResponseHandlers.toStream(out).handleResponse(new ByteArrayInputStream(REPORT), -1));
+		assertArrayEquals(REPORT, out.toByteArray());
+	}
+
+	private static void assertTruncated(ResponseHandler<Long> handler)
+	{
+		try
+		{
+			handler.handleResponse(new ByteArrayInputStream(REPORT, 0, REPORT.length - 10), REPORT.length);
+			fail("a truncated report was accepted");
+		}
+		catch (IOException e)
+		{
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Premature end of response"));
+		}
+	}
+
+	private static byte[] report(int size)
+	{
+		byte[] report = new byte[size];
+
+		new Random(size).nextBytes(report);
+
+		return report;
+	}
+}
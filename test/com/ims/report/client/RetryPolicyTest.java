@@ -0,0 +1,203 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+import com.ims.report.client.stub.StubReportServer;
+
+/**
+ * The retries, their budget and the hedged requests of the calls to StubReportServers
+ */
+public class RetryPolicyTest extends StubServerTestCase
+{
+	protected HttpReportClientConfig createConfig()
+	{
+		return config(RetryPolicy.builder().maxAttempts(3).initialBackoff(1).maxBackoff(1));
+	}
+
+	@Test
+	public void unavailableServerIsRetriedUpToMaxAttempts() throws Exception
+	{
+		stub.setFailureStatus(503);
+
+		assertFailsWith(503);
+		assertEquals(3, stub.getRequestCount());
+		assertEquals(2, client.getMetrics().get(ReportOperation.BUILD_REPORT, ExportType.PDF).getRetries());
+	}
+
+	@Test
+	public void reportThatCannotBeRenderedIsNotRetried() throws Exception
+	{
+		stub.setFailureStatus(500);
+
+		assertFailsWith(500);
+		assertEquals(1, stub.getRequestCount());
+	}
+
+	@Test
+	public void printingIsNeverRetried() throws Exception
+	{
+		stub.setFailureStatus(503);
+
+		try
+		{
+			client.printReport(stub.getUrl(), TEMPLATE, "data".getBytes(), "Ward 1", 1);
+			fail("the call succeeded");
+		}
+		catch (HttpReportClientException e)
+		{
+			assertEquals(503, e.getStatusCode());
+		}
+
+		assertEquals("a retry could print twice", 1, stub.getRequestCount());
+	}
+
+	@Test
+	public void spentBudgetStopsTheRetries() throws Exception
+	{
+		client = newClient(config(RetryPolicy.builder().maxAttempts(3).initialBackoff(1).maxBackoff(1).budgetRatio(0).budgetMinPerSecond(1)));
+		stub.setFailureStatus(503);
+		awaitStartOfSecond();
+
+		assertFailsWith(503);
+		assertEquals("one retry, then the budget is spent", 2, stub.getRequestCount());
+	}
+
+	@Test
+	public void budgetAllowsAFractionOfTheCallsBeyondTheRetriesPerSecond()
+	{
+		RetryBudget budget = new RetryBudget(0.5, 2);
+
+		awaitStartOfSecond();
+
+		assertTrue(budget.tryWithdraw());
+		assertTrue(budget.tryWithdraw());
+		assertFalse(budget.tryWithdraw());
+
+		budget.deposit();
+		assertFalse("half a retry", budget.tryWithdraw());
+
+		budget.deposit();
+		assertTrue(budget.tryWithdraw());
+		assertFalse(budget.tryWithdraw());
+
+		// the deposits are capped
+		for(int i = 0; i < 1000; i++)
+		{
+			budget.deposit();
+		}
+
+		for(int i = 0; i < 100; i++)
+		{
+			assertTrue(budget.tryWithdraw());
+		}
+
+		assertFalse(budget.tryWithdraw());
+	}
+
+	@Test
+	public void backoffGrowsWithJitterUpToTheMaximum()
+	{
+		RetryPolicy policy = RetryPolicy.builder().initialBackoff(100).multiplier(2).maxBackoff(300).build();
+
+		for(int i = 0; i < 100; i++)
+		{
+			assertTrue(policy.getBackoff(1) < 100);
+			assertTrue(policy.getBackoff(2) < 200);
+			assertTrue(policy.getBackoff(10) < 300);
+			assertTrue(policy.getBackoff(10) >= 0);
+		}
+	}
+
+	@Test
+	public void invalidPolicyIsRefused()
+	{
+		try
+		{
+			RetryPolicy.builder().maxAttempts(0).build();
+			fail("no attempt at all was taken");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// expected
+		}
+
+		try
+		{
+			RetryPolicy.builder().hedgeAfterPercentile(100).build();
+			fail("the 100th percentile was taken");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// expected
+		}
+	}
+
+	@Test
+	public void slowServerIsHedgedOnTheOtherServer() throws Exception
+	{
+		StubReportServer slow = stub;
+		StubReportServer fast = start(new StubReportServer(0));
+		client = newClient(config(RetryPolicy.builder().maxAttempts(2).hedgeDelay(500)));
+		slow.setLatency(3000);
+
+		// the first call of a client is slow enough to be hedged
+		client.buildReport(fast.getUrl(), TEMPLATE, "warm-up".getBytes(), ExportType.PDF, null, 1);
+
+		// a new cluster knows no latency and picks either server
+		for(int i = 0; i < 20 && slow.getRequestCount() == 0; i++)
+		{
+			ReportServerCluster cluster = new ReportServerCluster(new String[] { slow.getUrl(), fast.getUrl() });
+			byte[] datasource = ("call " + i).getBytes();
+			long start = System.currentTimeMillis();
+
+			assertArrayEquals(datasource, client.buildReport(cluster, TEMPLATE, datasource, ExportType.PDF, null, 1));
+			assertTrue("the call waited for the slow server", System.currentTimeMillis() - start < 2000);
+		}
+
+		ReportOperationMetrics metrics = client.getMetrics().get(ReportOperation.BUILD_REPORT, ExportType.PDF);
+
+		assertEquals(1, slow.getRequestCount());
+		assertEquals(1, metrics.getHedges());
+		assertEquals(1, metrics.getHedgeWins());
+	}
+
+	private void assertFailsWith(int status)
+	{
+		try
+		{
+			build("data".getBytes());
+			fail("the call succeeded");
+		}
+		catch (HttpReportClientException e)
+		{
+			assertEquals(status, e.getStatusCode());
+		}
+	}
+
+	/**
+	 * The budget counts the retries of every second, a test must not run across two
+	 */
+	private static void awaitStartOfSecond()
+	{
+		while(System.currentTimeMillis() % 1000 > 500)
+		{
+			sleep(10);
+		}
+	}
+
+	private static HttpReportClientConfig config(RetryPolicy.Builder policy)
+	{
+		return HttpReportClientConfig.builder().retryPolicy(policy.build()).build();
+	}
+}
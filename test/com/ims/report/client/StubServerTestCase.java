@@ -0,0 +1,100 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+import com.ims.report.client.stub.StubReportServer;
+
+/**
+ * The tests calling a StubReportServer: a stub and a client are started before every test and
+ * stopped after it, with the other stubs and clients the test started
+ */
+public abstract class StubServerTestCase
+{
+	protected static final byte[] TEMPLATE = "template".getBytes();
+
+	protected StubReportServer stub;
+	protected HttpReportClient client;
+
+	private List<StubReportServer> stubs = new ArrayList<StubReportServer>();
+	private List<HttpReportClient> clients = new ArrayList<HttpReportClient>();
+
+	@Before
+	public void startStub() throws Exception
+	{
+		stub = start(new StubReportServer(0));
+		client = newClient(createConfig());
+	}
+
+	@After
+	public void stopStub()
+	{
+		for(int i = 0; i < clients.size(); i++)
+		{
+			clients.get(i).shutdown();
+		}
+
+		for(int i = 0; i < stubs.size(); i++)
+		{
+			stubs.get(i).stop();
+		}
+	}
+
+	/**
+	 * The configuration of the client started before every test
+	 */
+	protected HttpReportClientConfig createConfig()
+	{
+		return HttpReportClientConfig.builder().build();
+	}
+
+	/**
+	 * Starts another stub, stopped after the test
+	 */
+	protected StubReportServer start(StubReportServer server) throws Exception
+	{
+		stubs.add(server.start());
+
+		return server;
+	}
+
+	/**
+	 * Starts another client, shut down after the test
+	 */
+	protected HttpReportClient newClient(HttpReportClientConfig config)
+	{
+		HttpReportClient started = new HttpReportClient(config);
+
+		clients.add(started);
+
+		return started;
+	}
+
+	/**
+	 * buildReport() of TEMPLATE with the datasource on the stub, the stub answers the datasource
+	 */
+	protected byte[] build(byte[] datasource) throws HttpReportClientException
+	{
+		return client.buildReport(stub.getUrl(), TEMPLATE, datasource, ExportType.PDF, null, 1);
+	}
+
+	protected static void sleep(long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The templates sent by digest to a StubReportServer holding them, and sent again when it does not
+ */
+public class TemplateRegistryTest extends StubServerTestCase
+{
+	private byte[] template = new byte[64 * 1024];
+
+	@Before
+	public void setUp() throws Exception
+	{
+		new Random(1).nextBytes(template);
+
+		// the first call learns the capabilities of the server, the second one uploads the template with its digest
+		build("first");
+		build("second");
+	}
+
+	@Test
+	public void heldTemplateIsSentByDigest() throws Exception
+	{
+		long received = stub.getBytesReceived();
+
+		build("third");
+
+		assertTrue("bytes received: " + (stub.getBytesReceived() - received), stub.getBytesReceived() - received < template.length);
+		assertEquals(1, stub.getTemplateCount());
+		assertEquals(1, getStats().getUploaded());
+		assertEquals(1, getStats().getSentByDigest());
+	}
+
+	@Test
+	public void evictedTemplateIsUploadedAgainAfter412() throws Exception
+	{
+		stub.clearTemplates();
+		stub.resetCounters();
+
+		build("after eviction");
+
+		assertEquals("the digest alone, answered 412, then the template", 2, stub.getRequestCount());
+		assertEquals(1, getStats().getMisses());
+		assertEquals(1, stub.getTemplateCount());
+
+		stub.resetCounters();
+		build("held again");
+
+		assertEquals(1, stub.getRequestCount());
+		assertTrue(stub.getBytesReceived() < template.length);
+	}
+
+	@Test
+	public void restartedServerGetsTheTemplateAgain() throws Exception
+	{
+		stub.restart();
+
+		build("after restart");
+		build("held again");
+
+		assertEquals(1, getStats().getRestarts());
+		assertEquals(1, stub.getTemplateCount());
+		assertTrue(getStats().getSentByDigest() >= 1);
+	}
+
+	private void build(String data) throws Exception
+	{
+		byte[] datasource = data.getBytes();
+
+		assertArrayEquals(datasource, client.buildReport(stub.getUrl(), template, datasource, ExportType.PDF, null, 1));
+	}
+
+	private TemplateDigestStats getStats()
+	{
+		return client.getTemplateDigestStats().get(0);
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Created on Oct 18, 2026
+ *
+ */
+package com.ims.report.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.apache.commons.httpclient.HttpStatus;
+import org.junit.Test;
+
+import com.ims.report.client.exceptions.HttpReportClientException;
+
+/**
+ * The FORM, MULTIPART and AUTO transport modes against a StubReportServer, uncompressed so the bytes
+ * received tell how the fields were encoded
+ */
+public class TransportModeTest extends StubServerTestCase
+{
+	private static final byte[] DATASOURCE = datasource(90 * 1024);
+
+	@Test
+	public void formSendsTheFieldsBase64Encoded() throws Exception
+	{
+		client = newClient(config(TransportMode.FORM));
+
+		assertArrayEquals(DATASOURCE, build(DATASOURCE));
+		assertTrue("received: " + stub.getBytesReceived(), stub.getBytesReceived() >= DATASOURCE.length * 4 / 3);
+	}
+
+	@Test
+	public void multipartSendsTheRawBytes() throws Exception
+	{
+		client = newClient(config(TransportMode.MULTIPART));
+
+		assertArrayEquals(DATASOURCE, build(DATASOURCE));
+		assertTrue("received: " + stub.getBytesReceived(), stub.getBytesReceived() < DATASOURCE.length + 2 * 1024);
+	}
+
+	@Test
+	public void autoSwitchesToMultipartOnceTheServerAdvertisesIt() throws Exception
+	{
+		client = newClient(config(TransportMode.AUTO));
+
+		// nothing known of the server yet
+		assertArrayEquals(DATASOURCE, build(DATASOURCE));
+		assertTrue(stub.getBytesReceived() >= DATASOURCE.length * 4 / 3);
+
+		stub.resetCounters();
+
+		assertArrayEquals(DATASOURCE, build(DATASOURCE));
+		assertTrue("received: " + stub.getBytesReceived(), stub.getBytesReceived() < DATASOURCE.length + 2 * 1024);
+	}
+
+	@Test
+	public void autoFallsBackToFormWhenMultipartIsRefused() throws Exception
+	{
+		client = newClient(config(TransportMode.AUTO));
+
+		build(DATASOURCE);
+		stub.setMultipartSupported(false);
+		stub.resetCounters();
+
+		assertArrayEquals(DATASOURCE, build(DATASOURCE));
+		assertEquals("refused, then sent again as a form", 2, stub.getRequestCount());
+	}
+
+	@Test
+	public void multipartRefusedFailsTheCall() throws Exception
+	{
+		client = newClient(config(TransportMode.MULTIPART));
+		stub.setMultipartSupported(false);
+
+		try
+		{
+			build(DATASOURCE);
+			fail("the server refusing multipart posts rendered the report");
+		}
+		catch (HttpReportClientException e)
+		{
+			assertEquals(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, e.getStatusCode());
+		}
+	}
+
+	private static HttpReportClientConfig config(TransportMode mode)
+	{
+		return HttpReportClientConfig.builder().transportMode(mode).compression(CompressionPolicy.NONE).build();
+	}
+
+	private static byte[] datasource(int size)
+	{
+		byte[] datasource = new byte[size];
+
+		new Random(8).nextBytes(datasource);
+
+		return datasource;
+	}
+}
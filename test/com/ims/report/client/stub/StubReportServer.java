@@ -0,0 +1,751 @@
+/*
+ * Created on Oct 17, 2026
+ *
+ */
+package com.ims.report.client.stub;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for ImsReportServerCgi.exe, used to try HttpReportClient without a report server
+ * It accepts the same form post, "renders" a report by sending back the datasource
+ * (or the prepared report / office document) and answers "true" to the print calls
+ * The latency and the returned status can be changed while it runs to simulate a slow or failing server,
+ * setLatencyPerCall() makes it slower with every call in progress like a server running out of CPU
+ * It also accepts multipart/form-data posts (advertised with X-Report-Server-Capabilities) unless
+ * setMultipartSupported(false) is called, the byte counters show what each transport mode costs
+ * Likewise gzip compressed requests are accepted and the responses are compressed when the client
+ * asks for it, unless setCompressionSupported(false) is called; the counters are the bytes on the wire
+ * The templates received with their SHA-256 (templateDigest field) are kept, a call sending the digest
+ * alone uses the kept template or is answered 412 if there is none (see clearTemplates() and restart()),
+ * unless setTemplateDigestSupported(false) is called
+ * A batch request (a "batch" field and the fields of every job prefixed with its position: 0.template, ...)
+ * is answered with a frame per job as it is rendered, unless setBatchSupported(false) is called
+ * The X-Report-Time-Budget header of the last call is kept, see getLastTimeBudget()
+ * TCP_NODELAY is on (sun.net.httpserver.nodelay) unless the property is set otherwise
+ *
+ * <pre>
+ * java com.ims.report.client.stub.StubReportServer 8081 8082 8083
+ * </pre>
+ */
+public class StubReportServer
+{
+	public static final String PATH = "/ImsReportServerCgi.exe";
+	public static final String CAPABILITIES_HEADER = "X-Report-Server-Capabilities";
+	public static final String INSTANCE_HEADER = "X-Report-Server-Instance";
+	public static final String TEMPLATE_MISSING_HEADER = "X-Report-Template-Missing";
+	public static final String BATCH_CONTENT_TYPE = "application/x-report-batch";
+
+	private static final int MAX_TEMPLATES = 256;
+
+	static
+	{
+		// the JDK server leaves Nagle on by default, a small response then waits for the delayed ACK (~40 ms)
+		// and the latencies measured against the stub are the ones of the TCP stack; read once, by the first server
+		if(System.getProperty("sun.net.httpserver.nodelay") == null)
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private static final String[] BINARY_FIELDS = { "template", "datasource", "preparedReport", "officeDocument" };
+
+	private HttpServer server;
+	private ExecutorService executor;
+
+	private volatile long latency;
+	private volatile long latencyPerCall;
+	private volatile int failureStatus;
+	private volatile boolean multipartSupported = true;
+	private volatile boolean compressionSupported = true;
+	private volatile boolean templateDigestSupported = true;
+	private volatile boolean batchSupported = true;
+	private volatile long batchJobLatency;
+	private volatile String instance = newInstance();
+	private volatile long lastTimeBudget = -1;
+	private volatile boolean closeAfterProbe;
+	private volatile String lastProbe;
+
+	private final LinkedHashMap<String, byte[]> templates = new LinkedHashMap<String, byte[]>(16, 0.75f, true)
+	{
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest)
+		{
+			return size() > MAX_TEMPLATES;
+		}
+	};
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong bytesReceived = new AtomicLong();
+	private final AtomicLong bytesSent = new AtomicLong();
+	private final AtomicLong probes = new AtomicLong();
+
+	/**
+	 * @param port		0 picks a free port
+	 */
+	public StubReportServer(int port) throws IOException
+	{
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+		server.createContext(PATH, new HttpHandler()
+		{
+			public void handle(HttpExchange exchange) throws IOException
+			{
+				try
+				{
+					StubReportServer.this.handle(exchange);
+				}
+				finally
+				{
+					exchange.close();
+				}
+			}
+		});
+	}
+
+	public StubReportServer start()
+	{
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.start();
+
+		return this;
+	}
+
+	public void stop()
+	{
+		server.stop(0);
+
+		if(executor != null)
+			executor.shutdownNow();
+	}
+
+	public String getUrl()
+	{
+		return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+	}
+
+	/**
+	 * Milliseconds every call waits before answering, simulates the rendering time
+	 */
+	public void setLatency(long latency)
+	{
+		this.latency = latency;
+	}
+
+	/**
+	 * Milliseconds added to the latency for every other call in progress, simulates a server degrading under load
+	 */
+	public void setLatencyPerCall(long latencyPerCall)
+	{
+		this.latencyPerCall = latencyPerCall;
+	}
+
+	/**
+	 * When not 0 every call is answered with this HTTP status, example: 503
+	 */
+	public void setFailureStatus(int failureStatus)
+	{
+		this.failureStatus = failureStatus;
+	}
+
+	/**
+	 * When false multipart posts are answered with 415 and the capability is not advertised
+	 */
+	public void setMultipartSupported(boolean multipartSupported)
+	{
+		this.multipartSupported = multipartSupported;
+	}
+
+	/**
+	 * When false gzip requests are answered with 415, the responses are never compressed
+	 * and the capability is not advertised
+	 */
+	public void setCompressionSupported(boolean compressionSupported)
+	{
+		this.compressionSupported = compressionSupported;
+	}
+
+	/**
+	 * When false the templateDigest field is ignored and the capability is not advertised
+	 */
+	public void setTemplateDigestSupported(boolean templateDigestSupported)
+	{
+		this.templateDigestSupported = templateDigestSupported;
+	}
+
+	/**
+	 * False refuses the batch requests with 400, like a server that does not know them
+	 */
+	public void setBatchSupported(boolean batchSupported)
+	{
+		this.batchSupported = batchSupported;
+	}
+
+	/**
+	 * Milliseconds spent on every job of a batch request, on top of the latency of the request
+	 */
+	public void setBatchJobLatency(long batchJobLatency)
+	{
+		this.batchJobLatency = batchJobLatency;
+	}
+
+	/**
+	 * Forgets the templates kept, like a server evicting them
+	 */
+	public void clearTemplates()
+	{
+		synchronized(templates)
+		{
+			templates.clear();
+		}
+	}
+
+	/**
+	 * Forgets the templates and changes the X-Report-Server-Instance header, like a restarted server
+	 */
+	public void restart()
+	{
+		clearTemplates();
+		instance = newInstance();
+	}
+
+	public int getTemplateCount()
+	{
+		synchronized(templates)
+		{
+			return templates.size();
+		}
+	}
+
+	public long getRequestCount()
+	{
+		return requests.get();
+	}
+
+	/**
+	 * Calls being handled
+	 */
+	public int getInFlight()
+	{
+		return inFlight.get();
+	}
+
+	public long getBytesReceived()
+	{
+		return bytesReceived.get();
+	}
+
+	public long getBytesSent()
+	{
+		return bytesSent.get();
+	}
+
+	/**
+	 * The X-Report-Time-Budget header (milliseconds) of the last call, -1 if it had none
+	 */
+	public long getLastTimeBudget()
+	{
+		return lastTimeBudget;
+	}
+
+	/**
+	 * When true the probes (the requests other than POST) are answered with Connection: close,
+	 * like a server closing its idle connections
+	 */
+	public void setCloseAfterProbe(boolean closeAfterProbe)
+	{
+		this.closeAfterProbe = closeAfterProbe;
+	}
+
+	/**
+	 * The requests other than POST received, the warm-up and keep-alive probes
+	 */
+	public long getProbeCount()
+	{
+		return probes.get();
+	}
+
+	/**
+	 * The method and path of the last probe, example: HEAD /ImsReportServerCgi.exe; null if none came
+	 */
+	public String getLastProbe()
+	{
+		return lastProbe;
+	}
+
+	public void resetCounters()
+	{
+		requests.set(0);
+		bytesReceived.set(0);
+		bytesSent.set(0);
+		probes.set(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException
+	{
+		if(!"POST".equals(exchange.getRequestMethod()))
+		{
+			probe(exchange);
+			return;
+		}
+
+		requests.incrementAndGet();
+
+		String budget = exchange.getRequestHeaders().getFirst("X-Report-Time-Budget");
+		lastTimeBudget = budget == null ? -1 : Long.parseLong(budget.trim());
+
+		byte[] body = readAll(exchange.getRequestBody());
+		bytesReceived.addAndGet(body.length);
+
+		long delay = latency + latencyPerCall * (inFlight.incrementAndGet() - 1);
+
+		try
+		{
+			if(delay > 0)
+				Thread.sleep(delay);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return;
+		}
+		finally
+		{
+			inFlight.decrementAndGet();
+		}
+
+		if(failureStatus != 0)
+		{
+			send(exchange, failureStatus, ("Stub failure " + failureStatus).getBytes("ISO-8859-1"));
+			return;
+		}
+
+		String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+
+		if(contentEncoding != null && !contentEncoding.equalsIgnoreCase("identity"))
+		{
+			if(!compressionSupported || !contentEncoding.equalsIgnoreCase("gzip"))
+			{
+				send(exchange, 415, ("Content-Encoding " + contentEncoding + " is not supported").getBytes("ISO-8859-1"));
+				return;
+			}
+
+			body = readAll(new GZIPInputStream(new ByteArrayInputStream(body)));
+		}
+
+		String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+		Map<String, byte[]> fields;
+
+		if(contentType != null && contentType.startsWith("multipart/form-data"))
+		{
+			if(!multipartSupported)
+			{
+				send(exchange, 415, "multipart/form-data is not supported".getBytes("ISO-8859-1"));
+				return;
+			}
+
+			fields = parseMultipart(body, contentType);
+		}
+		else
+		{
+			fields = decodeBinaryFields(parseForm(new String(body, "ISO-8859-1")));
+		}
+
+		if(fields.containsKey("batch"))
+		{
+			if(!batchSupported)
+			{
+				send(exchange, 400, "Bad request: nothing to render".getBytes("ISO-8859-1"));
+				return;
+			}
+
+			sendBatch(exchange, fields);
+			return;
+		}
+
+		if(templateDigestSupported && fields.containsKey("templateDigest"))
+		{
+			String digest = new String(fields.get("templateDigest"), "ISO-8859-1");
+			byte[] template = fields.get("template");
+
+			if(template == null)
+			{
+				synchronized(templates)
+				{
+					template = templates.get(digest);
+				}
+
+				if(template == null)
+				{
+					exchange.getResponseHeaders().set(TEMPLATE_MISSING_HEADER, digest);
+					send(exchange, 412, ("The template " + digest + " is not held").getBytes("ISO-8859-1"));
+					return;
+				}
+
+				fields.put("template", template);
+			}
+			else if(!digest.equals(sha256(template)))
+			{
+				send(exchange, 400, "Bad request: the templateDigest does not match the template".getBytes("ISO-8859-1"));
+				return;
+			}
+			else
+			{
+				synchronized(templates)
+				{
+					templates.put(digest, template);
+				}
+			}
+		}
+
+		byte[] result;
+
+		try
+		{
+			result = render(fields);
+		}
+		catch (IllegalArgumentException e)
+		{
+			send(exchange, 400, ("Bad request: " + e.getMessage()).getBytes("ISO-8859-1"));
+			return;
+		}
+
+		String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+
+		if(compressionSupported && acceptEncoding != null && acceptEncoding.toLowerCase().indexOf("gzip") >= 0)
+		{
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+			gzip.write(result);
+			gzip.close();
+
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+			result = compressed.toByteArray();
+		}
+
+		send(exchange, 200, result);
+	}
+
+	/**
+	 * Builds the answer of a call from its fields, the binary fields are already decoded
+	 */
+	protected byte[] render(Map<String, byte[]> fields) throws IllegalArgumentException
+	{
+		byte[] format = fields.get("format");
+		byte[] source = null;
+
+		if(fields.containsKey("datasource"))
+		{
+			if(!fields.containsKey("template"))
+				throw new IllegalArgumentException("template missing");
+
+			source = fields.get("datasource");
+		}
+		else if(fields.containsKey("preparedReport"))
+			source = fields.get("preparedReport");
+		else if(fields.containsKey("officeDocument"))
+			source = fields.get("officeDocument");
+		else
+			throw new IllegalArgumentException("nothing to render");
+
+		// print calls answer "true"
+		if(format == null || format.length == 0)
+			return "true".getBytes();
+
+		return source;
+	}
+
+	/**
+	 * Renders the jobs one after the other, each frame is sent as soon as its job is done
+	 */
+	private void sendBatch(HttpExchange exchange, Map<String, byte[]> fields) throws IOException
+	{
+		int count = Integer.parseInt(new String(fields.get("batch"), "ISO-8859-1"));
+
+		setHeaders(exchange, BATCH_CONTENT_TYPE);
+		exchange.sendResponseHeaders(200, 0);
+
+		DataOutputStream out = new DataOutputStream(exchange.getResponseBody());
+
+		for(int i = 0; i < count; i++)
+		{
+			Map<String, byte[]> job = new HashMap<String, byte[]>();
+			String prefix = i + ".";
+
+			for(Map.Entry<String, byte[]> entry : fields.entrySet())
+			{
+				if(entry.getKey().startsWith(prefix))
+					job.put(entry.getKey().substring(prefix.length()), entry.getValue());
+			}
+
+			int status = 200;
+			byte[] result;
+
+			try
+			{
+				if(batchJobLatency > 0)
+					Thread.sleep(batchJobLatency);
+
+				result = render(job);
+			}
+			catch (IllegalArgumentException e)
+			{
+				status = 400;
+				result = ("Bad request: " + e.getMessage()).getBytes("ISO-8859-1");
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			}
+
+			bytesSent.addAndGet(12 + result.length);
+
+			out.writeInt(i);
+			out.writeInt(status);
+			out.writeInt(result.length);
+			out.write(result);
+			out.flush();
+		}
+
+		out.close();
+	}
+
+	private void setHeaders(HttpExchange exchange, String contentType)
+	{
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		String capabilities = (multipartSupported ? "multipart, " : "") + (compressionSupported ? "gzip, " : "") + (templateDigestSupported ? "template-digest, " : "") + (batchSupported ? "batch" : "");
+		if(capabilities.length() > 0)
+			exchange.getResponseHeaders().set(CAPABILITIES_HEADER, capabilities);
+		exchange.getResponseHeaders().set(INSTANCE_HEADER, instance);
+	}
+
+	/**
+	 * Answers the health probes, a HEAD probe without a body
+	 * The HttpServer of the JDK closes the connection once it answered a HEAD, the tests keeping connections
+	 * alive probe with OPTIONS
+	 */
+	private void probe(HttpExchange exchange) throws IOException
+	{
+		probes.incrementAndGet();
+		lastProbe = exchange.getRequestMethod() + " " + exchange.getRequestURI();
+
+		if(closeAfterProbe)
+			exchange.getResponseHeaders().set("Connection", "close");
+
+		if("HEAD".equals(exchange.getRequestMethod()))
+		{
+			setHeaders(exchange, "text/plain");
+			exchange.sendResponseHeaders(200, -1);
+			return;
+		}
+
+		send(exchange, 200, "ImsReportServer stub".getBytes("ISO-8859-1"));
+	}
+
+	private void send(HttpExchange exchange, int status, byte[] body) throws IOException
+	{
+		setHeaders(exchange, "application/octet-stream");
+		exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+
+		// counted first, the client may read the response and check the counters before write() returns
+		bytesSent.addAndGet(body.length);
+
+		OutputStream out = exchange.getResponseBody();
+		out.write(body);
+		out.close();
+	}
+
+	private static String newInstance()
+	{
+		return Long.toHexString(new Random().nextLong());
+	}
+
+	static String sha256(byte[] data)
+	{
+		try
+		{
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+			StringBuffer hex = new StringBuffer(hash.length * 2);
+
+			for(int i = 0; i < hash.length; i++)
+			{
+				hex.append(Character.forDigit((hash[i] >> 4) & 0x0f, 16)).append(Character.forDigit(hash[i] & 0x0f, 16));
+			}
+
+			return hex.toString();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e.toString());
+		}
+	}
+
+	static Map<String, String> parseForm(String body) throws IOException
+	{
+		Map<String, String> fields = new HashMap<String, String>();
+
+		if(body.length() == 0)
+			return fields;
+
+		String[] pairs = body.split("&");
+		for(int i = 0; i < pairs.length; i++)
+		{
+			int eq = pairs[i].indexOf('=');
+			String name = eq < 0 ? pairs[i] : pairs[i].substring(0, eq);
+			String value = eq < 0 ? "" : pairs[i].substring(eq + 1);
+
+			fields.put(URLDecoder.decode(name, "ISO-8859-1"), URLDecoder.decode(value, "ISO-8859-1"));
+		}
+
+		return fields;
+	}
+
+	static Map<String, byte[]> decodeBinaryFields(Map<String, String> form) throws IOException
+	{
+		Map<String, byte[]> fields = new HashMap<String, byte[]>();
+
+		for(Map.Entry<String, String> entry : form.entrySet())
+		{
+			fields.put(entry.getKey(), entry.getValue().getBytes("ISO-8859-1"));
+		}
+
+		for(Map.Entry<String, String> entry : form.entrySet())
+		{
+			// the fields of a batch job are prefixed with its position: 0.template
+			String name = entry.getKey().substring(entry.getKey().indexOf('.') + 1);
+
+			for(int i = 0; i < BINARY_FIELDS.length; i++)
+			{
+				if(BINARY_FIELDS[i].equals(name))
+					fields.put(entry.getKey(), Base64.getDecoder().decode(entry.getValue()));
+			}
+		}
+
+		return fields;
+	}
+
+	/**
+	 * A minimal multipart/form-data parser, enough for the parts sent by HttpReportClient
+	 */
+	static Map<String, byte[]> parseMultipart(byte[] body, String contentType) throws IOException
+	{
+		Map<String, byte[]> fields = new HashMap<String, byte[]>();
+
+		int b = contentType.indexOf("boundary=");
+		if(b < 0)
+			throw new IOException("No multipart boundary");
+
+		String boundary = contentType.substring(b + "boundary=".length()).trim();
+		if(boundary.startsWith("\"") && boundary.endsWith("\""))
+			boundary = boundary.substring(1, boundary.length() - 1);
+
+		byte[] delimiter = ("--" + boundary).getBytes("ISO-8859-1");
+		int pos = indexOf(body, delimiter, 0);
+
+		while(pos >= 0)
+		{
+			int headersStart = pos + delimiter.length;
+
+			// "--" after the delimiter closes the body
+			if(headersStart + 1 < body.length && body[headersStart] == '-' && body[headersStart + 1] == '-')
+				break;
+
+			headersStart += 2;	// CRLF
+
+			int headersEnd = indexOf(body, "\r\n\r\n".getBytes("ISO-8859-1"), headersStart);
+			if(headersEnd < 0)
+				break;
+
+			int next = indexOf(body, delimiter, headersEnd + 4);
+			if(next < 0)
+				break;
+
+			String headers = new String(body, headersStart, headersEnd - headersStart, "ISO-8859-1");
+			int n = headers.indexOf("name=\"");
+
+			if(n >= 0)
+			{
+				String name = headers.substring(n + 6, headers.indexOf('"', n + 6));
+				int contentStart = headersEnd + 4;
+				int contentEnd = next - 2;	// CRLF before the delimiter
+
+				byte[] value = new byte[Math.max(0, contentEnd - contentStart)];
+				System.arraycopy(body, contentStart, value, 0, value.length);
+
+				fields.put(name, value);
+			}
+
+			pos = next;
+		}
+
+		return fields;
+	}
+
+	private static int indexOf(byte[] data, byte[] pattern, int from)
+	{
+		outer:
+		for(int i = from; i <= data.length - pattern.length; i++)
+		{
+			for(int j = 0; j < pattern.length; j++)
+			{
+				if(data[i + j] != pattern[j])
+					continue outer;
+			}
+
+			return i;
+		}
+
+		return -1;
+	}
+
+	static byte[] readAll(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[64 * 1024];
+		int len;
+
+		while((len = in.read(buffer)) > 0)
+		{
+			out.write(buffer, 0, len);
+		}
+
+		return out.toByteArray();
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length == 0)
+			args = new String[] { "8081" };
+
+		for(int i = 0; i < args.length; i++)
+		{
+			StubReportServer stub = new StubReportServer(Integer.parseInt(args[i])).start();
+			System.out.println("Stub report server listening on " + stub.getUrl());
+		}
+	}
+}